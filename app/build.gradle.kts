@@ -32,6 +32,15 @@ android {
     buildFeatures {
         mlModelBinding = true
     }
+    testOptions {
+        unitTests.all {
+            // Offline replay (ReplayHarnessTest): forward -Preplay.* to the test JVM
+            project.properties.filterKeys { it.startsWith("replay.") }.forEach { (key, value) ->
+                systemProperty(key, value.toString())
+            }
+            project.findProperty("replay.jni")?.let { systemProperty("java.library.path", it.toString()) }
+        }
+    }
 }
 
 dependencies {
@@ -44,16 +53,23 @@ dependencies {
     androidTestImplementation(libs.espresso.core)
 
     implementation("org.tensorflow:tensorflow-lite:2.14.0")
+    implementation("org.tensorflow:tensorflow-lite-gpu:2.14.0")
 
     // UVC camera driver — local module from usbcamera/libuvc (no JitPack needed)
     implementation(project(":libuvc"))
 
+    // Thread affinity JNI helper — local module from usbcamera/libnative
+    implementation(project(":libnative"))
+
     // CameraX
     implementation("androidx.camera:camera-core:1.3.0")
     implementation("androidx.camera:camera-camera2:1.3.0")
     implementation("androidx.camera:camera-lifecycle:1.3.0")
     implementation("androidx.camera:camera-view:1.3.0")
 
+    // Pocket mode: CameraX binds to a LifecycleService
+    implementation("androidx.lifecycle:lifecycle-service:2.6.2")
+
     // TensorFlow Lite Support
     implementation("org.tensorflow:tensorflow-lite-support:0.4.4")
     implementation("org.tensorflow:tensorflow-lite-metadata:0.4.4")
@@ -0,0 +1,218 @@
+package com.example.smartguiderepo;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.speech.SpeechRecognizer;
+import android.speech.tts.TextToSpeech;
+import android.util.Log;
+
+import com.jiangdg.uvc.UVCCapabilityCache;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Process-wide holder for the expensive shared objects: the detector (and the YOLO engine
+ * when its model is bundled), TextToSpeech with
+ * the {@link FeedbackEngine} on top of it, and voice input. {@link SmartGuideApp} calls {@link #preload()} at process
+ * launch. That maps and builds the model on a background thread and warms it up with
+ * a few synthetic inferences, while TTS initializes in parallel. The splash screen
+ * waits on {@link #whenReady} instead of a timer, and both activities use the same
+ * instances instead of creating their own.
+ */
+public class AppServices {
+
+    private static final String TAG = "AppServices";
+    private static final int WARMUP_RUNS = 3;
+    // Detectors beyond the shared one, for a second camera running at the same time
+    private static final int EXTRA_DETECTORS = 1;
+
+    private static AppServices instance;
+
+    private final Context         context;
+    private final Handler         mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService loader      = Executors.newSingleThreadExecutor();
+    private final CountDownLatch  detectorLoaded = new CountDownLatch(1);
+    private final InferenceAffinity affinity;
+    private final UVCCapabilityCache uvcCapabilities;
+
+    // ── Main thread only ──────────────────────────────────────────────────
+    private final List<Runnable> readyCallbacks = new ArrayList<>();
+    private boolean          started;
+    private boolean          detectorReady;
+    private boolean          ttsReady;
+    private long             preloadStartMs;
+    private TextToSpeech     tts;
+    private boolean          ttsAvailable;
+    private FeedbackEngine   feedback;
+    private VoiceAssistant   voice;
+
+    private volatile ObjectDetectorHelper detectorHelper;
+    private volatile YoloDetector         yoloDetector;
+    private volatile InterpreterPool<ObjectDetectorHelper> detectorPool;
+
+    public static synchronized AppServices get(Context context) {
+        if (instance == null) instance = new AppServices(context.getApplicationContext());
+        return instance;
+    }
+
+    private AppServices(Context context) {
+        this.context  = context;
+        this.affinity = new InferenceAffinity(AppSettings.getAffinityMode(context));
+        this.uvcCapabilities = new UVCCapabilityCache(new File(context.getCacheDir(), "uvc"));
+    }
+
+    /** Main thread. Starts loading everything; later calls do nothing. */
+    public void preload() {
+        if (started) return;
+        started        = true;
+        preloadStartMs = SystemClock.elapsedRealtime();
+
+        feedback = new FeedbackEngine(context);
+        tts = new TextToSpeech(context, status -> {
+            ttsAvailable = status == TextToSpeech.SUCCESS;
+            ttsReady     = true;
+            if (ttsAvailable) feedback.attachTts(tts);
+            Log.d(TAG, "TTS " + (ttsAvailable ? "ready" : "failed") + " after "
+                    + (SystemClock.elapsedRealtime() - preloadStartMs) + "ms");
+            checkReady();
+        });
+
+        // Built pinned, so the TFLite pool threads start on the big cores
+        loader.execute(() -> affinity.build(() -> {
+            try {
+                ObjectDetectorHelper helper = new ObjectDetectorHelper(context);
+                long loadedMs = SystemClock.elapsedRealtime();
+                // Benchmarks backends on first launch only; a no-op afterwards
+                helper.selectBackend();
+                helper.warmUp(WARMUP_RUNS);
+                detectorHelper = helper;
+                detectorPool   = new InterpreterPool<>(() -> new ObjectDetectorHelper(helper), EXTRA_DETECTORS);
+                if (AppSettings.isYoloEngine(context)) {
+                    // Benchmarked on its own model; a no-op after the first launch
+                    YoloDetector yolo = YoloDetector.create(context, YoloDetector.selectBackend(context));
+                    if (yolo != null) yolo.warmUp(WARMUP_RUNS);
+                    yoloDetector = yolo;
+                }
+                Log.d(TAG, "Detector loaded after " + (loadedMs - preloadStartMs) + "ms, warm after "
+                        + (SystemClock.elapsedRealtime() - preloadStartMs) + "ms on " + helper.getBackend());
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Detector failed to load", e);
+            } finally {
+                // Never leave the splash or awaitDetector() hanging, even without a detector
+                detectorLoaded.countDown();
+                mainHandler.post(() -> {
+                    detectorReady = true;
+                    checkReady();
+                });
+            }
+        }));
+    }
+
+    /** Main thread. Runs {@code callback} on the main thread once the detector is warm and TTS is up. */
+    public void whenReady(Runnable callback) {
+        if (isReady()) callback.run();
+        else readyCallbacks.add(callback);
+    }
+
+    /** Main thread. Drops a callback that has not run yet, e.g. when its activity is destroyed. */
+    public void removeReadyCallback(Runnable callback) {
+        readyCallbacks.remove(callback);
+    }
+
+    public boolean isReady() {
+        return detectorReady && ttsReady;
+    }
+
+    /**
+     * Blocks until the detector is built and warmed up. Never call it on the main thread.
+     * Returns null if building it failed.
+     */
+    public ObjectDetectorHelper awaitDetector() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                detectorLoaded.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        return detectorHelper;
+    }
+
+    /**
+     * Blocks like {@link #awaitDetector()}, then returns the shared, warmed-up YOLO engine,
+     * or null when the Task Library detector is used. It lives as long as the process:
+     * never close it; build a {@link YoloDetector#sibling()} for a second pipeline.
+     */
+    public YoloDetector awaitYoloDetector() {
+        awaitDetector();
+        return yoloDetector;
+    }
+
+    /**
+     * Blocks like {@link #awaitDetector()}, then leases a detector of its own to a pipeline
+     * that runs next to the one using the shared detector, or returns null if none is
+     * left. It shares the mapped model with the shared one. Build it inside
+     * {@link InferenceAffinity#build} and give it back with {@link #returnDetector}.
+     */
+    public ObjectDetectorHelper leaseDetector() {
+        if (awaitDetector() == null) return null;
+        return detectorPool.acquire();
+    }
+
+    public void returnDetector(ObjectDetectorHelper helper) {
+        detectorPool.release(helper);
+    }
+
+    /**
+     * Haptics and speech for both activities: pre-synthesized warnings, live TTS for
+     * everything else. Available as soon as {@link #preload()} ran; speech starts
+     * working once TTS is up.
+     */
+    public FeedbackEngine feedback() {
+        return feedback;
+    }
+
+    /**
+     * Thread priorities and big-core pinning for inference, shared by every pipeline.
+     * Interpreters should be built inside {@link InferenceAffinity#build}.
+     */
+    public InferenceAffinity affinity() {
+        return affinity;
+    }
+
+    /** Formats and control ranges of webcams seen before, so reopening one skips probing it. */
+    public UVCCapabilityCache uvcCapabilities() {
+        return uvcCapabilities;
+    }
+
+    /** The shared TTS engine, or null if it failed to initialize or is not ready yet. */
+    public TextToSpeech tts() {
+        return ttsAvailable ? tts : null;
+    }
+
+    /**
+     * Main thread. Voice commands, created on first use together with the recognizer it
+     * owns. Each activity sets itself as the listener when it comes to the foreground.
+     */
+    public VoiceAssistant voice() {
+        if (voice == null) voice = new VoiceAssistant(context, SpeechRecognizer.createSpeechRecognizer(context));
+        return voice;
+    }
+
+    private void checkReady() {
+        if (!isReady()) return;
+        Log.d(TAG, "Services ready after " + (SystemClock.elapsedRealtime() - preloadStartMs) + "ms");
+        for (Runnable callback : readyCallbacks) callback.run();
+        readyCallbacks.clear();
+    }
+}
@@ -9,6 +9,11 @@ public class AppSettings {
 
     private static final String PREF_NAME = "SmartGuidePrefs";
     private static final String KEY_FIRST_TIME = "is_first_time";
+    private static final String KEY_BACKEND    = "inference_backend";
+    private static final String KEY_YOLO_BACKEND = "yolo_inference_backend";
+    private static final String KEY_PERF_HUD   = "show_perf_hud";
+    private static final String KEY_AFFINITY   = "inference_affinity";
+    private static final String KEY_MULTI_CAM  = "multi_source_detection";
 
     /**
      * Checks if the onboarding has been played before.
@@ -25,4 +30,90 @@ public class AppSettings {
         SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
         prefs.edit().putBoolean(KEY_FIRST_TIME, false).apply();
     }
+
+    /**
+     * Returns the backend id benchmarked on this device, or null if none was stored
+     * for the given build fingerprint (first launch or after a system update).
+     */
+    public static String getBackendId(Context context, String fingerprint) {
+        return getFingerprinted(context, KEY_BACKEND, fingerprint);
+    }
+
+    /**
+     * Remembers the backend chosen for this device fingerprint.
+     */
+    public static void setBackendId(Context context, String fingerprint, String backendId) {
+        setFingerprinted(context, KEY_BACKEND, fingerprint, backendId);
+    }
+
+    /** Like {@link #getBackendId}, for the YOLO model on the raw Interpreter. */
+    public static String getYoloBackendId(Context context, String fingerprint) {
+        return getFingerprinted(context, KEY_YOLO_BACKEND, fingerprint);
+    }
+
+    public static void setYoloBackendId(Context context, String fingerprint, String backendId) {
+        setFingerprinted(context, KEY_YOLO_BACKEND, fingerprint, backendId);
+    }
+
+    private static String getFingerprinted(Context context, String key, String fingerprint) {
+        SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        String stored = prefs.getString(key, null);
+        String prefix = fingerprint + "|";
+        if (stored == null || !stored.startsWith(prefix)) return null;
+        return stored.substring(prefix.length());
+    }
+
+    private static void setFingerprinted(Context context, String key, String fingerprint, String value) {
+        SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putString(key, fingerprint + "|" + value).apply();
+    }
+
+    /**
+     * True when the raw-Interpreter YOLO engine should be used instead of the Task Library
+     * detector: whenever a YOLO model is bundled, since it only ships when it is wanted.
+     */
+    public static boolean isYoloEngine(Context context) {
+        return YoloDetector.isBundled(context);
+    }
+
+    /**
+     * True when the pipeline latency HUD should be shown over the camera view.
+     */
+    public static boolean isPerfHud(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        return prefs.getBoolean(KEY_PERF_HUD, false);
+    }
+
+    public static void setPerfHud(Context context, boolean enabled) {
+        SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putBoolean(KEY_PERF_HUD, enabled).apply();
+    }
+
+    /**
+     * Scheduling of the inference thread, one of the {@code InferenceAffinity.MODE_*}
+     * values; pinned to the big cores unless changed from the HUD.
+     */
+    public static int getAffinityMode(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        return prefs.getInt(KEY_AFFINITY, InferenceAffinity.MODE_PINNED);
+    }
+
+    public static void setAffinityMode(Context context, int mode) {
+        SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putInt(KEY_AFFINITY, mode).apply();
+    }
+
+    /**
+     * True when the phone camera keeps detecting next to a USB webcam, the two sharing
+     * one inference budget; off by default, the webcam then replaces the phone camera.
+     */
+    public static boolean isMultiSource(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        return prefs.getBoolean(KEY_MULTI_CAM, false);
+    }
+
+    public static void setMultiSource(Context context, boolean enabled) {
+        SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putBoolean(KEY_MULTI_CAM, enabled).apply();
+    }
 }
\ No newline at end of file
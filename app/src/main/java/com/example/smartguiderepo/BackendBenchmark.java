@@ -0,0 +1,84 @@
+package com.example.smartguiderepo;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Short start-up benchmark that times each candidate backend on a few synthetic
+ * frames and picks the one with the lowest median latency. Candidates that fail to
+ * open (missing delegate, unsupported ops) or throw while running are skipped.
+ *
+ * <p>The model is reached only through {@link Probe}, so the selection logic can be
+ * unit-tested on a plain JVM with fake sessions and a fake clock.</p>
+ */
+public class BackendBenchmark {
+
+    /** An opened backend ready to run inference on the benchmark input. */
+    public interface Session {
+        void runOnce() throws Exception;
+        void close();
+    }
+
+    /** Opens a session for a backend; throws if the backend is unavailable on this device. */
+    public interface Probe {
+        Session open(InferenceBackend backend) throws Exception;
+    }
+
+    public static final class Result {
+        public final InferenceBackend winner;
+        /** Median run time per candidate in nanoseconds, or -1 when the candidate failed. */
+        public final long[] medianNanos;
+
+        Result(InferenceBackend winner, long[] medianNanos) {
+            this.winner      = winner;
+            this.medianNanos = medianNanos;
+        }
+    }
+
+    private final LongSupplier clock;
+    private final int          warmupRuns;
+    private final int          timedRuns;
+
+    public BackendBenchmark(LongSupplier clock, int warmupRuns, int timedRuns) {
+        this.clock      = clock;
+        this.warmupRuns = warmupRuns;
+        this.timedRuns  = Math.max(1, timedRuns);
+    }
+
+    public Result run(List<InferenceBackend> candidates, Probe probe) {
+        long[] medians = new long[candidates.size()];
+        long[] samples = new long[timedRuns];
+        InferenceBackend winner = null;
+        long best = Long.MAX_VALUE;
+
+        for (int c = 0; c < candidates.size(); c++) {
+            InferenceBackend backend = candidates.get(c);
+            medians[c] = measure(backend, probe, samples);
+            if (medians[c] >= 0 && medians[c] < best) {
+                best   = medians[c];
+                winner = backend;
+            }
+        }
+        return new Result(winner != null ? winner : InferenceBackend.DEFAULT_CPU, medians);
+    }
+
+    private long measure(InferenceBackend backend, Probe probe, long[] samples) {
+        Session session = null;
+        try {
+            session = probe.open(backend);
+            for (int i = 0; i < warmupRuns; i++) session.runOnce();
+            for (int i = 0; i < timedRuns; i++) {
+                long start = clock.getAsLong();
+                session.runOnce();
+                samples[i] = clock.getAsLong() - start;
+            }
+            Arrays.sort(samples);
+            return samples[timedRuns / 2];
+        } catch (Exception | LinkageError e) {
+            return -1;
+        } finally {
+            if (session != null) session.close();
+        }
+    }
+}
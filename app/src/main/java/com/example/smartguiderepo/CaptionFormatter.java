@@ -0,0 +1,72 @@
+package com.example.smartguiderepo;
+
+import java.util.Arrays;
+
+/**
+ * Builds overlay captions such as {@code "person 87% (2.3m)"} into a caller-owned
+ * {@code char[]}, the same text {@code String.format("%s %.0f%% (%.1fm)", ...)} gives
+ * but without a Formatter, boxed floats or intermediate strings. Label characters are
+ * cached per class id, so steady-state formatting allocates nothing.
+ */
+public final class CaptionFormatter {
+
+    /** Longest caption written; longer labels are cut to fit. */
+    public static final int MAX_LENGTH = 40;
+
+    // " 100% (999.9m)" is the longest numeric suffix
+    private static final int   MAX_SUFFIX   = 14;
+    private static final float MAX_DISTANCE = 999.9f;
+    private static final char[] UNKNOWN     = "object".toCharArray();
+
+    private LabelTable cachedFor;
+    private char[][]   labelChars = new char[0][];
+
+    /**
+     * Writes the caption for one box at {@code out[offset]} and returns its length.
+     * {@code out} must have {@link #MAX_LENGTH} chars free from {@code offset}.
+     */
+    public int format(LabelTable labels, int classId, float score, float distance, char[] out, int offset) {
+        char[] label = labelChars(labels, classId);
+        int n = Math.min(label.length, MAX_LENGTH - MAX_SUFFIX);
+        System.arraycopy(label, 0, out, offset, n);
+        int p = offset + n;
+
+        out[p++] = ' ';
+        p = appendInt(out, p, Math.round(Math.max(0f, Math.min(1f, score)) * 100f));
+        out[p++] = '%';
+        out[p++] = ' ';
+        out[p++] = '(';
+        if (distance >= 0f && distance <= MAX_DISTANCE) {
+            int tenths = Math.round(distance * 10f);
+            p = appendInt(out, p, tenths / 10);
+            out[p++] = '.';
+            out[p++] = (char) ('0' + tenths % 10);
+        } else {
+            out[p++] = '-';                   // no usable estimate (zero-width box)
+            out[p++] = '-';
+        }
+        out[p++] = 'm';
+        out[p++] = ')';
+        return p - offset;
+    }
+
+    private char[] labelChars(LabelTable labels, int classId) {
+        if (labels != cachedFor) {
+            cachedFor  = labels;
+            labelChars = new char[0][];
+        }
+        if (labels == null || !labels.isRegistered(classId)) return UNKNOWN;
+        if (classId >= labelChars.length)
+            labelChars = Arrays.copyOf(labelChars, Math.max(classId + 1, labelChars.length * 2));
+        char[] chars = labelChars[classId];
+        if (chars == null) chars = labelChars[classId] = labels.label(classId).toCharArray();
+        return chars;
+    }
+
+    private static int appendInt(char[] out, int p, int value) {
+        if (value >= 100) out[p++] = (char) ('0' + value / 100);
+        if (value >= 10)  out[p++] = (char) ('0' + value / 10 % 10);
+        out[p++] = (char) ('0' + value % 10);
+        return p;
+    }
+}
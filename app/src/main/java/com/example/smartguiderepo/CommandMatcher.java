@@ -0,0 +1,171 @@
+package com.example.smartguiderepo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The bilingual voice command grammar, compiled once into an Aho-Corasick automaton over
+ * every alias. English, romanized Urdu and Urdu script are all covered. One pass over a
+ * hypothesis finds all aliases that stand as whole words. It lowercases as it goes and
+ * allocates nothing, so it is cheap enough to run on every partial result. The earliest
+ * command in the text wins, except that "stop" anywhere wins, because pausing is the
+ * safe reading of an ambiguous utterance.
+ */
+public final class CommandMatcher {
+
+    public static final int NONE     = -1;
+    public static final int STOP     = 0;
+    public static final int START    = 1;
+    public static final int FIND     = 2;
+    public static final int HELP     = 3;
+    public static final int LANGUAGE = 4;
+
+    /** The grammar both activities and the keyword spotter use. */
+    public static final CommandMatcher DEFAULT = new CommandMatcher(new String[][]{
+            /* STOP     */ {"stop", "ruko", "break", "رکو", "روکو"},
+            /* START    */ {"start", "shuru", "resume", "camera", "شروع"},
+            /* FIND     */ {"find", "search", "talaash", "talash", "dhundo", "تلاش", "ڈھونڈو"},
+            /* HELP     */ {"help", "madad", "مدد"},
+            /* LANGUAGE */ {"language", "zaban", "زبان"},
+    });
+
+    /** Where a command was found; reused by the caller. */
+    public static final class Match {
+        public int command = NONE;
+        public int start;
+        public int end;
+    }
+
+    // ── Automaton: node 0 is the root ─────────────────────────────────────
+    private final char[][] keys;             // per node, sorted transition chars
+    private final int[][]  targets;          // per node, parallel to keys
+    private final int[]    fail;
+    private final int[]    command;          // alias ending at this node, or NONE
+    private final int[]    length;           // its length in chars
+    private final int[]    nextOutput;       // nearest proper suffix node that ends an alias, or -1
+
+    public CommandMatcher(String[][] aliases) {
+        List<StringBuilder> nodeKeys    = new ArrayList<>();
+        List<List<Integer>> nodeTargets = new ArrayList<>();
+        List<int[]>         nodeOutput  = new ArrayList<>();
+        nodeKeys.add(new StringBuilder());
+        nodeTargets.add(new ArrayList<>());
+        nodeOutput.add(new int[]{NONE, 0});
+
+        for (int c = 0; c < aliases.length; c++) {
+            for (String alias : aliases[c]) {
+                int node = 0;
+                for (int i = 0; i < alias.length(); i++) {
+                    char ch = Character.toLowerCase(alias.charAt(i));
+                    int at = nodeKeys.get(node).indexOf(String.valueOf(ch));
+                    if (at >= 0) {
+                        node = nodeTargets.get(node).get(at);
+                    } else {
+                        int child = nodeKeys.size();
+                        nodeKeys.add(new StringBuilder());
+                        nodeTargets.add(new ArrayList<>());
+                        nodeOutput.add(new int[]{NONE, 0});
+                        nodeKeys.get(node).append(ch);
+                        nodeTargets.get(node).add(child);
+                        node = child;
+                    }
+                }
+                if (nodeOutput.get(node)[0] == NONE) nodeOutput.set(node, new int[]{c, alias.length()});
+            }
+        }
+
+        int n = nodeKeys.size();
+        keys       = new char[n][];
+        targets    = new int[n][];
+        fail       = new int[n];
+        command    = new int[n];
+        length     = new int[n];
+        nextOutput = new int[n];
+        for (int node = 0; node < n; node++) {
+            // Sort each node's transitions by char for binary search
+            char[]   k = nodeKeys.get(node).toString().toCharArray();
+            Integer[] order = new Integer[k.length];
+            for (int i = 0; i < k.length; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> Character.compare(k[a], k[b]));
+            keys[node]    = new char[k.length];
+            targets[node] = new int[k.length];
+            for (int i = 0; i < k.length; i++) {
+                keys[node][i]    = k[order[i]];
+                targets[node][i] = nodeTargets.get(node).get(order[i]);
+            }
+            command[node] = nodeOutput.get(node)[0];
+            length[node]  = nodeOutput.get(node)[1];
+        }
+
+        // Breadth-first: failure links, then the output chain through them
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+        nextOutput[0] = -1;
+        for (int child : targets[0]) {
+            fail[child]       = 0;
+            nextOutput[child] = -1;
+            queue[tail++]     = child;
+        }
+        while (head < tail) {
+            int node = queue[head++];
+            for (int i = 0; i < keys[node].length; i++) {
+                char ch    = keys[node][i];
+                int  child = targets[node][i];
+                int  f     = fail[node];
+                while (f != 0 && step(f, ch) < 0) f = fail[f];
+                int to = step(f, ch);
+                fail[child]       = to >= 0 && to != child ? to : 0;
+                nextOutput[child] = command[fail[child]] != NONE ? fail[child] : nextOutput[fail[child]];
+                queue[tail++]     = child;
+            }
+        }
+    }
+
+    /**
+     * Finds the command in {@code text}, if any, into {@code out}. Returns whether one
+     * was found; {@code out.command} is {@link #NONE} otherwise.
+     */
+    public boolean match(CharSequence text, Match out) {
+        out.command = NONE;
+        int node = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char ch = Character.toLowerCase(text.charAt(i));
+            while (node != 0 && step(node, ch) < 0) node = fail[node];
+            int to = step(node, ch);
+            node = to >= 0 ? to : 0;
+
+            for (int o = command[node] != NONE ? node : nextOutput[node]; o >= 0; o = nextOutput[o]) {
+                int start = i + 1 - length[o];
+                if (!isWholeWord(text, start, i + 1)) continue;
+                int c = command[o];
+                if (out.command == NONE || (c == STOP && out.command != STOP)) {
+                    out.command = c;
+                    out.start   = start;
+                    out.end     = i + 1;
+                }
+            }
+            if (out.command == STOP) return true;
+        }
+        return out.command != NONE;
+    }
+
+    /**
+     * The object name for {@link #FIND}: the text after the alias, or before it when
+     * nothing follows, as in Urdu word order ("kursi dhundo").
+     */
+    public static String argument(CharSequence text, Match match) {
+        String after = text.subSequence(match.end, text.length()).toString().trim();
+        return after.isEmpty() ? text.subSequence(0, match.start).toString().trim() : after;
+    }
+
+    private int step(int node, char ch) {
+        int at = Arrays.binarySearch(keys[node], ch);
+        return at >= 0 ? targets[node][at] : -1;
+    }
+
+    private static boolean isWholeWord(CharSequence text, int start, int end) {
+        return (start == 0 || !Character.isLetterOrDigit(text.charAt(start - 1)))
+            && (end == text.length() || !Character.isLetterOrDigit(text.charAt(end)));
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.smartguiderepo;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Which CPUs form the performance cluster, from the per-CPU capacity the scheduler
+ * itself uses ({@code /sys/devices/system/cpu/cpuN/cpu_capacity}). Kernels without it
+ * fall back to {@code cpufreq/cpuinfo_max_freq}, which ranks clusters the same way on
+ * big.LITTLE parts. CPU masks hold one bit per CPU, CPU n being bit n, like
+ * {@code sched_setaffinity}.
+ */
+public final class CpuTopology {
+
+    public static final File SYSFS_CPU = new File("/sys/devices/system/cpu");
+
+    private static final int MAX_CPUS = 64;   // one long mask
+
+    private CpuTopology() {}
+
+    /**
+     * Capacity of each CPU indexed by CPU number, or null if any CPU has neither
+     * source, since a partial ranking could put a big core among the little ones.
+     * Both sources are read for offline CPUs too, so hotplug does not change the result.
+     */
+    public static int[] readCapacities(File cpuRoot) {
+        String[] names = cpuRoot.list();
+        if (names == null) return null;
+        int count = 0;
+        for (String name : names) {
+            int cpu = cpuNumber(name);
+            if (cpu >= 0 && cpu < MAX_CPUS) count = Math.max(count, cpu + 1);
+        }
+        if (count == 0) return null;
+
+        int[] capacity = readAll(cpuRoot, count, "cpu_capacity");
+        if (capacity == null) capacity = readAll(cpuRoot, count, "cpufreq/cpuinfo_max_freq");
+        return capacity;
+    }
+
+    /**
+     * The fastest clusters holding at least {@code minCores} CPUs, never including the
+     * slowest cluster. Returns 0 when there is nothing to prefer: all CPUs are alike,
+     * or {@code capacity} is null.
+     */
+    public static long performanceMask(int[] capacity, int minCores) {
+        if (capacity == null) return 0;
+        int[] levels = Arrays.stream(capacity).distinct().sorted().toArray();
+        if (levels.length < 2) return 0;
+
+        long mask  = 0;
+        int  cores = 0;
+        for (int l = levels.length - 1; l > 0 && cores < minCores; l--) {
+            for (int cpu = 0; cpu < capacity.length; cpu++) {
+                if (capacity[cpu] != levels[l]) continue;
+                mask |= 1L << cpu;
+                cores++;
+            }
+        }
+        return mask;
+    }
+
+    /** Every CPU in {@code capacity}, i.e. no restriction. */
+    public static long allMask(int[] capacity) {
+        int n = capacity == null ? 0 : capacity.length;
+        return n >= MAX_CPUS ? -1L : (1L << n) - 1;
+    }
+
+    /** Ranges such as {@code "4-7"} or {@code "0,6-7"}; {@code "-"} for an empty mask. */
+    public static String describe(long mask) {
+        if (mask == 0) return "-";
+        StringBuilder out = new StringBuilder();
+        int cpu = 0;
+        while (cpu < MAX_CPUS) {
+            if ((mask & (1L << cpu)) == 0) { cpu++; continue; }
+            int end = cpu;
+            while (end + 1 < MAX_CPUS && (mask & (1L << (end + 1))) != 0) end++;
+            if (out.length() > 0) out.append(',');
+            out.append(cpu);
+            if (end > cpu) out.append('-').append(end);
+            cpu = end + 1;
+        }
+        return out.toString();
+    }
+
+    private static int[] readAll(File cpuRoot, int count, String path) {
+        int[] values = new int[count];
+        for (int cpu = 0; cpu < count; cpu++) {
+            values[cpu] = readInt(new File(cpuRoot, "cpu" + cpu + "/" + path));
+            if (values[cpu] <= 0) return null;
+        }
+        return values;
+    }
+
+    private static int readInt(File file) {
+        try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+            String line = in.readLine();
+            return line != null ? Integer.parseInt(line.trim()) : -1;
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // "cpu12" -> 12; "cpufreq", "cpuidle", "online" -> -1
+    private static int cpuNumber(String name) {
+        if (!name.startsWith("cpu") || name.length() == 3) return -1;
+        for (int i = 3; i < name.length(); i++) {
+            if (!Character.isDigit(name.charAt(i))) return -1;
+        }
+        return Integer.parseInt(name.substring(3));
+    }
+}
@@ -2,31 +2,23 @@ package com.example.smartguiderepo;
 
 import android.Manifest;
 import android.content.Context;
-import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.ImageFormat;
-import android.graphics.Rect;
-import android.graphics.RectF;
-import android.graphics.YuvImage;
 import android.hardware.camera2.CameraCharacteristics;
 import android.hardware.camera2.CameraManager;
 import android.hardware.usb.UsbDevice;
+import android.os.Build;
 import android.os.Bundle;
-import android.os.VibrationEffect;
-import android.os.Vibrator;
-import android.speech.RecognitionListener;
-import android.speech.RecognizerIntent;
-import android.speech.SpeechRecognizer;
-import android.speech.tts.TextToSpeech;
-import android.speech.tts.UtteranceProgressListener;
+import android.os.PowerManager;
+import android.os.Process;
+import android.os.SystemClock;
 import android.util.Log;
+import android.util.Size;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 import android.view.View;
 import android.widget.ImageView;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.annotation.OptIn;
 import androidx.appcompat.app.AppCompatActivity;
@@ -36,7 +28,11 @@ import androidx.camera.core.Camera;
 import androidx.camera.core.CameraInfo;
 import androidx.camera.core.CameraSelector;
 import androidx.camera.core.ImageAnalysis;
+import androidx.camera.core.ImageProxy;
 import androidx.camera.core.Preview;
+import androidx.camera.core.resolutionselector.AspectRatioStrategy;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
 import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.camera.view.PreviewView;
 import androidx.core.app.ActivityCompat;
@@ -44,70 +40,87 @@ import androidx.core.content.ContextCompat;
 
 import com.google.common.util.concurrent.ListenableFuture;
 import com.jiangdg.usb.USBMonitor;
-import com.jiangdg.uvc.IFrameCallback;
+import com.jiangdg.uvc.IFrameLeaseCallback;
 import com.jiangdg.uvc.UVCCamera;
+import com.jiangdg.uvc.UVCFrameLease;
 
-import org.tensorflow.lite.task.vision.detector.Detection;
 
-import java.io.ByteArrayOutputStream;
-import java.nio.ByteBuffer;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 public class DetectionActivity extends AppCompatActivity {
 
     private static final String TAG        = "DetectionActivity";
-    private static final int    UVC_WIDTH  = 640;
-    private static final int    UVC_HEIGHT = 480;
+    private static final int    UVC_TARGET_FPS = 30;   // smooth webcam preview
+    // CameraX analysis stream, fixed; only the webcam mode is negotiated (UvcStreamNegotiator)
+    private static final Size   ANALYSIS_SIZE = new Size(640, 480);
+
+    // Multi-source mode: the webcam and the phone camera share this many inferences per second
+    private static final int    SOURCE_USB     = 0;   // lower source wins duplicates: steadier ids
+    private static final int    SOURCE_PHONE   = 1;
+    private static final float  TOTAL_BUDGET_HZ = 12f;
+    private static final String[] SOURCE_NAMES = {"usb", "phone"};
 
     // ── Views ──────────────────────────────────────────────────────────────
     private PreviewView cameraPreview;   // built-in camera preview
     private SurfaceView uvcPreview;      // USB webcam preview
     private OverlayView overlayView;
     private TextView    tvTitle;
+    private TextView    tvPerfHud;
     private ImageView   btnBack, btnMicOverlay;
 
     // ── Detection ──────────────────────────────────────────────────────────
-    private ObjectDetectorHelper detectorHelper;
+    private AppServices          services;      // shared detector, TTS and recognizer
+    private DetectionPipeline    pipeline;
     private ExecutorService      cameraExecutor;
-    private ExecutorService      detectionExecutor;
     private Camera               camera;
+    private PowerManager.OnThermalStatusChangedListener thermalListener;
+    private PowerMeter           powerMeter;    // HUD figure to compare with pocket mode
 
     // ── USB / UVC ──────────────────────────────────────────────────────────
     private USBMonitor         usbMonitor;
     private UVCCamera          uvcCamera;
     private volatile boolean   uvcActive      = false;
-    private final AtomicBoolean processingFrame = new AtomicBoolean(false);
+    private final UvcStreamNegotiator uvcStream = new UvcStreamNegotiator(UVC_TARGET_FPS);
+
+    // ── Phone camera next to the webcam (multi-source mode) ───────────────
+    private boolean                       multiSource;
+    private volatile DetectionPipeline    secondPipeline;   // phone camera while the webcam runs
+    private ObjectDetectorHelper          secondHelper;     // leased from AppServices; cameraExecutor
+    private YoloDetector                  secondYolo;
+    private final SourceScheduler         scheduler = new SourceScheduler(SOURCE_NAMES.length, TOTAL_BUDGET_HZ);
+    private final DetectionMerger         merger    = new DetectionMerger(SOURCE_NAMES.length,
+                                                                          DetectionPipeline.MAX_DETECTIONS);
+    private final DetectionBatch          merged    = new DetectionBatch(DetectionPipeline.MAX_DETECTIONS);
 
     // ── Feedback ───────────────────────────────────────────────────────────
-    private TextToSpeech tts;
-    private Vibrator     vibrator;
+    private FeedbackEngine feedback;   // shared; haptics, warning clips and live speech
 
     // ── Speech recognition ─────────────────────────────────────────────────
-    private SpeechRecognizer speechRecognizer;
-    private Intent           speechIntent;
-    private boolean          isSpeechInitialized = false;
-    private volatile boolean isListening         = false;
+    private VoiceAssistant   voice;
+    private final VoiceAssistant.VoiceCommandListener commandListener = this::handleVoiceCommand;
 
     // ── State ──────────────────────────────────────────────────────────────
     private String  currentMode  = "General";
     private String  targetObject = "";
-    private long    lastSpeakTime   = 0;
-    private long    lastVibrateTime = 0;
-    private boolean isDetecting  = true;
-
-    // ── Urgency constants ──────────────────────────────────────────────────
-    private static final float  ZONE_CRITICAL     = 1.0f;
-    private static final float  ZONE_WARNING      = 2.5f;
-    private static final long[] PATTERN_CRITICAL  = {0, 600, 100, 600};
-    private static final long[] PATTERN_WARNING   = {0, 200, 150, 200};
-    private static final long   INTERVAL_CRITICAL = 3000;
-    private static final long   INTERVAL_WARNING  = 5000;
-    private static final long   INTERVAL_FAR      = 10000;
+    private volatile boolean isDetecting = true;
+    private boolean pocketHandoff;   // finishing into HeadlessDetectionService
+
+    // ── Feedback (feedback thread only) ────────────────────────────────────
+    private final FeedbackPolicy feedbackPolicy = new FeedbackPolicy();
+    private final FeedbackPolicy.Sink feedbackSink = new FeedbackPolicy.Sink() {
+        @Override public void vibrate(int zone) { feedback.vibrate(zone); }
+        @Override public void speak(String label, float distance, int zone) {
+            feedback.warn(zone, label, distance);
+        }
+    };
 
     // ══════════════════════════════════════════════════════════════════════
     //  Lifecycle
@@ -120,13 +133,15 @@ public class DetectionActivity extends AppCompatActivity {
         setContentView(R.layout.activity_detection);
 
         cameraPreview = findViewById(R.id.cameraPreview);
+        // Letterboxed, not cropped, so the overlay can place boxes over the whole analyzed frame
+        cameraPreview.setScaleType(PreviewView.ScaleType.FIT_CENTER);
         uvcPreview    = findViewById(R.id.uvcPreview);
         overlayView   = findViewById(R.id.overlay);
         tvTitle       = findViewById(R.id.tvTitle);
         btnBack       = findViewById(R.id.btnBack);
         btnMicOverlay = findViewById(R.id.btnMicOverlay);
+        tvPerfHud     = findViewById(R.id.tvPerfHud);
 
-        vibrator = (Vibrator) getSystemService(Context.VIBRATOR_SERVICE);
 
         if (getIntent().hasExtra("MODE"))   currentMode  = getIntent().getStringExtra("MODE");
         if (getIntent().hasExtra("TARGET")) targetObject = getIntent().getStringExtra("TARGET").toLowerCase();
@@ -134,29 +149,60 @@ public class DetectionActivity extends AppCompatActivity {
         tvTitle.setText(currentMode.equalsIgnoreCase("Finder")
                 ? "OBJECT FINDER " + targetObject : "INDOOR");
         btnBack.setOnClickListener(v -> finish());
+        multiSource = AppSettings.isMultiSource(this);
+        btnBack.setOnLongClickListener(v -> {
+            toggleMultiSource();
+            return true;
+        });
+        btnMicOverlay.setOnLongClickListener(v -> {
+            enterPocketMode();
+            return true;
+        });
 
-        tts = new TextToSpeech(this, status -> {
-            if (status == TextToSpeech.SUCCESS) {
-                tts.setOnUtteranceProgressListener(new UtteranceProgressListener() {
-                    @Override public void onStart(String id) { stopListening(); }
-                    @Override public void onDone(String id)  { startListening(); }
-                    @Override public void onError(String id) { startListening(); }
-                });
-                if (AppSettings.isFirstTime(this)) {
-                    speak(HelpManager.getFullOnboarding(true), HelpManager.getFullOnboarding(false));
-                    AppSettings.setFirstTimeDone(this);
-                } else {
-                    if (currentMode.equalsIgnoreCase("Finder")) speak("Searching", "تلاش شروع");
-                    else speak("Detection started", "تلاش شروع ہو گئی ہے");
-                }
+        // Pocket mode holds the camera; opening the screen takes it back
+        HeadlessDetectionService.stop(this);
+
+        // Normally everything was loaded behind the splash; a USB-attach launch may still be loading
+        services = AppServices.get(this);
+        services.preload();
+        feedback = services.feedback();
+        services.whenReady(() -> {
+            attachFeedback();
+            if (AppSettings.isFirstTime(this)) {
+                speak(HelpManager.getFullOnboarding(true), HelpManager.getFullOnboarding(false));
+                AppSettings.setFirstTimeDone(this);
+            } else {
+                if (currentMode.equalsIgnoreCase("Finder")) speak("Searching", "تلاش شروع");
+                else speak("Detection started", "تلاش شروع ہو گئی ہے");
             }
         });
 
-        initSpeechRecognizer();
-
-        detectorHelper    = new ObjectDetectorHelper(this);
-        cameraExecutor    = Executors.newSingleThreadExecutor();
-        detectionExecutor = Executors.newSingleThreadExecutor();
+        voice = services.voice();
+        voice.setListener(commandListener);
+
+        InferenceAffinity affinity = services.affinity();
+        cameraExecutor    = Executors.newSingleThreadExecutor(
+                InferenceAffinity.namedThreadFactory("SG-camera", Process.THREAD_PRIORITY_FOREGROUND));
+        pipeline          = new DetectionPipeline(pipelineListener, affinity);
+        if (currentMode.equalsIgnoreCase("Finder")) pipeline.setFinderTarget(targetObject);
+        pipeline.start();
+        registerThermalListener();
+        overlayView.setMetrics(pipeline.metrics());
+        powerMeter = new PowerMeter(this);
+        initPerfHud();
+
+        DetectorConfig startConfig = DetectorConfig.forMode(currentMode, targetObject);
+        pipeline.configure(startConfig);   // recorded now, applied once the detector arrives
+        cameraExecutor.execute(() -> {
+            ObjectDetectorHelper helper = services.awaitDetector();
+            YoloDetector         yolo   = services.awaitYoloDetector();
+            if (isFinishing() || isDestroyed()) return;   // left before the detector was ready
+            affinity.build(() -> {
+                if (helper != null) pipeline.setDetectorHelper(helper);
+                pipeline.setYoloDetector(yolo);
+            });
+            renegotiateUvc();   // the webcam may have opened before the detector was known
+        });
 
         initUSBMonitor();
 
@@ -180,14 +226,50 @@ public class DetectionActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (speechRecognizer  != null) speechRecognizer.destroy();
-        if (cameraExecutor   != null) cameraExecutor.shutdown();
-        if (detectionExecutor != null) detectionExecutor.shutdown();
-        if (tts != null) { tts.stop(); tts.shutdown(); }
+        if (powerMeter != null) {
+            StringBuilder power = new StringBuilder();
+            powerMeter.appendSummary(power);
+            Log.d(TAG, "On-screen session: " + power.toString().trim());
+        }
+        if (tvPerfHud != null) tvPerfHud.removeCallbacks(refreshHud);
+        if (voice            != null) voice.clearListener(commandListener);   // shared; HomeActivity reuses it
+        if (cameraExecutor   != null) {
+            // stop() waits out a running inference, so the teardown stays off the main thread
+            cameraExecutor.execute(this::stopSecondSource);
+            cameraExecutor.execute(this::stopPipeline);
+            cameraExecutor.shutdown();
+        }
+        if (thermalListener != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            ((PowerManager) getSystemService(Context.POWER_SERVICE))
+                    .removeThermalStatusListener(thermalListener);
+        }
+        if (!pocketHandoff) {   // the service has taken over speech
+            feedback.clearPlaybackListener(playbackListener);
+            feedback.stop();
+        }
         releaseUVCCamera();
         if (usbMonitor != null) { usbMonitor.destroy(); usbMonitor = null; }
     }
 
+    // cameraExecutor; the YOLO engine is shared through AppServices and stays open
+    private void stopPipeline() {
+        pipeline.stop();
+        pipeline.setYoloDetector(null);
+    }
+
+    // Thermal status feeds the inference governor; the API only exists from Android 10
+    private void registerThermalListener() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) return;
+        PowerManager pm = (PowerManager) getSystemService(Context.POWER_SERVICE);
+        pipeline.setThermalStatus(pm.getCurrentThermalStatus());
+        thermalListener = status -> {
+            pipeline.setThermalStatus(status);
+            DetectionPipeline second = secondPipeline;
+            if (second != null) second.setThermalStatus(status);
+        };
+        pm.addThermalStatusListener(ContextCompat.getMainExecutor(this), thermalListener);
+    }
+
     // ══════════════════════════════════════════════════════════════════════
     //  USB Monitor — detects Logitech C270 attach / detach
     // ══════════════════════════════════════════════════════════════════════
@@ -237,9 +319,10 @@ public class DetectionActivity extends AppCompatActivity {
         // The SurfaceView must be VISIBLE before its surface is valid.
         // Make it visible on the UI thread first, then open the camera once the surface is ready.
         runOnUiThread(() -> {
-            stopCameraX();
+            if (!multiSource) stopCameraX();   // otherwise rebound without its preview once the webcam runs
             cameraPreview.setVisibility(View.GONE);
             uvcPreview.setVisibility(View.VISIBLE);
+            overlayView.setFrameSize(0, 0);    // the webcam frame is stretched over the view
 
             SurfaceHolder holder = uvcPreview.getHolder();
             if (holder.getSurface().isValid()) {
@@ -263,21 +346,19 @@ public class DetectionActivity extends AppCompatActivity {
             releaseUVCCamera();
 
             uvcCamera = new UVCCamera();
+            uvcCamera.setCapabilityCache(services.uvcCapabilities());
             uvcCamera.open(ctrlBlock);
 
-            // C270 supports MJPEG natively — prefer it for efficiency
-            try {
-                uvcCamera.setPreviewSize(UVC_WIDTH, UVC_HEIGHT, UVCCamera.FRAME_FORMAT_MJPEG);
-            } catch (IllegalArgumentException ex) {
-                uvcCamera.setPreviewSize(UVC_WIDTH, UVC_HEIGHT); // fallback to YUYV
-            }
+            // Cheapest format and size that still feeds the detector its full input
+            uvcStream.configure(uvcCamera, pipeline.modelInputWidth(), pipeline.modelInputHeight());
 
             uvcCamera.setPreviewDisplay(uvcPreview.getHolder().getSurface());
-            uvcCamera.setFrameCallback(uvcFrameCallback, UVCCamera.PIXEL_FORMAT_NV21);
+            uvcCamera.setFrameLeaseCallback(uvcFrameCallback, UVCCamera.PIXEL_FORMAT_NV21);
             uvcCamera.startPreview();
 
             uvcActive = true;
-            Log.d(TAG, "UVC camera started " + UVC_WIDTH + "x" + UVC_HEIGHT);
+            Log.d(TAG, "UVC camera started " + uvcStream.width() + "x" + uvcStream.height());
+            if (multiSource) startSecondSource();
 
         } catch (Exception e) {
             Log.e(TAG, "initUVCCamera failed: " + e.getMessage());
@@ -285,30 +366,44 @@ public class DetectionActivity extends AppCompatActivity {
         }
     }
 
-    // Receives NV21 frames from the webcam on the USB read thread
-    private final IFrameCallback uvcFrameCallback = new IFrameCallback() {
+    // Receives leased NV21 frames from the webcam on the USB read thread (the capture stage)
+    private final IFrameLeaseCallback uvcFrameCallback = new IFrameLeaseCallback() {
         @Override
-        public void onFrame(ByteBuffer frame) {
-            if (!isDetecting || !uvcActive) return;
-            if (!processingFrame.compareAndSet(false, true)) return; // drop frame if busy
-
-            byte[] nv21 = new byte[frame.remaining()];
-            frame.get(nv21);
-
-            cameraExecutor.execute(() -> {
-                try {
-                    Bitmap bmp = nv21ToBitmap(nv21, UVC_WIDTH, UVC_HEIGHT);
-                    if (bmp != null) runDetection(bmp);
-                } finally {
-                    processingFrame.set(false);
-                }
-            });
+        public void onFrame(UVCFrameLease lease) {
+            if (!isDetecting || !uvcActive) {
+                lease.release();
+                return;
+            }
+            long start = SystemClock.elapsedRealtimeNanos();
+            pipeline.submitLease(lease);
+            uvcStream.onFrame(start);
         }
     };
 
+    // cameraExecutor: restarts the webcam in another mode if the detector now wants one
+    private void renegotiateUvc() {
+        if (!uvcActive || uvcCamera == null) return;
+        int inputWidth  = pipeline.modelInputWidth();
+        int inputHeight = pipeline.modelInputHeight();
+        if (!uvcStream.shouldChange(uvcCamera, inputWidth, inputHeight)) return;
+        try {
+            uvcCamera.stopPreview();   // also releases the display surface and the frame callback
+            uvcStream.configure(uvcCamera, inputWidth, inputHeight);
+            uvcCamera.setPreviewDisplay(uvcPreview.getHolder().getSurface());
+            uvcCamera.setFrameLeaseCallback(uvcFrameCallback, UVCCamera.PIXEL_FORMAT_NV21);
+            uvcCamera.startPreview();
+        } catch (Exception e) {
+            Log.e(TAG, "renegotiateUvc failed: " + e.getMessage());
+        }
+    }
+
     @OptIn(markerClass = ExperimentalCamera2Interop.class)
     private void onUSBCameraGone() {
         releaseUVCCamera();
+        cameraExecutor.execute(() -> {
+            stopSecondSource();
+            previewFrameWidth = previewFrameHeight = 0;   // re-sent to the overlay with the next frame
+        });
         runOnUiThread(() -> {
             uvcPreview.setVisibility(View.GONE);
             cameraPreview.setVisibility(View.VISIBLE);
@@ -319,13 +414,103 @@ public class DetectionActivity extends AppCompatActivity {
     private void releaseUVCCamera() {
         uvcActive = false;
         if (uvcCamera != null) {
-            uvcCamera.setFrameCallback(null, 0);
+            uvcCamera.setFrameLeaseCallback(null, 0);
             uvcCamera.stopPreview();
-            uvcCamera.destroy();
+            uvcCamera.destroy();   // leases still in the pipeline stay valid until they are released
             uvcCamera = null;
         }
     }
 
+    // Releases the webcam first so the service can open it, then hands over and closes
+    private void enterPocketMode() {
+        pocketHandoff = true;
+        cameraExecutor.execute(() -> {
+            stopSecondSource();
+            releaseUVCCamera();
+            runOnUiThread(() -> {
+                HeadlessDetectionService.start(this, currentMode, targetObject);
+                finish();
+            });
+        });
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  Multi-source — phone camera next to the webcam
+    // ══════════════════════════════════════════════════════════════════════
+
+    // cameraExecutor, after the webcam started. The phone camera gets a pipeline of its
+    // own with its own interpreter; only its feedback is used, merged with the webcam's.
+    @OptIn(markerClass = ExperimentalCamera2Interop.class)
+    private void startSecondSource() {
+        if (secondPipeline != null) return;
+        InferenceAffinity affinity = services.affinity();
+        DetectionPipeline second = new DetectionPipeline(secondListener, affinity);
+        if (currentMode.equalsIgnoreCase("Finder")) second.setFinderTarget(targetObject);
+        second.configure(DetectorConfig.forMode(currentMode, targetObject));
+        affinity.build(() -> {
+            YoloDetector primary = pipeline.getYoloDetector();
+            if (primary != null) secondYolo = primary.sibling();
+            if (secondYolo == null) secondHelper = services.leaseDetector();
+        });
+        if (secondYolo == null && secondHelper == null) {
+            Log.w(TAG, "No second detector available; phone camera stays off");
+            return;
+        }
+        if (secondHelper != null) second.setDetectorHelper(secondHelper);
+        second.setYoloDetector(secondYolo);
+        second.start();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q)
+            second.setThermalStatus(((PowerManager) getSystemService(Context.POWER_SERVICE)).getCurrentThermalStatus());
+        pipeline.setScheduler(scheduler, SOURCE_USB);
+        second.setScheduler(scheduler, SOURCE_PHONE);
+        secondPipeline = second;
+        runOnUiThread(this::startCamera);
+        Log.d(TAG, "Phone camera detecting next to the webcam, " + TOTAL_BUDGET_HZ + " inferences/s shared");
+    }
+
+    // cameraExecutor; safe to call when no second source is running
+    private void stopSecondSource() {
+        DetectionPipeline second = secondPipeline;
+        if (second == null) return;
+        secondPipeline = null;
+        second.stop();   // joins the phone camera's stage threads; nothing runs inference past here
+        second.setYoloDetector(null);
+        pipeline.setScheduler(null, SOURCE_USB);
+        scheduler.remove(SOURCE_PHONE);
+        synchronized (merger) {
+            merger.forget(SOURCE_PHONE);
+        }
+        if (secondHelper != null) services.returnDetector(secondHelper);
+        if (secondYolo   != null) secondYolo.close();
+        secondHelper = null;
+        secondYolo   = null;
+        if (!uvcActive) return;
+        runOnUiThread(this::stopCameraX);   // the phone camera ran for detection only
+    }
+
+    // Only feedback is used; the overlay shows the webcam, which the phone camera does not match
+    private final DetectionPipeline.Listener secondListener = new DetectionPipeline.Listener() {
+        @Override
+        public void onDetectionsPublished() {
+        }
+
+        @Override
+        public void onFeedback(DetectionBatch detections) {
+            processFeedback(SOURCE_PHONE, detections);
+        }
+    };
+
+    private void toggleMultiSource() {
+        multiSource = !multiSource;
+        AppSettings.setMultiSource(this, multiSource);
+        if (uvcActive) {
+            if (multiSource) cameraExecutor.execute(this::startSecondSource);
+            else             cameraExecutor.execute(this::stopSecondSource);
+        }
+        if (multiSource) speak("Both cameras on", "دونوں کیمرے چالو");
+        else             speak("One camera", "ایک کیمرہ");
+    }
+
     private void stopCameraX() {
         ListenableFuture<ProcessCameraProvider> f = ProcessCameraProvider.getInstance(this);
         f.addListener(() -> {
@@ -335,51 +520,100 @@ public class DetectionActivity extends AppCompatActivity {
     }
 
     // ══════════════════════════════════════════════════════════════════════
-    //  Frame conversion + detection  (shared by both camera paths)
+    //  Detection pipeline callbacks  (shared by both camera paths)
     // ══════════════════════════════════════════════════════════════════════
 
-    private Bitmap nv21ToBitmap(byte[] nv21, int width, int height) {
-        try {
-            YuvImage yuv = new YuvImage(nv21, ImageFormat.NV21, width, height, null);
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            yuv.compressToJpeg(new Rect(0, 0, width, height), 90, bos);
-            byte[] jpg = bos.toByteArray();
-            return BitmapFactory.decodeByteArray(jpg, 0, jpg.length);
-        } catch (Exception e) {
-            Log.e(TAG, "nv21ToBitmap: " + e.getMessage());
-            return null;
+    private final DetectionPipeline.Listener pipelineListener = new DetectionPipeline.Listener() {
+        @Override
+        public void onDetectionsPublished() {
+            runOnUiThread(deliverDetections);
         }
-    }
 
-    private void runDetection(Bitmap bitmap) {
-        List<Detection> results = detectorHelper.detect(bitmap);
-        List<YoloDetector.BoundingBox> mapped = new ArrayList<>();
+        @Override
+        public void onFeedback(DetectionBatch detections) {
+            processFeedback(SOURCE_USB, detections);
+        }
+    };
 
-        if (results != null) {
-            for (Detection det : results) {
-                String label = det.getCategories().get(0).getLabel().toLowerCase();
-                float  score = det.getCategories().get(0).getScore();
-                RectF  raw   = det.getBoundingBox();
+    private long lastDeliveredSequence = -1;   // UI thread
 
-                float knownWidth     = OBJECT_WIDTHS.getOrDefault(label, 40f);
-                float distanceMeters = (knownWidth * FOCAL_LENGTH / raw.width()) / 100f;
+    // Posted for every frame; a single instance so nothing is captured or allocated
+    private final Runnable deliverDetections = () -> {
+        DetectionBatch batch = pipeline.exchange().acquire();
+        if (batch.sequence != lastDeliveredSequence) {
+            lastDeliveredSequence = batch.sequence;
+            pipeline.metrics().record(PipelineMetrics.UI_POST,
+                    SystemClock.elapsedRealtimeNanos() - batch.publishedNanos);
+        }
+        overlayView.setDetections(batch);
+    };
 
-                RectF norm = new RectF(
-                        raw.left  / bitmap.getWidth(),  raw.top    / bitmap.getHeight(),
-                        raw.right / bitmap.getWidth(),  raw.bottom / bitmap.getHeight());
+    // ══════════════════════════════════════════════════════════════════════
+    //  Performance HUD  (debug overlay; instrumentation itself is always on)
+    // ══════════════════════════════════════════════════════════════════════
 
-                if (currentMode.equalsIgnoreCase("Finder")) {
-                    if (label.contains(targetObject))
-                        mapped.add(new YoloDetector.BoundingBox(label, score, norm, distanceMeters));
-                } else {
-                    mapped.add(new YoloDetector.BoundingBox(label, score, norm, distanceMeters));
-                }
+    private static final long HUD_REFRESH_MS = 500;
+    private final StringBuilder hudText = new StringBuilder();
+
+    private final Runnable refreshHud = new Runnable() {
+        @Override
+        public void run() {
+            hudText.setLength(0);
+            pipeline.metrics().appendSummary(hudText);
+            voice.appendSummary(hudText);
+            powerMeter.appendSummary(hudText);
+            services.affinity().appendSummary(hudText);
+            if (secondPipeline != null) {
+                scheduler.appendSummary(hudText, SOURCE_NAMES);
+                hudText.append("duplicates ").append(merger.duplicates()).append('\n');
             }
+            tvPerfHud.setText(hudText.toString());
+            tvPerfHud.postDelayed(this, HUD_REFRESH_MS);
         }
+    };
 
-        runOnUiThread(() -> {
-            overlayView.setDetections(mapped);
-            processFeedback(mapped);
+    private void initPerfHud() {
+        tvTitle.setOnLongClickListener(v -> {
+            boolean show = tvPerfHud.getVisibility() != View.VISIBLE;
+            AppSettings.setPerfHud(this, show);
+            showPerfHud(show);
+            return true;
+        });
+        tvPerfHud.setOnLongClickListener(v -> {
+            dumpMetrics();
+            return true;
+        });
+        // Tap cycles inference scheduling: pinned, unpinned, A/B
+        tvPerfHud.setOnClickListener(v -> {
+            InferenceAffinity affinity = services.affinity();
+            int mode = (affinity.mode() + 1) % InferenceAffinity.MODE_COUNT;
+            affinity.setMode(mode);
+            affinity.reset();
+            AppSettings.setAffinityMode(this, mode);
+            Toast.makeText(this, "Inference " + InferenceAffinity.modeName(mode), Toast.LENGTH_SHORT).show();
+        });
+        showPerfHud(AppSettings.isPerfHud(this));
+    }
+
+    private void showPerfHud(boolean show) {
+        tvPerfHud.removeCallbacks(refreshHud);
+        tvPerfHud.setVisibility(show ? View.VISIBLE : View.GONE);
+        if (show) refreshHud.run();
+    }
+
+    // Writes the histograms to app-specific external storage (no permission needed)
+    private void dumpMetrics() {
+        cameraExecutor.execute(() -> {
+            File file = new File(getExternalFilesDir(null),
+                    "pipeline_metrics_" + System.currentTimeMillis() + ".csv");
+            try (Writer out = new BufferedWriter(new FileWriter(file))) {
+                pipeline.metrics().writeCsv(out);
+                Log.d(TAG, "Pipeline metrics written to " + file);
+                runOnUiThread(() -> Toast.makeText(this, "Saved " + file.getName(),
+                        Toast.LENGTH_SHORT).show());
+            } catch (IOException e) {
+                Log.e(TAG, "Could not write metrics: " + e.getMessage());
+            }
         });
     }
 
@@ -415,177 +649,148 @@ public class DetectionActivity extends AppCompatActivity {
 
     @ExperimentalCamera2Interop
     private void startCamera() {
-        if (uvcActive) return; // USB webcam is running — skip CameraX
+        boolean second = uvcActive && secondPipeline != null;
+        if (uvcActive && !second) return; // USB webcam is running — skip CameraX
 
         ListenableFuture<ProcessCameraProvider> future = ProcessCameraProvider.getInstance(this);
         future.addListener(() -> {
             try {
                 ProcessCameraProvider provider = future.get();
 
-                Preview preview = new Preview.Builder().build();
+                // Preview and analysis share the 4:3 sensor field of view, so the boxes
+                // found in one line up with the other
+                Preview preview = new Preview.Builder()
+                        .setResolutionSelector(new ResolutionSelector.Builder()
+                                .setAspectRatioStrategy(AspectRatioStrategy.RATIO_4_3_FALLBACK_AUTO_STRATEGY)
+                                .build())
+                        .build();
                 preview.setSurfaceProvider(cameraPreview.getSurfaceProvider());
 
+                // RGBA output at the analysis size: CameraX does the YUV conversion and
+                // the analyzer never has to touch the preview or the main thread
                 ImageAnalysis analysis = new ImageAnalysis.Builder()
+                        .setResolutionSelector(new ResolutionSelector.Builder()
+                                .setAspectRatioStrategy(AspectRatioStrategy.RATIO_4_3_FALLBACK_AUTO_STRATEGY)
+                                .setResolutionStrategy(new ResolutionStrategy(ANALYSIS_SIZE,
+                                        ResolutionStrategy.FALLBACK_RULE_CLOSEST_HIGHER_THEN_LOWER))
+                                .build())
+                        .setOutputImageFormat(ImageAnalysis.OUTPUT_IMAGE_FORMAT_RGBA_8888)
                         .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
                         .build();
 
-                analysis.setAnalyzer(cameraExecutor, imageProxy -> {
-                    if (!isDetecting || uvcActive) { imageProxy.close(); return; }
-                    runOnUiThread(() -> {
-                        Bitmap bmp = cameraPreview.getBitmap();
-                        if (bmp != null) detectionExecutor.execute(() -> runDetection(bmp));
-                    });
-                    imageProxy.close();
-                });
+                analysis.setAnalyzer(cameraExecutor, this::analyzeFrame);
 
                 CameraSelector selector = getExternalCameraSelector();
                 if (selector == null) selector = CameraSelector.DEFAULT_BACK_CAMERA;
 
                 provider.unbindAll();
-                camera = provider.bindToLifecycle(this, selector, preview, analysis);
+                // Next to the webcam the phone camera only feeds detection
+                camera = second ? provider.bindToLifecycle(this, selector, analysis)
+                                : provider.bindToLifecycle(this, selector, preview, analysis);
 
             } catch (Exception e) { Log.e(TAG, "startCamera: " + e.getMessage()); }
         }, ContextCompat.getMainExecutor(this));
     }
 
+    // Runs on cameraExecutor (the capture stage); the frame is copied and closed right away
+    private void analyzeFrame(ImageProxy image) {
+        try {
+            if (!isDetecting) return;
+            DetectionPipeline second = secondPipeline;
+            if (second != null)  second.submitImage(image);
+            else if (!uvcActive) {
+                trackPreviewFrameSize(image);
+                pipeline.submitImage(image);
+            }
+        } finally {
+            image.close();
+        }
+    }
+
+    private int previewFrameWidth, previewFrameHeight;   // cameraExecutor
+
+    // Tells the overlay the upright size of the letterboxed frame; posts only when it changes
+    private void trackPreviewFrameSize(ImageProxy image) {
+        boolean sideways = image.getImageInfo().getRotationDegrees() % 180 != 0;
+        int w = sideways ? image.getHeight() : image.getWidth();
+        int h = sideways ? image.getWidth()  : image.getHeight();
+        if (w == previewFrameWidth && h == previewFrameHeight) return;
+        previewFrameWidth  = w;
+        previewFrameHeight = h;
+        runOnUiThread(() -> overlayView.setFrameSize(w, h));
+    }
+
     // ══════════════════════════════════════════════════════════════════════
     //  Speech recognition
     // ══════════════════════════════════════════════════════════════════════
 
-    private void initSpeechRecognizer() {
-        speechRecognizer = SpeechRecognizer.createSpeechRecognizer(this);
-        speechIntent = new Intent(RecognizerIntent.ACTION_RECOGNIZE_SPEECH);
-        speechIntent.putExtra(RecognizerIntent.EXTRA_LANGUAGE_MODEL,
-                RecognizerIntent.LANGUAGE_MODEL_FREE_FORM);
-        speechIntent.putExtra(RecognizerIntent.EXTRA_LANGUAGE,
-                AppSettings.isEnglish ? "en-US" : "ur-PK");
+    // The shared engine reports utterances to whichever activity attached last
+    // Recognition pauses while the app talks, so it does not hear itself
+    private final FeedbackEngine.PlaybackListener playbackListener = new FeedbackEngine.PlaybackListener() {
+        @Override public void onPlaybackStart() { stopListening(); }
+        @Override public void onPlaybackEnd()   { startListening(); }
+    };
 
-        speechRecognizer.setRecognitionListener(new RecognitionListener() {
-            @Override
-            public void onResults(Bundle results) {
-                isListening = false;
-                ArrayList<String> matches =
-                        results.getStringArrayList(SpeechRecognizer.RESULTS_RECOGNITION);
-                if (matches != null && !matches.isEmpty())
-                    handleVoiceCommand(matches.get(0).toLowerCase());
-                startListening();
-            }
-            @Override public void onError(int error)          { isListening = false; startListening(); }
-            @Override public void onReadyForSpeech(Bundle p)  {}
-            @Override public void onBeginningOfSpeech()       {}
-            @Override public void onRmsChanged(float rms)     {}
-            @Override public void onBufferReceived(byte[] b)  {}
-            @Override public void onEndOfSpeech()             { isListening = false; }
-            @Override public void onPartialResults(Bundle p)  {}
-            @Override public void onEvent(int t, Bundle p)    {}
-        });
-        isSpeechInitialized = true;
+    private void attachFeedback() {
+        feedback.setPlaybackListener(playbackListener);
     }
 
-    private void handleVoiceCommand(String command) {
-        if (command.contains("stop") || command.contains("ruko") || command.contains("break")) {
+    private void handleVoiceCommand(int command, String argument) {
+        if (command == CommandMatcher.STOP) {
             isDetecting = false;
             speak("System paused", "سسٹم روک دیا گیا ہے");
-        } else if (command.contains("start") || command.contains("shuru") || command.contains("resume")) {
+        } else if (command == CommandMatcher.START) {
             isDetecting = true;
             speak("Resuming", "دوبارہ شروع");
-        } else if (command.contains("find") || command.contains("search") || command.contains("talaash")) {
-            targetObject = command.replace("find","").replace("search","").replace("talaash","").trim();
+        } else if (command == CommandMatcher.FIND) {
+            targetObject = argument;
             currentMode  = "Finder";
+            pipeline.setFinderTarget(targetObject);
+            DetectorConfig finderConfig = DetectorConfig.forMode(currentMode, targetObject);
+            cameraExecutor.execute(() -> services.affinity().build(() -> {
+                pipeline.configure(finderConfig);
+                DetectionPipeline second = secondPipeline;
+                if (second != null) {
+                    second.setFinderTarget(targetObject);
+                    second.configure(finderConfig);
+                }
+            }));
             isDetecting  = true;
             runOnUiThread(() -> tvTitle.setText("FINDER: " + targetObject));
             speak("Finding " + targetObject, targetObject + " کی تلاش شروع");
-        } else if (command.contains("help") || command.contains("madad")) {
+        } else if (command == CommandMatcher.HELP) {
             speak(HelpManager.getFullOnboarding(true), HelpManager.getFullOnboarding(false));
         }
     }
 
     private void startListening() {
-        if (isSpeechInitialized && !isListening)
-            runOnUiThread(() -> {
-                isListening = true;
-                speechRecognizer.startListening(speechIntent);
-            });
+        runOnUiThread(() -> voice.startListening());
     }
 
     private void stopListening() {
-        if (isSpeechInitialized && isListening)
-            runOnUiThread(() -> {
-                isListening = false;
-                speechRecognizer.stopListening();
-            });
+        runOnUiThread(() -> voice.stopListening());
     }
 
     // ══════════════════════════════════════════════════════════════════════
     //  Haptic + voice feedback
     // ══════════════════════════════════════════════════════════════════════
 
-    private void processFeedback(List<YoloDetector.BoundingBox> results) {
-        if (results.isEmpty() || !isDetecting) return;
-
-        YoloDetector.BoundingBox closest = results.get(0);
-        for (YoloDetector.BoundingBox b : results)
-            if (b.distance < closest.distance) closest = b;
-
-        float distance    = closest.distance;
-        long  currentTime = System.currentTimeMillis();
-        long  interval    = (distance <= ZONE_CRITICAL) ? INTERVAL_CRITICAL
-                          : (distance <= ZONE_WARNING)  ? INTERVAL_WARNING : INTERVAL_FAR;
-
-        if (currentTime - lastVibrateTime > interval) {
-            triggerVibration(distance);
-            lastVibrateTime = currentTime;
-        }
-        if (currentTime - lastSpeakTime > (interval + 2000)) {
-            triggerVoiceFeedback(closest);
-            lastSpeakTime = currentTime;
-        }
-    }
-
-    private void triggerVibration(float distance) {
-        if (vibrator == null || !vibrator.hasVibrator()) return;
-        VibrationEffect effect = (distance <= ZONE_CRITICAL)
-                ? VibrationEffect.createWaveform(PATTERN_CRITICAL, -1)
-                : (distance <= ZONE_WARNING)
-                        ? VibrationEffect.createWaveform(PATTERN_WARNING, -1)
-                        : VibrationEffect.createOneShot(150, VibrationEffect.DEFAULT_AMPLITUDE);
-        vibrator.vibrate(effect);
-    }
-
-    private void triggerVoiceFeedback(YoloDetector.BoundingBox item) {
-        String translated  = translateLabel(item.label);
-        float  roundedDist = Math.round(item.distance * 2) / 2.0f;
-        String enMsg, urMsg;
-
-        if (item.distance <= ZONE_CRITICAL) {
-            enMsg = "Stop! " + item.label + " is very close.";
-            urMsg = "رک جائیں! " + translated + " بالکل قریب ہے۔";
-        } else if (item.distance <= ZONE_WARNING) {
-            enMsg = "Caution, " + item.label + " at " + roundedDist + " meters.";
-            urMsg = "خبردار، " + translated + " " + roundedDist + " میٹر پر ہے۔";
-        } else {
-            enMsg = item.label + " at " + roundedDist + " meters.";
-            urMsg = translated + " " + roundedDist + " میٹر دور۔";
+    // Feedback stage thread of either camera; FeedbackEngine may be called from any thread.
+    // With both cameras on, their latest results are merged so each object is announced once.
+    private void processFeedback(int source, DetectionBatch results) {
+        if (!isDetecting) return;
+        synchronized (merger) {
+            if (secondPipeline == null) {   // alone, or a phone frame still in flight after stopping
+                if (source == SOURCE_USB) feedbackPolicy.onDetections(results, System.currentTimeMillis(), feedbackSink);
+                return;
+            }
+            merger.merge(source, results, SystemClock.elapsedRealtimeNanos(), merged);
+            feedbackPolicy.onDetections(merged, System.currentTimeMillis(), feedbackSink);
         }
-        speak(enMsg, urMsg);
-    }
-
-    private String translateLabel(String label) {
-        if (AppSettings.isEnglish) return label;
-        return label;
     }
 
     private void speak(String english, String urdu) {
-        if (tts == null) return;
-        Bundle params = new Bundle();
-        params.putString(TextToSpeech.Engine.KEY_PARAM_UTTERANCE_ID, "MessageId");
-        if (AppSettings.isEnglish) {
-            tts.setLanguage(Locale.US);
-            tts.speak(english, TextToSpeech.QUEUE_FLUSH, params, "MessageId");
-        } else {
-            tts.setLanguage(new Locale("ur", "PK"));
-            tts.speak(urdu, TextToSpeech.QUEUE_FLUSH, params, "MessageId");
-        }
+        feedback.say(english, urdu);
     }
 
     private boolean allPermissionsGranted() {
@@ -594,20 +799,4 @@ public class DetectionActivity extends AppCompatActivity {
             && ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA)
                     == PackageManager.PERMISSION_GRANTED;
     }
-
-    // ══════════════════════════════════════════════════════════════════════
-    //  Constants
-    // ══════════════════════════════════════════════════════════════════════
-
-    private static final java.util.Map<String, Float> OBJECT_WIDTHS =
-            new java.util.HashMap<String, Float>() {{
-                put("person",     45f);
-                put("door",       90f);
-                put("chair",      50f);
-                put("laptop",     35f);
-                put("cell phone", 15f);
-                put("bottle",      8f);
-            }};
-
-    private static final float FOCAL_LENGTH = 650f;
 }
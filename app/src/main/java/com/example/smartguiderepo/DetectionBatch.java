@@ -0,0 +1,85 @@
+package com.example.smartguiderepo;
+
+/**
+ * One frame's detections stored as parallel primitive arrays. Batches are allocated
+ * once and refilled every frame; coordinates are normalized to the upright frame and
+ * distances are in metres.
+ */
+public class DetectionBatch {
+
+    public final int     capacity;
+    public final int[]   classIds;
+    public final float[] scores;
+    public final float[] left, top, right, bottom;
+    public final float[] distances;
+    public final int[]   trackIds;     // stable per-object id from ObjectTracker, -1 if untracked
+
+    public int        count;
+    public long       sequence;     // increases with every published frame
+    public long       captureNanos;   // camera arrival of the frame these boxes describe
+    public long       publishedNanos; // when the batch was handed to the UI
+    public LabelTable labels;       // resolves classIds for the engine that filled the batch
+
+    public DetectionBatch(int capacity) {
+        this.capacity = capacity;
+        classIds  = new int[capacity];
+        scores    = new float[capacity];
+        left      = new float[capacity];
+        top       = new float[capacity];
+        right     = new float[capacity];
+        bottom    = new float[capacity];
+        distances = new float[capacity];
+        trackIds  = new int[capacity];
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    /** Appends a detection; silently ignored once the batch is full. */
+    public void add(int classId, float score, float l, float t, float r, float b, float distance) {
+        if (count == capacity) return;
+        set(count++, classId, score, l, t, r, b, distance);
+    }
+
+    /** Overwrites entry {@code i}; used to compact a batch in place. */
+    public void set(int i, int classId, float score, float l, float t, float r, float b, float distance) {
+        classIds[i]  = classId;
+        scores[i]    = score;
+        left[i]      = l;
+        top[i]       = t;
+        right[i]     = r;
+        bottom[i]    = b;
+        distances[i] = distance;
+        trackIds[i]  = -1;
+    }
+
+    public String label(int index) {
+        return labels != null ? labels.label(classIds[index]) : "object";
+    }
+
+    /** Index of the nearest detection, or -1 when the batch is empty. */
+    public int closestIndex() {
+        int best = -1;
+        for (int i = 0; i < count; i++)
+            if (best < 0 || distances[i] < distances[best]) best = i;
+        return best;
+    }
+
+    public void copyFrom(DetectionBatch other) {
+        int n = Math.min(other.count, capacity);
+        System.arraycopy(other.classIds,  0, classIds,  0, n);
+        System.arraycopy(other.scores,    0, scores,    0, n);
+        System.arraycopy(other.left,      0, left,      0, n);
+        System.arraycopy(other.top,       0, top,       0, n);
+        System.arraycopy(other.right,     0, right,     0, n);
+        System.arraycopy(other.bottom,    0, bottom,    0, n);
+        System.arraycopy(other.distances, 0, distances, 0, n);
+        System.arraycopy(other.trackIds,  0, trackIds,  0, n);
+        count    = n;
+        sequence = other.sequence;
+        captureNanos   = other.captureNanos;
+        publishedNanos = other.publishedNanos;
+        labels   = other.labels;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.smartguiderepo;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free hand-off of {@link DetectionBatch}es from the detection thread to the UI.
+ * The producer fills its back batch and publishes it with a single atomic swap; the
+ * consumer swaps its front batch for the newest published one. A third batch sits in
+ * the shared slot so neither side ever waits for, or writes into, the other's batch.
+ *
+ * <p>Exactly one producer thread and one consumer thread.</p>
+ */
+public class DetectionExchange {
+
+    private final AtomicReference<DetectionBatch> ready;
+    private DetectionBatch back;     // producer-owned
+    private DetectionBatch front;    // consumer-owned
+    private long nextSequence = 1;
+    private volatile long publishedSequence = 0;
+
+    public DetectionExchange(int capacity) {
+        back  = new DetectionBatch(capacity);
+        front = new DetectionBatch(capacity);
+        ready = new AtomicReference<>(new DetectionBatch(capacity));
+    }
+
+    /** Producer: the batch to fill for the next frame. */
+    public DetectionBatch back() {
+        return back;
+    }
+
+    /** Producer: makes the back batch visible to the consumer and takes a fresh one. */
+    public void publish() {
+        long sequence = nextSequence++;
+        back.sequence = sequence;
+        back = ready.getAndSet(back);
+        publishedSequence = sequence;
+    }
+
+    /** Consumer: returns the newest published batch (the previous one if nothing new arrived). */
+    public DetectionBatch acquire() {
+        if (publishedSequence > front.sequence) front = ready.getAndSet(front);
+        return front;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.smartguiderepo;
+
+/**
+ * Finder-mode filtering and pinhole distance estimation on a freshly inferred batch.
+ * Plain Java, shared by {@link DetectionPipeline} and the offline replay harness.
+ */
+public final class DetectionFilter {
+
+    // Pinhole distance model: focal length in pixels for a frame 640 pixels on its long
+    // side. It scales with the resolution, since the camera keeps its field of view.
+    static final float FOCAL_LENGTH    = 650f;
+    static final int   FOCAL_LONG_SIDE = 640;
+
+    private DetectionFilter() {}
+
+    /**
+     * Drops boxes whose label does not contain {@code target} (null keeps everything)
+     * and fills in distances from each class's known width. Compacts the batch in
+     * place and returns the new count. {@code longSide} is the frame's larger
+     * dimension, which sets the focal length in pixels.
+     */
+    public static int filterAndMeasure(DetectionBatch batch, String target, int uprightWidth, int longSide) {
+        float focal = FOCAL_LENGTH * longSide / FOCAL_LONG_SIDE;
+        int kept = 0;
+        for (int i = 0; i < batch.count; i++) {
+            int id = batch.classIds[i];
+            if (target != null && !batch.labels.label(id).contains(target)) continue;
+
+            float widthPx = (batch.right[i] - batch.left[i]) * uprightWidth;
+            float distanceMeters = (batch.labels.knownWidthCm(id) * focal / widthPx) / 100f;
+            batch.set(kept++, id, batch.scores[i], batch.left[i], batch.top[i],
+                    batch.right[i], batch.bottom[i], distanceMeters);
+        }
+        batch.count = kept;
+        return kept;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.smartguiderepo;
+
+import java.util.Arrays;
+
+/**
+ * Merges the latest detections of several cameras into the one batch that feedback
+ * sees. Track ids are made unique across sources: track {@code t} of source {@code s}
+ * becomes {@code t * MAX_SOURCES + s}. An object seen by two cameras at once is
+ * reported once. Entries of the same class whose horizontal centres and distances
+ * agree are taken to be the same object. The lower-numbered source's entry is kept, so
+ * its id stays stable, with the nearer of the two distances. The cameras sit at
+ * different heights with different fields of view, so the match is deliberately loose,
+ * and only horizontal position is compared. A source drops out of the merge when it
+ * has not delivered for {@link #STALE_NANOS}.
+ *
+ * <p>Not thread-safe: each camera's feedback thread calls {@link #merge}, so callers
+ * serialize, together with whatever consumes the merged batch.</p>
+ */
+public final class DetectionMerger {
+
+    public static final int MAX_SOURCES = 4;
+
+    static final long  STALE_NANOS       = 500_000_000L;
+    static final float SAME_CENTRE       = 0.2f;    // normalized horizontal centre distance
+    static final float SAME_DISTANCE     = 0.25f;   // relative difference of the estimates
+    static final float SAME_DISTANCE_MIN = 0.5f;    // metres; estimates near the camera are noisy
+
+    private static final long NEVER = Long.MIN_VALUE / 2;
+
+    private final DetectionBatch[] latest;
+    private final long[]           received;
+    private final LabelTable       labels = new LabelTable();
+    private long duplicates;
+
+    public DetectionMerger(int sources, int capacity) {
+        if (sources > MAX_SOURCES) throw new IllegalArgumentException("at most " + MAX_SOURCES + " sources");
+        latest   = new DetectionBatch[sources];
+        received = new long[sources];
+        for (int s = 0; s < sources; s++) latest[s] = new DetectionBatch(capacity);
+        Arrays.fill(received, NEVER);
+    }
+
+    /**
+     * Records {@code batch} as the latest from {@code source}, then writes the merged
+     * view of every source that is still fresh into {@code out}.
+     */
+    public void merge(int source, DetectionBatch batch, long nowNanos, DetectionBatch out) {
+        latest[source].copyFrom(batch);
+        received[source] = nowNanos;
+
+        out.clear();
+        out.labels       = labels;
+        out.sequence     = batch.sequence;
+        out.captureNanos = batch.captureNanos;
+        for (int s = 0; s < latest.length; s++) {
+            if (nowNanos - received[s] > STALE_NANOS) continue;
+            DetectionBatch b = latest[s];
+            int earlier = out.count;   // entries from lower-numbered sources
+            for (int i = 0; i < b.count; i++) {
+                if (b.labels != null && b.labels.isRegistered(b.classIds[i]))
+                    labels.register(b.classIds[i], b.label(i));
+                int same = findSame(out, earlier, b, i);
+                if (same >= 0) {
+                    out.distances[same] = Math.min(out.distances[same], b.distances[i]);
+                    duplicates++;
+                    continue;
+                }
+                if (out.count == out.capacity) return;
+                out.add(b.classIds[i], b.scores[i], b.left[i], b.top[i], b.right[i], b.bottom[i], b.distances[i]);
+                out.trackIds[out.count - 1] = b.trackIds[i] < 0 ? -1 : b.trackIds[i] * MAX_SOURCES + s;
+            }
+        }
+    }
+
+    /** Drops {@code source} from the merge at once, e.g. when its camera is closed. */
+    public void forget(int source) {
+        received[source] = NEVER;
+    }
+
+    /** Entries dropped as cross-camera duplicates so far. */
+    public long duplicates() {
+        return duplicates;
+    }
+
+    // Index in out[0, earlier) of the same object as b[i], or -1
+    private static int findSame(DetectionBatch out, int earlier, DetectionBatch b, int i) {
+        float centre = (b.left[i] + b.right[i]) * 0.5f;
+        for (int j = 0; j < earlier; j++) {
+            if (out.classIds[j] != b.classIds[i]) continue;
+            if (Math.abs((out.left[j] + out.right[j]) * 0.5f - centre) > SAME_CENTRE) continue;
+            float near = Math.min(out.distances[j], b.distances[i]);
+            float gap  = Math.abs(out.distances[j] - b.distances[i]);
+            if (gap <= Math.max(SAME_DISTANCE_MIN, SAME_DISTANCE * near)) return j;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,547 @@
+package com.example.smartguiderepo;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.camera.core.ImageProxy;
+
+import com.jiangdg.uvc.UVCFrameLease;
+
+import org.tensorflow.lite.support.label.Category;
+import org.tensorflow.lite.task.vision.detector.Detection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The detection loop as four pipelined stages, each on its own thread:
+ * <pre>
+ *   capture (USB / CameraX thread) → preprocess → inference → postprocess → feedback
+ * </pre>
+ * Stages hand frames over through single-slot "latest wins" hand-offs, so converting
+ * frame N+1 overlaps inference on frame N and a slow stage drops stale frames instead
+ * of queueing them. Frames come from a fixed pool and carry their own buffers.
+ *
+ * <p>Published batches come from an {@link ObjectTracker} rather than straight from the
+ * model: frames that skip inference publish tracks extrapolated to their capture time,
+ * so boxes and distances move at camera rate even when inference runs much slower.</p>
+ */
+public class DetectionPipeline {
+
+    private static final String TAG = "DetectionPipeline";
+
+    public static final int MAX_DETECTIONS = 16;
+
+    // Enough frames for one per stage, one per hand-off slot and one being captured
+    private static final int POOL_SIZE = 6;
+    private static final int STATS_LOG_INTERVAL = 300;
+
+    /** Obstacles closer than this (metres) are critical: feedback and the governor react to them. */
+    public static final float ZONE_CRITICAL = FeedbackPolicy.CRITICAL_METERS;
+
+    // Finder-mode crops are drawn into a square bitmap of this size before inference
+    private static final int ROI_BITMAP_SIZE = 320;
+
+    // A box centre moving this far (normalized) between inferences counts as full motion
+    private static final float FULL_MOTION_SHIFT = 0.1f;
+
+    public interface Listener {
+        /** Postprocess or capture thread: a new batch is available from {@link #exchange()}. */
+        void onDetectionsPublished();
+
+        /** Feedback thread: the frame's final detections, for haptic / voice feedback. */
+        void onFeedback(DetectionBatch detections);
+    }
+
+    private final Listener                      listener;
+    private final InferenceAffinity             affinity;
+    private final StagedPipeline<PipelineFrame> stages;
+    private final DetectionExchange             exchange   = new DetectionExchange(MAX_DETECTIONS);
+    private final FrameConverter                converter  = new FrameConverter();   // preprocess thread
+    private final LabelTable                    taskLabels = new LabelTable();       // inference thread
+    private final RectF                         scratchRect = new RectF();           // inference thread
+    private final StringBuilder                 statsText  = new StringBuilder();    // postprocess thread
+    private final PipelineMetrics               metrics;
+    private final String[]                      dropNames;
+
+    private volatile ObjectDetectorHelper detectorHelper;   // null until AppServices has loaded it
+    private volatile YoloDetector   yoloDetector;
+    private volatile DetectorConfig config = DetectorConfig.GENERAL;
+    private volatile String       finderTarget;   // null outside Finder mode
+    private long publishedFrames;
+    private long    startedMs;
+    private boolean firstInferenceLogged;   // inference thread
+
+    // ── Governor inputs ───────────────────────────────────────────────────
+    private final InferenceGovernor governor;
+    private final LumaMotionGate    motionGate = new LumaMotionGate();              // capture thread
+
+    // ── Tracking between inferences ───────────────────────────────────────
+    private final ObjectTracker  tracker   = new ObjectTracker(MAX_DETECTIONS);
+    private final DetectionBatch predicted = new DetectionBatch(MAX_DETECTIONS);     // capture thread
+
+    // ── Finder-mode regions of interest (inference thread) ────────────────
+    private final RoiScheduler roiScheduler = new RoiScheduler();
+    private final Bitmap       roiBitmap    = Bitmap.createBitmap(ROI_BITMAP_SIZE, ROI_BITMAP_SIZE,
+                                                                  Bitmap.Config.ARGB_8888);
+    private final Canvas       roiCanvas    = new Canvas(roiBitmap);
+    private final Paint        roiPaint     = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Rect         roiSrc       = new Rect();
+    private final Rect         roiDst       = new Rect(0, 0, ROI_BITMAP_SIZE, ROI_BITMAP_SIZE);
+    private final DetectionBatch    previous = new DetectionBatch(MAX_DETECTIONS);  // postprocess thread
+    private volatile long  inferenceNanosAvg;
+    private volatile float motionScore       = 1f;
+    private volatile long  lastCriticalNanos = Long.MIN_VALUE;
+    private volatile int   thermalStatus;
+    private volatile long  governorSkips;
+
+    // ── Budget shared with other cameras (multi-source mode) ──────────────
+    private volatile SourceScheduler scheduler;   // null: this pipeline runs alone
+    private volatile int             source;
+    private volatile long            budgetDeferrals;
+
+    public DetectionPipeline(Listener listener, InferenceAffinity affinity) {
+        this.listener = listener;
+        this.affinity = affinity;
+
+        List<PipelineFrame> frames = new ArrayList<>();
+        for (int i = 0; i < POOL_SIZE; i++) frames.add(new PipelineFrame(MAX_DETECTIONS));
+
+        stages = new StagedPipeline<>(new ObjectPool<>(frames),
+                new String[]{"preprocess", "inference", "postprocess", "feedback"},
+                Arrays.<StagedPipeline.Stage<PipelineFrame>>asList(
+                        this::preprocess, this::infer, this::postprocess, this::feedback),
+                affinity.stageThreadFactory(),
+                PipelineFrame::releaseLease);   // dropped before preprocess read it
+
+        stages.setErrorListener(this::onStageError);
+
+        // Drop counters: pool exhaustion, each stage's latest-wins slot, the three gates,
+        // then frames lost to a stage that threw
+        dropNames = new String[stages.stageCount() + 5];
+        dropNames[0] = "pool_empty";
+        for (int i = 0; i < stages.stageCount(); i++) dropNames[i + 1] = stages.stageName(i) + "_dropped";
+        dropNames[dropNames.length - 4] = "governor_skipped";
+        dropNames[dropNames.length - 3] = "motion_reused";
+        dropNames[dropNames.length - 2] = "budget_deferred";
+        dropNames[dropNames.length - 1] = "stage_failed";
+        metrics = new PipelineMetrics(new PipelineMetrics.DropSource() {
+            @Override public int    dropCounterCount()    { return dropNames.length; }
+            @Override public String dropCounterName(int i) { return dropNames[i]; }
+            @Override public long   dropCounter(int i)     { return dropCount(i); }
+        });
+
+        governor = new InferenceGovernor(new InferenceGovernor.Signals() {
+            @Override public long  inferenceNanos()    { return inferenceNanosAvg; }
+            @Override public float motionScore()       { return Math.max(motionScore, motionGate.motion()); }
+            @Override public int   thermalStatus()     { return thermalStatus; }
+            @Override public long  lastCriticalNanos() { return lastCriticalNanos; }
+        }, SystemClock::elapsedRealtimeNanos);
+    }
+
+    public void start() {
+        startedMs = SystemClock.elapsedRealtime();
+        stages.start();
+    }
+
+    public void stop() {
+        stages.stop();
+    }
+
+    public DetectionExchange exchange() {
+        return exchange;
+    }
+
+    public StagedPipeline<PipelineFrame> stages() {
+        return stages;
+    }
+
+    /** Per-step latency histograms and drop counters, for the debug HUD and CSV dumps. */
+    public PipelineMetrics metrics() {
+        return metrics;
+    }
+
+    private long dropCount(int i) {
+        if (i == 0) return stages.captureDrops();
+        if (i <= stages.stageCount()) return stages.drops(i - 1);
+        if (i == dropNames.length - 4) return governorSkips;
+        if (i == dropNames.length - 3) return motionGate.skipped();
+        if (i == dropNames.length - 2) return budgetDeferrals;
+        long failed = 0;
+        for (int s = 0; s < stages.stageCount(); s++) failed += stages.failures(s);
+        return failed;
+    }
+
+    // Stage thread. Logs the first failure of a stage and every 100th after it, to not
+    // flood logcat when a stage fails on every frame
+    private void onStageError(int stage, RuntimeException error) {
+        long n = stages.failures(stage);
+        if (n == 1 || n % 100 == 0)
+            Log.e(TAG, stages.stageName(stage) + " stage failed (" + n + " so far)", error);
+    }
+
+    /**
+     * Hands over the shared Task Library detector once it is loaded; until then frames
+     * produce empty results. Applies the current configuration, so it may block.
+     */
+    public void setDetectorHelper(ObjectDetectorHelper helper) {
+        helper.configure(config);
+        this.detectorHelper = helper;
+    }
+
+    /** Switches to (or away from, with null) the raw-interpreter YOLO engine. */
+    public void setYoloDetector(YoloDetector detector) {
+        if (detector != null) detector.configure(config);
+        this.yoloDetector = detector;
+    }
+
+    /**
+     * Applies a mode's detector settings to both engines. Rebuilds the Task Library
+     * detector, so call it off the main thread.
+     */
+    public void configure(DetectorConfig config) {
+        this.config = config;
+        ObjectDetectorHelper helper = detectorHelper;
+        if (helper != null) helper.configure(config);
+        YoloDetector yolo = yoloDetector;
+        if (yolo != null) yolo.configure(config);
+    }
+
+    public YoloDetector getYoloDetector() {
+        return yoloDetector;
+    }
+
+    /** Input width of the engine in use, or 0 while no detector is loaded or the model does not say. */
+    public int modelInputWidth() {
+        YoloDetector yolo = yoloDetector;
+        if (yolo != null) return yolo.inputSize();
+        ObjectDetectorHelper helper = detectorHelper;
+        return helper != null ? helper.inputWidth() : 0;
+    }
+
+    public int modelInputHeight() {
+        YoloDetector yolo = yoloDetector;
+        if (yolo != null) return yolo.inputSize();
+        ObjectDetectorHelper helper = detectorHelper;
+        return helper != null ? helper.inputHeight() : 0;
+    }
+
+    /** Latest PowerManager.THERMAL_STATUS_* value, fed to the inference governor. */
+    public void setThermalStatus(int status) {
+        this.thermalStatus = status;
+    }
+
+    public InferenceGovernor governor() {
+        return governor;
+    }
+
+    /** Mean luma block difference below which inference is skipped; see {@link LumaMotionGate}. */
+    public void setMotionThreshold(float threshold) {
+        motionGate.setThreshold(threshold);
+    }
+
+    public LumaMotionGate motionGate() {
+        return motionGate;
+    }
+
+    /** Frames the governor decided not to run inference on. */
+    public long governorSkips() {
+        return governorSkips;
+    }
+
+    /**
+     * Shares {@code scheduler}'s inference budget with the other cameras' pipelines, as
+     * {@code source}; null makes this pipeline run on its governor alone again.
+     */
+    public void setScheduler(SourceScheduler scheduler, int source) {
+        this.source    = source;
+        this.scheduler = scheduler;
+    }
+
+    /** Restricts results to labels containing {@code target}; null reports everything. */
+    public void setFinderTarget(String target) {
+        this.finderTarget = target;
+        roiScheduler.reset();
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  Capture — called on the camera callback threads
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Takes a leased NV21 frame from the webcam. The pipeline owns the lease from here
+     * on: a frame that goes on to conversion keeps it until the preprocess stage has
+     * read it, every other one is released at once, so the camera's few native frames
+     * are never held by frames that were dropped.
+     */
+    public void submitLease(UVCFrameLease lease) {
+        if (!admit()) {
+            lease.release();
+            return;
+        }
+        // Take the pooled frame before asking the gate, which moves its reference
+        // forward: a frame dropped for want of one must not absorb real motion
+        PipelineFrame f = stages.acquire();
+        if (f == null) {
+            lease.release();
+            return;
+        }
+        long now    = SystemClock.elapsedRealtimeNanos();
+        int  width  = lease.getWidth();
+        int  height = lease.getHeight();
+        boolean changed = lease.getSize() >= width * height * 3 / 2
+                && motionGate.shouldInfer(lease.getBuffer(), 0, width, height, width, 1, now);
+        if (!changed) {
+            lease.release();
+            f.markReused(now);
+            stages.submit(f);
+        } else if (f.loadLease(lease)) {
+            metrics.record(PipelineMetrics.COPY, SystemClock.elapsedRealtimeNanos() - now);
+            stages.submit(f);
+        } else {
+            lease.release();
+            stages.recycle(f);
+        }
+    }
+
+    /** Copies a CameraX RGBA frame into a pooled frame. The caller closes the image. */
+    public void submitImage(ImageProxy image) {
+        if (!admit()) return;
+        PipelineFrame f = stages.acquire();   // before the gate, as in submitLease
+        if (f == null) return;
+        long now = SystemClock.elapsedRealtimeNanos();
+        ImageProxy.PlaneProxy plane = image.getPlanes()[0];
+        // RGBA: the G channel (byte 1 of each pixel) stands in for luma
+        boolean changed = motionGate.shouldInfer(plane.getBuffer(), 1, image.getWidth(),
+                image.getHeight(), plane.getRowStride(), plane.getPixelStride(), now);
+        if (changed) {
+            f.loadRgba(image, now);
+            metrics.record(PipelineMetrics.COPY, SystemClock.elapsedRealtimeNanos() - now);
+        } else {
+            f.markReused(now);
+        }
+        stages.submit(f);
+    }
+
+    // Frames the shared budget or the governor turns away still move the tracked boxes forward
+    private boolean admit() {
+        SourceScheduler shared = scheduler;
+        long now = SystemClock.elapsedRealtimeNanos();
+        if (shared != null && !shared.mayRun(source, now)) {
+            budgetDeferrals++;
+        } else if (governor.shouldRun()) {
+            if (shared != null) shared.acquired(source, now);
+            return true;
+        } else {
+            governorSkips++;
+        }
+        if (tracker.size() > 0) {
+            tracker.predict(now, predicted);
+            predicted.captureNanos = now;
+            publish(predicted);
+        }
+        return false;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  Stages
+    // ══════════════════════════════════════════════════════════════════════
+
+    private boolean preprocess(PipelineFrame f) {
+        if (f.reused) return true;
+        long start = SystemClock.elapsedRealtimeNanos();
+        boolean ok;
+        try {
+            ok = converter.convert(f) != null;
+        } finally {
+            f.releaseLease();   // the Bitmap has everything later stages need
+        }
+        metrics.record(PipelineMetrics.CONVERT, SystemClock.elapsedRealtimeNanos() - start);
+        return ok;
+    }
+
+    private boolean infer(PipelineFrame f) {
+        if (f.reused) return true;
+        long start = SystemClock.elapsedRealtimeNanos();
+        runModel(f);
+        long elapsed = SystemClock.elapsedRealtimeNanos() - start;
+        if (!firstInferenceLogged && (detectorHelper != null || yoloDetector != null)) logFirstInference();
+        metrics.record(PipelineMetrics.INFERENCE, elapsed);
+        affinity.recordInference(elapsed);
+        long avg = inferenceNanosAvg;
+        inferenceNanosAvg = avg == 0 ? elapsed : avg + (elapsed - avg) / 8;
+        return true;
+    }
+
+    private void logFirstInference() {
+        firstInferenceLogged = true;
+        long now = SystemClock.elapsedRealtime();
+        Log.i(TAG, "Time to first detection: " + (now - Process.getStartElapsedRealtime())
+                + "ms after process start, " + (now - startedMs) + "ms after pipeline start");
+    }
+
+    // Fills f.detections with normalized boxes in the upright frame; distances come later
+    private void runModel(PipelineFrame f) {
+        DetectionBatch batch = f.detections;
+        batch.clear();
+
+        // Finder mode may run on a crop; boxes are then relative to f.roi until mapped back
+        boolean sideways = (f.rotationDegrees % 180) != 0;
+        f.roiRegion = finderTarget == null ? RoiScheduler.REGION_FULL
+                : roiScheduler.next(sideways ? f.height : f.width, sideways ? f.width : f.height, f.roi);
+        Bitmap bitmap = f.roiRegion == RoiScheduler.REGION_FULL ? f.bitmap : crop(f);
+        detect(f, bitmap, batch);
+        if (f.roiRegion != RoiScheduler.REGION_FULL) RoiScheduler.mapToFrame(f.roi, batch);
+    }
+
+    // Draws the upright ROI of the frame into roiBitmap, still in sensor orientation
+    private Bitmap crop(PipelineFrame f) {
+        scratchRect.set(f.roi[0], f.roi[1], f.roi[2], f.roi[3]);
+        rotateNormalized(scratchRect, 360 - f.rotationDegrees);
+        roiSrc.set(Math.round(scratchRect.left * f.width),  Math.round(scratchRect.top * f.height),
+                   Math.round(scratchRect.right * f.width), Math.round(scratchRect.bottom * f.height));
+        roiCanvas.drawBitmap(f.bitmap, roiSrc, roiDst, roiPaint);
+        return roiBitmap;
+    }
+
+    private void detect(PipelineFrame f, Bitmap bitmap, DetectionBatch batch) {
+        YoloDetector yolo = yoloDetector;
+        if (yolo != null) {
+            // Raw-interpreter engine: boxes are already normalized in the upright frame
+            batch.labels = yolo.labels();
+            synchronized (yolo) {   // shared with any other pipeline; results live until its next run
+                int n = yolo.detect(bitmap, f.rotationDegrees);
+                YoloPostprocessor out = yolo.results();
+                for (int i = 0; i < n; i++) {
+                    int o = i * 4;
+                    batch.add(out.classIds[i], out.scores[i],
+                            out.boxes[o], out.boxes[o + 1], out.boxes[o + 2], out.boxes[o + 3], 0f);
+                }
+            }
+            return;
+        }
+
+        batch.labels = taskLabels;
+        ObjectDetectorHelper helper = detectorHelper;
+        if (helper == null) return;
+        List<Detection> results = helper.detect(bitmap, f.rotationDegrees);
+        if (results == null) return;
+        float invW = 1f / bitmap.getWidth();
+        float invH = 1f / bitmap.getHeight();
+        for (int i = 0; i < results.size(); i++) {
+            Detection det = results.get(i);
+            Category  top = det.getCategories().get(0);
+            RectF     raw = det.getBoundingBox();
+            taskLabels.register(top.getIndex(), top.getLabel());
+
+            scratchRect.set(raw.left * invW, raw.top * invH, raw.right * invW, raw.bottom * invH);
+            rotateNormalized(scratchRect, f.rotationDegrees);
+            batch.add(top.getIndex(), top.getScore(), scratchRect.left, scratchRect.top,
+                    scratchRect.right, scratchRect.bottom, 0f);
+        }
+    }
+
+    // Tracking (and for fresh inferences, filtering and distances), then publish
+    private boolean postprocess(PipelineFrame f) {
+        long start = SystemClock.elapsedRealtimeNanos();
+        DetectionBatch batch = f.detections;
+        if (f.reused) {
+            tracker.predict(f.captureNanos, batch);
+        } else {
+            filterAndTrack(f, batch);
+        }
+        batch.captureNanos = f.captureNanos;
+        publish(batch);
+        metrics.record(PipelineMetrics.POSTPROCESS, SystemClock.elapsedRealtimeNanos() - start);
+        return true;
+    }
+
+    // Finder filtering and distance estimation, then feed the tracker
+    private void filterAndTrack(PipelineFrame f, DetectionBatch batch) {
+        String  target   = finderTarget;
+        boolean sideways = (f.rotationDegrees % 180) != 0;
+        int     uprightW = sideways ? f.height : f.width;
+
+        DetectionFilter.filterAndMeasure(batch, target, uprightW, Math.max(f.width, f.height));
+        if (target != null) roiScheduler.report(f.roiRegion, batch);
+
+        motionScore = motionBetween(previous, batch);
+        previous.copyFrom(batch);
+
+        // Consumers see filtered tracks with stable ids rather than raw detections
+        tracker.update(batch, f.captureNanos);
+        tracker.predict(f.captureNanos, batch);
+    }
+
+    // Postprocess thread, and the capture thread for predicted frames; the lock keeps
+    // the exchange single-producer
+    private synchronized void publish(DetectionBatch batch) {
+        for (int i = 0; i < batch.count; i++) {
+            if (batch.distances[i] <= ZONE_CRITICAL) {
+                lastCriticalNanos = SystemClock.elapsedRealtimeNanos();
+                break;
+            }
+        }
+        DetectionBatch back = exchange.back();
+        back.copyFrom(batch);
+        back.publishedNanos = SystemClock.elapsedRealtimeNanos();
+        exchange.publish();
+        listener.onDetectionsPublished();
+
+        if (++publishedFrames % STATS_LOG_INTERVAL == 0) {
+            statsText.setLength(0);
+            stages.appendStats(statsText)
+                  .append(" | governor skips=").append(governorSkips)
+                  .append(" inferences saved=").append(motionGate.skipped())
+                  .append(" interval=").append(governor.currentIntervalNanos() / 1_000_000).append("ms");
+            Log.d(TAG, statsText.toString());
+        }
+    }
+
+    private boolean feedback(PipelineFrame f) {
+        listener.onFeedback(f.detections);
+        return true;
+    }
+
+    /**
+     * Cheap scene-change estimate from the detections alone: the largest centre shift of
+     * a box relative to the nearest same-class box in the previous frame, with objects
+     * appearing or disappearing counting as full motion.
+     */
+    static float motionBetween(DetectionBatch before, DetectionBatch now) {
+        if (before.count != now.count) return 1f;
+        float worst = 0f;
+        for (int i = 0; i < now.count; i++) {
+            float cx = (now.left[i] + now.right[i]) * 0.5f;
+            float cy = (now.top[i] + now.bottom[i]) * 0.5f;
+            float nearest = Float.MAX_VALUE;
+            for (int j = 0; j < before.count; j++) {
+                if (before.classIds[j] != now.classIds[i]) continue;
+                float dx = (before.left[j] + before.right[j]) * 0.5f - cx;
+                float dy = (before.top[j] + before.bottom[j]) * 0.5f - cy;
+                nearest = Math.min(nearest, Math.abs(dx) + Math.abs(dy));
+            }
+            if (nearest == Float.MAX_VALUE) return 1f;
+            worst = Math.max(worst, nearest);
+        }
+        return Math.min(1f, worst / FULL_MOTION_SHIFT);
+    }
+
+    /** Rotates a normalized rect clockwise in place by a multiple of 90°. */
+    static void rotateNormalized(RectF r, int degrees) {
+        float l = r.left, t = r.top, rt = r.right, b = r.bottom;
+        switch (((degrees / 90) & 3)) {
+            case 1:  r.set(1f - b,  l,      1f - t, rt);     break;
+            case 2:  r.set(1f - rt, 1f - b, 1f - l, 1f - t); break;
+            case 3:  r.set(t,       1f - rt, b,     1f - l); break;
+            default: break;
+        }
+    }
+}
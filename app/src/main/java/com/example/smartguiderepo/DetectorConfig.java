@@ -0,0 +1,83 @@
+package com.example.smartguiderepo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Per-mode detector settings. General mode keeps the original top-2 at 0.4. Finder
+ * mode restricts the model to classes whose label contains the target word. That way
+ * a bottle is not crowded out of the results by people and chairs. Finder also keeps
+ * more results at a lower threshold, since only target classes can score.
+ */
+public final class DetectorConfig {
+
+    public static final DetectorConfig GENERAL = new DetectorConfig(2, 0.4f, null);
+
+    static final int   FINDER_MAX_RESULTS     = 5;
+    static final float FINDER_SCORE_THRESHOLD = 0.3f;
+
+    public final int    maxResults;
+    public final float  scoreThreshold;
+    public final String target;          // lower-case; null means every class
+
+    public DetectorConfig(int maxResults, float scoreThreshold, String target) {
+        this.maxResults     = maxResults;
+        this.scoreThreshold = scoreThreshold;
+        this.target         = target == null || target.trim().isEmpty()
+                ? null : target.trim().toLowerCase(Locale.US);
+    }
+
+    /** Settings for a DetectionActivity mode ("General", "Finder", ...). */
+    public static DetectorConfig forMode(String mode, String target) {
+        if (!"Finder".equalsIgnoreCase(mode)) return GENERAL;
+        return new DetectorConfig(FINDER_MAX_RESULTS, FINDER_SCORE_THRESHOLD, target);
+    }
+
+    public boolean allows(String label) {
+        return target == null || label.toLowerCase(Locale.US).contains(target);
+    }
+
+    /**
+     * The labels to restrict the model to, or null for no restriction: either there is
+     * no target, or no label matches it (in which case filtering stays downstream).
+     */
+    public List<String> allowList(List<String> labels) {
+        if (target == null) return null;
+        List<String> allowed = new ArrayList<>();
+        for (String label : labels) if (allows(label)) allowed.add(label);
+        return allowed.isEmpty() ? null : allowed;
+    }
+
+    /** Same as {@link #allowList} as class ids, for a model with labels 0..n-1. */
+    public int[] allowedClassIds(LabelTable labels, int numClasses) {
+        if (target == null) return null;
+        int n = 0;
+        int[] ids = new int[numClasses];
+        for (int c = 0; c < numClasses; c++) if (allows(labels.label(c))) ids[n++] = c;
+        return n == 0 ? null : Arrays.copyOf(ids, n);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DetectorConfig)) return false;
+        DetectorConfig other = (DetectorConfig) o;
+        return maxResults == other.maxResults
+                && Float.compare(scoreThreshold, other.scoreThreshold) == 0
+                && (target == null ? other.target == null : target.equals(other.target));
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 31 * maxResults + Float.floatToIntBits(scoreThreshold);
+        return 31 * h + (target != null ? target.hashCode() : 0);
+    }
+
+    @Override
+    public String toString() {
+        return "max=" + maxResults + " score>=" + scoreThreshold
+                + (target != null ? " target=" + target : "");
+    }
+}
@@ -0,0 +1,358 @@
+package com.example.smartguiderepo;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.SoundPool;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.os.VibrationEffect;
+import android.os.Vibrator;
+import android.speech.tts.TextToSpeech;
+import android.speech.tts.UtteranceProgressListener;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Haptic and spoken feedback with as little delay as possible between a decision and
+ * the user hearing it:
+ * <ul>
+ *   <li>The fixed critical and warning phrases ({@link FeedbackPhrases}) are synthesized
+ *       to WAV files once, on a private TextToSpeech instance, and kept across launches.
+ *       They play from a {@link SoundPool}, which starts in a few milliseconds instead of
+ *       waiting for the TTS engine to synthesize.</li>
+ *   <li>Only dynamic text goes through live TTS, and the language is switched only
+ *       when it actually changes.</li>
+ *   <li>A {@link FeedbackScheduler} lets critical alerts cut off informational speech.</li>
+ *   <li>Vibration waveforms are built once.</li>
+ * </ul>
+ * One instance per process, owned by {@link AppServices}; activities register a
+ * {@link PlaybackListener} to pause speech recognition while the app is talking.
+ */
+public class FeedbackEngine {
+
+    private static final String TAG = "FeedbackEngine";
+
+    private static final String CLIP_DIR    = "feedback_clips";
+    private static final Locale URDU        = new Locale("ur", "PK");
+    private static final long   CLIP_MARGIN_MS = 100;   // SoundPool start-up and tail
+    // Live TTS watchdog: engine start-up plus a slow speaking rate, so only a lost onDone trips it
+    private static final long   TTS_STARTUP_MS  = 3000;
+    private static final long   TTS_MS_PER_CHAR = 150;
+
+    private static final long[] PATTERN_CRITICAL = {0, 600, 100, 600};
+    private static final long[] PATTERN_WARNING  = {0, 200, 150, 200};
+
+    public interface PlaybackListener {
+        void onPlaybackStart();
+        void onPlaybackEnd();
+    }
+
+    // What the scheduler plays: a loaded clip when there is one, otherwise the text
+    private static final class Message {
+        final String  text;
+        final boolean english;
+        final Clip    clip;
+
+        Message(String text, boolean english, Clip clip) {
+            this.text    = text;
+            this.english = english;
+            this.clip    = clip;
+        }
+    }
+
+    private static final class Clip {
+        final int  soundId;
+        final long durationMs;
+
+        Clip(int soundId, long durationMs) {
+            this.soundId    = soundId;
+            this.durationMs = durationMs;
+        }
+    }
+
+    private final Context  context;
+    private final Handler  handler;                 // feedback-audio thread
+    private final Vibrator vibrator;
+    private final VibrationEffect[] effects = new VibrationEffect[3];   // by FeedbackPolicy zone
+    private final SoundPool soundPool;
+    private final FeedbackScheduler<Message> scheduler;
+
+    private final Map<String, Clip>   clips   = new ConcurrentHashMap<>();   // key -> playable clip
+    private final Map<Integer, String> loading = new HashMap<>();   // soundId -> key, guarded by itself
+    private final Map<Integer, Long>   loadingDuration = new HashMap<>();
+    private final AtomicInteger utteranceIds = new AtomicInteger();
+
+    private volatile TextToSpeech     tts;
+    private volatile PlaybackListener playbackListener;
+    private volatile String currentUtterance;   // live TTS id the scheduler waits for
+    private volatile int    currentStream;      // SoundPool stream playing, 0 if none
+    private Locale ttsLocale;                   // guarded by the scheduler lock
+
+    private final Runnable poll = this::schedulePoll;
+
+    public FeedbackEngine(Context context) {
+        this.context = context.getApplicationContext();
+        HandlerThread thread = new HandlerThread("feedback-audio");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+
+        vibrator = (Vibrator) this.context.getSystemService(Context.VIBRATOR_SERVICE);
+        effects[FeedbackPolicy.ZONE_CRITICAL] = VibrationEffect.createWaveform(PATTERN_CRITICAL, -1);
+        effects[FeedbackPolicy.ZONE_WARNING]  = VibrationEffect.createWaveform(PATTERN_WARNING, -1);
+        effects[FeedbackPolicy.ZONE_FAR]      = VibrationEffect.createOneShot(150, VibrationEffect.DEFAULT_AMPLITUDE);
+
+        soundPool = new SoundPool.Builder()
+                .setMaxStreams(1)
+                .setAudioAttributes(new AudioAttributes.Builder()
+                        .setUsage(AudioAttributes.USAGE_ASSISTANCE_NAVIGATION_GUIDANCE)
+                        .setContentType(AudioAttributes.CONTENT_TYPE_SPEECH)
+                        .build())
+                .build();
+        soundPool.setOnLoadCompleteListener((pool, soundId, status) -> {
+            synchronized (loading) {
+                String key = loading.remove(soundId);
+                Long duration = loadingDuration.remove(soundId);
+                if (key != null && status == 0) clips.put(key, new Clip(soundId, duration));
+            }
+        });
+
+        scheduler = new FeedbackScheduler<>(new FeedbackScheduler.Output<Message>() {
+            @Override public long start(Message message) { return play(message); }
+            @Override public long watchdog(Message message) {
+                return TTS_STARTUP_MS + TTS_MS_PER_CHAR * message.text.length();
+            }
+            @Override public void stop()                 { stopPlayback(); }
+            @Override public void idle() {
+                PlaybackListener l = playbackListener;
+                if (l != null) l.onPlaybackEnd();
+            }
+        });
+
+        handler.post(this::loadCachedClips);
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  Public API
+    // ══════════════════════════════════════════════════════════════════════
+
+    /** Main thread, once the shared TTS engine initialized; also starts synthesizing clips. */
+    public void attachTts(TextToSpeech shared) {
+        tts = shared;
+        shared.setOnUtteranceProgressListener(new UtteranceProgressListener() {
+            @Override public void onStart(String id) {}
+            @Override public void onDone(String id)  { onUtteranceEnd(id); }
+            @Override public void onError(String id) { onUtteranceEnd(id); }
+        });
+        handler.post(this::synthesizeMissingClips);
+    }
+
+    /** The activity in the foreground, or the pocket-mode service. */
+    public void setPlaybackListener(PlaybackListener listener) {
+        playbackListener = listener;
+    }
+
+    /** Stops telling {@code listener}, unless another activity or the service has taken over. */
+    public void clearPlaybackListener(PlaybackListener listener) {
+        if (playbackListener == listener) playbackListener = null;
+    }
+
+    public void vibrate(int zone) {
+        if (vibrator == null || !vibrator.hasVibrator()) return;
+        vibrator.vibrate(effects[zone]);
+    }
+
+    /** Spoken warning for the closest obstacle; critical ones preempt anything playing. */
+    public void warn(int zone, String label, float distance) {
+        boolean english = AppSettings.isEnglish;
+        String  key     = FeedbackPhrases.clipKey(zone, label, distance, english);
+        Clip    clip    = key == null ? null : clips.get(key);
+        int priority = zone == FeedbackPolicy.ZONE_CRITICAL ? FeedbackScheduler.CRITICAL
+                     : zone == FeedbackPolicy.ZONE_WARNING  ? FeedbackScheduler.WARNING
+                     : FeedbackScheduler.INFO;
+        submit(priority, new Message(FeedbackPhrases.text(zone, label, distance, english), english, clip));
+    }
+
+    /** Informational speech (status, onboarding) in the current language. */
+    public void say(String english, String urdu) {
+        boolean en = AppSettings.isEnglish;
+        submit(FeedbackScheduler.INFO, new Message(en ? english : urdu, en, null));
+    }
+
+    /** Stops whatever is playing and drops queued messages. */
+    public void stop() {
+        scheduler.clear();
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  Playback
+    // ══════════════════════════════════════════════════════════════════════
+
+    private void submit(int priority, Message message) {
+        scheduler.submit(priority, message, SystemClock.uptimeMillis());
+        handler.post(poll);
+    }
+
+    // Re-arms a single wake-up at the end of the current clip
+    private void schedulePoll() {
+        handler.removeCallbacks(poll);
+        long next = scheduler.poll(SystemClock.uptimeMillis());
+        if (next != Long.MAX_VALUE) handler.postAtTime(poll, next);
+    }
+
+    // Called with the scheduler lock held
+    private long play(Message message) {
+        PlaybackListener l = playbackListener;
+        if (l != null) l.onPlaybackStart();
+
+        if (message.clip != null) {
+            int stream = soundPool.play(message.clip.soundId, 1f, 1f, 1, 0, 1f);
+            if (stream != 0) {
+                currentStream = stream;
+                return message.clip.durationMs + CLIP_MARGIN_MS;
+            }
+        }
+        TextToSpeech engine = tts;
+        if (engine == null) return 0;
+        Locale locale = message.english ? Locale.US : URDU;
+        if (!locale.equals(ttsLocale)) {
+            engine.setLanguage(locale);
+            ttsLocale = locale;
+        }
+        String id = "feedback-" + utteranceIds.incrementAndGet();
+        currentUtterance = id;
+        engine.speak(message.text, TextToSpeech.QUEUE_FLUSH, null, id);
+        return -1;
+    }
+
+    private void stopPlayback() {
+        int stream = currentStream;
+        if (stream != 0) soundPool.stop(stream);
+        currentStream = 0;
+        if (currentUtterance != null) {
+            currentUtterance = null;
+            TextToSpeech engine = tts;
+            if (engine != null) engine.stop();
+        }
+    }
+
+    private void onUtteranceEnd(String id) {
+        if (!id.equals(currentUtterance)) return;   // cut off by a newer message
+        currentUtterance = null;
+        scheduler.finished(SystemClock.uptimeMillis());
+        handler.post(poll);
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  Pre-synthesized clips (feedback-audio thread)
+    // ══════════════════════════════════════════════════════════════════════
+
+    // Versioned by a hash of the text, so rewording a phrase re-synthesizes it
+    private File clipFile(FeedbackPhrases.Phrase phrase) {
+        return new File(new File(context.getFilesDir(), CLIP_DIR),
+                phrase.key + "_" + Integer.toHexString(phrase.text.hashCode()) + ".wav");
+    }
+
+    private void loadCachedClips() {
+        File dir = new File(context.getFilesDir(), CLIP_DIR);
+        Set<String> wanted = new HashSet<>();
+        for (FeedbackPhrases.Phrase phrase : FeedbackPhrases.presynthesized()) {
+            File file = clipFile(phrase);
+            wanted.add(file.getName());
+            if (file.length() > 44) load(phrase.key, file);
+        }
+        File[] existing = dir.listFiles();
+        if (existing == null) return;
+        for (File f : existing) if (!wanted.contains(f.getName())) f.delete();   // outdated wording
+    }
+
+    private void load(String key, File file) {
+        long duration = wavDurationMs(file);
+        if (duration <= 0) return;
+        synchronized (loading) {   // the completion callback may run before load() returns
+            int soundId = soundPool.load(file.getPath(), 1);
+            loading.put(soundId, key);
+            loadingDuration.put(soundId, duration);
+        }
+    }
+
+    // Synthesis runs on its own engine so live speech (QUEUE_FLUSH) never cancels it
+    private void synthesizeMissingClips() {
+        List<FeedbackPhrases.Phrase> missing = new ArrayList<>();
+        for (FeedbackPhrases.Phrase phrase : FeedbackPhrases.presynthesized())
+            if (clipFile(phrase).length() <= 44) missing.add(phrase);
+        if (missing.isEmpty()) return;
+
+        File dir = new File(context.getFilesDir(), CLIP_DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Log.w(TAG, "Cannot create " + dir);
+            return;
+        }
+        long startMs = SystemClock.elapsedRealtime();
+        AtomicInteger remaining = new AtomicInteger(missing.size());
+        TextToSpeech[] synth = new TextToSpeech[1];
+        synth[0] = new TextToSpeech(context, status -> handler.post(() -> {
+            if (status != TextToSpeech.SUCCESS) {
+                Log.w(TAG, "Synthesis engine unavailable; warnings stay on live TTS");
+                synth[0].shutdown();
+                return;
+            }
+            synth[0].setOnUtteranceProgressListener(new UtteranceProgressListener() {
+                @Override public void onStart(String key) {}
+                @Override public void onDone(String key)  { finish(key, true); }
+                @Override public void onError(String key) { finish(key, false); }
+
+                private void finish(String key, boolean ok) {
+                    if (ok) {
+                        for (FeedbackPhrases.Phrase p : missing)
+                            if (p.key.equals(key)) load(p.key, clipFile(p));
+                    }
+                    if (remaining.decrementAndGet() == 0) {
+                        Log.d(TAG, missing.size() + " clips synthesized in "
+                                + (SystemClock.elapsedRealtime() - startMs) + "ms");
+                        handler.post(synth[0]::shutdown);
+                    }
+                }
+            });
+            // Requests are queued in order; the language applies to those enqueued after it
+            Boolean english = null;
+            boolean voice   = false;
+            for (FeedbackPhrases.Phrase p : missing) {
+                if (english == null || english != p.english) {
+                    english = p.english;
+                    voice   = synth[0].setLanguage(p.english ? Locale.US : URDU) >= TextToSpeech.LANG_AVAILABLE;
+                    if (!voice) Log.w(TAG, "No " + (p.english ? "English" : "Urdu") + " voice; those warnings stay live");
+                }
+                boolean queued = voice
+                        && synth[0].synthesizeToFile(p.text, null, clipFile(p), p.key) == TextToSpeech.SUCCESS;
+                if (!queued && remaining.decrementAndGet() == 0) synth[0].shutdown();
+            }
+        }));
+    }
+
+    /** Length of a PCM WAV file from its header's byte rate and the data size. */
+    static long wavDurationMs(File file) {
+        byte[] header = new byte[44];
+        try (InputStream in = new FileInputStream(file)) {
+            if (in.read(header) != header.length) return 0;
+        } catch (IOException e) {
+            return 0;
+        }
+        int byteRate = (header[28] & 0xff) | (header[29] & 0xff) << 8
+                     | (header[30] & 0xff) << 16 | (header[31] & 0xff) << 24;
+        return byteRate <= 0 ? 0 : (file.length() - header.length) * 1000 / byteRate;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.smartguiderepo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The spoken obstacle warnings in both languages. Critical and warning phrases for the
+ * known obstacle classes come from a small fixed set (warning distances are rounded to
+ * half a metre inside a 1.0–2.5 m zone), so they can be synthesized to audio once and
+ * played back without waiting for the TTS engine; everything else is spoken live.
+ */
+public final class FeedbackPhrases {
+
+    // Warning-zone distances after rounding to 0.5 m
+    private static final float[] WARNING_STEPS = {1.0f, 1.5f, 2.0f, 2.5f};
+
+    private FeedbackPhrases() {}
+
+    /** One phrase to pre-synthesize: a stable file-name key and its text. */
+    public static final class Phrase {
+        public final String key;
+        public final String text;
+        public final boolean english;
+
+        Phrase(String key, String text, boolean english) {
+            this.key     = key;
+            this.text    = text;
+            this.english = english;
+        }
+    }
+
+    public static float roundDistance(float distance) {
+        return Math.round(distance * 2) / 2.0f;
+    }
+
+    public static String text(int zone, String label, float distance, boolean english) {
+        float rounded = roundDistance(distance);
+        if (zone == FeedbackPolicy.ZONE_CRITICAL) {
+            return english ? "Stop! " + label + " is very close."
+                           : "رک جائیں! " + label + " بالکل قریب ہے۔";
+        } else if (zone == FeedbackPolicy.ZONE_WARNING) {
+            return english ? "Caution, " + label + " at " + rounded + " meters."
+                           : "خبردار، " + label + " " + rounded + " میٹر پر ہے۔";
+        }
+        return english ? label + " at " + rounded + " meters."
+                       : label + " " + rounded + " میٹر دور۔";
+    }
+
+    /**
+     * Key of the pre-synthesized clip for this warning, or null when it has to be
+     * spoken live (far zone, unknown label or an out-of-range distance).
+     */
+    public static String clipKey(int zone, String label, float distance, boolean english) {
+        if (zone == FeedbackPolicy.ZONE_FAR || !LabelTable.isKnownLabel(label)) return null;
+        String lang = english ? "en" : "ur";
+        String name = label.replace(' ', '_');
+        if (zone == FeedbackPolicy.ZONE_CRITICAL) return lang + "_critical_" + name;
+        float rounded = roundDistance(distance);
+        for (float step : WARNING_STEPS)
+            if (step == rounded) return lang + "_warning_" + name + "_" + Math.round(step * 10);
+        return null;
+    }
+
+    /** Every phrase {@link #clipKey} can name, in both languages. */
+    public static List<Phrase> presynthesized() {
+        List<Phrase> phrases = new ArrayList<>();
+        for (boolean english : new boolean[]{true, false}) {
+            for (String label : LabelTable.knownLabels()) {
+                phrases.add(phrase(FeedbackPolicy.ZONE_CRITICAL, label, 0f, english));
+                for (float step : WARNING_STEPS)
+                    phrases.add(phrase(FeedbackPolicy.ZONE_WARNING, label, step, english));
+            }
+        }
+        return phrases;
+    }
+
+    private static Phrase phrase(int zone, String label, float distance, boolean english) {
+        return new Phrase(clipKey(zone, label, distance, english), text(zone, label, distance, english), english);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.smartguiderepo;
+
+/**
+ * Decides when the closest obstacle should trigger a vibration or a spoken warning.
+ * Kept free of android.* so the decision can be replayed off-device; the activity
+ * plugs the real Vibrator and TextToSpeech in through {@link Sink}.
+ */
+public class FeedbackPolicy {
+
+    public static final int ZONE_CRITICAL = 0;
+    public static final int ZONE_WARNING  = 1;
+    public static final int ZONE_FAR      = 2;
+
+    /** Obstacles closer than this (metres) are critical. */
+    public static final float CRITICAL_METERS = 1.0f;
+    public static final float WARNING_METERS  = 2.5f;
+
+    private static final long INTERVAL_CRITICAL = 3000;
+    private static final long INTERVAL_WARNING  = 5000;
+    private static final long INTERVAL_FAR      = 10000;
+    private static final long MIN_SPEAK_GAP     = 1500;
+
+    public interface Sink {
+        void vibrate(int zone);
+        void speak(String label, float distance, int zone);
+    }
+
+    private long lastSpeakTime   = Long.MIN_VALUE / 2;
+    private long lastVibrateTime = Long.MIN_VALUE / 2;
+    private int  lastSpokenTrack = -1;
+    private int  lastSpokenZone  = -1;
+
+    public static int zoneOf(float distance) {
+        return (distance <= CRITICAL_METERS) ? ZONE_CRITICAL
+             : (distance <= WARNING_METERS)  ? ZONE_WARNING : ZONE_FAR;
+    }
+
+    /** Single feedback thread: reacts to the closest object of one published batch. */
+    public void onDetections(DetectionBatch results, long nowMs, Sink sink) {
+        if (results.count == 0) return;
+
+        int   closest  = results.closestIndex();
+        float distance = results.distances[closest];
+        int   zone     = zoneOf(distance);
+        long  interval = zone == ZONE_CRITICAL ? INTERVAL_CRITICAL
+                       : zone == ZONE_WARNING  ? INTERVAL_WARNING : INTERVAL_FAR;
+
+        if (nowMs - lastVibrateTime > interval) {
+            sink.vibrate(zone);
+            lastVibrateTime = nowMs;
+        }
+        // Speak only about an object not yet announced, or one that moved into a
+        // closer zone; a tracked object that stays put is left to the vibration
+        int track = results.trackIds[closest];
+        boolean due = (track < 0)
+                ? nowMs - lastSpeakTime > (interval + 2000)
+                : (track != lastSpokenTrack || zone < lastSpokenZone)
+                        && nowMs - lastSpeakTime > MIN_SPEAK_GAP;
+        if (due) {
+            sink.speak(results.label(closest), distance, zone);
+            lastSpeakTime   = nowMs;
+            lastSpokenTrack = track;
+            lastSpokenZone  = zone;
+        } else if (track == lastSpokenTrack && zone > lastSpokenZone) {
+            lastSpokenZone = zone;   // moved away: announce again if it comes back closer
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.smartguiderepo;
+
+/**
+ * Decides which spoken message plays next. A higher-priority message cuts off whatever
+ * is playing; an equal or lower one waits, and only the latest waiting message of each
+ * priority is kept. Messages that waited too long are dropped rather than played late,
+ * since a stale warning is worse than none.
+ *
+ * <p>Time is passed in by the caller (any monotonic millisecond clock), so the policy is
+ * plain Java and testable; the Android side supplies the {@link Output}.</p>
+ */
+public class FeedbackScheduler<T> {
+
+    public static final int CRITICAL = 0;
+    public static final int WARNING  = 1;
+    public static final int INFO     = 2;
+    private static final int LEVELS  = 3;
+
+    static final long STALE_MS = 2000;   // waiting messages older than this are dropped
+
+    public interface Output<T> {
+        /**
+         * Starts playing {@code item}. Returns its duration in ms when known up front,
+         * or a negative value when {@link FeedbackScheduler#finished} will be called.
+         */
+        long start(T item);
+
+        /**
+         * How long open-ended playback of {@code item} may take at most. Only a watchdog
+         * for an end that is never reported; when it fires, the playback is stopped.
+         */
+        long watchdog(T item);
+
+        /** Cuts off the current playback. */
+        void stop();
+
+        /** Nothing is playing or waiting any more. */
+        void idle();
+    }
+
+    private final Output<T> output;
+    private final Object[]  waiting      = new Object[LEVELS];
+    private final long[]    waitingSince = new long[LEVELS];
+    private int  playing = -1;           // priority of the current message, -1 when idle
+    private long playingUntil;
+    private boolean openEnded;           // playingUntil is a watchdog, not the known end
+
+    public FeedbackScheduler(Output<T> output) {
+        this.output = output;
+    }
+
+    public synchronized void submit(int priority, T item, long nowMs) {
+        expire(nowMs);
+        if (playing >= 0 && priority >= playing) {
+            waiting[priority]      = item;
+            waitingSince[priority] = nowMs;
+            return;
+        }
+        if (playing >= 0) output.stop();
+        start(priority, item, nowMs);
+    }
+
+    /** The current playback ended on its own (e.g. a TTS utterance completed). */
+    public synchronized void finished(long nowMs) {
+        if (playing < 0) return;
+        playing = -1;
+        next(nowMs);
+    }
+
+    /**
+     * Advances past playback whose known duration has elapsed. Returns the time of the
+     * next such deadline, or {@link Long#MAX_VALUE} when nothing is playing.
+     */
+    public synchronized long poll(long nowMs) {
+        expire(nowMs);
+        return playing >= 0 ? playingUntil : Long.MAX_VALUE;
+    }
+
+    /** Stops playback and forgets everything waiting. */
+    public synchronized void clear() {
+        for (int i = 0; i < LEVELS; i++) waiting[i] = null;
+        if (playing >= 0) {
+            playing = -1;
+            output.stop();
+            output.idle();
+        }
+    }
+
+    public synchronized boolean isPlaying() {
+        return playing >= 0;
+    }
+
+    private void expire(long nowMs) {
+        if (playing >= 0 && nowMs >= playingUntil) {
+            playing = -1;
+            if (openEnded) output.stop();   // the end was never reported; don't talk over what's next
+            next(nowMs);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void next(long nowMs) {
+        for (int p = 0; p < LEVELS; p++) {
+            Object item = waiting[p];
+            if (item == null) continue;
+            waiting[p] = null;
+            if (nowMs - waitingSince[p] > STALE_MS) continue;
+            start(p, (T) item, nowMs);
+            return;
+        }
+        output.idle();
+    }
+
+    private void start(int priority, T item, long nowMs) {
+        playing = priority;
+        long duration = output.start(item);
+        openEnded    = duration < 0;
+        playingUntil = nowMs + (openEnded ? output.watchdog(item) : duration);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.smartguiderepo;
+
+import android.graphics.Bitmap;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Turns the raw data of a {@link PipelineFrame} into the Bitmap the detector consumes.
+ * Used only from the preprocess stage thread: the ARGB scratch array is owned here and
+ * the output Bitmap is owned by the frame, so the steady-state path creates no garbage.
+ * A leased UVC frame is read in place, straight from the camera's native buffer.
+ */
+public class FrameConverter {
+
+    private static final String TAG = "FrameConverter";
+
+    private static final int STATS_WINDOW = 100;
+
+    private int[] argb = new int[0];
+
+    // ── Latency / GC stats (logged every STATS_WINDOW frames) ─────────────
+    private long convertNanos = 0;
+    private int  frames       = 0;
+    private long gcAtWindowStart = readGcCount();
+
+    /** Converts the frame into {@link PipelineFrame#bitmap}; returns null on failure. */
+    public Bitmap convert(PipelineFrame frame) {
+        long start = SystemClock.elapsedRealtimeNanos();
+        Bitmap out = frame.bitmap();
+        if (frame.source == PipelineFrame.SOURCE_CAMERAX) {
+            frame.rgba.rewind();
+            out.copyPixelsFromBuffer(frame.rgba);
+        } else {
+            int pixels = frame.width * frame.height;
+            if (argb.length != pixels) argb = new int[pixels];
+            YuvKernels.nv21ToArgb(frame.lease.getBuffer(), frame.width, frame.height, argb);
+            out.setPixels(argb, 0, frame.width, 0, 0, frame.width, frame.height);
+        }
+        recordStats(SystemClock.elapsedRealtimeNanos() - start);
+        return out;
+    }
+
+    private void recordStats(long nanos) {
+        convertNanos += nanos;
+        if (++frames < STATS_WINDOW) return;
+
+        long gcNow = readGcCount();
+        Log.d(TAG, "convert avg " + (convertNanos / frames / 1000) + "us, "
+                + (gcNow - gcAtWindowStart) + " GCs over " + frames + " frames");
+        convertNanos    = 0;
+        frames          = 0;
+        gcAtWindowStart = gcNow;
+    }
+
+    private static long readGcCount() {
+        try {
+            String count = Debug.getRuntimeStat("art.gc.gc-count");
+            return count != null ? Long.parseLong(count) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
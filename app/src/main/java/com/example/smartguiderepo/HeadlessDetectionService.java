@@ -0,0 +1,387 @@
+package com.example.smartguiderepo;
+
+import android.Manifest;
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.content.pm.ServiceInfo;
+import android.hardware.usb.UsbDevice;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.Size;
+
+import androidx.annotation.Nullable;
+import androidx.camera.core.CameraSelector;
+import androidx.camera.core.ImageAnalysis;
+import androidx.camera.core.ImageProxy;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
+import androidx.camera.lifecycle.ProcessCameraProvider;
+import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
+import androidx.lifecycle.LifecycleService;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.jiangdg.usb.USBMonitor;
+import com.jiangdg.uvc.IFrameLeaseCallback;
+import com.jiangdg.uvc.UVCCamera;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pocket mode: the detection and feedback loop as a foreground service with no display
+ * surface, for when the phone is worn with the screen off. The UVC webcam streams to
+ * its frame lease callback only: libUVCCamera, built from source with the libuvc module,
+ * starts its preview thread without a window then, and skips the RGBX conversion and
+ * the window copy. CameraX binds ImageAnalysis alone, with no Preview use case. Nothing
+ * is composited for the screen. Voice "stop" / "start" pause and resume, and the
+ * notification shows process CPU and battery drain per hour from {@link PowerMeter},
+ * which {@link DetectionActivity} also shows on its HUD for comparison.
+ * Started from {@link DetectionActivity}; any new DetectionActivity stops it again.
+ */
+public class HeadlessDetectionService extends LifecycleService {
+
+    private static final String TAG = "HeadlessDetection";
+
+    public static final String ACTION_STOP  = "com.example.smartguiderepo.action.STOP_HEADLESS";
+    public static final String EXTRA_MODE   = "MODE";
+    public static final String EXTRA_TARGET = "TARGET";
+
+    private static final String CHANNEL_ID        = "headless_detection";
+    private static final int    NOTIFICATION_ID   = 1;
+    private static final long   REPORT_INTERVAL_MS = 60_000;
+    private static final int    UVC_TARGET_FPS = 15;   // nothing is shown; detection runs slower than this
+    private static final Size   ANALYSIS_SIZE = new Size(640, 480);
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private AppServices       services;
+    private FeedbackEngine    feedback;
+    private VoiceAssistant    voice;
+    private DetectionPipeline pipeline;
+    private ExecutorService   cameraExecutor;
+    private PowerMeter        powerMeter;
+    private PowerManager.OnThermalStatusChangedListener thermalListener;
+    private PowerManager.WakeLock wakeLock;   // the foreground service alone lets the CPU suspend
+    private boolean           started;
+
+    // ── USB / UVC ──────────────────────────────────────────────────────────
+    private USBMonitor       usbMonitor;
+    private UVCCamera        uvcCamera;
+    private volatile boolean uvcActive;
+    private final UvcStreamNegotiator uvcStream = new UvcStreamNegotiator(UVC_TARGET_FPS);
+
+    private volatile boolean isDetecting = true;
+    private volatile boolean destroyed;
+
+    // ── Feedback (feedback thread only) ────────────────────────────────────
+    private final FeedbackPolicy feedbackPolicy = new FeedbackPolicy();
+    private final FeedbackPolicy.Sink feedbackSink = new FeedbackPolicy.Sink() {
+        @Override public void vibrate(int zone) { feedback.vibrate(zone); }
+        @Override public void speak(String label, float distance, int zone) {
+            feedback.warn(zone, label, distance);
+        }
+    };
+
+    // Recognition pauses while the service talks, so it does not hear itself
+    private final FeedbackEngine.PlaybackListener playbackListener = new FeedbackEngine.PlaybackListener() {
+        @Override public void onPlaybackStart() { mainHandler.post(() -> voice.stopListening()); }
+        @Override public void onPlaybackEnd()   { mainHandler.post(() -> voice.startListening()); }
+    };
+
+    private final VoiceAssistant.VoiceCommandListener commandListener = (command, argument) -> {
+        if (command == CommandMatcher.STOP) {
+            isDetecting = false;
+            feedback.say("System paused", "سسٹم روک دیا گیا ہے");
+        } else if (command == CommandMatcher.START) {
+            isDetecting = true;
+            feedback.say("Resuming", "دوبارہ شروع");
+        }
+    };
+
+    /** Starts pocket mode from a foreground activity, which camera access requires. */
+    public static void start(Context context, String mode, String target) {
+        Intent intent = new Intent(context, HeadlessDetectionService.class);
+        intent.putExtra(EXTRA_MODE, mode);
+        intent.putExtra(EXTRA_TARGET, target);
+        ContextCompat.startForegroundService(context, intent);
+    }
+
+    public static void stop(Context context) {
+        context.stopService(new Intent(context, HeadlessDetectionService.class));
+    }
+
+    @Override
+    public int onStartCommand(@Nullable Intent intent, int flags, int startId) {
+        super.onStartCommand(intent, flags, startId);
+        if (intent != null && ACTION_STOP.equals(intent.getAction())) {
+            stopSelf();
+            return START_NOT_STICKY;
+        }
+        if (started) return START_NOT_STICKY;
+        started = true;
+
+        startForegroundCompat(notification("Starting"));
+        String mode   = intent != null && intent.hasExtra(EXTRA_MODE) ? intent.getStringExtra(EXTRA_MODE) : "General";
+        String target = intent != null && intent.hasExtra(EXTRA_TARGET) ? intent.getStringExtra(EXTRA_TARGET) : "";
+        startDetection(mode, target.toLowerCase());
+        return START_NOT_STICKY;
+    }
+
+    private void startDetection(String mode, String target) {
+        // Held for the whole session: inference, feedback and the usbfs UVC stream all
+        // have to keep running while the screen is off
+        wakeLock = ((PowerManager) getSystemService(Context.POWER_SERVICE))
+                .newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, "SmartGuide:PocketMode");
+        wakeLock.setReferenceCounted(false);
+        wakeLock.acquire();
+
+        services = AppServices.get(this);
+        services.preload();
+        feedback   = services.feedback();
+        voice      = services.voice();
+        powerMeter = new PowerMeter(this);
+
+        InferenceAffinity affinity = services.affinity();
+        cameraExecutor = Executors.newSingleThreadExecutor(
+                InferenceAffinity.namedThreadFactory("SG-camera", Process.THREAD_PRIORITY_FOREGROUND));
+        pipeline = new DetectionPipeline(new DetectionPipeline.Listener() {
+            @Override public void onDetectionsPublished() {}   // nothing to draw
+            @Override public void onFeedback(DetectionBatch detections) {
+                if (isDetecting) feedbackPolicy.onDetections(detections, System.currentTimeMillis(), feedbackSink);
+            }
+        }, affinity);
+        if (mode.equalsIgnoreCase("Finder")) pipeline.setFinderTarget(target);
+        pipeline.start();
+        pipeline.configure(DetectorConfig.forMode(mode, target));
+        cameraExecutor.execute(() -> {
+            ObjectDetectorHelper helper = services.awaitDetector();
+            YoloDetector         yolo   = services.awaitYoloDetector();
+            if (destroyed) return;   // stopped before the detector was ready
+            affinity.build(() -> {
+                if (helper != null) pipeline.setDetectorHelper(helper);
+                pipeline.setYoloDetector(yolo);
+            });
+        });
+        registerThermalListener();
+
+        services.whenReady(() -> {
+            feedback.setPlaybackListener(playbackListener);
+            voice.setListener(commandListener);
+            feedback.say("Pocket mode. Detection continues with the screen off.",
+                    "پاکٹ موڈ۔ اسکرین بند ہونے پر بھی تلاش جاری ہے");
+        });
+
+        initUSBMonitor();
+        startCameraX();
+        mainHandler.postDelayed(report, REPORT_INTERVAL_MS);
+    }
+
+    @Override
+    public void onDestroy() {
+        destroyed = true;
+        mainHandler.removeCallbacks(report);
+        if (powerMeter != null) Log.d(TAG, "Headless session: " + summary());
+        if (voice != null) voice.clearListener(commandListener);
+        if (feedback != null) {
+            feedback.clearPlaybackListener(playbackListener);   // a new activity may have attached already
+            feedback.stop();
+        }
+        if (thermalListener != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            ((PowerManager) getSystemService(Context.POWER_SERVICE)).removeThermalStatusListener(thermalListener);
+        }
+        releaseUVCCamera();
+        if (usbMonitor != null) {
+            usbMonitor.unregister();
+            usbMonitor.destroy();
+            usbMonitor = null;
+        }
+        if (cameraExecutor != null) {
+            // stop() waits out a running inference, so the teardown stays off the main thread.
+            // The YOLO engine is shared through AppServices and stays open.
+            cameraExecutor.execute(() -> {
+                pipeline.stop();
+                pipeline.setYoloDetector(null);
+            });
+            cameraExecutor.shutdown();
+        }
+        if (wakeLock != null) wakeLock.release();
+        super.onDestroy();   // moves the lifecycle to DESTROYED, which unbinds CameraX
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  UVC — frame callback only, no preview display
+    // ══════════════════════════════════════════════════════════════════════
+
+    private void initUSBMonitor() {
+        usbMonitor = new USBMonitor(this, new USBMonitor.OnDeviceConnectListener() {
+            @Override public void onAttach(UsbDevice device) { usbMonitor.requestPermission(device); }
+            @Override public void onConnect(UsbDevice device, USBMonitor.UsbControlBlock ctrlBlock, boolean createNew) {
+                cameraExecutor.execute(() -> openUVCCamera(ctrlBlock));
+            }
+            @Override public void onDisconnect(UsbDevice device, USBMonitor.UsbControlBlock ctrlBlock) { onUSBCameraGone(); }
+            @Override public void onDetach(UsbDevice device) { onUSBCameraGone(); }
+            @Override public void onCancel(UsbDevice device) { Log.w(TAG, "USB permission denied"); }
+        });
+        usbMonitor.register();
+    }
+
+    private void openUVCCamera(USBMonitor.UsbControlBlock ctrlBlock) {
+        try {
+            releaseUVCCamera();
+            uvcCamera = new UVCCamera();
+            uvcCamera.setCapabilityCache(services.uvcCapabilities());
+            uvcCamera.open(ctrlBlock);
+            // The detector hand-over was queued on this executor first, so its input size is known
+            uvcStream.configure(uvcCamera, pipeline.modelInputWidth(), pipeline.modelInputHeight());
+            // No setPreviewDisplay: the frame callback alone keeps the stream running
+            uvcCamera.setFrameLeaseCallback(uvcFrameCallback, UVCCamera.PIXEL_FORMAT_NV21);
+            uvcCamera.startPreview();
+            uvcActive = true;
+            mainHandler.post(this::stopCameraX);
+            Log.d(TAG, "UVC camera streaming headless " + uvcStream.width() + "x" + uvcStream.height());
+        } catch (Exception e) {
+            Log.e(TAG, "openUVCCamera failed: " + e.getMessage());
+            uvcActive = false;
+        }
+    }
+
+    private final IFrameLeaseCallback uvcFrameCallback = lease -> {
+        if (!isDetecting || !uvcActive) {
+            lease.release();
+            return;
+        }
+        long start = SystemClock.elapsedRealtimeNanos();
+        pipeline.submitLease(lease);
+        uvcStream.onFrame(start);
+    };
+
+    private void onUSBCameraGone() {
+        releaseUVCCamera();
+        mainHandler.post(this::startCameraX);
+    }
+
+    private void releaseUVCCamera() {
+        uvcActive = false;
+        if (uvcCamera != null) {
+            uvcCamera.setFrameLeaseCallback(null, 0);
+            uvcCamera.stopPreview();
+            uvcCamera.destroy();
+            uvcCamera = null;
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  CameraX — ImageAnalysis only
+    // ══════════════════════════════════════════════════════════════════════
+
+    private void startCameraX() {
+        if (uvcActive) return;
+        ListenableFuture<ProcessCameraProvider> future = ProcessCameraProvider.getInstance(this);
+        future.addListener(() -> {
+            try {
+                ProcessCameraProvider provider = future.get();
+                ImageAnalysis analysis = new ImageAnalysis.Builder()
+                        .setResolutionSelector(new ResolutionSelector.Builder()
+                                .setResolutionStrategy(new ResolutionStrategy(ANALYSIS_SIZE,
+                                        ResolutionStrategy.FALLBACK_RULE_CLOSEST_HIGHER_THEN_LOWER))
+                                .build())
+                        .setOutputImageFormat(ImageAnalysis.OUTPUT_IMAGE_FORMAT_RGBA_8888)
+                        .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
+                        .build();
+                analysis.setAnalyzer(cameraExecutor, this::analyzeFrame);
+                provider.unbindAll();
+                provider.bindToLifecycle(this, CameraSelector.DEFAULT_BACK_CAMERA, analysis);
+            } catch (Exception e) { Log.e(TAG, "startCameraX: " + e.getMessage()); }
+        }, ContextCompat.getMainExecutor(this));
+    }
+
+    private void stopCameraX() {
+        ListenableFuture<ProcessCameraProvider> f = ProcessCameraProvider.getInstance(this);
+        f.addListener(() -> {
+            try { f.get().unbindAll(); }
+            catch (Exception e) { Log.e(TAG, "stopCameraX: " + e.getMessage()); }
+        }, ContextCompat.getMainExecutor(this));
+    }
+
+    private void analyzeFrame(ImageProxy image) {
+        try {
+            if (!isDetecting || uvcActive) return;
+            pipeline.submitImage(image);
+        } finally {
+            image.close();
+        }
+    }
+
+    private void registerThermalListener() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) return;
+        PowerManager pm = (PowerManager) getSystemService(Context.POWER_SERVICE);
+        pipeline.setThermalStatus(pm.getCurrentThermalStatus());
+        thermalListener = status -> pipeline.setThermalStatus(status);
+        pm.addThermalStatusListener(ContextCompat.getMainExecutor(this), thermalListener);
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  Notification + power report
+    // ══════════════════════════════════════════════════════════════════════
+
+    private final Runnable report = new Runnable() {
+        @Override
+        public void run() {
+            String text = summary();
+            StringBuilder affinity = new StringBuilder();
+            services.affinity().appendSummary(affinity);
+            Log.d(TAG, "Headless: " + text + " | " + affinity.toString().trim().replace('\n', ';'));
+            getSystemService(NotificationManager.class).notify(NOTIFICATION_ID, notification(text));
+            mainHandler.postDelayed(this, REPORT_INTERVAL_MS);
+        }
+    };
+
+    private String summary() {
+        StringBuilder out = new StringBuilder();
+        powerMeter.appendSummary(out);
+        out.append(uvcActive ? "USB camera" : "phone camera").append(isDetecting ? "" : ", paused");
+        return out.toString().replace('\n', ' ');
+    }
+
+    // The microphone type is only allowed with the permission; without it there is no voice input anyway
+    private void startForegroundCompat(Notification notification) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            int type = ServiceInfo.FOREGROUND_SERVICE_TYPE_CAMERA;
+            if (checkSelfPermission(Manifest.permission.RECORD_AUDIO) == PackageManager.PERMISSION_GRANTED)
+                type |= ServiceInfo.FOREGROUND_SERVICE_TYPE_MICROPHONE;
+            startForeground(NOTIFICATION_ID, notification, type);
+        } else {
+            startForeground(NOTIFICATION_ID, notification);
+        }
+    }
+
+    private Notification notification(String text) {
+        NotificationManager manager = getSystemService(NotificationManager.class);
+        if (manager.getNotificationChannel(CHANNEL_ID) == null) {
+            manager.createNotificationChannel(new NotificationChannel(CHANNEL_ID, "Pocket mode",
+                    NotificationManager.IMPORTANCE_LOW));
+        }
+        PendingIntent stop = PendingIntent.getService(this, 0,
+                new Intent(this, HeadlessDetectionService.class).setAction(ACTION_STOP),
+                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
+        return new NotificationCompat.Builder(this, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_mic_white)
+                .setContentTitle("SmartGuide pocket mode")
+                .setContentText(text)
+                .setOngoing(true)
+                .setOnlyAlertOnce(true)
+                .addAction(0, "Stop", stop)
+                .build();
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.smartguiderepo;
+
+import android.os.Process;
+import android.util.Log;
+
+import com.jiangdg.natives.CpuAffinity;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Scheduling for the detection threads. Pipeline stages and the capture thread run
+ * above default priority, so speech recognition and TTS synthesis no longer preempt
+ * them, while audio playback still does. The inference stage goes highest. It can also
+ * be pinned, together with the TFLite worker threads it drives, to the performance
+ * cluster ({@link CpuTopology}) through libnative's {@code sched_setaffinity} helper.
+ *
+ * <p>Modes: {@link #MODE_PINNED} (default), {@link #MODE_UNPINNED} (priorities only) and
+ * {@link #MODE_AB}. A/B alternates between the two every {@link #AB_BLOCK} inferences
+ * and keeps each side's latency apart, so the spread with and without pinning can be
+ * compared on the same scene. Each side is tracked in every mode, so the HUD shows it.</p>
+ *
+ * <p>Fallback: without the native helper, or on a CPU without a faster cluster,
+ * pinning is off and only priorities apply. A failed pin leaves the threads unpinned
+ * and is retried one block later. This happens when a background cpuset excludes the
+ * big cores.</p>
+ *
+ * <p>TFLite starts its pool threads while an interpreter is built, on the building
+ * thread, and they inherit its affinity and name. {@link #build(Runnable)} pins the
+ * caller while it builds. It also records the threads that appeared meanwhile under
+ * the caller's name, so later switches move them along with the inference thread.
+ * Pipelines running side by side each have an inference thread; they all share one
+ * side at a time and their latencies are pooled.</p>
+ */
+public class InferenceAffinity {
+
+    private static final String TAG = "InferenceAffinity";
+
+    public static final int MODE_PINNED   = 0;
+    public static final int MODE_UNPINNED = 1;
+    public static final int MODE_AB       = 2;
+    public static final int MODE_COUNT    = 3;
+
+    private static final String[] MODE_NAMES = {"pinned", "unpinned", "a/b"};
+
+    /** StagedPipeline names stage threads "SG-" + stage name. */
+    static final String INFERENCE_THREAD = "SG-inference";
+
+    private static final int AB_BLOCK  = 100;   // inferences per side before switching
+    private static final int MIN_CORES = 2;     // the inference thread plus at least one worker
+    private static final int ESRCH     = 3;
+    private static final File TASKS    = new File("/proc/self/task");
+
+    private static final int PINNED   = 0;   // sides, as indexes into the stats
+    private static final int UNPINNED = 1;
+
+    private final long   bigMask;       // 0 when pinning is unavailable
+    private final long   allMask;
+    private final String unavailable;   // why pinning is off, or null
+
+    private volatile int     mode;
+    private volatile boolean pinnedNow;
+    private volatile boolean reapply = true;   // mode changed or a new inference thread
+    private final List<Integer> workers          = new ArrayList<>();   // TFLite pool threads; guarded by itself
+    private final List<Integer> inferenceThreads = new ArrayList<>();   // one per pipeline; guarded by workers
+
+    // ── Inference threads, under this object's lock ───────────────────────
+    private long    inferences;
+    private long    nextSwitch;
+    private boolean skipNext;   // the first inference after a switch runs on cold caches
+
+    // ── Per-side latency (written by the inference threads, read by the HUD) ──
+    private final LatencyHistogram[] latency = {new LatencyHistogram(), new LatencyHistogram()};
+    private final long[]   samples = new long[2];
+    private final double[] meanMs  = new double[2];
+    private final double[] m2      = new double[2];
+
+    public InferenceAffinity(int mode) {
+        this.mode = mode >= 0 && mode < MODE_COUNT ? mode : MODE_PINNED;
+
+        int[]  capacity = CpuTopology.readCapacities(CpuTopology.SYSFS_CPU);
+        long   big      = CpuTopology.performanceMask(capacity, MIN_CORES);
+        String reason   = big == 0 ? "no faster cluster" : null;
+        if (big != 0) {
+            try {
+                CpuAffinity.getThreadAffinity(Process.myTid());
+            } catch (LinkageError e) {
+                big    = 0;
+                reason = "no native helper";
+            }
+        }
+        bigMask     = big;
+        allMask     = CpuTopology.allMask(capacity);
+        unavailable = reason;
+        Log.i(TAG, big != 0 ? "Performance cluster: cpus " + CpuTopology.describe(big)
+                            : "Pinning off: " + reason);
+    }
+
+    public int mode() {
+        return mode;
+    }
+
+    /** Any thread; the next inference applies it. */
+    public void setMode(int mode) {
+        this.mode    = mode;
+        this.reapply = true;
+    }
+
+    public static String modeName(int mode) {
+        return MODE_NAMES[mode];
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  Threads
+    // ══════════════════════════════════════════════════════════════════════
+
+    /** For {@link StagedPipeline}: per-stage priority; the inference stage is also pinned. */
+    public ThreadFactory stageThreadFactory() {
+        return task -> new Thread(() -> {
+            // StagedPipeline names the thread before starting it
+            boolean inference = INFERENCE_THREAD.equals(Thread.currentThread().getName());
+            Process.setThreadPriority(inference ? Process.THREAD_PRIORITY_DISPLAY
+                                                : Process.THREAD_PRIORITY_FOREGROUND);
+            if (inference) onInferenceThreadStarted();
+            task.run();
+        });
+    }
+
+    /** Threads named {@code name} at {@code priority}, for single-thread executors. */
+    public static ThreadFactory namedThreadFactory(String name, int priority) {
+        return task -> new Thread(() -> {
+            Process.setThreadPriority(priority);
+            task.run();
+        }, name);
+    }
+
+    /**
+     * Runs {@code work}, which builds interpreters, pinned unless the mode is
+     * {@link #MODE_UNPINNED}. The pool threads it starts are recorded as workers.
+     */
+    public void build(Runnable work) {
+        if (bigMask == 0) {
+            work.run();
+            return;
+        }
+        int          tid      = Process.myTid();
+        String       name     = comm(tid);
+        Set<Integer> before   = tids();
+        long         previous = CpuAffinity.getThreadAffinity(tid);
+        if (mode != MODE_UNPINNED) CpuAffinity.setThreadAffinity(tid, bigMask);
+        try {
+            work.run();
+        } finally {
+            CpuAffinity.setThreadAffinity(tid, previous > 0 ? previous : allMask);
+            int found = 0;
+            synchronized (workers) {
+                for (int t : tids()) {
+                    if (before.contains(t) || !name.equals(comm(t))) continue;
+                    workers.add(t);
+                    found++;
+                    // Already running inference on the other side of an A/B switch
+                    if (!inferenceThreads.isEmpty() && !pinnedNow) CpuAffinity.setThreadAffinity(t, allMask);
+                }
+            }
+            if (found > 0) Log.d(TAG, "Recorded " + found + " TFLite worker threads");
+        }
+    }
+
+    private void onInferenceThreadStarted() {
+        synchronized (workers) {
+            inferenceThreads.add(Process.myTid());
+        }
+        reapply = true;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  Inference threads
+    // ══════════════════════════════════════════════════════════════════════
+
+    /** After every inference, with its duration; also switches sides when it is time. */
+    public synchronized void recordInference(long nanos) {
+        inferences++;
+        if (skipNext) skipNext = false;
+        else record(pinnedNow ? PINNED : UNPINNED, nanos);
+
+        boolean forced = reapply;
+        if (inferences < nextSwitch && !forced) return;
+        reapply = false;
+        int     m    = mode;
+        boolean want = bigMask != 0 && (m == MODE_AB ? forced || !pinnedNow : m == MODE_PINNED);
+        nextSwitch = inferences + AB_BLOCK;
+        if (bigMask != 0 && (want != pinnedNow || forced)) apply(want);   // never touch the helper without it
+        if (m == MODE_AB && !pinnedNow) logComparison();
+    }
+
+    private void apply(boolean pin) {
+        long mask = pin ? bigMask : allMask;
+        synchronized (workers) {
+            if (pin && !setAll(inferenceThreads, mask)) {
+                Log.w(TAG, "Pinning failed, running unpinned");
+                pin  = false;
+                mask = allMask;
+                setAll(inferenceThreads, mask);
+            }
+            setAll(workers, mask);
+        }
+        pinnedNow = pin;
+        skipNext  = true;
+    }
+
+    // Applies mask to every thread in tids, dropping the ones that exited; false if any refused it
+    private static boolean setAll(List<Integer> tids, long mask) {
+        boolean ok = true;
+        for (Iterator<Integer> it = tids.iterator(); it.hasNext(); ) {
+            int ret = CpuAffinity.setThreadAffinity(it.next(), mask);
+            if (ret == -ESRCH) it.remove();
+            else if (ret != 0) ok = false;
+        }
+        return ok;
+    }
+
+    private void record(int side, long nanos) {
+        latency[side].record(nanos);
+        // Welford's running variance, in milliseconds
+        double x     = nanos / 1e6;
+        long   n     = ++samples[side];
+        double delta = x - meanMs[side];
+        meanMs[side] += delta / n;
+        m2[side]     += delta * (x - meanMs[side]);
+    }
+
+    private void logComparison() {
+        StringBuilder text = new StringBuilder();
+        appendSide(text, PINNED);
+        appendSide(text, UNPINNED);
+        Log.d(TAG, text.toString().trim().replace('\n', ';'));
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  Report
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * HUD lines: the mode, the cluster (or why pinning is off), then inference latency
+     * per side, e.g. {@code "pinned    n=400 p50 11.8 p95 14.2 sd 1.6 ms"}.
+     */
+    public void appendSummary(StringBuilder out) {
+        out.append("affinity ").append(MODE_NAMES[mode]);
+        if (bigMask != 0) out.append(" big ").append(CpuTopology.describe(bigMask))
+                             .append(pinnedNow ? " (pinned)" : " (unpinned)");
+        else out.append(" off: ").append(unavailable);
+        out.append(" workers ").append(workerCount()).append('\n');
+        if (samples[PINNED]   > 0) appendSide(out, PINNED);
+        if (samples[UNPINNED] > 0) appendSide(out, UNPINNED);
+    }
+
+    public void reset() {
+        for (int side = 0; side < 2; side++) {
+            latency[side].reset();
+            samples[side] = 0;
+            meanMs[side]  = 0;
+            m2[side]      = 0;
+        }
+    }
+
+    private void appendSide(StringBuilder out, int side) {
+        long   n  = samples[side];
+        double sd = n > 1 ? Math.sqrt(m2[side] / (n - 1)) : 0;
+        out.append(side == PINNED ? "pinned   " : "unpinned ")
+           .append(" n=").append(n)
+           .append(String.format(" p50 %.1f p95 %.1f sd %.1f ms\n",
+                   latency[side].percentileMicros(50) / 1000f,
+                   latency[side].percentileMicros(95) / 1000f, sd));
+    }
+
+    private int workerCount() {
+        synchronized (workers) {
+            return workers.size();
+        }
+    }
+
+    private static Set<Integer> tids() {
+        Set<Integer> tids  = new HashSet<>();
+        String[]     names = TASKS.list();
+        if (names == null) return tids;
+        for (String name : names) {
+            try {
+                tids.add(Integer.parseInt(name));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return tids;
+    }
+
+    // The kernel's thread name, which new threads inherit from the one that started them
+    private static String comm(int tid) {
+        try (BufferedReader in = new BufferedReader(new FileReader(new File(TASKS, tid + "/comm")))) {
+            String line = in.readLine();
+            return line != null ? line : "";
+        } catch (IOException e) {
+            return "";
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.smartguiderepo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One way of running the detection model: which delegate, how many CPU threads and
+ * which interpreter flags. Instances are immutable and identified by {@link #id},
+ * which is what gets persisted once a device has been benchmarked.
+ */
+public final class InferenceBackend {
+
+    public enum Delegate { CPU, NNAPI, GPU }
+
+    public static final InferenceBackend CPU_1            = new InferenceBackend("cpu1",       Delegate.CPU,   1, true,  false);
+    public static final InferenceBackend CPU_2            = new InferenceBackend("cpu2",       Delegate.CPU,   2, true,  false);
+    public static final InferenceBackend CPU_4            = new InferenceBackend("cpu4",       Delegate.CPU,   4, true,  false);
+    public static final InferenceBackend CPU_4_NO_XNNPACK = new InferenceBackend("cpu4_noxnn", Delegate.CPU,   4, false, false);
+    public static final InferenceBackend CPU_4_FP16       = new InferenceBackend("cpu4_fp16",  Delegate.CPU,   4, true,  true);
+    public static final InferenceBackend NNAPI            = new InferenceBackend("nnapi",      Delegate.NNAPI, 1, true,  false);
+    public static final InferenceBackend GPU              = new InferenceBackend("gpu",        Delegate.GPU,   1, true,  false);
+
+    /** Used before a benchmark has run and whenever a delegate fails. */
+    public static final InferenceBackend DEFAULT_CPU = CPU_2;
+
+    public static final List<InferenceBackend> ALL = Collections.unmodifiableList(Arrays.asList(
+            CPU_1, CPU_2, CPU_4, CPU_4_NO_XNNPACK, CPU_4_FP16, NNAPI, GPU));
+
+    public final String   id;
+    public final Delegate delegate;
+    public final int      numThreads;
+    public final boolean  useXnnpack;
+    public final boolean  allowFp16;
+
+    private InferenceBackend(String id, Delegate delegate, int numThreads,
+                             boolean useXnnpack, boolean allowFp16) {
+        this.id         = id;
+        this.delegate   = delegate;
+        this.numThreads = numThreads;
+        this.useXnnpack = useXnnpack;
+        this.allowFp16  = allowFp16;
+    }
+
+    /**
+     * The Task Library's BaseOptions only exposes thread count and delegate, so the
+     * XNNPACK / FP16 variants are only benchmarked for the raw Interpreter path.
+     */
+    public boolean isTaskLibraryCompatible() {
+        return useXnnpack && !allowFp16;
+    }
+
+    public static List<InferenceBackend> taskLibraryCandidates() {
+        List<InferenceBackend> out = new ArrayList<>();
+        for (InferenceBackend b : ALL) if (b.isTaskLibraryCompatible()) out.add(b);
+        return out;
+    }
+
+    /** Every backend: the raw Interpreter takes each flag, so {@link YoloDetector} tries them all. */
+    public static List<InferenceBackend> interpreterCandidates() {
+        return ALL;
+    }
+
+    /** Returns the backend with the given id, or null if it is unknown (e.g. from an older build). */
+    public static InferenceBackend fromId(String id) {
+        if (id == null) return null;
+        for (InferenceBackend b : ALL) if (b.id.equals(id)) return b;
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+}
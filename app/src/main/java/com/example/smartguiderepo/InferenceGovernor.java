@@ -0,0 +1,96 @@
+package com.example.smartguiderepo;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Decides how often inference should run. Static scenes are sampled slowly, motion
+ * speeds sampling up, thermal throttling slows it down, and a recent critical-zone
+ * obstacle forces the fastest rate regardless of everything else. The interval is
+ * always capped at {@link #MAX_INTERVAL_MS}, which bounds the worst-case delay before
+ * a new hazard is seen.
+ *
+ * <p>All inputs come through {@link Signals} and time through a {@link LongSupplier},
+ * so the control loop can be driven with synthetic values in unit tests.</p>
+ */
+public class InferenceGovernor {
+
+    /** Inputs to the governor. Implementations must be cheap; they are read per frame. */
+    public interface Signals {
+        /** Recent inference latency in nanoseconds (0 if unknown). */
+        long inferenceNanos();
+
+        /** Scene change since the last inference, 0 (static) to 1 (large change). */
+        float motionScore();
+
+        /** PowerManager.THERMAL_STATUS_* value; 0 when unknown or cool. */
+        int thermalStatus();
+
+        /** Clock time of the last critical-zone obstacle, or Long.MIN_VALUE if none. */
+        long lastCriticalNanos();
+    }
+
+    // PowerManager.THERMAL_STATUS_* values, duplicated so this class stays free of android.*
+    static final int THERMAL_MODERATE = 2;
+    static final int THERMAL_SEVERE   = 3;
+    static final int THERMAL_CRITICAL = 4;
+
+    static final long HAZARD_INTERVAL_MS = 66;     // ~15 fps while something is very close
+    static final long MOVING_INTERVAL_MS = 100;
+    static final long STATIC_INTERVAL_MS = 500;
+    static final long MAX_INTERVAL_MS    = 750;    // worst-case sampling gap, even when hot
+    static final long HAZARD_HOLD_MS     = 3000;   // stay fast this long after a critical obstacle
+
+    private static final long MS = 1_000_000L;
+
+    private final Signals      signals;
+    private final LongSupplier clock;
+    private long lastRunNanos = Long.MIN_VALUE;
+    private volatile long currentIntervalNanos;
+
+    public InferenceGovernor(Signals signals, LongSupplier clock) {
+        this.signals = signals;
+        this.clock   = clock;
+    }
+
+    /** Target gap between two inferences for the current signals. */
+    public long targetIntervalNanos() {
+        long now      = clock.getAsLong();
+        long latency  = Math.max(0, signals.inferenceNanos());
+        long critical = signals.lastCriticalNanos();
+
+        long interval;
+        if (critical != Long.MIN_VALUE && now - critical < HAZARD_HOLD_MS * MS) {
+            // Hazard nearby: fastest rate, thermal state is deliberately ignored
+            interval = HAZARD_INTERVAL_MS * MS;
+        } else {
+            float motion = Math.max(0f, Math.min(1f, signals.motionScore()));
+            interval = (long) ((STATIC_INTERVAL_MS + (MOVING_INTERVAL_MS - STATIC_INTERVAL_MS) * motion) * MS);
+
+            int thermal = signals.thermalStatus();
+            if (thermal >= THERMAL_CRITICAL)      interval *= 3;
+            else if (thermal >= THERMAL_SEVERE)   interval *= 2;
+            else if (thermal >= THERMAL_MODERATE) interval = interval * 3 / 2;
+            interval = Math.min(interval, MAX_INTERVAL_MS * MS);
+        }
+        // Starting sooner than inference can finish only queues frames
+        return Math.max(interval, latency);
+    }
+
+    /**
+     * Called for each captured frame; true if this frame should go to inference.
+     * Single caller thread (the capture thread).
+     */
+    public boolean shouldRun() {
+        long now      = clock.getAsLong();
+        long interval = targetIntervalNanos();
+        currentIntervalNanos = interval;
+        if (lastRunNanos != Long.MIN_VALUE && now - lastRunNanos < interval) return false;
+        lastRunNanos = now;
+        return true;
+    }
+
+    /** Interval used for the most recent decision, for stats and the debug overlay. */
+    public long currentIntervalNanos() {
+        return currentIntervalNanos;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.smartguiderepo;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Detector instances for pipelines that run inference at the same time, leased one per
+ * pipeline, since an interpreter must not be used by two threads at once. Instances are
+ * built by the factory on demand, up to a limit. The factory makes siblings that share
+ * one memory-mapped model, so an extra instance costs its tensor arena, not another copy
+ * of the weights. Released instances are kept, so a camera that reconnects does not
+ * wait for a rebuild.
+ */
+public final class InterpreterPool<T> {
+
+    public interface Factory<T> {
+        /** Builds one more instance, or returns null if that is not possible. */
+        T create();
+    }
+
+    private final Factory<T>    factory;
+    private final int           max;
+    private final ArrayDeque<T> idle = new ArrayDeque<>();
+    private int created;
+
+    public InterpreterPool(Factory<T> factory, int max) {
+        this.factory = factory;
+        this.max     = max;
+    }
+
+    /** An idle instance, a new one while under the limit, or null. May block while building. */
+    public synchronized T acquire() {
+        T item = idle.poll();
+        if (item != null || created >= max) return item;
+        item = factory.create();
+        if (item != null) created++;
+        return item;
+    }
+
+    public synchronized void release(T item) {
+        if (item != null) idle.push(item);
+    }
+
+    /** Instances built so far, leased or idle. */
+    public synchronized int created() {
+        return created;
+    }
+
+    public synchronized int idle() {
+        return idle.size();
+    }
+
+    /** Closes the idle instances; leased ones stay with their holders. */
+    public synchronized void closeIdle(Consumer<T> closer) {
+        for (T item; (item = idle.poll()) != null; created--) closer.accept(item);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.smartguiderepo;
+
+/**
+ * Turns the keyword classifier's per-window scores into commands. Scores are averaged
+ * over the last few windows (nothing fires before that many have been seen), and a
+ * keyword fires when its average clears the threshold. Then nothing fires again for a
+ * refractory period, so one spoken word, which spans several overlapping windows, gives
+ * exactly one command. Labels map to commands through {@link CommandMatcher#DEFAULT}, so
+ * English and Urdu labels give the same command; silence, unknown and unmapped labels
+ * never fire.
+ */
+public final class KeywordDecoder {
+
+    private final int[]     commands;        // per class; NONE for non-commands
+    private final float     threshold;
+    private final long      refractoryMs;
+    private final float[][] history;         // [window][class], ring
+    private final float[]   average;
+    private int  filled;
+    private int  next;
+    private long lastFiredMs = Long.MIN_VALUE / 2;
+
+    public KeywordDecoder(String[] labels, float threshold, int averageWindows, long refractoryMs) {
+        this.commands     = new int[labels.length];
+        this.threshold    = threshold;
+        this.refractoryMs = refractoryMs;
+        this.history      = new float[averageWindows][labels.length];
+        this.average      = new float[labels.length];
+        for (int i = 0; i < labels.length; i++) commands[i] = command(labels[i]);
+    }
+
+    /** The {@link CommandMatcher} command for a classifier label, or NONE if it is not one. */
+    public static int command(String label) {
+        CommandMatcher.Match match = new CommandMatcher.Match();
+        return label != null && CommandMatcher.DEFAULT.match(label, match) ? match.command : CommandMatcher.NONE;
+    }
+
+    /** Number of classes with a command, so a model without any can be rejected. */
+    public int commandCount() {
+        int n = 0;
+        for (int c : commands) if (c != CommandMatcher.NONE) n++;
+        return n;
+    }
+
+    /**
+     * Adds one window's scores (probabilities, one per label) and returns the command that
+     * fires now, or {@link CommandMatcher#NONE}.
+     */
+    public int update(float[] scores, long nowMs) {
+        System.arraycopy(scores, 0, history[next], 0, commands.length);
+        next = (next + 1) % history.length;
+        if (filled < history.length) filled++;
+        if (filled < history.length) return CommandMatcher.NONE;
+
+        int   best      = -1;
+        float bestScore = 0f;
+        for (int c = 0; c < commands.length; c++) {
+            float sum = 0f;
+            for (int w = 0; w < filled; w++) sum += history[w][c];
+            average[c] = sum / filled;
+            if (commands[c] != CommandMatcher.NONE && average[c] > bestScore) {
+                best      = c;
+                bestScore = average[c];
+            }
+        }
+
+        if (best < 0 || bestScore < threshold || nowMs - lastFiredMs < refractoryMs) return CommandMatcher.NONE;
+        lastFiredMs = nowMs;
+        return commands[best];
+    }
+
+    /** Forgets the score history, e.g. after the microphone was paused. */
+    public void reset() {
+        filled = 0;
+        next   = 0;
+    }
+}
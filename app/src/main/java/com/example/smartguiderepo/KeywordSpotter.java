@@ -0,0 +1,275 @@
+package com.example.smartguiderepo;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.MediaRecorder;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import org.tensorflow.lite.DataType;
+import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
+import org.tensorflow.lite.support.common.FileUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.util.List;
+
+/**
+ * Offline keyword spotting for the fixed command set ("stop/ruko", "start/shuru",
+ * "find/talaash", "help/madad"). A thread reads 16 kHz mono PCM from AudioRecord,
+ * {@link MfccExtractor} turns every 20 ms hop into one feature row, and every
+ * {@link #INFER_EVERY_HOPS} hops a small TFLite classifier scores the last second of
+ * rows. {@link KeywordDecoder} smooths the scores into commands. Buffers are allocated
+ * once in the constructor, and the thread's own CPU time is tracked for
+ * {@link VoiceAssistant}'s usage report.
+ */
+public class KeywordSpotter {
+
+    private static final String TAG = "KeywordSpotter";
+
+    public static final String MODEL_FILE  = "kws.tflite";
+    public static final String LABELS_FILE = "kws_labels.txt";
+
+    private static final int   INFER_EVERY_HOPS = 5;       // 100 ms
+    private static final float THRESHOLD        = 0.8f;
+    private static final int   AVERAGE_WINDOWS  = 3;
+    private static final long  REFRACTORY_MS    = 1000;
+    private static final long  JOIN_TIMEOUT_MS  = 500;
+
+    /** Called on the spotter thread with a {@link CommandMatcher} command. */
+    public interface Listener {
+        void onKeyword(int command);
+    }
+
+    private final Context        context;
+    private final Listener       listener;
+    private final Interpreter    interpreter;
+    private final MfccExtractor  mfcc;
+    private final KeywordDecoder decoder;
+
+    // ── Model tensors ─────────────────────────────────────────────────────
+    private final int        frames;
+    private final int        coefficients;
+    private final ByteBuffer input;
+    private final boolean    floatInput;
+    private final boolean    inSigned;
+    private final float      inScale;
+    private final int        inZeroPoint;
+    private final ByteBuffer output;
+    private final boolean    floatOutput;
+    private final float      outScale;
+    private final int        outZeroPoint;
+    private final boolean    outSigned;
+    private final float[]    scores;
+
+    // ── Spotter thread only ───────────────────────────────────────────────
+    private final short[] samples  = new short[MfccExtractor.WINDOW];
+    private final float[] features;                       // [frames][coefficients], oldest first
+    private long hops;
+
+    private Thread      thread;
+    private AudioRecord record;
+    private volatile boolean running;
+
+    // ── CPU accounting, written by the spotter thread ─────────────────────
+    private volatile long cpuMs;
+    private volatile long audioMs;
+
+    /**
+     * Loads {@link #MODEL_FILE} and {@link #LABELS_FILE} from assets. Returns null when the
+     * model is not bundled or cannot be used, so callers can stay on SpeechRecognizer.
+     */
+    public static KeywordSpotter create(Context context, Listener listener) {
+        try {
+            MappedByteBuffer model = FileUtil.loadMappedFile(context, MODEL_FILE);
+            List<String> labels = FileUtil.loadLabels(context, LABELS_FILE);
+            return new KeywordSpotter(context, model, labels.toArray(new String[0]), listener);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Keyword spotting not available: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private KeywordSpotter(Context context, ByteBuffer model, String[] labels, Listener listener) {
+        this.context  = context.getApplicationContext();
+        this.listener = listener;
+
+        Interpreter.Options options = new Interpreter.Options();
+        options.setNumThreads(1);
+        interpreter = new Interpreter(model, options);
+
+        try {
+            // Input: [1, frames, coefficients] or [1, frames, coefficients, 1]
+            Tensor in = interpreter.getInputTensor(0);
+            frames       = in.shape()[1];
+            coefficients = in.shape()[2];
+            floatInput   = in.dataType() == DataType.FLOAT32;
+            inSigned     = in.dataType() == DataType.INT8;
+            inScale      = floatInput ? 1f : in.quantizationParams().getScale();
+            inZeroPoint  = floatInput ? 0  : in.quantizationParams().getZeroPoint();
+            input        = ByteBuffer.allocateDirect(in.numBytes()).order(ByteOrder.nativeOrder());
+
+            // Output: [1, classes], one per label
+            Tensor out = interpreter.getOutputTensor(0);
+            int classes = out.shape()[out.shape().length - 1];
+            if (classes != labels.length)
+                throw new IllegalStateException(classes + " outputs but " + labels.length + " labels");
+            floatOutput  = out.dataType() == DataType.FLOAT32;
+            outScale     = floatOutput ? 1f : out.quantizationParams().getScale();
+            outZeroPoint = floatOutput ? 0  : out.quantizationParams().getZeroPoint();
+            outSigned    = out.dataType() == DataType.INT8;
+            output       = ByteBuffer.allocateDirect(out.numBytes()).order(ByteOrder.nativeOrder());
+            scores       = new float[classes];
+
+            mfcc     = new MfccExtractor(coefficients);
+            decoder  = new KeywordDecoder(labels, THRESHOLD, AVERAGE_WINDOWS, REFRACTORY_MS);
+            features = new float[frames * coefficients];
+            if (decoder.commandCount() == 0) throw new IllegalStateException("no command labels");
+        } catch (RuntimeException e) {
+            interpreter.close();
+            throw e;
+        }
+
+        Log.d(TAG, "Loaded " + MODEL_FILE + ": " + frames + "x" + coefficients
+                + (floatInput ? " float" : " quantized") + ", " + labels.length + " classes");
+    }
+
+    /**
+     * Opens the microphone and starts spotting. Returns false when recording is not
+     * possible (no permission, microphone busy), in which case nothing was started.
+     */
+    public synchronized boolean start() {
+        if (thread != null) return true;
+        if (context.checkSelfPermission(Manifest.permission.RECORD_AUDIO) != PackageManager.PERMISSION_GRANTED)
+            return false;
+
+        int minBuffer = AudioRecord.getMinBufferSize(MfccExtractor.SAMPLE_RATE,
+                AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT);
+        AudioRecord recorder;
+        try {
+            recorder = new AudioRecord(MediaRecorder.AudioSource.VOICE_RECOGNITION, MfccExtractor.SAMPLE_RATE,
+                    AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT,
+                    Math.max(minBuffer, MfccExtractor.HOP * 2 * 8));
+        } catch (RuntimeException e) {
+            Log.w(TAG, "AudioRecord unavailable: " + e.getMessage());
+            return false;
+        }
+        if (recorder.getState() != AudioRecord.STATE_INITIALIZED) {
+            recorder.release();
+            return false;
+        }
+        recorder.startRecording();
+        if (recorder.getRecordingState() != AudioRecord.RECORDSTATE_RECORDING) {
+            recorder.release();
+            return false;
+        }
+
+        record  = recorder;
+        running = true;
+        thread  = new Thread(() -> run(recorder), "keyword-spotter");
+        thread.start();
+        return true;
+    }
+
+    /** Stops spotting and releases the microphone before returning, so a recognizer can take it. */
+    public synchronized void stop() {
+        if (thread == null) return;
+        running = false;
+        record.stop();                       // unblocks a pending read
+        try {
+            thread.join(JOIN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        record.release();
+        record = null;
+        thread = null;
+    }
+
+    public void close() {
+        stop();
+        interpreter.close();
+    }
+
+    /** CPU time the spotter thread has used since it was created, all runs together. */
+    public long cpuMillis() {
+        return cpuMs;
+    }
+
+    /** Audio processed so far, all runs together. */
+    public long audioMillis() {
+        return audioMs;
+    }
+
+    private void run(AudioRecord recorder) {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_AUDIO);
+        long cpuStart = SystemClock.currentThreadTimeMillis();
+        long cpuSoFar = cpuMs;
+        int  filled   = 0;                   // samples in the window, then rows in features
+        int  rows     = 0;
+        int  sinceRun = 0;
+        decoder.reset();
+
+        int keep = MfccExtractor.WINDOW - MfccExtractor.HOP;
+        while (running) {
+            // Slide the window by one hop and fill the tail from the microphone
+            if (filled == MfccExtractor.WINDOW) {
+                System.arraycopy(samples, MfccExtractor.HOP, samples, 0, keep);
+                filled = keep;
+            }
+            int n = recorder.read(samples, filled, MfccExtractor.WINDOW - filled);
+            if (n <= 0) {
+                if (n < 0) Log.w(TAG, "AudioRecord read failed: " + n);
+                break;
+            }
+            filled += n;
+            if (filled < MfccExtractor.WINDOW) continue;
+
+            System.arraycopy(features, coefficients, features, 0, features.length - coefficients);
+            mfcc.compute(samples, 0, features, features.length - coefficients);
+            if (rows < frames) rows++;
+            hops++;
+
+            if (rows == frames && ++sinceRun >= INFER_EVERY_HOPS) {
+                sinceRun = 0;
+                int command = classify();
+                if (command != CommandMatcher.NONE && running) listener.onKeyword(command);
+            }
+            audioMs = hops * MfccExtractor.HOP * 1000 / MfccExtractor.SAMPLE_RATE;
+            cpuMs   = cpuSoFar + SystemClock.currentThreadTimeMillis() - cpuStart;
+        }
+    }
+
+    private int classify() {
+        input.rewind();
+        if (floatInput) {
+            for (float f : features) input.putFloat(f);
+        } else {
+            int lo = inSigned ? -128 : 0, hi = inSigned ? 127 : 255;
+            for (float f : features) {
+                int q = Math.round(f / inScale) + inZeroPoint;
+                input.put((byte) Math.max(lo, Math.min(hi, q)));
+            }
+        }
+        input.rewind();
+        output.rewind();
+        interpreter.run(input, output);
+
+        output.rewind();
+        for (int c = 0; c < scores.length; c++) {
+            if (floatOutput) scores[c] = output.getFloat();
+            else {
+                int q = outSigned ? output.get() : output.get() & 0xFF;
+                scores[c] = (q - outZeroPoint) * outScale;
+            }
+        }
+        return decoder.update(scores, SystemClock.elapsedRealtime());
+    }
+}
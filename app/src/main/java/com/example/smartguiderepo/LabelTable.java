@@ -0,0 +1,68 @@
+package com.example.smartguiderepo;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Class-id keyed label and known-width lookup. Each label is lower-cased and resolved
+ * against {@link #KNOWN_WIDTHS_CM} once, the first time its id is seen, so the
+ * per-frame path only does array reads.
+ */
+public class LabelTable {
+
+    public static final float DEFAULT_WIDTH_CM = 40f;
+
+    // Typical real-world widths used for the pinhole distance estimate
+    private static final String[] KNOWN_LABELS    = {"person", "door", "chair", "laptop", "cell phone", "bottle"};
+    private static final float[]  KNOWN_WIDTHS_CM = {45f,      90f,    50f,     35f,      15f,          8f};
+
+    private String[] labels = new String[128];
+    private float[]  widths = new float[128];
+
+    public LabelTable() {}
+
+    /** Pre-registers ids 0..n-1, e.g. from a YOLO label file. */
+    public LabelTable(String[] labelsById) {
+        for (int i = 0; i < labelsById.length; i++) register(i, labelsById[i]);
+    }
+
+    /** Records the label for an id if it is not known yet. Cheap when already registered. */
+    public void register(int classId, String rawLabel) {
+        if (classId < 0) return;
+        if (classId >= labels.length) {
+            int size = Math.max(classId + 1, labels.length * 2);
+            labels = Arrays.copyOf(labels, size);
+            widths = Arrays.copyOf(widths, size);
+        }
+        if (labels[classId] != null) return;
+
+        String label = rawLabel.toLowerCase(Locale.US);
+        float  width = DEFAULT_WIDTH_CM;
+        for (int i = 0; i < KNOWN_LABELS.length; i++)
+            if (KNOWN_LABELS[i].equals(label)) width = KNOWN_WIDTHS_CM[i];
+        widths[classId] = width;
+        labels[classId] = label;
+    }
+
+    public boolean isRegistered(int classId) {
+        return classId >= 0 && classId < labels.length && labels[classId] != null;
+    }
+
+    public String label(int classId) {
+        return isRegistered(classId) ? labels[classId] : "object";
+    }
+
+    public float knownWidthCm(int classId) {
+        return isRegistered(classId) ? widths[classId] : DEFAULT_WIDTH_CM;
+    }
+
+    /** The obstacle classes with a known width, i.e. the ones worth a dedicated warning. */
+    public static String[] knownLabels() {
+        return KNOWN_LABELS.clone();
+    }
+
+    public static boolean isKnownLabel(String label) {
+        for (String known : KNOWN_LABELS) if (known.equals(label)) return true;
+        return false;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.smartguiderepo;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-bucket latency histogram: log-linear buckets with 8 steps per power of two,
+ * from 1 µs up to about a minute, so every reported percentile is within 12.5% of
+ * the true value. Recording is one atomic increment into a preallocated array, so it
+ * allocates nothing and any thread may record. That makes it cheap enough to leave on
+ * in field builds.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 8;      // per octave; must be a power of two
+    private static final int SUB_BITS    = 3;
+    static final int BUCKETS = 27 * SUB_BUCKETS;   // covers up to 2^29 µs
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private volatile long maxMicros;
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(bucketOf(micros));
+        if (micros > maxMicros) maxMicros = micros;   // racy by design; only for display
+    }
+
+    public long count() {
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) n += counts.get(i);
+        return n;
+    }
+
+    /**
+     * Upper edge, in microseconds, of the bucket holding the given percentile
+     * (0-100), or 0 with no samples.
+     */
+    public long percentileMicros(double percentile) {
+        long total = count();
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        if (rank < 1) rank = 1;
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(lowerBound(i + 1), Math.max(maxMicros, lowerBound(i)));
+        }
+        return maxMicros;
+    }
+
+    public long maxMicros() {
+        return maxMicros;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        maxMicros = 0;
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) return (int) micros;
+        int octave = 63 - Long.numberOfLeadingZeros(micros);
+        int sub    = (int) (micros >> (octave - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return Math.min(BUCKETS - 1, (octave - SUB_BITS + 1) * SUB_BUCKETS + sub);
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int octave = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        int sub    = bucket % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << (octave - SUB_BITS);
+    }
+}
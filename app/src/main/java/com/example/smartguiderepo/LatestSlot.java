@@ -0,0 +1,61 @@
+package com.example.smartguiderepo;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-slot, "latest wins" hand-off between two pipeline stages. Offering into a
+ * full slot replaces the waiting item and hands the displaced one back so the caller
+ * can recycle it. One producer thread and one consumer thread; no locks.
+ */
+public final class LatestSlot<T> {
+
+    private final AtomicReference<T> slot = new AtomicReference<>();
+    private volatile Thread waiter;
+    private volatile long   offered;
+    private volatile long   dropped;
+
+    /** Producer: publishes {@code item}; returns the item it displaced, or null. */
+    public T offer(T item) {
+        T displaced = slot.getAndSet(item);
+        offered++;
+        if (displaced != null) dropped++;
+        Thread w = waiter;
+        if (w != null) LockSupport.unpark(w);
+        return displaced;
+    }
+
+    /** Consumer: removes and returns the current item, or null when empty. */
+    public T poll() {
+        return slot.getAndSet(null);
+    }
+
+    /** Consumer: blocks until an item is available. */
+    public T take() throws InterruptedException {
+        waiter = Thread.currentThread();
+        try {
+            while (true) {
+                T item = slot.getAndSet(null);
+                if (item != null) return item;
+                LockSupport.park(this);
+                if (Thread.interrupted()) throw new InterruptedException();
+            }
+        } finally {
+            waiter = null;
+        }
+    }
+
+    /** 0 or 1: whether an item is waiting to be taken. */
+    public int depth() {
+        return slot.get() != null ? 1 : 0;
+    }
+
+    public long offered() {
+        return offered;
+    }
+
+    /** Items that were replaced before the consumer got to them. */
+    public long dropped() {
+        return dropped;
+    }
+}
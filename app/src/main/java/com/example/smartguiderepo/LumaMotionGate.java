@@ -0,0 +1,115 @@
+package com.example.smartguiderepo;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Cheap change detector that runs on the capture thread before a frame is copied.
+ * The luma plane is sampled on a sparse grid and averaged into
+ * {@value #BLOCKS_X}x{@value #BLOCKS_Y} blocks. The mean absolute difference of those
+ * blocks against the last frame that went to inference decides whether this frame
+ * needs inference at all. A staleness limit forces a refresh even on a frozen scene,
+ * so a slowly approaching obstacle is never missed for long.
+ *
+ * <p>Works on any 8-bit plane given its row and pixel stride: the Y plane of an NV21
+ * buffer (pixel stride 1) or the G channel of an RGBA_8888 frame (pixel stride 4),
+ * which tracks luma closely enough for change detection. Single caller thread.</p>
+ */
+public class LumaMotionGate {
+
+    static final int BLOCKS_X = 16;
+    static final int BLOCKS_Y = 12;
+    private static final int SAMPLES = 4;   // per block edge, so 16 reads per block
+
+    /** Mean block difference (0-255) below which a frame is treated as unchanged. */
+    public static final float DEFAULT_THRESHOLD = 3f;
+    public static final long  DEFAULT_MAX_STALE_MS = 1000;
+
+    // Block difference that counts as full motion when reported to the governor
+    private static final float FULL_MOTION_DIFF = 24f;
+
+    private final int[] current   = new int[BLOCKS_X * BLOCKS_Y];
+    private final int[] reference = new int[BLOCKS_X * BLOCKS_Y];
+    private boolean hasReference;
+    private long    referenceNanos;
+
+    private float threshold     = DEFAULT_THRESHOLD;
+    private long  maxStaleNanos = DEFAULT_MAX_STALE_MS * 1_000_000L;
+
+    private volatile float lastDifference;
+    private volatile long  inferred;
+    private volatile long  skipped;
+
+    public void setThreshold(float threshold)     { this.threshold = threshold; }
+    public void setMaxStaleMs(long maxStaleMs)    { this.maxStaleNanos = maxStaleMs * 1_000_000L; }
+
+    /**
+     * Samples a plane into the block grid and decides whether it needs inference.
+     * Reads {@code plane} with absolute indexing, so its position is left untouched.
+     *
+     * @param offset      index of the first sample of the first row (e.g. 1 for RGBA's G)
+     * @return true if the frame differs enough, or the last inference is too old
+     */
+    public boolean shouldInfer(ByteBuffer plane, int offset, int width, int height,
+                               int rowStride, int pixelStride, long nowNanos) {
+        if (width < BLOCKS_X * SAMPLES || height < BLOCKS_Y * SAMPLES) return true;
+        sample(plane, offset, width, height, rowStride, pixelStride);
+
+        float diff = hasReference ? meanDifference() : Float.MAX_VALUE;
+        lastDifference = diff;
+        boolean stale = !hasReference || nowNanos - referenceNanos >= maxStaleNanos;
+        if (!stale && diff < threshold) {
+            skipped++;
+            return false;
+        }
+        System.arraycopy(current, 0, reference, 0, current.length);
+        hasReference   = true;
+        referenceNanos = nowNanos;
+        inferred++;
+        return true;
+    }
+
+    /** Forgets the reference frame, e.g. after switching cameras. */
+    public void reset() {
+        hasReference = false;
+    }
+
+    /** Scene change of the last sampled frame, 0 (static) to 1, for the inference governor. */
+    public float motion() {
+        return Math.min(1f, lastDifference / FULL_MOTION_DIFF);
+    }
+
+    public long inferred() { return inferred; }
+
+    /** Inferences saved by re-using the previous detections. */
+    public long skipped()  { return skipped; }
+
+    private void sample(ByteBuffer plane, int offset, int width, int height,
+                        int rowStride, int pixelStride) {
+        int base  = plane.position() + offset;
+        int stepX = Math.max(1, width  / (BLOCKS_X * SAMPLES));
+        int stepY = Math.max(1, height / (BLOCKS_Y * SAMPLES));
+        int blockW = width  / BLOCKS_X;
+        int blockH = height / BLOCKS_Y;
+
+        for (int by = 0; by < BLOCKS_Y; by++) {
+            for (int bx = 0; bx < BLOCKS_X; bx++) {
+                int sum = 0;
+                int y0 = by * blockH + stepY / 2;
+                int x0 = bx * blockW + stepX / 2;
+                for (int sy = 0; sy < SAMPLES; sy++) {
+                    int row = base + (y0 + sy * stepY) * rowStride;
+                    for (int sx = 0; sx < SAMPLES; sx++) {
+                        sum += plane.get(row + (x0 + sx * stepX) * pixelStride) & 0xff;
+                    }
+                }
+                current[by * BLOCKS_X + bx] = sum;
+            }
+        }
+    }
+
+    private float meanDifference() {
+        int sad = 0;
+        for (int i = 0; i < current.length; i++) sad += Math.abs(current[i] - reference[i]);
+        return sad / (float) (current.length * SAMPLES * SAMPLES);
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.smartguiderepo;
+
+/**
+ * MFCC front end for the keyword spotter: 16 kHz PCM16 in, one vector of cepstral
+ * coefficients per 30 ms window every 20 ms out. Each window has its mean removed, gets
+ * a Hann taper and a 512-point FFT. The power spectrum then goes through 40 triangular
+ * mel filters between 20 Hz and 4 kHz, is log-compressed and DCT-II transformed.
+ * The classifier must be trained on exactly these features. Window, filterbank, DCT and
+ * FFT tables are built once, so {@link #compute} allocates nothing.
+ */
+public final class MfccExtractor {
+
+    public static final int SAMPLE_RATE = 16000;
+    /** Samples per analysis window (30 ms). */
+    public static final int WINDOW      = 480;
+    /** Samples between window starts (20 ms). */
+    public static final int HOP         = 320;
+
+    private static final int   FFT_SIZE  = 512;
+    private static final int   BINS      = FFT_SIZE / 2 + 1;
+    private static final int   MEL_BANDS = 40;
+    private static final float LOW_HZ    = 20f;
+    private static final float HIGH_HZ   = 4000f;
+    private static final float LOG_FLOOR = 1e-6f;
+
+    private final int numCoefficients;
+
+    // ── Tables ────────────────────────────────────────────────────────────
+    private final float[]   window      = new float[WINDOW];
+    private final int[]     bitRev      = new int[FFT_SIZE];
+    private final float[]   cos         = new float[FFT_SIZE / 2];
+    private final float[]   sin         = new float[FFT_SIZE / 2];
+    private final int[]     bandStart   = new int[MEL_BANDS];
+    private final float[][] bandWeights = new float[MEL_BANDS][];
+    private final float[]   dct;                          // [coefficient][band]
+
+    // ── Scratch ───────────────────────────────────────────────────────────
+    private final float[] re     = new float[FFT_SIZE];
+    private final float[] im     = new float[FFT_SIZE];
+    private final float[] logMel = new float[MEL_BANDS];
+
+    public MfccExtractor(int numCoefficients) {
+        if (numCoefficients < 1 || numCoefficients > MEL_BANDS)
+            throw new IllegalArgumentException("coefficients must be in 1.." + MEL_BANDS + ": " + numCoefficients);
+        this.numCoefficients = numCoefficients;
+
+        for (int i = 0; i < WINDOW; i++)
+            window[i] = (float) (0.5 - 0.5 * Math.cos(2 * Math.PI * i / (WINDOW - 1)));
+
+        int bits = Integer.numberOfTrailingZeros(FFT_SIZE);
+        for (int i = 0; i < FFT_SIZE; i++)
+            bitRev[i] = Integer.reverse(i) >>> (32 - bits);
+        for (int i = 0; i < FFT_SIZE / 2; i++) {
+            cos[i] = (float) Math.cos(-2 * Math.PI * i / FFT_SIZE);
+            sin[i] = (float) Math.sin(-2 * Math.PI * i / FFT_SIZE);
+        }
+
+        buildFilterbank();
+
+        dct = new float[numCoefficients * MEL_BANDS];
+        for (int k = 0; k < numCoefficients; k++) {
+            double norm = Math.sqrt((k == 0 ? 1.0 : 2.0) / MEL_BANDS);
+            for (int m = 0; m < MEL_BANDS; m++)
+                dct[k * MEL_BANDS + m] = (float) (norm * Math.cos(Math.PI * k * (m + 0.5) / MEL_BANDS));
+        }
+    }
+
+    public int numCoefficients() {
+        return numCoefficients;
+    }
+
+    /**
+     * Computes the coefficients of {@code pcm[offset, offset + WINDOW)} into
+     * {@code out[outOffset, outOffset + numCoefficients())}.
+     */
+    public void compute(short[] pcm, int offset, float[] out, int outOffset) {
+        float mean = 0f;
+        for (int i = 0; i < WINDOW; i++) mean += pcm[offset + i];
+        mean /= WINDOW;
+
+        for (int i = 0; i < FFT_SIZE; i++) {
+            int j = bitRev[i];
+            re[j] = i < WINDOW ? (pcm[offset + i] - mean) / 32768f * window[i] : 0f;
+            im[j] = 0f;
+        }
+        fft();
+
+        for (int m = 0; m < MEL_BANDS; m++) {
+            float[] weights = bandWeights[m];
+            int     start   = bandStart[m];
+            float   energy  = 0f;
+            for (int i = 0; i < weights.length; i++) {
+                int b = start + i;
+                energy += weights[i] * (re[b] * re[b] + im[b] * im[b]);
+            }
+            logMel[m] = (float) Math.log(Math.max(energy, LOG_FLOOR));
+        }
+
+        for (int k = 0; k < numCoefficients; k++) {
+            float sum  = 0f;
+            int   base = k * MEL_BANDS;
+            for (int m = 0; m < MEL_BANDS; m++) sum += dct[base + m] * logMel[m];
+            out[outOffset + k] = sum;
+        }
+    }
+
+    // In-place iterative radix-2 on re/im, already in bit-reversed order
+    private void fft() {
+        for (int size = 2; size <= FFT_SIZE; size <<= 1) {
+            int half = size >> 1;
+            int step = FFT_SIZE / size;
+            for (int start = 0; start < FFT_SIZE; start += size) {
+                for (int k = 0; k < half; k++) {
+                    float wr = cos[k * step];
+                    float wi = sin[k * step];
+                    int a = start + k;
+                    int b = a + half;
+                    float tr = wr * re[b] - wi * im[b];
+                    float ti = wr * im[b] + wi * re[b];
+                    re[b] = re[a] - tr;
+                    im[b] = im[a] - ti;
+                    re[a] += tr;
+                    im[a] += ti;
+                }
+            }
+        }
+    }
+
+    // Triangular filters evenly spaced on the mel scale; each keeps only its non-zero bins
+    private void buildFilterbank() {
+        double lowMel  = toMel(LOW_HZ);
+        double highMel = toMel(HIGH_HZ);
+        double[] edgeBins = new double[MEL_BANDS + 2];
+        for (int i = 0; i < edgeBins.length; i++) {
+            double hz = fromMel(lowMel + (highMel - lowMel) * i / (MEL_BANDS + 1));
+            edgeBins[i] = hz * FFT_SIZE / SAMPLE_RATE;
+        }
+        for (int m = 0; m < MEL_BANDS; m++) {
+            double left = edgeBins[m], centre = edgeBins[m + 1], right = edgeBins[m + 2];
+            int first = (int) Math.ceil(left);
+            int last  = Math.min((int) Math.floor(right), BINS - 1);
+            float[] weights = new float[Math.max(0, last - first + 1)];
+            for (int b = first; b <= last; b++) {
+                double w = b <= centre ? (b - left) / (centre - left) : (right - b) / (right - centre);
+                weights[b - first] = (float) Math.max(0.0, w);
+            }
+            bandStart[m]   = first;
+            bandWeights[m] = weights;
+        }
+    }
+
+    static double toMel(double hz) {
+        return 1127.0 * Math.log(1.0 + hz / 700.0);
+    }
+
+    static double fromMel(double mel) {
+        return 700.0 * (Math.exp(mel / 1127.0) - 1.0);
+    }
+}
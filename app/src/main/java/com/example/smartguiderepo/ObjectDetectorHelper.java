@@ -2,34 +2,265 @@ package com.example.smartguiderepo;
 
 import android.content.Context;
 import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+import org.tensorflow.lite.support.common.FileUtil;
 import org.tensorflow.lite.support.image.TensorImage;
+import org.tensorflow.lite.support.metadata.MetadataExtractor;
+import org.tensorflow.lite.task.core.BaseOptions;
+import org.tensorflow.lite.task.core.vision.ImageProcessingOptions;
 import org.tensorflow.lite.task.vision.detector.Detection;
 import org.tensorflow.lite.task.vision.detector.ObjectDetector;
 import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.util.Collections;
 import java.util.List;
 
 public class ObjectDetectorHelper {
+    private static final String TAG        = "ObjectDetectorHelper";
+    private static final String MODEL_FILE = "detect.tflite";
+
+    // Start-up benchmark: a few synthetic frames per candidate backend
+    private static final int BENCH_FRAME_SIZE = 300;
+    private static final int BENCH_WARMUP     = 1;
+    private static final int BENCH_RUNS       = 3;
+
+    private final Context context;
     private ObjectDetector detector;
+    private InferenceBackend backend;
+    private DetectorConfig config = DetectorConfig.GENERAL;
+    // Mapped once; every rebuild (backend or mode change) reuses it instead of re-reading assets
+    private final MappedByteBuffer model;
+    private final List<String>     modelLabels;
+    private final int[]            inputShape;   // {1, height, width, 3}, or null if unknown
+    // Reused across frames; load() only re-points it at the caller's Bitmap
+    private final TensorImage tensorImage = new TensorImage();
+
+    // One options instance per 90° step, so rotated frames are handled by the
+    // Task Library itself instead of rotating a Bitmap copy
+    private static final ImageProcessingOptions[] ORIENTATIONS = {
+            ImageProcessingOptions.builder().setOrientation(ImageProcessingOptions.Orientation.TOP_LEFT).build(),
+            ImageProcessingOptions.builder().setOrientation(ImageProcessingOptions.Orientation.RIGHT_TOP).build(),
+            ImageProcessingOptions.builder().setOrientation(ImageProcessingOptions.Orientation.BOTTOM_RIGHT).build(),
+            ImageProcessingOptions.builder().setOrientation(ImageProcessingOptions.Orientation.LEFT_BOTTOM).build(),
+    };
 
     public ObjectDetectorHelper(Context context) {
+        this.context = context.getApplicationContext();
+        this.model       = mapModel(this.context);
+        this.modelLabels = readLabels(model);
+        this.inputShape  = readInputShape(model);
+        InferenceBackend stored = InferenceBackend.fromId(
+                AppSettings.getBackendId(this.context, Build.FINGERPRINT));
+        useBackend(stored != null ? stored : InferenceBackend.DEFAULT_CPU);
+    }
+
+    /**
+     * A second detector for a pipeline that runs at the same time as the one using
+     * {@code shared}. It gets its own interpreter on the same mapped model, with the same
+     * backend and settings.
+     */
+    public ObjectDetectorHelper(ObjectDetectorHelper shared) {
+        this.context     = shared.context;
+        this.model       = shared.model;
+        this.modelLabels = shared.modelLabels;
+        this.inputShape  = shared.inputShape;
+        this.config      = shared.getConfig();
+        useBackend(shared.getBackend());
+    }
+
+    public List<Detection> detect(Bitmap image) {
+        return detect(image, 0);
+    }
+
+    /**
+     * Runs detection on a frame that needs {@code rotationDegrees} of clockwise rotation
+     * to be upright. Boxes come back in the unrotated frame's pixel coordinates.
+     */
+    public synchronized List<Detection> detect(Bitmap image, int rotationDegrees) {
+        if (detector == null) return null;
+        tensorImage.load(image);
+        try {
+            return detector.detect(tensorImage, ORIENTATIONS[(rotationDegrees / 90) & 3]);
+        } catch (RuntimeException e) {
+            if (backend.delegate == InferenceBackend.Delegate.CPU) throw e;
+            // Delegates can fail at run time on some drivers; drop back to CPU for good
+            Log.e(TAG, backend + " failed during inference, falling back to CPU: " + e.getMessage());
+            AppSettings.setBackendId(context, Build.FINGERPRINT, InferenceBackend.DEFAULT_CPU.id);
+            useBackend(InferenceBackend.DEFAULT_CPU);
+            return null;
+        }
+    }
+
+    /**
+     * Runs a few inferences on a synthetic frame so the first camera frame does not pay
+     * for lazy tensor allocation and delegate compilation.
+     */
+    public synchronized void warmUp(int runs) {
+        Bitmap frame = syntheticFrame();
+        for (int i = 0; i < runs; i++) detect(frame, 0);
+        frame.recycle();
+    }
+
+    public synchronized InferenceBackend getBackend() {
+        return backend;
+    }
+
+    /** Model input width in pixels, or 0 if the model does not say. */
+    public int inputWidth() {
+        return inputShape != null ? inputShape[2] : 0;
+    }
+
+    public int inputHeight() {
+        return inputShape != null ? inputShape[1] : 0;
+    }
+
+    public synchronized DetectorConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Rebuilds the detector for a mode's thresholds, result cap and label allow-list.
+     * The new detector is built from the mapped model before the old one is swapped
+     * out, so inference only waits for the swap. Blocks, so call it off the main thread.
+     */
+    public void configure(DetectorConfig newConfig) {
+        InferenceBackend b;
+        synchronized (this) {
+            if (newConfig.equals(config)) return;
+            b = backend;
+        }
+        ObjectDetector rebuilt;
         try {
-            // Adjust options for speed/accuracy
-            ObjectDetector.ObjectDetectorOptions options = ObjectDetector.ObjectDetectorOptions.builder()
-                    .setMaxResults(2)
-                    .setScoreThreshold(0.4f)
-                    .build();
-
-            // Loads the brain from assets/detect.tflite
-            detector = ObjectDetector.createFromFileAndOptions(context, "detect.tflite", options);
+            rebuilt = createDetector(b, newConfig);
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Could not apply " + newConfig + ": " + e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            config = newConfig;
+            if (backend != b) {
+                // Fell back to another backend meanwhile; rebuild on that one instead
+                rebuilt.close();
+                useBackend(backend);
+                return;
+            }
+            if (detector != null) detector.close();
+            detector = rebuilt;
+        }
+        Log.d(TAG, "Detector configured: " + newConfig);
+    }
+
+    /**
+     * Benchmarks the candidate backends on first launch (or after a system update) and
+     * switches to the fastest one. Blocks for a few seconds, so call it off the main thread.
+     */
+    public synchronized void selectBackend() {
+        if (AppSettings.getBackendId(context, Build.FINGERPRINT) != null) return;
+
+        Bitmap frame = syntheticFrame();
+        TensorImage input = TensorImage.fromBitmap(frame);
+        List<InferenceBackend> candidates = InferenceBackend.taskLibraryCandidates();
+
+        BackendBenchmark.Result result = new BackendBenchmark(
+                SystemClock::elapsedRealtimeNanos, BENCH_WARMUP, BENCH_RUNS)
+                .run(candidates, b -> {
+                    ObjectDetector d = createDetector(b);
+                    return new BackendBenchmark.Session() {
+                        @Override public void runOnce() { d.detect(input); }
+                        @Override public void close()   { d.close(); }
+                    };
+                });
+
+        StringBuilder sb = new StringBuilder("Backend benchmark:");
+        for (int i = 0; i < candidates.size(); i++) {
+            sb.append(' ').append(candidates.get(i)).append('=')
+              .append(result.medianNanos[i] < 0 ? "failed" : (result.medianNanos[i] / 1000) + "us");
+        }
+        Log.d(TAG, sb.append(" -> ").append(result.winner).toString());
+
+        AppSettings.setBackendId(context, Build.FINGERPRINT, result.winner.id);
+        if (result.winner != backend) useBackend(result.winner);
+        frame.recycle();
+    }
+
+    private void useBackend(InferenceBackend requested) {
+        if (detector != null) { detector.close(); detector = null; }
+        try {
+            detector = createDetector(requested);
+            backend  = requested;
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Could not create detector on " + requested + ": " + e.getMessage());
+            if (requested == InferenceBackend.DEFAULT_CPU) return;
+            useBackend(InferenceBackend.DEFAULT_CPU);
+        }
+    }
+
+    private ObjectDetector createDetector(InferenceBackend b) throws IOException {
+        return createDetector(b, config);
+    }
+
+    private ObjectDetector createDetector(InferenceBackend b, DetectorConfig c) throws IOException {
+        BaseOptions.Builder base = BaseOptions.builder().setNumThreads(b.numThreads);
+        if (b.delegate == InferenceBackend.Delegate.GPU)   base.useGpu();
+        if (b.delegate == InferenceBackend.Delegate.NNAPI) base.useNnapi();
+
+        // Adjust options for speed/accuracy
+        ObjectDetector.ObjectDetectorOptions.Builder options = ObjectDetector.ObjectDetectorOptions.builder()
+                .setBaseOptions(base.build())
+                .setMaxResults(c.maxResults)
+                .setScoreThreshold(c.scoreThreshold);
+        List<String> allowList = c.allowList(modelLabels);
+        if (allowList != null) options.setLabelAllowList(allowList);
+
+        if (model == null) throw new IOException(MODEL_FILE + " could not be mapped");
+        return ObjectDetector.createFromBufferAndOptions(model, options.build());
+    }
+
+    // Loads the brain from assets/detect.tflite
+    private static MappedByteBuffer mapModel(Context context) {
+        try {
+            return FileUtil.loadMappedFile(context, MODEL_FILE);
         } catch (IOException e) {
-            e.printStackTrace();
+            Log.e(TAG, "Could not map " + MODEL_FILE + ": " + e.getMessage());
+            return null;
         }
     }
 
-    public List<Detection> detect(Bitmap image) {
-        if (detector == null) return null;
-        // Converts Bitmap to Tensor format automatically
-        return detector.detect(TensorImage.fromBitmap(image));
+    // Label map packed in the model metadata; needed to turn a target word into an allow-list
+    private static List<String> readLabels(MappedByteBuffer model) {
+        if (model == null) return Collections.emptyList();
+        try {
+            MetadataExtractor metadata = new MetadataExtractor(model.duplicate());
+            for (String name : metadata.getAssociatedFileNames()) {
+                if (name.endsWith(".txt")) return FileUtil.loadLabels(metadata.getAssociatedFile(name));
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "No label map in model metadata: " + e.getMessage());
+        }
+        return Collections.emptyList();
     }
-}
 
+    private static int[] readInputShape(MappedByteBuffer model) {
+        if (model == null) return null;
+        try {
+            int[] shape = new MetadataExtractor(model.duplicate()).getInputTensorShape(0);
+            return shape != null && shape.length == 4 ? shape : null;
+        } catch (RuntimeException e) {
+            Log.w(TAG, "No input shape in model: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Gradient frame: content does not matter for timing, only size and format
+    private static Bitmap syntheticFrame() {
+        int n = BENCH_FRAME_SIZE;
+        int[] pixels = new int[n * n];
+        for (int y = 0; y < n; y++)
+            for (int x = 0; x < n; x++)
+                pixels[y * n + x] = Color.rgb(x * 255 / n, y * 255 / n, (x ^ y) & 0xff);
+        return Bitmap.createBitmap(pixels, n, n, Bitmap.Config.ARGB_8888);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.smartguiderepo;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size, lock-free pool of reusable objects. Acquire and release are CAS scans
+ * over a small array, so they never allocate and never block.
+ */
+public final class ObjectPool<T> {
+
+    private final AtomicReferenceArray<T> slots;
+
+    public ObjectPool(List<T> items) {
+        slots = new AtomicReferenceArray<>(items.size());
+        for (int i = 0; i < items.size(); i++) slots.set(i, items.get(i));
+    }
+
+    /** Returns a free object, or null when every object is in use. */
+    public T acquire() {
+        for (int i = 0; i < slots.length(); i++) {
+            T item = slots.get(i);
+            if (item != null && slots.compareAndSet(i, item, null)) return item;
+        }
+        return null;
+    }
+
+    public void release(T item) {
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.get(i) == null && slots.compareAndSet(i, null, item)) return;
+        }
+        throw new IllegalStateException("Released more objects than the pool holds");
+    }
+
+    public int available() {
+        int n = 0;
+        for (int i = 0; i < slots.length(); i++) if (slots.get(i) != null) n++;
+        return n;
+    }
+}
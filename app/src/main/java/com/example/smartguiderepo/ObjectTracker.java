@@ -0,0 +1,262 @@
+package com.example.smartguiderepo;
+
+/**
+ * Keeps detections alive between inferences. Each track runs four independent
+ * constant-velocity Kalman filters (box centre x/y, width, height) in normalized
+ * coordinates; detections are matched to tracks greedily by IoU against the predicted
+ * boxes, restricted to the same class. Tracks get stable ids, so consumers can tell a
+ * new object from one they already reported, and {@link #predict} extrapolates every
+ * live track to any timestamp, so boxes can move at camera rate while the model runs
+ * much slower.
+ *
+ * <p>All state lives in preallocated arrays. {@link #update} and {@link #predict} may
+ * be called from different threads; both are synchronized and cheap (a few dozen
+ * tracks at most).</p>
+ */
+public class ObjectTracker {
+
+    static final float MIN_IOU        = 0.3f;
+    static final long  MAX_COAST_MS   = 1000;   // drop a track this long after its last match
+    static final long  MAX_PREDICT_MS = 500;    // never extrapolate further than this
+
+    // Filter tuning, in normalized units and seconds
+    private static final float MEASUREMENT_VAR = 0.02f * 0.02f;
+    private static final float ACCEL_VAR       = 0.5f;
+    private static final float INITIAL_VEL_VAR = 1f;
+
+    private static final int CX = 0, CY = 1, W = 2, H = 3, AXES = 4;
+    private static final float NANOS_PER_SECOND = 1e9f;
+
+    private final int capacity;
+
+    // ── Track state, one slot per track ───────────────────────────────────
+    private final int[]   ids;
+    private final int[]   classIds;
+    private final float[] scores;
+    private final float[] distances;      // at the last match
+    private final float[] matchedWidth;   // box width at the last match, to rescale distance
+    private final long[]  updatedNanos;   // time the filter state refers to
+    private final long[]  matchedNanos;
+    private final float[] x;              // per axis: position
+    private final float[] v;              // per axis: velocity
+    private final float[] p00, p01, p11;  // per axis: covariance
+    private LabelTable labels;
+    private int count;
+    private int nextId = 1;
+
+    // ── Association scratch ───────────────────────────────────────────────
+    private final float[]   iou;
+    private final boolean[] trackTaken;
+    private final boolean[] detectionTaken;
+    private final float[]   box = new float[4];
+
+    public ObjectTracker(int capacity) {
+        this.capacity = capacity;
+        ids          = new int[capacity];
+        classIds     = new int[capacity];
+        scores       = new float[capacity];
+        distances    = new float[capacity];
+        matchedWidth = new float[capacity];
+        updatedNanos = new long[capacity];
+        matchedNanos = new long[capacity];
+        x   = new float[capacity * AXES];
+        v   = new float[capacity * AXES];
+        p00 = new float[capacity * AXES];
+        p01 = new float[capacity * AXES];
+        p11 = new float[capacity * AXES];
+        iou            = new float[capacity * capacity];
+        trackTaken     = new boolean[capacity];
+        detectionTaken = new boolean[capacity];
+    }
+
+    /** Number of live tracks. */
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized void reset() {
+        count = 0;
+    }
+
+    /**
+     * Feeds one inference result captured at {@code nanos}. On return
+     * {@code detections.trackIds} holds the track each detection was assigned to.
+     */
+    public synchronized void update(DetectionBatch detections, long nanos) {
+        labels = detections.labels;
+        for (int t = 0; t < count; t++) advance(t, nanos);
+
+        // Greedy association: repeatedly take the best remaining same-class pair
+        int n = Math.min(detections.count, capacity);
+        for (int t = 0; t < count; t++) {
+            trackTaken[t] = false;
+            boxOf(t, box);
+            for (int d = 0; d < n; d++) {
+                iou[t * capacity + d] = classIds[t] != detections.classIds[d] ? 0f
+                        : iou(box, detections.left[d], detections.top[d],
+                              detections.right[d], detections.bottom[d]);
+            }
+        }
+        for (int d = 0; d < n; d++) detectionTaken[d] = false;
+
+        while (true) {
+            int bestT = -1, bestD = -1;
+            float best = MIN_IOU;
+            for (int t = 0; t < count; t++) {
+                if (trackTaken[t]) continue;
+                for (int d = 0; d < n; d++) {
+                    if (!detectionTaken[d] && iou[t * capacity + d] >= best) {
+                        best = iou[t * capacity + d]; bestT = t; bestD = d;
+                    }
+                }
+            }
+            if (bestT < 0) break;
+            trackTaken[bestT] = true;
+            detectionTaken[bestD] = true;
+            correct(bestT, detections, bestD, nanos);
+        }
+
+        // Expire tracks that have coasted too long; compaction keeps slots contiguous
+        int kept = 0;
+        for (int t = 0; t < count; t++) {
+            if (nanos - matchedNanos[t] >= MAX_COAST_MS * 1_000_000L) continue;
+            if (kept != t) moveTrack(t, kept);
+            kept++;
+        }
+        count = kept;
+
+        // Unmatched detections start new tracks
+        for (int d = 0; d < n; d++) {
+            if (detectionTaken[d]) continue;
+            if (count == capacity) { detections.trackIds[d] = -1; continue; }
+            start(count++, detections, d, nanos);
+        }
+    }
+
+    /**
+     * Writes every live track, extrapolated to {@code nanos}, into {@code out}. The
+     * tracker's own state is not changed. Distances are rescaled by the change in box
+     * width, matching the pinhole model used to compute them.
+     */
+    public synchronized void predict(long nanos, DetectionBatch out) {
+        out.clear();
+        out.labels = labels;
+        for (int t = 0; t < count && out.count < out.capacity; t++) {
+            long  ahead = Math.min(Math.max(0, nanos - updatedNanos[t]), MAX_PREDICT_MS * 1_000_000L);
+            float dt    = ahead / NANOS_PER_SECOND;
+            int   o     = t * AXES;
+            float cx = x[o + CX] + v[o + CX] * dt;
+            float cy = x[o + CY] + v[o + CY] * dt;
+            float w  = Math.max(1e-3f, x[o + W] + v[o + W] * dt);
+            float h  = Math.max(1e-3f, x[o + H] + v[o + H] * dt);
+
+            int i = out.count;
+            out.add(classIds[t], scores[t], cx - w / 2, cy - h / 2, cx + w / 2, cy + h / 2,
+                    distances[t] * matchedWidth[t] / w);
+            out.trackIds[i] = ids[t];
+        }
+    }
+
+    // ── Kalman filter ─────────────────────────────────────────────────────
+
+    // Time update of every axis to nanos
+    private void advance(int t, long nanos) {
+        float dt = (nanos - updatedNanos[t]) / NANOS_PER_SECOND;
+        if (dt <= 0f) return;
+        float q00 = ACCEL_VAR * dt * dt * dt / 3f;
+        float q01 = ACCEL_VAR * dt * dt / 2f;
+        float q11 = ACCEL_VAR * dt;
+        for (int o = t * AXES, end = o + AXES; o < end; o++) {
+            x[o] += v[o] * dt;
+            float a = p00[o] + 2f * dt * p01[o] + dt * dt * p11[o] + q00;
+            float b = p01[o] + dt * p11[o] + q01;
+            p00[o] = a;
+            p01[o] = b;
+            p11[o] += q11;
+        }
+        updatedNanos[t] = nanos;
+    }
+
+    // Measurement update with detection d
+    private void correct(int t, DetectionBatch det, int d, long nanos) {
+        float w = det.right[d] - det.left[d];
+        measure(t * AXES + CX, (det.left[d] + det.right[d]) * 0.5f);
+        measure(t * AXES + CY, (det.top[d] + det.bottom[d]) * 0.5f);
+        measure(t * AXES + W,  w);
+        measure(t * AXES + H,  det.bottom[d] - det.top[d]);
+        scores[t]       = det.scores[d];
+        matchedWidth[t] = x[t * AXES + W];
+        matchedNanos[t] = nanos;
+        // Rescale to the filtered width so predicted distances continue smoothly
+        distances[t] = w > 0f && matchedWidth[t] > 0f
+                ? det.distances[d] * w / matchedWidth[t] : det.distances[d];
+        det.trackIds[d] = ids[t];
+    }
+
+    private void measure(int o, float z) {
+        float s  = p00[o] + MEASUREMENT_VAR;
+        float k0 = p00[o] / s;
+        float k1 = p01[o] / s;
+        float y  = z - x[o];
+        x[o] += k0 * y;
+        v[o] += k1 * y;
+        p11[o] -= k1 * p01[o];
+        p01[o] *= (1f - k0);
+        p00[o] *= (1f - k0);
+    }
+
+    private void start(int t, DetectionBatch det, int d, long nanos) {
+        ids[t]      = nextId++;
+        classIds[t] = det.classIds[d];
+        int o = t * AXES;
+        x[o + CX] = (det.left[d] + det.right[d]) * 0.5f;
+        x[o + CY] = (det.top[d] + det.bottom[d]) * 0.5f;
+        x[o + W]  = det.right[d] - det.left[d];
+        x[o + H]  = det.bottom[d] - det.top[d];
+        for (int a = o; a < o + AXES; a++) {
+            v[a]   = 0f;
+            p00[a] = MEASUREMENT_VAR;
+            p01[a] = 0f;
+            p11[a] = INITIAL_VEL_VAR;
+        }
+        scores[t]       = det.scores[d];
+        distances[t]    = det.distances[d];
+        matchedWidth[t] = x[o + W];
+        updatedNanos[t] = nanos;
+        matchedNanos[t] = nanos;
+        det.trackIds[d] = ids[t];
+    }
+
+    private void moveTrack(int from, int to) {
+        ids[to]          = ids[from];
+        classIds[to]     = classIds[from];
+        scores[to]       = scores[from];
+        distances[to]    = distances[from];
+        matchedWidth[to] = matchedWidth[from];
+        updatedNanos[to] = updatedNanos[from];
+        matchedNanos[to] = matchedNanos[from];
+        System.arraycopy(x,   from * AXES, x,   to * AXES, AXES);
+        System.arraycopy(v,   from * AXES, v,   to * AXES, AXES);
+        System.arraycopy(p00, from * AXES, p00, to * AXES, AXES);
+        System.arraycopy(p01, from * AXES, p01, to * AXES, AXES);
+        System.arraycopy(p11, from * AXES, p11, to * AXES, AXES);
+    }
+
+    private void boxOf(int t, float[] out) {
+        int o = t * AXES;
+        float hw = x[o + W] * 0.5f, hh = x[o + H] * 0.5f;
+        out[0] = x[o + CX] - hw;
+        out[1] = x[o + CY] - hh;
+        out[2] = x[o + CX] + hw;
+        out[3] = x[o + CY] + hh;
+    }
+
+    static float iou(float[] a, float l, float t, float r, float b) {
+        float il = Math.max(a[0], l), it = Math.max(a[1], t);
+        float ir = Math.min(a[2], r), ib = Math.min(a[3], b);
+        if (ir <= il || ib <= it) return 0f;
+        float inter = (ir - il) * (ib - it);
+        float union = (a[2] - a[0]) * (a[3] - a[1]) + (r - l) * (b - t) - inter;
+        return union > 0f ? inter / union : 0f;
+    }
+}
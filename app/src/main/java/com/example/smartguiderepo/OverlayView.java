@@ -4,16 +4,46 @@ import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.RectF;
+import android.graphics.Rect;
+import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.view.View;
-import java.util.List;
 
+/**
+ * Draws the detection boxes and their captions over the camera preview. Captions are
+ * built into a reused {@code char[]} when a batch arrives, so neither
+ * {@link #setDetections} nor {@link #onDraw} allocates per frame. Each new batch
+ * invalidates the union of the old and new box extents, and nothing at all while there
+ * is no box to draw or erase.
+ *
+ * <p>Boxes are normalized to the upright frame. Over a preview that stretches the frame
+ * to the view they span the whole view; over a letterboxed one (a FIT_CENTER
+ * PreviewView) {@link #setFrameSize} confines them to the same centered rectangle.</p>
+ */
 public class OverlayView extends View {
 
-    private List<YoloDetector.BoundingBox> boxes;
+    private static final float TEXT_SIZE    = 50f;
+    private static final float TEXT_GAP     = 10f;
+    private static final float STROKE_WIDTH = 8f;
+
+    private DetectionBatch batch;
     private Paint boxPaint;
     private Paint textPaint;
+    private PipelineMetrics metrics;
+    private long lastDrawnSequence = -1;
+
+    // ── Captions, rebuilt per batch (UI thread) ───────────────────────────
+    private final CaptionFormatter captionFormatter = new CaptionFormatter();
+    private final char[] captions      = new char[DetectionPipeline.MAX_DETECTIONS * CaptionFormatter.MAX_LENGTH];
+    private final int[]  captionLength = new int[DetectionPipeline.MAX_DETECTIONS];
+
+    // ── Screen extents of what is currently drawn, for dirty tracking ─────
+    private final Rect drawn = new Rect();
+    private final Rect next  = new Rect();
+
+    // ── Where the frame is shown, in view pixels ──────────────────────────
+    private int   frameWidth, frameHeight;   // upright frame; 0 when it fills the view
+    private float contentLeft, contentTop, contentWidth, contentHeight;
 
     public OverlayView(Context context, AttributeSet attrs) {
         super(context, attrs);
@@ -24,40 +54,122 @@ public class OverlayView extends View {
         boxPaint = new Paint();
         boxPaint.setColor(Color.GREEN);
         boxPaint.setStyle(Paint.Style.STROKE);
-        boxPaint.setStrokeWidth(8f);
+        boxPaint.setStrokeWidth(STROKE_WIDTH);
 
         textPaint = new Paint();
         textPaint.setColor(Color.WHITE);
-        textPaint.setTextSize(50f);
+        textPaint.setTextSize(TEXT_SIZE);
         textPaint.setStyle(Paint.Style.FILL);
+
+        // Boxes and text are composited from their own GPU layer, not redrawn with the preview
+        setLayerType(LAYER_TYPE_HARDWARE, null);
+    }
+
+    /** Draw time and arrival-to-screen latency are recorded here when set. */
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
     }
 
-    public void setDetections(List<YoloDetector.BoundingBox> boxes) {
-        this.boxes = boxes;
-        invalidate(); // Force redraw
+    /**
+     * The upright size of the frame the preview shows centered and letterboxed, or 0 x 0
+     * when the preview stretches it over the whole view. UI thread.
+     */
+    public void setFrameSize(int width, int height) {
+        if (width == frameWidth && height == frameHeight) return;
+        frameWidth  = width;
+        frameHeight = height;
+        layoutContent(getWidth(), getHeight());
+        drawn.setEmpty();
+        invalidate();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        layoutContent(w, h);
+    }
+
+    // The FIT_CENTER rectangle of the frame inside a w x h view
+    private void layoutContent(int w, int h) {
+        float scale = frameWidth > 0 && frameHeight > 0
+                ? Math.min((float) w / frameWidth, (float) h / frameHeight) : 0f;
+        contentWidth  = scale > 0 ? frameWidth * scale : w;
+        contentHeight = scale > 0 ? frameHeight * scale : h;
+        contentLeft   = (w - contentWidth) / 2f;
+        contentTop    = (h - contentHeight) / 2f;
+    }
+
+    /** Called on the UI thread with the consumer-side batch of a {@link DetectionExchange}. */
+    public void setDetections(DetectionBatch batch) {
+        this.batch = batch;
+        int n = Math.min(batch.count, captionLength.length);
+        for (int i = 0; i < n; i++) {
+            captionLength[i] = captionFormatter.format(batch.labels, batch.classIds[i],
+                    batch.scores[i], batch.distances[i], captions, i * CaptionFormatter.MAX_LENGTH);
+        }
+
+        // Repaint the union of the old and new boxes; nothing when there was and is nothing
+        measure(batch, n, next);
+        if (next.isEmpty() && drawn.isEmpty()) return;
+        drawn.union(next);
+        invalidateDirty(drawn);
+        drawn.set(next);
+    }
+
+    // Bounds of every box plus its caption, in view pixels; empty when there are no boxes
+    private void measure(DetectionBatch batch, int n, Rect out) {
+        out.setEmpty();
+        float pad = STROKE_WIDTH / 2f;
+        for (int i = 0; i < n; i++) {
+            float left   = contentLeft + batch.left[i] * contentWidth;
+            float top    = contentTop + batch.top[i] * contentHeight;
+            float right  = contentLeft + batch.right[i] * contentWidth;
+            float bottom = contentTop + batch.bottom[i] * contentHeight;
+            float textRight = left + textPaint.measureText(captions, i * CaptionFormatter.MAX_LENGTH, captionLength[i]);
+            float textTop   = top - TEXT_GAP + textPaint.ascent();
+            out.union((int) Math.floor(left - pad), (int) Math.floor(Math.min(top - pad, textTop)),
+                      (int) Math.ceil(Math.max(right, textRight) + pad),
+                      (int) Math.ceil(bottom + pad + textPaint.descent()));
+        }
+    }
+
+    // With hardware acceleration the framework repaints the whole view regardless of the
+    // rect; not invalidating while there is nothing to draw or erase is what saves work there
+    @SuppressWarnings("deprecation")
+    private void invalidateDirty(Rect dirty) {
+        if (isHardwareAccelerated()) invalidate();
+        else invalidate(dirty);
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-        if (boxes == null) return;
+        if (batch == null) return;
+        long start = SystemClock.elapsedRealtimeNanos();
 
-        int width = getWidth();
-        int height = getHeight();
+        int n = Math.min(batch.count, captionLength.length);
 
-        for (YoloDetector.BoundingBox box : boxes) {
-            float left = box.box.left * width;
-            float top = box.box.top * height;
-            float right = box.box.right * width;
-            float bottom = box.box.bottom * height;
+        for (int i = 0; i < n; i++) {
+            float left = contentLeft + batch.left[i] * contentWidth;
+            float top = contentTop + batch.top[i] * contentHeight;
+            float right = contentLeft + batch.right[i] * contentWidth;
+            float bottom = contentTop + batch.bottom[i] * contentHeight;
 
             canvas.drawRect(left, top, right, bottom, boxPaint);
 
             // Display label, confidence, and distance
-            String text = String.format("%s %.0f%% (%.1fm)",
-                    box.label, box.score * 100, box.distance);
-            canvas.drawText(text, left, top - 10, textPaint);
+            canvas.drawText(captions, i * CaptionFormatter.MAX_LENGTH, captionLength[i],
+                    left, top - TEXT_GAP, textPaint);
+        }
+
+        if (metrics != null) {
+            long end = SystemClock.elapsedRealtimeNanos();
+            metrics.record(PipelineMetrics.DRAW, end - start);
+            if (batch.sequence != lastDrawnSequence) {
+                lastDrawnSequence = batch.sequence;
+                metrics.record(PipelineMetrics.END_TO_END, end - batch.captureNanos);
+            }
         }
     }
 
-}
\ No newline at end of file
+}
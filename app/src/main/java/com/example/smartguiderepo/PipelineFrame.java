@@ -0,0 +1,115 @@
+package com.example.smartguiderepo;
+
+import android.graphics.Bitmap;
+
+import androidx.camera.core.ImageProxy;
+
+import com.jiangdg.uvc.UVCFrameLease;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A pooled unit of work flowing through {@link DetectionPipeline}. Holds the raw camera
+ * data, the converted Bitmap and the frame's detections. CameraX frames are copied at
+ * capture time; UVC frames stay in the camera's native buffer, held by a lease, until the
+ * preprocess stage has read them. All buffers are allocated on first use at a given size and
+ * then reused.
+ */
+public class PipelineFrame {
+
+    public static final int SOURCE_UVC     = 0;
+    public static final int SOURCE_CAMERAX = 1;
+
+    public int  source;
+    public int  width;
+    public int  height;
+    public int  rotationDegrees;   // clockwise rotation that makes the frame upright
+    public long captureNanos;
+    public boolean reused;         // scene unchanged: republish the previous detections
+
+    public UVCFrameLease lease;    // UVC frames, until preprocess releases it
+    public ByteBuffer rgba;        // CameraX frames, rows packed without padding
+    public Bitmap     bitmap;      // output of the preprocess stage
+
+    public int           roiRegion;               // RoiScheduler.REGION_* inference ran on
+    public final float[] roi = new float[4];      // that region, normalized upright l, t, r, b
+
+    public final DetectionBatch detections;
+
+    public PipelineFrame(int maxDetections) {
+        detections = new DetectionBatch(maxDetections);
+    }
+
+    /**
+     * Takes over a leased NV21 frame from the webcam without copying it; false, with the
+     * lease still the caller's, if it holds less than a whole frame.
+     */
+    public boolean loadLease(UVCFrameLease lease) {
+        int width  = lease.getWidth();
+        int height = lease.getHeight();
+        if (lease.getSize() < width * height * 3 / 2) return false;
+        this.lease           = lease;
+        this.source          = SOURCE_UVC;
+        this.width           = width;
+        this.height          = height;
+        this.rotationDegrees = 0;
+        this.captureNanos    = lease.getTimestampNanos();
+        this.reused          = false;
+        return true;
+    }
+
+    /** Hands a held UVC frame back to the camera. Safe to call when there is none. */
+    public void releaseLease() {
+        UVCFrameLease held = lease;
+        lease = null;
+        if (held != null) held.release();
+    }
+
+    /** Copies a CameraX RGBA_8888 frame. The caller still owns and closes the ImageProxy. */
+    public void loadRgba(ImageProxy image, long captureNanos) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        int rowBytes = w * 4;
+        if (rgba == null || rgba.capacity() != rowBytes * h) rgba = ByteBuffer.allocateDirect(rowBytes * h);
+
+        ImageProxy.PlaneProxy plane = image.getPlanes()[0];
+        ByteBuffer src       = plane.getBuffer();
+        int        rowStride = plane.getRowStride();
+        src.rewind();
+        rgba.clear();
+        if (rowStride == rowBytes) {
+            src.limit(rowBytes * h);
+            rgba.put(src);
+        } else {
+            int limit = src.limit();
+            for (int row = 0; row < h; row++) {
+                int start = row * rowStride;
+                src.limit(start + rowBytes);
+                src.position(start);
+                rgba.put(src);
+                src.limit(limit);
+            }
+        }
+        rgba.rewind();
+
+        this.source          = SOURCE_CAMERAX;
+        this.width           = w;
+        this.height          = h;
+        this.rotationDegrees = image.getImageInfo().getRotationDegrees();
+        this.captureNanos    = captureNanos;
+        this.reused          = false;
+    }
+
+    /** Marks a frame that skips conversion and inference and reuses the last detections. */
+    public void markReused(long captureNanos) {
+        this.captureNanos = captureNanos;
+        this.reused       = true;
+    }
+
+    /** The reusable output Bitmap, (re)created if the frame size changed. */
+    public Bitmap bitmap() {
+        if (bitmap == null || bitmap.getWidth() != width || bitmap.getHeight() != height)
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        return bitmap;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.smartguiderepo;
+
+import java.io.IOException;
+
+/**
+ * Latency histograms for each step a frame takes from the camera callback to the
+ * overlay redraw, plus the drop counters that explain missing frames. Every step is
+ * measured with monotonic timestamps ({@code SystemClock.elapsedRealtimeNanos}) by the
+ * thread that runs it. Shown by the debug HUD and dumped as CSV on request.
+ */
+public class PipelineMetrics {
+
+    public static final int COPY        = 0;   // camera buffer -> pooled frame (UVC: lease hand-over)
+    public static final int CONVERT     = 1;   // NV21 / RGBA -> Bitmap, with the UVC copy
+    public static final int INFERENCE   = 2;
+    public static final int POSTPROCESS = 3;   // filtering, distances, tracking, publish
+    public static final int UI_POST     = 4;   // publish -> UI thread picks the batch up
+    public static final int DRAW        = 5;   // OverlayView.onDraw
+    public static final int END_TO_END  = 6;   // frame arrival -> drawn
+    public static final int COUNT       = 7;
+
+    private static final String[] NAMES =
+            {"copy", "convert", "inference", "postprocess", "ui_post", "draw", "end_to_end"};
+
+    /** Named drop counters, filled in by the owner when a snapshot is rendered. */
+    public interface DropSource {
+        int dropCounterCount();
+        String dropCounterName(int i);
+        long dropCounter(int i);
+    }
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[COUNT];
+    private final DropSource drops;
+
+    public PipelineMetrics(DropSource drops) {
+        this.drops = drops;
+        for (int i = 0; i < COUNT; i++) histograms[i] = new LatencyHistogram();
+    }
+
+    public void record(int metric, long nanos) {
+        histograms[metric].record(nanos);
+    }
+
+    public LatencyHistogram histogram(int metric) {
+        return histograms[metric];
+    }
+
+    public static String name(int metric) {
+        return NAMES[metric];
+    }
+
+    public void reset() {
+        for (LatencyHistogram h : histograms) h.reset();
+    }
+
+    /** Compact multi-line summary in milliseconds for the on-screen HUD. */
+    public StringBuilder appendSummary(StringBuilder sb) {
+        pad(sb.append("stage"), 11);
+        sb.append("   p50   p95   p99 ms\n");
+        for (int i = 0; i < COUNT; i++) {
+            LatencyHistogram h = histograms[i];
+            pad(sb.append(NAMES[i]), 11);
+            appendMillis(sb, h.percentileMicros(50));
+            appendMillis(sb, h.percentileMicros(95));
+            appendMillis(sb, h.percentileMicros(99));
+            sb.append('\n');
+        }
+        for (int i = 0; i < drops.dropCounterCount(); i++) {
+            if (i > 0) sb.append("  ");
+            sb.append(drops.dropCounterName(i)).append('=').append(drops.dropCounter(i));
+        }
+        return sb;
+    }
+
+    /** Writes one row per metric and one per drop counter; times are in microseconds. */
+    public void writeCsv(Appendable out) throws IOException {
+        out.append("metric,count,p50_us,p95_us,p99_us,max_us\n");
+        for (int i = 0; i < COUNT; i++) {
+            LatencyHistogram h = histograms[i];
+            out.append(NAMES[i]).append(',')
+               .append(Long.toString(h.count())).append(',')
+               .append(Long.toString(h.percentileMicros(50))).append(',')
+               .append(Long.toString(h.percentileMicros(95))).append(',')
+               .append(Long.toString(h.percentileMicros(99))).append(',')
+               .append(Long.toString(h.maxMicros())).append('\n');
+        }
+        out.append("\ncounter,value\n");
+        for (int i = 0; i < drops.dropCounterCount(); i++) {
+            out.append(drops.dropCounterName(i)).append(',')
+               .append(Long.toString(drops.dropCounter(i))).append('\n');
+        }
+    }
+
+    private static void appendMillis(StringBuilder sb, long micros) {
+        long tenths = (micros + 50) / 100;
+        int start = sb.length();
+        sb.append(tenths / 10).append('.').append(tenths % 10);
+        for (int w = sb.length() - start; w < 6; w++) sb.insert(start, ' ');
+    }
+
+    private static void pad(StringBuilder sb, int column) {
+        int lineStart = sb.lastIndexOf("\n") + 1;
+        while (sb.length() - lineStart < column) sb.append(' ');
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.smartguiderepo;
+
+import android.content.Context;
+import android.os.BatteryManager;
+import android.os.Process;
+import android.os.SystemClock;
+
+/**
+ * Process CPU time and battery charge used since {@link #reset()}, scaled to an hour,
+ * so the on-screen and headless detection modes can be compared over a real session.
+ * CPU is process time over wall time, where 100% is one core. Battery is the fuel
+ * gauge's charge counter, which is coarse and only meaningful while discharging over
+ * several minutes. GPU work for preview composition has no public counter; it shows
+ * up only in the battery figure.
+ */
+public class PowerMeter {
+
+    private static final long MIN_SPAN_MS = 60_000;   // below this the charge counter is noise
+
+    private final BatteryManager battery;
+    private long startWallMs;
+    private long startCpuMs;
+    private long startChargeUah;
+
+    public PowerMeter(Context context) {
+        battery = (BatteryManager) context.getSystemService(Context.BATTERY_SERVICE);
+        reset();
+    }
+
+    public void reset() {
+        startWallMs    = SystemClock.elapsedRealtime();
+        startCpuMs     = Process.getElapsedCpuTime();
+        startChargeUah = chargeUah();
+    }
+
+    /** Process CPU since {@link #reset()}, in percent of one core. */
+    public float cpuPercent() {
+        long span = Math.max(1, SystemClock.elapsedRealtime() - startWallMs);
+        return 100f * (Process.getElapsedCpuTime() - startCpuMs) / span;
+    }
+
+    /** Battery drain since {@link #reset()} in mAh per hour, or -1 if not measurable. */
+    public float drainMahPerHour() {
+        long span   = SystemClock.elapsedRealtime() - startWallMs;
+        long charge = chargeUah();
+        if (span < MIN_SPAN_MS || charge <= 0 || startChargeUah <= 0 || battery.isCharging()) return -1f;
+        return (startChargeUah - charge) / 1000f * 3_600_000f / span;
+    }
+
+    /** One line such as {@code "power 12min cpu 38% battery 210mAh/h"}. */
+    public void appendSummary(StringBuilder out) {
+        out.append("power ").append((SystemClock.elapsedRealtime() - startWallMs) / 60_000).append("min cpu ")
+           .append(Math.round(cpuPercent())).append("% battery ");
+        float drain = drainMahPerHour();
+        if (drain < 0) out.append("--");
+        else out.append(Math.round(drain)).append("mAh/h");
+        out.append('\n');
+    }
+
+    // Long.MIN_VALUE or 0 when the device has no charge counter
+    private long chargeUah() {
+        return battery != null ? battery.getLongProperty(BatteryManager.BATTERY_PROPERTY_CHARGE_COUNTER) : 0;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.smartguiderepo;
+
+/**
+ * Chooses the image region each Finder-mode inference runs on. Until the target has
+ * been seen, every inference uses the full frame. Once it has been seen, inferences
+ * alternate between an upscaled crop around its last known position and a fixed
+ * "walking corridor" crop in the lower centre of the view. A full-frame pass every
+ * {@value #FULL_FRAME_EVERY} inferences picks up anything outside both crops. A small
+ * bottle that spans a few model pixels on the full frame spans many in a crop, so
+ * recall improves at the same per-inference cost.
+ *
+ * <p>Regions are normalized to the upright frame and square in pixels, so a crop is
+ * not distorted when it is scaled to the model input. Detections made on a crop are
+ * mapped back with {@link #mapToFrame}. {@link #next} is called from the inference
+ * thread and {@link #report} from postprocess, so both are synchronized.</p>
+ */
+public class RoiScheduler {
+
+    public static final int REGION_FULL     = 0;
+    public static final int REGION_TARGET   = 1;
+    public static final int REGION_CORRIDOR = 2;
+
+    static final int   FULL_FRAME_EVERY = 4;
+    static final int   LOST_AFTER       = 3;      // target-crop misses before giving up on it
+    static final float TARGET_SCALE     = 2.5f;   // crop side relative to the target box
+    static final float MIN_CROP         = 0.35f;  // of the shorter frame side
+    static final float MAX_CROP         = 0.8f;   // larger crops gain nothing over the full frame
+
+    // Corridor: lower-centre square covering the ground ahead
+    static final float CORRIDOR_SIDE    = 0.6f;   // of the shorter frame side
+    static final float CORRIDOR_BOTTOM  = 0.95f;  // normalized bottom edge
+
+    private boolean hasTarget;
+    private float   targetCx, targetCy, targetW, targetH;  // last known box, normalized
+    private int     misses;
+    private int     tick;
+    private boolean targetTurn = true;
+
+    public synchronized void reset() {
+        hasTarget  = false;
+        misses     = 0;
+        tick       = 0;
+        targetTurn = true;
+    }
+
+    public synchronized boolean hasTarget() {
+        return hasTarget;
+    }
+
+    /**
+     * Picks the next region for an upright frame of {@code width}x{@code height} pixels
+     * and writes it to {@code roi} as normalized left, top, right, bottom.
+     */
+    public synchronized int next(int width, int height, float[] roi) {
+        int phase = tick++;
+        if (!hasTarget || phase % FULL_FRAME_EVERY == 0) return full(roi);
+
+        float shortSide = Math.min(width, height);
+        if (targetTurn) {
+            targetTurn = false;
+            float side = Math.max(targetW * width, targetH * height) * TARGET_SCALE;
+            side = Math.max(side, MIN_CROP * shortSide);
+            if (side > MAX_CROP * shortSide) return full(roi);   // target already large
+            square(targetCx, targetCy, side, width, height, roi);
+            return REGION_TARGET;
+        }
+        targetTurn = true;
+        float side = CORRIDOR_SIDE * shortSide;
+        float cy   = CORRIDOR_BOTTOM - side / height / 2f;
+        square(0.5f, cy, side, width, height, roi);
+        return REGION_CORRIDOR;
+    }
+
+    /**
+     * Feeds back the Finder-filtered result of an inference on {@code region}, already
+     * mapped to full-frame coordinates. The best-scoring match becomes the new target.
+     */
+    public synchronized void report(int region, DetectionBatch matches) {
+        if (matches.count > 0) {
+            int best = 0;
+            for (int i = 1; i < matches.count; i++)
+                if (matches.scores[i] > matches.scores[best]) best = i;
+            targetCx  = (matches.left[best] + matches.right[best]) * 0.5f;
+            targetCy  = (matches.top[best] + matches.bottom[best]) * 0.5f;
+            targetW   = matches.right[best] - matches.left[best];
+            targetH   = matches.bottom[best] - matches.top[best];
+            hasTarget = true;
+            misses    = 0;
+        } else if (hasTarget && region != REGION_CORRIDOR && ++misses >= LOST_AFTER) {
+            hasTarget = false;
+            tick      = 0;
+        }
+    }
+
+    /** Maps detections made on the crop {@code roi} back to full-frame normalized coordinates. */
+    public static void mapToFrame(float[] roi, DetectionBatch batch) {
+        float sx = roi[2] - roi[0];
+        float sy = roi[3] - roi[1];
+        for (int i = 0; i < batch.count; i++) {
+            batch.left[i]   = roi[0] + batch.left[i]   * sx;
+            batch.right[i]  = roi[0] + batch.right[i]  * sx;
+            batch.top[i]    = roi[1] + batch.top[i]    * sy;
+            batch.bottom[i] = roi[1] + batch.bottom[i] * sy;
+        }
+    }
+
+    private static int full(float[] roi) {
+        roi[0] = 0f; roi[1] = 0f; roi[2] = 1f; roi[3] = 1f;
+        return REGION_FULL;
+    }
+
+    // Square of side pixels centred on (cx, cy), shifted to lie inside the frame
+    private static void square(float cx, float cy, float side, int width, int height, float[] roi) {
+        float w = side / width;
+        float h = side / height;
+        float l = Math.max(0f, Math.min(1f - w, cx - w / 2f));
+        float t = Math.max(0f, Math.min(1f - h, cy - h / 2f));
+        roi[0] = l;
+        roi[1] = t;
+        roi[2] = l + w;
+        roi[3] = t + h;
+    }
+}
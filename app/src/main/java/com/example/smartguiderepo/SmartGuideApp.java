@@ -0,0 +1,16 @@
+package com.example.smartguiderepo;
+
+import android.app.Application;
+
+/**
+ * Starts loading the detector and TTS the moment the process launches, so the work
+ * overlaps the splash screen instead of following it.
+ */
+public class SmartGuideApp extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        AppServices.get(this).preload();
+    }
+}
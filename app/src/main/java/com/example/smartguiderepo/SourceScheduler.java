@@ -0,0 +1,95 @@
+package com.example.smartguiderepo;
+
+import java.util.Arrays;
+
+/**
+ * Shares one inference budget between cameras running at once. Tokens accrue at the
+ * budget rate, so inferences across all sources never exceed the budget on average.
+ * Up to {@link #BURST} can be saved up. Frames arrive at camera rate, not budget rate,
+ * so a single token would lose the time between a refill and the next frame. A source
+ * may only take a token when no other active source was served less recently. With two
+ * cameras that means strict alternation, and a lone camera gets the whole budget. A
+ * source counts as active while its frames keep arriving, and drops out
+ * {@link #ACTIVE_NANOS} after its last one.
+ *
+ * <p>Each pipeline asks {@link #mayRun} before its own governor, and reports
+ * {@link #acquired} only when the frame really goes to inference. Thread-safe, since
+ * every camera asks from its own capture thread.</p>
+ */
+public final class SourceScheduler {
+
+    static final long   ACTIVE_NANOS = 300_000_000L;
+    static final double BURST        = 2.0;
+
+    private static final long NEVER = Long.MIN_VALUE / 2;
+
+    private final float  budgetHz;
+    private final long[] lastRequest;
+    private final long[] lastGrant;
+    private final long[] granted;
+    private final long[] deferred;
+    private double tokens = 1.0;
+    private long   lastRefill = NEVER;
+
+    public SourceScheduler(int sources, float budgetHz) {
+        this.budgetHz = budgetHz;
+        lastRequest = new long[sources];
+        lastGrant   = new long[sources];
+        granted     = new long[sources];
+        deferred    = new long[sources];
+        Arrays.fill(lastRequest, NEVER);
+        Arrays.fill(lastGrant, NEVER);
+    }
+
+    /** Whether {@code source} may start an inference now; does not take the token yet. */
+    public synchronized boolean mayRun(int source, long nowNanos) {
+        lastRequest[source] = nowNanos;
+        refill(nowNanos);
+        boolean ok = tokens >= 1.0;
+        for (int s = 0; ok && s < lastGrant.length; s++) {
+            if (s != source && nowNanos - lastRequest[s] < ACTIVE_NANOS && lastGrant[s] < lastGrant[source]) ok = false;
+        }
+        if (!ok) deferred[source]++;
+        return ok;
+    }
+
+    /** {@code source} started an inference after {@link #mayRun} allowed it. */
+    public synchronized void acquired(int source, long nowNanos) {
+        refill(nowNanos);
+        tokens -= 1.0;
+        lastGrant[source] = nowNanos;
+        granted[source]++;
+    }
+
+    /** Stops {@code source} from holding up the others, e.g. when its camera is closed. */
+    public synchronized void remove(int source) {
+        lastRequest[source] = NEVER;
+    }
+
+    public float budgetHz() {
+        return budgetHz;
+    }
+
+    public synchronized long granted(int source) {
+        return granted[source];
+    }
+
+    public synchronized long deferred(int source) {
+        return deferred[source];
+    }
+
+    /** One line such as {@code "budget 12/s usb run 512 deferred 480 phone run 498 deferred 502"}. */
+    public synchronized void appendSummary(StringBuilder out, String[] names) {
+        out.append("budget ").append(Math.round(budgetHz)).append("/s");
+        for (int s = 0; s < granted.length; s++) {
+            out.append(' ').append(names[s]).append(" run ").append(granted[s])
+               .append(" deferred ").append(deferred[s]);
+        }
+        out.append('\n');
+    }
+
+    private void refill(long nowNanos) {
+        if (lastRefill != NEVER) tokens = Math.min(BURST, tokens + (nowNanos - lastRefill) * budgetHz / 1e9);
+        lastRefill = nowNanos;
+    }
+}
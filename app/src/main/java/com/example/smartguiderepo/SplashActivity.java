@@ -1,25 +1,43 @@
 package com.example.smartguiderepo;
 
 import android.content.Intent;
-import android.graphics.Color;
-import android.graphics.LinearGradient;
-import android.graphics.Shader;
 import android.os.Bundle;
 import android.os.Handler;
-import android.widget.TextView; // Added missing import
+import android.os.Looper;
 import androidx.appcompat.app.AppCompatActivity;
 
 public class SplashActivity extends AppCompatActivity {
 
+    // Upper bound in case TTS never reports back; normally the services are ready sooner
+    private static final long MAX_SPLASH_MS = 8000;
+
+    private final Handler  handler = new Handler(Looper.getMainLooper());
+    private final Runnable onReady = this::openHome;
+    private boolean leaving = false;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_splash);
 
-        // 3. Wait 3 seconds then go to HomeActivity
-        new Handler().postDelayed(() -> {
-            startActivity(new Intent(SplashActivity.this, HomeActivity.class));
-            finish(); // Destroys Splash so user can't go back to it
-        }, 3000);
+        // Leave as soon as the model is warm and TTS is up (started by SmartGuideApp)
+        AppServices services = AppServices.get(this);
+        services.preload();
+        services.whenReady(onReady);
+        handler.postDelayed(this::openHome, MAX_SPLASH_MS);
+    }
+
+    private void openHome() {
+        if (leaving || isFinishing()) return;
+        leaving = true;
+        startActivity(new Intent(SplashActivity.this, HomeActivity.class));
+        finish(); // Destroys Splash so user can't go back to it
+    }
+
+    @Override
+    protected void onDestroy() {
+        handler.removeCallbacksAndMessages(null);
+        AppServices.get(this).removeReadyCallback(onReady);   // services would outlive the splash
+        super.onDestroy();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,214 @@
+package com.example.smartguiderepo;
+
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs pooled frames through a fixed chain of stages, each on its own thread, with a
+ * {@link LatestSlot} between consecutive stages. While stage N works on one frame,
+ * stage N-1 is already working on the next, so throughput is bounded by the slowest
+ * stage rather than the sum of all of them. Frames that are overtaken in a slot, or
+ * that a stage rejects, go straight back to the pool.
+ *
+ * <p>Frames enter through {@link #acquire()} / {@link #submit(Object)} on the capture
+ * thread and return to the pool after the last stage. A {@link Recycler} sees every
+ * frame on its way back, wherever it left the chain, to let go of what it still holds.
+ * A stage that throws loses its frame; the exception is counted in {@link #failures}
+ * and handed to the {@link ErrorListener}, so a broken stage does not pass for drops.</p>
+ */
+public class StagedPipeline<F> {
+
+    /** One processing step. Return false to drop the frame instead of passing it on. */
+    public interface Stage<F> {
+        boolean process(F frame);
+    }
+
+    /** Called for each frame just before it returns to the pool, on the releasing thread. */
+    public interface Recycler<F> {
+        void recycle(F frame);
+    }
+
+    /** Called on the stage thread when a stage throws; the frame has already been dropped. */
+    public interface ErrorListener {
+        void onStageError(int stage, RuntimeException error);
+    }
+
+    private final ObjectPool<F>   pool;
+    private final String[]        names;
+    private final Stage<F>[]      stages;
+    private final LatestSlot<F>[] inputs;
+    private final Thread[]        threads;
+    private final ThreadFactory   threadFactory;
+    private final Recycler<F>     recycler;
+
+    // Written only by the owning stage thread, read by stats readers
+    private final StageStats[] stats;
+    private volatile long captureDrops;
+    private volatile boolean running;
+    private volatile ErrorListener errorListener;
+
+    private static final class StageStats {
+        volatile long processed;
+        volatile long rejected;
+        volatile long failed;
+        volatile long busyNanos;
+        volatile long lastNanos;
+    }
+
+    public StagedPipeline(ObjectPool<F> pool, String[] names, List<Stage<F>> stages,
+                          ThreadFactory threadFactory) {
+        this(pool, names, stages, threadFactory, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public StagedPipeline(ObjectPool<F> pool, String[] names, List<Stage<F>> stages,
+                          ThreadFactory threadFactory, Recycler<F> recycler) {
+        if (names.length != stages.size()) throw new IllegalArgumentException("names/stages mismatch");
+        this.pool          = pool;
+        this.names         = names;
+        this.stages        = (Stage<F>[]) stages.toArray(new Stage<?>[0]);
+        this.threadFactory = threadFactory;
+        this.recycler      = recycler;
+        this.inputs        = (LatestSlot<F>[]) new LatestSlot<?>[names.length];
+        this.threads       = new Thread[names.length];
+        this.stats         = new StageStats[names.length];
+        for (int i = 0; i < names.length; i++) {
+            inputs[i] = new LatestSlot<>();
+            stats[i]  = new StageStats();
+        }
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        for (int i = 0; i < stages.length; i++) {
+            final int index = i;
+            threads[i] = threadFactory.newThread(() -> runStage(index));
+            threads[i].setName("SG-" + names[i]);
+            threads[i].start();
+        }
+    }
+
+    /**
+     * Stops every stage thread and waits for it to exit, so the stages' resources can be
+     * freed once this returns. A stage in the middle of a frame finishes it first, which
+     * can take one inference: call this off the main thread.
+     */
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        for (Thread t : threads) if (t != null) t.interrupt();
+        boolean interrupted = false;
+        for (Thread t : threads) {
+            while (t != null && t.isAlive()) {
+                try { t.join(); } catch (InterruptedException e) { interrupted = true; }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        for (LatestSlot<F> slot : inputs) {
+            F left = slot.poll();
+            if (left != null) release(left);
+        }
+    }
+
+    public void setErrorListener(ErrorListener listener) {
+        this.errorListener = listener;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Capture side: a free frame to fill, or null (counted as a capture drop) if all are busy. */
+    public F acquire() {
+        F frame = running ? pool.acquire() : null;
+        if (frame == null) captureDrops++;
+        return frame;
+    }
+
+    /** Capture side: hands a filled frame to the first stage. */
+    public void submit(F frame) {
+        F displaced = inputs[0].offer(frame);
+        if (displaced != null) release(displaced);
+    }
+
+    /** Capture side: returns a frame that was acquired but not submitted. */
+    public void recycle(F frame) {
+        release(frame);
+    }
+
+    private void release(F frame) {
+        if (recycler != null) recycler.recycle(frame);
+        pool.release(frame);
+    }
+
+    private void runStage(int index) {
+        LatestSlot<F> in   = inputs[index];
+        LatestSlot<F> out  = index + 1 < stages.length ? inputs[index + 1] : null;
+        Stage<F>      work = stages[index];
+        StageStats    s    = stats[index];
+
+        while (running) {
+            F frame;
+            try {
+                frame = in.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            long    start = System.nanoTime();
+            boolean keep;
+            try {
+                keep = work.process(frame);
+            } catch (RuntimeException e) {
+                keep = false;
+                s.failed++;
+                ErrorListener l = errorListener;
+                if (l != null) l.onStageError(index, e);
+            }
+            long elapsed = System.nanoTime() - start;
+            s.busyNanos += elapsed;
+            s.lastNanos  = elapsed;
+            s.processed++;
+            if (!keep) s.rejected++;
+
+            if (keep && out != null) {
+                F displaced = out.offer(frame);
+                if (displaced != null) release(displaced);
+            } else {
+                release(frame);
+            }
+        }
+    }
+
+    // ── Stats ─────────────────────────────────────────────────────────────
+
+    public int stageCount()               { return stages.length; }
+    public String stageName(int stage)    { return names[stage]; }
+    public int queueDepth(int stage)      { return inputs[stage].depth(); }
+    /** Frames that were overtaken in this stage's input slot. */
+    public long drops(int stage)          { return inputs[stage].dropped(); }
+    public long processed(int stage)      { return stats[stage].processed; }
+    public long rejected(int stage)       { return stats[stage].rejected; }
+    /** Frames lost to an exception thrown by this stage; also counted as rejected. */
+    public long failures(int stage)       { return stats[stage].failed; }
+    public long lastNanos(int stage)      { return stats[stage].lastNanos; }
+    /** Frames lost because every pooled frame was still in flight. */
+    public long captureDrops()            { return captureDrops; }
+
+    public long averageNanos(int stage) {
+        long n = stats[stage].processed;
+        return n == 0 ? 0 : stats[stage].busyNanos / n;
+    }
+
+    public StringBuilder appendStats(StringBuilder sb) {
+        sb.append("capture drops=").append(captureDrops);
+        for (int i = 0; i < stages.length; i++) {
+            sb.append(" | ").append(names[i])
+              .append(" q=").append(queueDepth(i))
+              .append(" drop=").append(drops(i))
+              .append(" avg=").append(averageNanos(i) / 1000).append("us");
+        }
+        return sb;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.smartguiderepo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Ranks a webcam's stream modes for the detector, cheapest suitable first. The pipeline
+ * scales every frame down to the model input, so pixels beyond it cost USB bandwidth,
+ * MJPEG decode and conversion time and buy nothing. A mode is suitable when it covers
+ * the model input on both axes and its aspect ratio is as close to the input's as the
+ * camera offers, so no more of the frame is squeezed than necessary. Among suitable
+ * modes the estimated capture cost decides. MJPEG pays a JPEG decode per pixel that
+ * YUYV does not, while YUYV needs two bytes per pixel on the bus, which rules out its
+ * larger sizes at the frame-rate target.
+ *
+ * <p>The ranking is the order to try in: a camera may still refuse a mode at the target
+ * frame rate, and the caller moves on to the next. Plain Java, so it runs in unit tests;
+ * {@link UvcStreamNegotiator} feeds it a camera's descriptors.</p>
+ */
+public final class UvcModeSelector {
+
+    public static final int FORMAT_YUYV  = 0;   // UVCCamera.FRAME_FORMAT_*
+    public static final int FORMAT_MJPEG = 1;
+
+    // Estimated capture cost per pixel. Both formats are repacked to NV21 natively, and
+    // the pipeline converts and scales every pixel once more; MJPEG decodes first.
+    static final float MJPEG_DECODE_NS = 6f;
+    static final float REPACK_NS       = 1f;
+    static final float CONVERT_NS      = 2.5f;
+
+    // USB 2.0 high-bandwidth isochronous: 3 x 1024 bytes per 125 µs microframe, of
+    // which a webcam reliably gets about 80%
+    static final double USB_BYTES_PER_SECOND = 3 * 1024 * 8000 * 0.8;
+
+    static final float ASPECT_SLACK = 0.05f;   // ln(aspect) difference counted as equal
+
+    private static final int SUITABLE   = 0;   // tiers, tried in this order
+    private static final int MISSHAPEN  = 1;   // covers the input, but the aspect is off
+    private static final int TOO_SMALL  = 2;
+    private static final int OVER_BUS   = 3;
+
+    /** One format and size from the camera's descriptors. */
+    public static final class Mode {
+        public final int   format;
+        public final int   width;
+        public final int   height;
+        /** Estimated capture cost per frame, decode plus conversion. */
+        public final float costMicros;
+
+        public Mode(int format, int width, int height) {
+            this.format     = format;
+            this.width      = width;
+            this.height     = height;
+            float perPixel  = REPACK_NS + CONVERT_NS + (format == FORMAT_MJPEG ? MJPEG_DECODE_NS : 0);
+            this.costMicros = (float) width * height * perPixel / 1000f;
+        }
+
+        /** Bytes per second on the bus at {@code fps}; MJPEG is compressed enough to ignore. */
+        double busBytesPerSecond(int fps) {
+            return format == FORMAT_YUYV ? 2.0 * width * height * fps : 0;
+        }
+
+        @Override
+        public String toString() {
+            return (format == FORMAT_MJPEG ? "MJPEG " : "YUYV ") + width + "x" + height;
+        }
+    }
+
+    private UvcModeSelector() {}
+
+    /**
+     * Orders {@code supported} for a model input of {@code inputWidth} x
+     * {@code inputHeight} at {@code fps}: suitable modes by cost, then modes that cover
+     * the input with a worse aspect ratio by cost, then modes too small for it, largest
+     * first, and last those the bus cannot carry at that rate.
+     */
+    public static List<Mode> rank(List<Mode> supported, int inputWidth, int inputHeight, int fps) {
+        // The camera is landscape; a portrait input is matched long side to long side
+        int    inLong  = Math.max(inputWidth, inputHeight);
+        int    inShort = Math.min(inputWidth, inputHeight);
+        double target  = Math.log((double) inLong / inShort);
+
+        double best = Double.MAX_VALUE;
+        for (Mode m : supported) {
+            if (covers(m, inLong, inShort) && m.busBytesPerSecond(fps) <= USB_BYTES_PER_SECOND)
+                best = Math.min(best, aspectError(m, target));
+        }
+
+        List<Mode> ranked = new ArrayList<>(supported);
+        final double bestError = best;
+        Collections.sort(ranked, new Comparator<Mode>() {
+            @Override
+            public int compare(Mode a, Mode b) {
+                int ta = tier(a, inLong, inShort, target, bestError, fps);
+                int tb = tier(b, inLong, inShort, target, bestError, fps);
+                if (ta != tb) return Integer.compare(ta, tb);
+                if (ta == TOO_SMALL) return Long.compare((long) b.width * b.height, (long) a.width * a.height);
+                return Float.compare(a.costMicros, b.costMicros);
+            }
+        });
+        return ranked;
+    }
+
+    private static int tier(Mode m, int inLong, int inShort, double target, double bestError, int fps) {
+        if (m.busBytesPerSecond(fps) > USB_BYTES_PER_SECOND) return OVER_BUS;
+        if (!covers(m, inLong, inShort))                       return TOO_SMALL;
+        return aspectError(m, target) <= bestError + ASPECT_SLACK ? SUITABLE : MISSHAPEN;
+    }
+
+    private static boolean covers(Mode m, int inLong, int inShort) {
+        return Math.max(m.width, m.height) >= inLong && Math.min(m.width, m.height) >= inShort;
+    }
+
+    private static double aspectError(Mode m, double target) {
+        double aspect = Math.log((double) Math.max(m.width, m.height) / Math.min(m.width, m.height));
+        return Math.abs(aspect - target);
+    }
+}
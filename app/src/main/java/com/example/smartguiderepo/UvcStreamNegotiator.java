@@ -0,0 +1,139 @@
+package com.example.smartguiderepo;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.jiangdg.utils.Size;
+import com.jiangdg.uvc.UVCCamera;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sets a webcam's stream to the mode {@link UvcModeSelector} ranks first for the
+ * current detector, and reports what the mode costs once frames flow. The frame
+ * callback reads {@link #width()} and {@link #height()}, which follow the running
+ * stream. Until the detector is known the old fixed 640x480 stream is asked for.
+ *
+ * <p>Measured over the first {@link #MEASURE_FRAMES} frames after each start: the
+ * frame rate the camera really delivers and the time the capture thread spends per
+ * frame. The native decode itself happens before the callback, so it shows up as a
+ * lower delivered rate, not as capture time.</p>
+ */
+public final class UvcStreamNegotiator {
+
+    private static final String TAG = "UvcStream";
+
+    static final int MEASURE_FRAMES = 90;
+
+    private static final int DEFAULT_WIDTH  = 640;   // before the detector is known
+    private static final int DEFAULT_HEIGHT = 480;
+
+    private final int fps;
+
+    private UvcModeSelector.Mode mode;   // configure() callers only; not thread-safe
+    private volatile int width  = DEFAULT_WIDTH;
+    private volatile int height = DEFAULT_HEIGHT;
+
+    // ── Measurement (frame callback thread) ───────────────────────────────
+    private volatile boolean restarted;
+    private int  frames;
+    private long firstNanos;
+    private long busyNanos;
+
+    /** {@code fps}: lowest frame rate a mode must reach to be chosen. */
+    public UvcStreamNegotiator(int fps) {
+        this.fps = fps;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Sets the first mode of the ranking that {@code camera} accepts at the frame-rate
+     * target. The camera is open and its preview stopped. An input size of 0 means the
+     * detector is not loaded yet. If the camera accepts none, the old fixed stream is
+     * set without a frame-rate floor; that throws {@link IllegalArgumentException} as
+     * before if even it is refused.
+     */
+    public void configure(UVCCamera camera, int inputWidth, int inputHeight) {
+        for (UvcModeSelector.Mode m : rank(camera, inputWidth, inputHeight)) {
+            try {
+                camera.setPreviewSize(m.width, m.height, fps, UVCCamera.DEFAULT_PREVIEW_MAX_FPS,
+                        m.format, UVCCamera.DEFAULT_BANDWIDTH);
+            } catch (IllegalArgumentException e) {
+                Log.d(TAG, m + " refused at " + fps + " fps");
+                continue;
+            }
+            mode      = m;
+            width     = m.width;
+            height    = m.height;
+            restarted = true;
+            Log.i(TAG, "Streaming " + m + " at " + fps + "+ fps for a " + inputDescription(inputWidth, inputHeight)
+                    + String.format(" model input; estimated %.1f ms per frame", m.costMicros / 1000f));
+            return;
+        }
+        Log.w(TAG, "No stream mode accepted at " + fps + " fps; asking for " + DEFAULT_WIDTH + "x" + DEFAULT_HEIGHT);
+        try {
+            camera.setPreviewSize(DEFAULT_WIDTH, DEFAULT_HEIGHT, UVCCamera.FRAME_FORMAT_MJPEG);
+        } catch (IllegalArgumentException e) {
+            camera.setPreviewSize(DEFAULT_WIDTH, DEFAULT_HEIGHT);   // YUYV
+        }
+        mode      = null;
+        width     = DEFAULT_WIDTH;
+        height    = DEFAULT_HEIGHT;
+        restarted = true;
+    }
+
+    /**
+     * Whether {@code camera} should be restarted with {@link #configure} because the
+     * detector's input size changed the ranking.
+     */
+    public boolean shouldChange(UVCCamera camera, int inputWidth, int inputHeight) {
+        if (mode == null) return false;   // nothing was accepted before either
+        List<UvcModeSelector.Mode> ranked = rank(camera, inputWidth, inputHeight);
+        if (ranked.isEmpty()) return false;
+        UvcModeSelector.Mode best = ranked.get(0);
+        return best.format != mode.format || best.width != mode.width || best.height != mode.height;
+    }
+
+    /**
+     * Frame callback thread, around the work done for each frame: {@code startNanos}
+     * when the frame arrived. Logs the measurement once enough frames were seen.
+     */
+    public void onFrame(long startNanos) {
+        if (restarted) {
+            restarted = false;
+            frames    = 0;
+            busyNanos = 0;
+        }
+        if (frames == 0) firstNanos = startNanos;
+        busyNanos += SystemClock.elapsedRealtimeNanos() - startNanos;
+        if (++frames != MEASURE_FRAMES) return;
+        double seconds = (startNanos - firstNanos) / 1e9;
+        Log.i(TAG, String.format("Measured %s: %.1f fps delivered, %.2f ms capture per frame",
+                mode != null ? mode : width + "x" + height, (frames - 1) / seconds, busyNanos / 1e6 / frames));
+    }
+
+    private List<UvcModeSelector.Mode> rank(UVCCamera camera, int inputWidth, int inputHeight) {
+        List<UvcModeSelector.Mode> supported = new ArrayList<>();
+        addModes(supported, camera, UvcModeSelector.FORMAT_MJPEG);
+        addModes(supported, camera, UvcModeSelector.FORMAT_YUYV);
+        boolean known = inputWidth > 0 && inputHeight > 0;
+        return UvcModeSelector.rank(supported, known ? inputWidth : DEFAULT_WIDTH,
+                known ? inputHeight : DEFAULT_HEIGHT, fps);
+    }
+
+    private static void addModes(List<UvcModeSelector.Mode> out, UVCCamera camera, int format) {
+        for (Size s : camera.getSupportedSizeList(format)) out.add(new UvcModeSelector.Mode(format, s.width, s.height));
+    }
+
+    private static String inputDescription(int inputWidth, int inputHeight) {
+        return inputWidth > 0 && inputHeight > 0 ? inputWidth + "x" + inputHeight : "default";
+    }
+}
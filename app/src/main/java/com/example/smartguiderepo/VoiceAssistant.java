@@ -3,67 +3,207 @@ package com.example.smartguiderepo;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
 import android.speech.RecognitionListener;
 import android.speech.RecognizerIntent;
 import android.speech.SpeechRecognizer;
+import android.util.Log;
 import java.util.ArrayList;
 
+/**
+ * Voice commands for both activities. When {@link KeywordSpotter} has a model, the
+ * fixed commands are spotted offline, and SpeechRecognizer runs for one utterance only,
+ * to catch the object name after "find". Without a model the recognizer is restarted
+ * after every result or error, as before. Recognizer text goes through the shared
+ * {@link CommandMatcher} grammar. Partial results are matched as they arrive, so a
+ * command that takes no object name fires without waiting for the end of the
+ * utterance, and "stop" fires the moment it shows up. The final result then does not fire that command a second time.
+ * Listeners get a {@link CommandMatcher} command plus the object name for "find".
+ * Every {@link #REPORT_INTERVAL_MS} the process CPU share, the spotter thread's share
+ * and the recognizer sessions started are logged per mode, to compare the two. The
+ * recognizer service runs in its own process and is not in the process figure.
+ * All methods are main-thread only.
+ */
 public class VoiceAssistant {
-    private SpeechRecognizer speechRecognizer;
-    private Intent speechIntent;
-    private VoiceCommandListener listener;
-    private boolean isListening = false;
+
+    private static final String TAG = "VoiceAssistant";
+    private static final long REPORT_INTERVAL_MS = 60_000;
 
     public interface VoiceCommandListener {
-        void onCommandReceived(String command);
+        /** {@code argument} is the object name for {@link CommandMatcher#FIND}, else empty. */
+        void onCommandReceived(int command, String argument);
     }
 
-    public VoiceAssistant(Context context, VoiceCommandListener listener) {
-        this.listener = listener;
-        speechRecognizer = SpeechRecognizer.createSpeechRecognizer(context);
+    private final Handler          mainHandler = new Handler(Looper.getMainLooper());
+    private final SpeechRecognizer speechRecognizer;
+    private final Intent           speechIntent;
+    private final KeywordSpotter   spotter;             // null: recognizer loop only
+    private final CommandMatcher   matcher = CommandMatcher.DEFAULT;
+    private final CommandMatcher.Match match = new CommandMatcher.Match();
+
+    private VoiceCommandListener listener;
+    private boolean wanted;                  // an activity asked for listening
+    private boolean recognizing;             // a recognizer session is open
+    private boolean awaitingTarget;          // that session is for the word after "find"
+    private int     firedEarly = CommandMatcher.NONE;   // fired from a partial result of this session
+
+    // ── Usage report ──────────────────────────────────────────────────────
+    private long reportWallMs;
+    private long reportCpuMs;
+    private long reportSpotterCpuMs;
+    private int  sessions;
+
+    public VoiceAssistant(Context context, SpeechRecognizer speechRecognizer) {
+        this.speechRecognizer = speechRecognizer;
         speechIntent = new Intent(RecognizerIntent.ACTION_RECOGNIZE_SPEECH);
         speechIntent.putExtra(RecognizerIntent.EXTRA_LANGUAGE_MODEL, RecognizerIntent.LANGUAGE_MODEL_FREE_FORM);
-        speechIntent.putExtra(RecognizerIntent.EXTRA_LANGUAGE, AppSettings.isEnglish ? "en-US" : "ur-PK");
+        speechIntent.putExtra(RecognizerIntent.EXTRA_PARTIAL_RESULTS, true);
+
+        spotter = KeywordSpotter.create(context, command -> mainHandler.post(() -> onKeyword(command)));
+        Log.d(TAG, spotter != null ? "Using offline keyword spotting" : "Using the SpeechRecognizer loop");
 
         speechRecognizer.setRecognitionListener(new RecognitionListener() {
             @Override
             public void onResults(Bundle results) {
-                ArrayList<String> matches = results.getStringArrayList(SpeechRecognizer.RESULTS_RECOGNITION);
-                if (matches != null && !matches.isEmpty()) {
-                    listener.onCommandReceived(matches.get(0).toLowerCase());
+                recognizing = false;
+                String  text   = firstHypothesis(results);
+                boolean target = awaitingTarget;
+                awaitingTarget = false;
+                if (target) {
+                    if (!text.isEmpty()) deliver(CommandMatcher.FIND, text);
+                } else if (matcher.match(text, match) && match.command != firedEarly) {
+                    deliver(match.command, CommandMatcher.argument(text, match));
+                }
+                resume();
+            }
+            @Override
+            public void onPartialResults(Bundle partialResults) {
+                // The object name after "find" is only complete in the final result. Other
+                // commands wait until a later word shows the hypothesis moved past them,
+                // except "stop", which is safe to act on even if it gets revised.
+                if (awaitingTarget || firedEarly != CommandMatcher.NONE) return;
+                String text = firstHypothesis(partialResults);
+                if (matcher.match(text, match) && match.command != CommandMatcher.FIND
+                        && (match.command == CommandMatcher.STOP || match.end < text.length())) {
+                    firedEarly = match.command;
+                    deliver(match.command, "");
                 }
-                startListening();
             }
-
             @Override
             public void onError(int error) {
-                startListening();
+                recognizing    = false;
+                awaitingTarget = false;
+                resume();
             }
-
-            // Leave other methods empty
-            @Override public void onReadyForSpeech(Bundle params) {}
-            @Override public void onBeginningOfSpeech() {}
-            @Override public void onRmsChanged(float rmsdB) {}
-            @Override public void onBufferReceived(byte[] buffer) {}
-            @Override public void onEndOfSpeech() {}
-            @Override public void onPartialResults(Bundle partialResults) {}
-            @Override public void onEvent(int eventType, Bundle params) {}
+            @Override public void onReadyForSpeech(Bundle p)  {}
+            @Override public void onBeginningOfSpeech()       {}
+            @Override public void onRmsChanged(float rms)     {}
+            @Override public void onBufferReceived(byte[] b)  {}
+            @Override public void onEndOfSpeech()             {}
+            @Override public void onEvent(int t, Bundle p)    {}
         });
+
+        reportWallMs = SystemClock.elapsedRealtime();
+        reportCpuMs  = Process.getElapsedCpuTime();
+        mainHandler.postDelayed(report, REPORT_INTERVAL_MS);
+    }
+
+    /** Commands go to the activity that set itself last. */
+    public void setListener(VoiceCommandListener listener) {
+        this.listener = listener;
+    }
+
+    /** Stops listening and detaches {@code listener}, unless another activity has taken over. */
+    public void clearListener(VoiceCommandListener listener) {
+        if (this.listener != listener) return;
+        this.listener = null;
+        stopListening();
+    }
+
+    public boolean isOffline() {
+        return spotter != null;
     }
 
     public void startListening() {
-        if (!isListening) {
-            speechRecognizer.startListening(speechIntent);
-            isListening = true;
-        }
+        wanted = true;
+        resume();
     }
 
+    /** Pauses all listening, e.g. while the app talks, so it does not hear itself. */
     public void stopListening() {
-        speechRecognizer.stopListening();
-        isListening = false;
+        wanted         = false;
+        awaitingTarget = false;
+        if (spotter != null) spotter.stop();
+        if (recognizing) {
+            recognizing = false;
+            speechRecognizer.cancel();
+        }
     }
 
-    public void shutdown() {
-        speechRecognizer.destroy();
+    /** One line for the debug HUD: mode and the spotter thread's CPU share. */
+    public void appendSummary(StringBuilder out) {
+        out.append("voice ").append(spotter != null ? "kws" : "recognizer");
+        if (spotter != null && spotter.audioMillis() > 0)
+            out.append(String.format(" cpu %.1f%%", 100f * spotter.cpuMillis() / spotter.audioMillis()));
+        out.append(" sessions ").append(sessions).append('\n');
+    }
+
+    private void resume() {
+        if (!wanted || recognizing) return;
+        if (spotter != null && spotter.start()) return;
+        startRecognizer();
+    }
+
+    private void onKeyword(int command) {
+        if (!wanted || recognizing) return;
+        if (command == CommandMatcher.FIND) {
+            // The spotter gives up the microphone for one free-form utterance
+            spotter.stop();
+            awaitingTarget = true;
+            startRecognizer();
+        } else {
+            deliver(command, "");
+        }
     }
-}
\ No newline at end of file
+
+    private void startRecognizer() {
+        speechIntent.putExtra(RecognizerIntent.EXTRA_LANGUAGE, AppSettings.isEnglish ? "en-US" : "ur-PK");
+        recognizing = true;
+        firedEarly  = CommandMatcher.NONE;
+        sessions++;
+        speechRecognizer.startListening(speechIntent);
+    }
+
+    private void deliver(int command, String argument) {
+        if (listener != null) listener.onCommandReceived(command, argument);
+    }
+
+    private static String firstHypothesis(Bundle results) {
+        ArrayList<String> hypotheses = results.getStringArrayList(SpeechRecognizer.RESULTS_RECOGNITION);
+        return hypotheses != null && !hypotheses.isEmpty() && hypotheses.get(0) != null
+                ? hypotheses.get(0).toLowerCase().trim() : "";
+    }
+
+    private final Runnable report = new Runnable() {
+        @Override
+        public void run() {
+            long wall       = SystemClock.elapsedRealtime();
+            long cpu        = Process.getElapsedCpuTime();
+            long spotterCpu = spotter != null ? spotter.cpuMillis() : 0;
+            float span = Math.max(1, wall - reportWallMs);
+            Log.d(TAG, String.format("%s: process cpu %.1f%%, spotter %.1f%%, %d recognizer sessions/min",
+                    spotter != null ? "kws" : "recognizer loop",
+                    100f * (cpu - reportCpuMs) / span,
+                    100f * (spotterCpu - reportSpotterCpuMs) / span,
+                    Math.round(sessions * 60_000f / span)));
+            reportWallMs       = wall;
+            reportCpuMs        = cpu;
+            reportSpotterCpuMs = spotterCpu;
+            sessions           = 0;
+            mainHandler.postDelayed(this, REPORT_INTERVAL_MS);
+        }
+    };
+}
@@ -2,37 +2,313 @@ package com.example.smartguiderepo;
 
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.RectF;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.os.Build;
+import android.os.SystemClock;
 import android.util.Log;
 
 import org.tensorflow.lite.DataType;
 import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
+import org.tensorflow.lite.gpu.GpuDelegate;
 import org.tensorflow.lite.support.common.FileUtil;
-import org.tensorflow.lite.support.common.ops.CastOp;
-import org.tensorflow.lite.support.common.ops.NormalizeOp;
-import org.tensorflow.lite.support.image.ImageProcessor;
-import org.tensorflow.lite.support.image.TensorImage;
-import org.tensorflow.lite.support.image.ops.ResizeOp;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.nio.MappedByteBuffer;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
+/**
+ * Second detection engine: runs YOLOv5/v8 style .tflite models directly through the
+ * Interpreter. Input and output tensors live in direct buffers allocated once, the
+ * frame is scaled and rotated into a reused input Bitmap, and decoding plus NMS run
+ * in {@link YoloPostprocessor} straight from the output buffer into primitive arrays,
+ * so a frame neither copies the tensor nor allocates.
+ */
 public class YoloDetector {
 
-    public static class BoundingBox {
-        public String label;
-        public float score;
-        public RectF box;
-        public float distance; // Added distance field
+    private static final String TAG = "YoloDetector";
 
-        public BoundingBox(String label, float score, RectF box, float distance) {
-            this.label = label;
-            this.score = score;
-            this.box = box;
-            this.distance = distance;
+    public static final String MODEL_FILE  = "yolo.tflite";
+    public static final String LABELS_FILE = "yolo_labels.txt";
+
+    private static final int MAX_CANDIDATES = 300;
+    private static final int MAX_RESULTS    = 10;
+    private static final int BENCH_WARMUP   = 1;
+    private static final int BENCH_RUNS     = 3;
+
+    private final ByteBuffer        model;        // mapped once, shared with siblings
+    private final List<String>      labelList;
+    private final Interpreter       interpreter;
+    private final GpuDelegate       gpuDelegate;
+    private final InferenceBackend  backend;
+    private final LabelTable        labels;
+    private final YoloPostprocessor postprocessor;
+
+    // ── Input ─────────────────────────────────────────────────────────────
+    private final int        inputSize;
+    private final boolean    floatInput;
+    private final byte[]     quantLut = new byte[256];  // 8-bit channel value -> quantized input
+    private final ByteBuffer input;
+    private final Bitmap     inputBitmap;
+    private final Canvas     inputCanvas;
+    private final Matrix     matrix = new Matrix();
+    private final Paint      filterPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final int[]      pixels;
+
+    // ── Output ────────────────────────────────────────────────────────────
+    private final ByteBuffer  output;
+    private final FloatBuffer outputFloats;
+    private final boolean     floatOutput;
+    private final float       outScale;
+    private final int         outZeroPoint;
+    private final boolean     outSigned;
+
+    private boolean closed;
+
+    /** True when {@link #MODEL_FILE} is among the app's assets. */
+    public static boolean isBundled(Context context) {
+        try {
+            String[] assets = context.getAssets().list("");
+            if (assets != null) for (String name : assets) if (MODEL_FILE.equals(name)) return true;
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot list assets: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * The backend for the YOLO model on this device. On first launch (or after a system
+     * update) every Interpreter candidate is benchmarked on this model, including the
+     * XNNPACK-off and FP16 variants the Task Library cannot take; the winner is stored
+     * apart from the Task Library detector's. Blocks for a few seconds the first time,
+     * so call it off the main thread.
+     */
+    public static InferenceBackend selectBackend(Context context) {
+        InferenceBackend stored = InferenceBackend.fromId(
+                AppSettings.getYoloBackendId(context, Build.FINGERPRINT));
+        if (stored != null) return stored;
+
+        MappedByteBuffer model;
+        List<String>     labels;
+        try {
+            model  = FileUtil.loadMappedFile(context, MODEL_FILE);
+            labels = FileUtil.loadLabels(context, LABELS_FILE);
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot benchmark " + MODEL_FILE + ": " + e.getMessage());
+            return InferenceBackend.DEFAULT_CPU;
+        }
+
+        List<InferenceBackend> candidates = InferenceBackend.interpreterCandidates();
+        BackendBenchmark.Result result = new BackendBenchmark(
+                SystemClock::elapsedRealtimeNanos, BENCH_WARMUP, BENCH_RUNS)
+                .run(candidates, b -> {
+                    YoloDetector d = new YoloDetector(model, labels, b);
+                    Bitmap frame = Bitmap.createBitmap(d.inputSize, d.inputSize, Bitmap.Config.ARGB_8888);
+                    return new BackendBenchmark.Session() {
+                        @Override public void runOnce() { d.detect(frame, 0); }
+                        @Override public void close()   { d.close(); frame.recycle(); }
+                    };
+                });
+
+        StringBuilder sb = new StringBuilder("YOLO backend benchmark:");
+        for (int i = 0; i < candidates.size(); i++) {
+            sb.append(' ').append(candidates.get(i)).append('=')
+              .append(result.medianNanos[i] < 0 ? "failed" : (result.medianNanos[i] / 1000) + "us");
+        }
+        Log.d(TAG, sb.append(" -> ").append(result.winner).toString());
+
+        AppSettings.setYoloBackendId(context, Build.FINGERPRINT, result.winner.id);
+        return result.winner;
+    }
+
+    /**
+     * Loads {@link #MODEL_FILE} and {@link #LABELS_FILE} from assets. Returns null when the
+     * model is not bundled or cannot be opened, so callers can stay on the Task Library path.
+     */
+    public static YoloDetector create(Context context, InferenceBackend backend) {
+        try {
+            MappedByteBuffer model = FileUtil.loadMappedFile(context, MODEL_FILE);
+            List<String> labels = FileUtil.loadLabels(context, LABELS_FILE);
+            try {
+                return new YoloDetector(model, labels, backend);
+            } catch (RuntimeException e) {
+                if (backend.delegate == InferenceBackend.Delegate.CPU) throw e;
+                Log.e(TAG, backend + " unavailable, falling back to CPU: " + e.getMessage());
+                return new YoloDetector(model, labels, InferenceBackend.DEFAULT_CPU);
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "YOLO engine not available: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private YoloDetector(ByteBuffer model, List<String> labelList, InferenceBackend backend) {
+        this.model     = model;
+        this.labelList = labelList;
+        this.backend   = backend;
+        this.labels    = new LabelTable(labelList.toArray(new String[0]));
+
+        Interpreter.Options options = new Interpreter.Options();
+        options.setNumThreads(backend.numThreads);
+        options.setUseXNNPACK(backend.useXnnpack);
+        options.setAllowFp16PrecisionForFp32(backend.allowFp16);
+        if (backend.delegate == InferenceBackend.Delegate.NNAPI) options.setUseNNAPI(true);
+        gpuDelegate = backend.delegate == InferenceBackend.Delegate.GPU ? new GpuDelegate() : null;
+        if (gpuDelegate != null) options.addDelegate(gpuDelegate);
+
+        try {
+            interpreter = new Interpreter(model, options);
+        } catch (RuntimeException e) {
+            if (gpuDelegate != null) gpuDelegate.close();
+            throw e;
+        }
+
+        // Input: [1, size, size, 3], float or 8-bit quantized
+        Tensor in = interpreter.getInputTensor(0);
+        inputSize  = in.shape()[1];
+        floatInput = in.dataType() == DataType.FLOAT32;
+        if (!floatInput) {
+            Tensor.QuantizationParams q = in.quantizationParams();
+            boolean signed = in.dataType() == DataType.INT8;
+            for (int v = 0; v < 256; v++) {
+                float scale = q.getScale() != 0f ? q.getScale() : 1f / 255f;
+                int   qv    = Math.round(v / 255f / scale) + q.getZeroPoint();
+                qv = Math.max(signed ? -128 : 0, Math.min(signed ? 127 : 255, qv));
+                quantLut[v] = (byte) qv;
+            }
+        }
+        input = ByteBuffer.allocateDirect(in.numBytes()).order(ByteOrder.nativeOrder());
+        inputBitmap = Bitmap.createBitmap(inputSize, inputSize, Bitmap.Config.ARGB_8888);
+        inputCanvas = new Canvas(inputBitmap);
+        pixels      = new int[inputSize * inputSize];
+
+        // Output: [1, 4 + classes, anchors] (v8) or [1, anchors, 5 + classes] (v5)
+        Tensor out   = interpreter.getOutputTensor(0);
+        int[]  shape = out.shape();
+        boolean channelsFirst = shape[1] < shape[2];
+        int anchors  = channelsFirst ? shape[2] : shape[1];
+        int channels = channelsFirst ? shape[1] : shape[2];
+        boolean objectness = channels - 5 == labelList.size();
+        postprocessor = new YoloPostprocessor(anchors, channels - (objectness ? 5 : 4),
+                channelsFirst, objectness, MAX_CANDIDATES, MAX_RESULTS);
+
+        floatOutput  = out.dataType() == DataType.FLOAT32;
+        outScale     = floatOutput ? 1f : out.quantizationParams().getScale();
+        outZeroPoint = floatOutput ? 0  : out.quantizationParams().getZeroPoint();
+        outSigned    = out.dataType() == DataType.INT8;
+        output       = ByteBuffer.allocateDirect(out.numBytes()).order(ByteOrder.nativeOrder());
+        outputFloats = output.asFloatBuffer();
+
+        Log.d(TAG, "Loaded " + MODEL_FILE + " on " + backend + ": input " + inputSize
+                + (floatInput ? " float" : " quantized") + ", " + anchors + " anchors, "
+                + (channelsFirst ? "v8" : "v5") + " layout");
+    }
+
+    /**
+     * A second engine on the same mapped model and backend, for a pipeline that runs
+     * at the same time. Returns null if its interpreter cannot be built.
+     */
+    public YoloDetector sibling() {
+        try {
+            return new YoloDetector(model, labelList, backend);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "No second YOLO engine: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Runs {@code runs} inferences on a blank frame so the first real one is not slow. */
+    public synchronized void warmUp(int runs) {
+        Bitmap frame = Bitmap.createBitmap(inputSize, inputSize, Bitmap.Config.ARGB_8888);
+        for (int i = 0; i < runs; i++) detect(frame, 0);
+        frame.recycle();
+    }
+
+    public InferenceBackend getBackend() {
+        return backend;
+    }
+
+    /** Side of the square model input, in pixels. */
+    public int inputSize() {
+        return inputSize;
+    }
+
+    public synchronized void setScoreThreshold(float threshold) {
+        postprocessor.setScoreThreshold(threshold);
+    }
+
+    /** Applies a mode's threshold, result cap and class allow-list from the next frame on. */
+    public synchronized void configure(DetectorConfig config) {
+        postprocessor.setScoreThreshold(config.scoreThreshold);
+        postprocessor.setMaxResults(config.maxResults);
+        postprocessor.setAllowedClasses(config.allowedClassIds(labels, postprocessor.numClasses()));
+    }
+
+    /**
+     * Runs the model on a frame that needs {@code rotationDegrees} of clockwise rotation to
+     * be upright. Returns the number of boxes; read them from {@link #results()}, which
+     * holds normalized coordinates in the upright frame until the next call, so a caller
+     * sharing the engine holds its lock while reading them. Returns 0
+     * once {@link #close()} has run.
+     */
+    public synchronized int detect(Bitmap frame, int rotationDegrees) {
+        if (closed) return 0;
+        fillInput(frame, rotationDegrees);
+        input.rewind();
+        output.rewind();
+        interpreter.run(input, output);
+        return floatOutput ? postprocessor.process(outputFloats)
+                           : postprocessor.process(output, outScale, outZeroPoint, outSigned);
+    }
+
+    public YoloPostprocessor results() {
+        return postprocessor;
+    }
+
+    /** Labels and known widths for this model's class ids. */
+    public LabelTable labels() {
+        return labels;
+    }
+
+    /** Frees the interpreter; waits for a running {@link #detect} and is safe to repeat. */
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        interpreter.close();
+        if (gpuDelegate != null) gpuDelegate.close();
+    }
+
+    private void fillInput(Bitmap frame, int rotationDegrees) {
+        // Rotate about the centre, then stretch the upright frame over the square input
+        boolean sideways = (rotationDegrees % 180) != 0;
+        float uprightW = sideways ? frame.getHeight() : frame.getWidth();
+        float uprightH = sideways ? frame.getWidth()  : frame.getHeight();
+        matrix.reset();
+        matrix.postTranslate(-frame.getWidth() / 2f, -frame.getHeight() / 2f);
+        matrix.postRotate(rotationDegrees);
+        matrix.postScale(inputSize / uprightW, inputSize / uprightH);
+        matrix.postTranslate(inputSize / 2f, inputSize / 2f);
+        inputCanvas.drawBitmap(frame, matrix, filterPaint);
+        inputBitmap.getPixels(pixels, 0, inputSize, 0, 0, inputSize, inputSize);
+
+        input.rewind();
+        if (floatInput) {
+            for (int p : pixels) {
+                input.putFloat(((p >> 16) & 0xff) / 255f);
+                input.putFloat(((p >> 8) & 0xff) / 255f);
+                input.putFloat((p & 0xff) / 255f);
+            }
+        } else {
+            for (int p : pixels) {
+                input.put(quantLut[(p >> 16) & 0xff]);
+                input.put(quantLut[(p >> 8) & 0xff]);
+                input.put(quantLut[p & 0xff]);
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,234 @@
+package com.example.smartguiderepo;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * Decodes raw YOLO output tensors and runs per-class non-max suppression using only
+ * preallocated primitive arrays. Handles both export layouts:
+ * <ul>
+ *   <li>YOLOv8: {@code [1, 4 + classes, anchors]}, no objectness, channels first;</li>
+ *   <li>YOLOv5: {@code [1, anchors, 5 + classes]}, objectness at index 4.</li>
+ * </ul>
+ * Box coordinates are expected as normalized centre x/y, width, height, which is
+ * what the Ultralytics TFLite export produces. The tensor is read in place from the
+ * interpreter's output buffer with absolute gets; a quantized one is dequantized only
+ * for the scores and boxes actually looked at. Pure Java so it can be tested and
+ * benchmarked off-device.
+ */
+public class YoloPostprocessor {
+
+    private final int     numAnchors;
+    private final int     numClasses;
+    private final boolean channelsFirst;
+    private final boolean hasObjectness;
+    private final int     maxCandidates;
+    private final int     capacity;
+
+    private float scoreThreshold = 0.4f;
+    private float iouThreshold   = 0.45f;
+    private int   maxResults;
+    private int[] allowedClasses;        // null scores every class
+
+    // ── Output tensor being decoded: floats, or quantized bytes ───────────
+    private FloatBuffer floats;
+    private ByteBuffer  quantized;
+    private float       outScale;
+    private int         outZeroPoint;
+    private boolean     outSigned;
+
+    // ── Candidate scratch (reused every frame) ────────────────────────────
+    private final float[]   candBoxes;   // l, t, r, b per candidate
+    private final float[]   candScores;
+    private final int[]     candClasses;
+    private final int[]     order;
+    private final boolean[] suppressed;
+    private int candCount;
+
+    // ── Results (valid until the next process() call) ─────────────────────
+    public final int[]   classIds;
+    public final float[] scores;
+    public final float[] boxes;          // l, t, r, b per result, normalized
+    public int count;
+
+    public YoloPostprocessor(int numAnchors, int numClasses, boolean channelsFirst,
+                             boolean hasObjectness, int maxCandidates, int maxResults) {
+        this.numAnchors    = numAnchors;
+        this.numClasses    = numClasses;
+        this.channelsFirst = channelsFirst;
+        this.hasObjectness = hasObjectness;
+        this.maxCandidates = maxCandidates;
+        this.capacity      = maxResults;
+        this.maxResults    = maxResults;
+
+        candBoxes   = new float[maxCandidates * 4];
+        candScores  = new float[maxCandidates];
+        candClasses = new int[maxCandidates];
+        order       = new int[maxCandidates];
+        suppressed  = new boolean[maxCandidates];
+
+        classIds = new int[maxResults];
+        scores   = new float[maxResults];
+        boxes    = new float[maxResults * 4];
+    }
+
+    public void setScoreThreshold(float threshold) { this.scoreThreshold = threshold; }
+    public void setIouThreshold(float threshold)   { this.iouThreshold = threshold; }
+
+    /** Caps the results per frame; cannot exceed the capacity given at construction. */
+    public void setMaxResults(int max) {
+        this.maxResults = Math.max(1, Math.min(capacity, max));
+    }
+
+    /**
+     * Restricts decoding to the given class ids, or every class with null. Anchors are
+     * then scored only over those classes, and nothing else reaches NMS.
+     */
+    public void setAllowedClasses(int[] classIds) {
+        this.allowedClasses = classIds;
+    }
+
+    public int numClasses() {
+        return numClasses;
+    }
+
+    /** Number of values expected in the flattened output tensor. */
+    public int outputSize() {
+        return numAnchors * (numClasses + (hasObjectness ? 5 : 4));
+    }
+
+    /** Decodes a float output tensor, flattened, and returns the number of kept boxes. */
+    public int process(FloatBuffer output) {
+        floats    = output;
+        quantized = null;
+        decode();
+        nms();
+        return count;
+    }
+
+    /**
+     * Decodes a quantized (uint8, or int8 when {@code signed}) output tensor, flattened,
+     * and returns the number of kept boxes.
+     */
+    public int process(ByteBuffer output, float scale, int zeroPoint, boolean signed) {
+        floats       = null;
+        quantized    = output;
+        outScale     = scale;
+        outZeroPoint = zeroPoint;
+        outSigned    = signed;
+        decode();
+        nms();
+        return count;
+    }
+
+    private void decode() {
+        candCount = 0;
+        final int stride = numClasses + (hasObjectness ? 5 : 4);
+        final int first  = hasObjectness ? 5 : 4;
+        final int[] allowed = allowedClasses;
+        final int   scanned = allowed != null ? allowed.length : numClasses;
+
+        for (int a = 0; a < numAnchors; a++) {
+            float objectness = 1f;
+            if (hasObjectness) {
+                objectness = at(a, 4, stride);
+                if (objectness < scoreThreshold) continue;
+            }
+
+            int   bestClass = -1;
+            float best      = scoreThreshold;
+            for (int k = 0; k < scanned; k++) {
+                int   c = allowed != null ? allowed[k] : k;
+                float s = at(a, first + c, stride) * objectness;
+                if (s > best) { best = s; bestClass = c; }
+            }
+            if (bestClass < 0) continue;
+
+            float cx = at(a, 0, stride), cy = at(a, 1, stride);
+            float hw = at(a, 2, stride) * 0.5f, hh = at(a, 3, stride) * 0.5f;
+            addCandidate(bestClass, best, cx - hw, cy - hh, cx + hw, cy + hh);
+        }
+    }
+
+    private float at(int anchor, int channel, int stride) {
+        int i = channelsFirst ? channel * numAnchors + anchor : anchor * stride + channel;
+        if (floats != null) return floats.get(i);
+        int q = outSigned ? quantized.get(i) : quantized.get(i) & 0xff;
+        return (q - outZeroPoint) * outScale;
+    }
+
+    private void addCandidate(int cls, float score, float l, float t, float r, float b) {
+        int slot;
+        if (candCount < maxCandidates) {
+            slot = candCount++;
+        } else {
+            // Full: replace the weakest candidate if this one beats it
+            slot = 0;
+            for (int i = 1; i < maxCandidates; i++)
+                if (candScores[i] < candScores[slot]) slot = i;
+            if (candScores[slot] >= score) return;
+        }
+        candClasses[slot] = cls;
+        candScores[slot]  = score;
+        int o = slot * 4;
+        candBoxes[o]     = clamp(l);
+        candBoxes[o + 1] = clamp(t);
+        candBoxes[o + 2] = clamp(r);
+        candBoxes[o + 3] = clamp(b);
+    }
+
+    private void nms() {
+        count = 0;
+        for (int i = 0; i < candCount; i++) { order[i] = i; suppressed[i] = false; }
+        sortByScoreDescending();
+
+        for (int i = 0; i < candCount && count < maxResults; i++) {
+            int a = order[i];
+            if (suppressed[a]) continue;
+
+            classIds[count] = candClasses[a];
+            scores[count]   = candScores[a];
+            System.arraycopy(candBoxes, a * 4, boxes, count * 4, 4);
+            count++;
+
+            for (int j = i + 1; j < candCount; j++) {
+                int b = order[j];
+                if (!suppressed[b] && candClasses[b] == candClasses[a] && iou(a, b) > iouThreshold)
+                    suppressed[b] = true;
+            }
+        }
+    }
+
+    // Shell sort of the index array: no recursion, no allocation, fast enough for a few hundred boxes
+    private void sortByScoreDescending() {
+        for (int gap = candCount >> 1; gap > 0; gap >>= 1) {
+            for (int i = gap; i < candCount; i++) {
+                int   idx = order[i];
+                float s   = candScores[idx];
+                int   j   = i;
+                while (j >= gap && candScores[order[j - gap]] < s) {
+                    order[j] = order[j - gap];
+                    j -= gap;
+                }
+                order[j] = idx;
+            }
+        }
+    }
+
+    private float iou(int a, int b) {
+        int oa = a * 4, ob = b * 4;
+        float l = Math.max(candBoxes[oa],     candBoxes[ob]);
+        float t = Math.max(candBoxes[oa + 1], candBoxes[ob + 1]);
+        float r = Math.min(candBoxes[oa + 2], candBoxes[ob + 2]);
+        float d = Math.min(candBoxes[oa + 3], candBoxes[ob + 3]);
+        if (r <= l || d <= t) return 0f;
+        float inter = (r - l) * (d - t);
+        float areaA = (candBoxes[oa + 2] - candBoxes[oa]) * (candBoxes[oa + 3] - candBoxes[oa + 1]);
+        float areaB = (candBoxes[ob + 2] - candBoxes[ob]) * (candBoxes[ob + 3] - candBoxes[ob + 1]);
+        return inter / (areaA + areaB - inter);
+    }
+
+    private static float clamp(float v) {
+        return v < 0f ? 0f : (v > 1f ? 1f : v);
+    }
+}
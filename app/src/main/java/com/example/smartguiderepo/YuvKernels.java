@@ -0,0 +1,72 @@
+package com.example.smartguiderepo;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Pure-Java pixel kernels for the camera paths. Nothing in here touches android.*
+ * so the same code can be exercised and benchmarked on a desktop JVM.
+ */
+public final class YuvKernels {
+
+    private YuvKernels() {}
+
+    /**
+     * Converts an NV21 frame (Y plane followed by interleaved V/U) into packed
+     * ARGB_8888 pixels using fixed-point BT.601 video-range coefficients.
+     * {@code argb} must hold at least {@code width * height} entries.
+     */
+    public static void nv21ToArgb(byte[] nv21, int width, int height, int[] argb) {
+        final int frameSize = width * height;
+        for (int j = 0; j < height; j++) {
+            int yp  = j * width;
+            int uvp = frameSize + (j >> 1) * width;
+            int u = 0, v = 0;
+            for (int i = 0; i < width; i++, yp++) {
+                if ((i & 1) == 0) {
+                    v = (nv21[uvp++] & 0xff) - 128;
+                    u = (nv21[uvp++] & 0xff) - 128;
+                }
+                argb[yp] = pixel(nv21[yp] & 0xff, u, v);
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #nv21ToArgb(byte[], int, int, int[])} for a frame that is not in an
+     * array, such as a leased UVC frame in native memory, so it is read in place instead
+     * of being copied out first. Uses absolute gets from index 0; the position is untouched.
+     */
+    public static void nv21ToArgb(ByteBuffer nv21, int width, int height, int[] argb) {
+        final int frameSize = width * height;
+        for (int j = 0; j < height; j++) {
+            int yp  = j * width;
+            int uvp = frameSize + (j >> 1) * width;
+            int u = 0, v = 0;
+            for (int i = 0; i < width; i++, yp++) {
+                if ((i & 1) == 0) {
+                    v = (nv21.get(uvp++) & 0xff) - 128;
+                    u = (nv21.get(uvp++) & 0xff) - 128;
+                }
+                argb[yp] = pixel(nv21.get(yp) & 0xff, u, v);
+            }
+        }
+    }
+
+    private static int pixel(int luma, int u, int v) {
+        int y = luma - 16;
+        if (y < 0) y = 0;
+        int y1192 = 1192 * y;
+        int r = y1192 + 1634 * v;
+        int g = y1192 - 833 * v - 400 * u;
+        int b = y1192 + 2066 * u;
+
+        if (r < 0) r = 0; else if (r > 262143) r = 262143;
+        if (g < 0) g = 0; else if (g > 262143) g = 262143;
+        if (b < 0) b = 0; else if (b > 262143) b = 262143;
+
+        return 0xff000000
+                | ((r << 6) & 0xff0000)
+                | ((g >> 2) & 0xff00)
+                | ((b >> 10) & 0xff);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.smartguiderepo;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the backend selection logic against fake sessions and a fake clock.
+ */
+public class BackendBenchmarkTest {
+
+    private long now = 0;
+
+    private BackendBenchmark.Probe probe(Map<InferenceBackend, Long> costs) {
+        return backend -> {
+            Long cost = costs.get(backend);
+            if (cost == null) throw new IllegalStateException("delegate unavailable");
+            return new BackendBenchmark.Session() {
+                @Override public void runOnce() {
+                    if (cost < 0) throw new IllegalArgumentException("op not supported");
+                    now += cost;
+                }
+                @Override public void close() {}
+            };
+        };
+    }
+
+    @Test
+    public void picksLowestMedianAndSkipsFailures() {
+        Map<InferenceBackend, Long> costs = new HashMap<>();
+        costs.put(InferenceBackend.CPU_1, 40L);
+        costs.put(InferenceBackend.CPU_4, 15L);
+        costs.put(InferenceBackend.NNAPI, -1L);   // opens, then throws while running
+        // GPU missing entirely: open() throws
+
+        List<InferenceBackend> candidates = Arrays.asList(
+                InferenceBackend.CPU_1, InferenceBackend.CPU_4,
+                InferenceBackend.NNAPI, InferenceBackend.GPU);
+        BackendBenchmark.Result r = new BackendBenchmark(() -> now, 1, 3)
+                .run(candidates, probe(costs));
+
+        assertSame(InferenceBackend.CPU_4, r.winner);
+        assertEquals(40L, r.medianNanos[0]);
+        assertEquals(15L, r.medianNanos[1]);
+        assertEquals(-1L, r.medianNanos[2]);
+        assertEquals(-1L, r.medianNanos[3]);
+    }
+
+    @Test
+    public void fallsBackToCpuWhenEverythingFails() {
+        BackendBenchmark.Result r = new BackendBenchmark(() -> now, 0, 2)
+                .run(Arrays.asList(InferenceBackend.GPU, InferenceBackend.NNAPI),
+                     probe(new HashMap<>()));
+        assertSame(InferenceBackend.DEFAULT_CPU, r.winner);
+    }
+
+    @Test
+    public void backendIdsRoundTrip() {
+        for (InferenceBackend b : InferenceBackend.ALL)
+            assertSame(b, InferenceBackend.fromId(b.id));
+        assertNull(InferenceBackend.fromId("tpu"));
+        assertFalse(InferenceBackend.taskLibraryCandidates().contains(InferenceBackend.CPU_4_FP16));
+        assertTrue(InferenceBackend.interpreterCandidates().contains(InferenceBackend.CPU_4_FP16));
+        assertTrue(InferenceBackend.interpreterCandidates().contains(InferenceBackend.CPU_4_NO_XNNPACK));
+    }
+}
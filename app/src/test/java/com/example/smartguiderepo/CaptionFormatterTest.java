@@ -0,0 +1,58 @@
+package com.example.smartguiderepo;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * The char[] caption builder against the String.format pattern it replaces.
+ */
+public class CaptionFormatterTest {
+
+    private final LabelTable       labels    = new LabelTable(new String[]{"person", "cell phone"});
+    private final CaptionFormatter formatter = new CaptionFormatter();
+    private final char[]           out       = new char[2 * CaptionFormatter.MAX_LENGTH];
+
+    private String caption(int classId, float score, float distance) {
+        int n = formatter.format(labels, classId, score, distance, out, CaptionFormatter.MAX_LENGTH);
+        return new String(out, CaptionFormatter.MAX_LENGTH, n);
+    }
+
+    @Test
+    public void matchesStringFormat() {
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            float score    = random.nextFloat();
+            float distance = random.nextFloat() * 50f;
+            // Exact .5 ties may round differently in float and BigDecimal; skip them
+            if (nearTie(score * 100f) || nearTie(distance * 10f)) continue;
+            int id = i % 2;
+            assertEquals(String.format(Locale.US, "%s %.0f%% (%.1fm)", labels.label(id), score * 100, distance),
+                    caption(id, score, distance));
+        }
+    }
+
+    @Test
+    public void edgeValues() {
+        assertEquals("person 100% (0.0m)", caption(0, 1f, 0f));
+        assertEquals("person 0% (999.9m)", caption(0, 0f, 999.9f));
+        assertEquals("person 50% (--m)", caption(0, 0.5f, Float.POSITIVE_INFINITY));
+        assertEquals("object 50% (1.0m)", caption(9, 0.5f, 1f));
+    }
+
+    @Test
+    public void cutsLongLabels() {
+        LabelTable longLabels = new LabelTable(new String[]{"an exceptionally long label for a class name"});
+        int n = formatter.format(longLabels, 0, 0.9f, 2f, out, 0);
+        assertEquals(CaptionFormatter.MAX_LENGTH - 14 + " 90% (2.0m)".length(), n);
+        assertTrue(new String(out, 0, n).endsWith(" 90% (2.0m)"));
+    }
+
+    private static boolean nearTie(float v) {
+        float frac = v - (float) Math.floor(v);
+        return Math.abs(frac - 0.5f) < 1e-3f;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.smartguiderepo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Alias matching, word boundaries and precedence of the voice command grammar.
+ */
+public class CommandMatcherTest {
+
+    private final CommandMatcher matcher = CommandMatcher.DEFAULT;
+    private final CommandMatcher.Match match = new CommandMatcher.Match();
+
+    @Test
+    public void matchesEveryLanguageOfAnAlias() {
+        assertEquals(CommandMatcher.STOP, command("please stop"));
+        assertEquals(CommandMatcher.STOP, command("Ruko"));
+        assertEquals(CommandMatcher.STOP, command("رکو"));
+        assertEquals(CommandMatcher.START, command("shuru karo"));
+        assertEquals(CommandMatcher.HELP, command("مدد"));
+        assertEquals(CommandMatcher.LANGUAGE, command("change language"));
+        assertEquals(CommandMatcher.FIND, command("talaash"));
+    }
+
+    @Test
+    public void ignoresAliasesInsideOtherWords() {
+        assertEquals(CommandMatcher.NONE, command("stopwatch"));
+        assertEquals(CommandMatcher.NONE, command("breakfast"));
+        assertEquals(CommandMatcher.NONE, command("restart"));
+        assertEquals(CommandMatcher.NONE, command(""));
+        assertEquals(CommandMatcher.START, command("start,"));
+    }
+
+    @Test
+    public void earliestCommandWinsButStopAlwaysWins() {
+        assertEquals(CommandMatcher.FIND, command("find the camera"));
+        assertEquals(CommandMatcher.START, command("start and find"));
+        assertEquals(CommandMatcher.STOP, command("find the stop sign"));
+    }
+
+    @Test
+    public void findTakesTheFollowingWordsAsObject() {
+        String text = "please find my water bottle";
+        assertTrue(matcher.match(text, match));
+        assertEquals(CommandMatcher.FIND, match.command);
+        assertEquals("my water bottle", CommandMatcher.argument(text, match));
+    }
+
+    @Test
+    public void findTakesThePrecedingWordsInUrduOrder() {
+        String text = "kursi dhundo";
+        assertTrue(matcher.match(text, match));
+        assertEquals("kursi", CommandMatcher.argument(text, match));
+    }
+
+    @Test
+    public void overlappingAliasesFromSeparateCommandsAreFound() {
+        CommandMatcher m = new CommandMatcher(new String[][]{{"she"}, {"he"}, {"hers"}});
+        assertTrue(m.match("hers", match));
+        assertEquals(2, match.command);
+        assertTrue(m.match("ushe he", match));
+        assertEquals(1, match.command);      // "she" inside "ushe" is not a word
+    }
+
+    private int command(String text) {
+        matcher.match(text, match);
+        return match.command;
+    }
+}
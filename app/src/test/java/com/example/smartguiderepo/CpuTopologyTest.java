@@ -0,0 +1,86 @@
+package com.example.smartguiderepo;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Cluster selection on typical big.LITTLE layouts and sysfs parsing on a fake tree.
+ */
+public class CpuTopologyTest {
+
+    @Test
+    public void twoClustersPickTheBigOne() {
+        int[] capacity = {512, 512, 512, 512, 1024, 1024, 1024, 1024};
+        assertEquals(0xF0L, CpuTopology.performanceMask(capacity, 2));
+    }
+
+    @Test
+    public void lonePrimeCoreIsJoinedByTheMidCluster() {
+        // 4 little, 3 mid, 1 prime
+        int[] capacity = {160, 160, 160, 160, 600, 600, 600, 1024};
+        assertEquals(0xF0L, CpuTopology.performanceMask(capacity, 2));
+        assertEquals(0x80L, CpuTopology.performanceMask(capacity, 1));
+    }
+
+    @Test
+    public void slowestClusterIsNeverIncluded() {
+        int[] capacity = {300, 300, 300, 300, 300, 300, 1024};
+        assertEquals(0x40L, CpuTopology.performanceMask(capacity, 4));
+    }
+
+    @Test
+    public void homogeneousOrUnknownMeansNoPreference() {
+        assertEquals(0L, CpuTopology.performanceMask(new int[]{1024, 1024, 1024, 1024}, 2));
+        assertEquals(0L, CpuTopology.performanceMask(null, 2));
+    }
+
+    @Test
+    public void describeMergesRanges() {
+        assertEquals("4-7", CpuTopology.describe(0xF0L));
+        assertEquals("0,6-7", CpuTopology.describe(0xC1L));
+        assertEquals("-", CpuTopology.describe(0L));
+        assertEquals(0xFFL, CpuTopology.allMask(new int[8]));
+    }
+
+    @Test
+    public void readsCapacityFromSysfs() throws IOException {
+        File root = Files.createTempDirectory("cpu").toFile();
+        for (int cpu = 0; cpu < 4; cpu++) write(root, "cpu" + cpu + "/cpu_capacity", cpu < 2 ? "381\n" : "1024\n");
+        new File(root, "cpufreq").mkdirs();
+        write(root, "online", "0-3\n");
+
+        assertArrayEquals(new int[]{381, 381, 1024, 1024}, CpuTopology.readCapacities(root));
+    }
+
+    @Test
+    public void fallsBackToMaxFrequency() throws IOException {
+        File root = Files.createTempDirectory("cpu").toFile();
+        write(root, "cpu0/cpu_capacity", "512\n");   // incomplete: ignored entirely
+        write(root, "cpu0/cpufreq/cpuinfo_max_freq", "1800000\n");
+        write(root, "cpu1/cpufreq/cpuinfo_max_freq", "2400000\n");
+
+        assertArrayEquals(new int[]{1800000, 2400000}, CpuTopology.readCapacities(root));
+    }
+
+    @Test
+    public void missingTreeReadsAsUnknown() throws IOException {
+        File root = Files.createTempDirectory("cpu").toFile();
+        assertNull(CpuTopology.readCapacities(root));
+        new File(root, "cpu0").mkdirs();
+        assertNull(CpuTopology.readCapacities(root));
+    }
+
+    private static void write(File root, String path, String text) throws IOException {
+        File file = new File(root, path);
+        file.getParentFile().mkdirs();
+        try (FileWriter out = new FileWriter(file)) {
+            out.write(text);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.smartguiderepo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Hand-off semantics between the detection thread and the UI.
+ */
+public class DetectionExchangeTest {
+
+    @Test
+    public void consumerSeesLatestPublishedBatch() {
+        DetectionExchange exchange = new DetectionExchange(4);
+        LabelTable labels = new LabelTable(new String[]{"Person", "Bottle"});
+
+        DetectionBatch b = exchange.back();
+        b.clear();
+        b.labels = labels;
+        b.add(1, 0.9f, 0.1f, 0.1f, 0.2f, 0.3f, 2.0f);
+        exchange.publish();
+
+        b = exchange.back();
+        b.clear();
+        b.labels = labels;
+        b.add(0, 0.8f, 0.3f, 0.1f, 0.6f, 0.9f, 1.2f);
+        b.add(1, 0.7f, 0.1f, 0.1f, 0.2f, 0.3f, 3.0f);
+        exchange.publish();
+
+        DetectionBatch front = exchange.acquire();
+        assertEquals(2, front.count);
+        assertEquals("person", front.label(0));
+        assertEquals(0, front.closestIndex());
+        assertNotSame(front, exchange.back());
+
+        // Nothing new: the consumer keeps its batch
+        assertSame(front, exchange.acquire());
+    }
+
+    @Test
+    public void knownWidthsResolvedOncePerClass() {
+        LabelTable labels = new LabelTable();
+        labels.register(300, "Cell Phone");
+        labels.register(300, "ignored");
+        assertEquals("cell phone", labels.label(300));
+        assertEquals(15f, labels.knownWidthCm(300), 0f);
+        assertEquals(LabelTable.DEFAULT_WIDTH_CM, labels.knownWidthCm(7), 0f);
+        assertEquals("object", labels.label(-1));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.smartguiderepo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Per-source ids, cross-camera deduplication and staleness of the detection merger.
+ */
+public class DetectionMergerTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final LabelTable labels = new LabelTable(new String[]{"person", "chair"});
+
+    private DetectionBatch batch(float[]... entries) {
+        DetectionBatch b = new DetectionBatch(8);
+        b.labels = labels;
+        for (float[] e : entries) {
+            // classId, left, right, distance, trackId
+            b.add((int) e[0], 0.9f, e[1], 0.2f, e[2], 0.8f, e[3]);
+            b.trackIds[b.count - 1] = (int) e[4];
+        }
+        return b;
+    }
+
+    @Test
+    public void idsAreUniqueAcrossSources() {
+        DetectionMerger merger = new DetectionMerger(2, 16);
+        DetectionBatch out = new DetectionBatch(16);
+        merger.merge(0, batch(new float[]{0, 0.1f, 0.3f, 2f, 5}), 0, out);
+        merger.merge(1, batch(new float[]{1, 0.6f, 0.8f, 3f, 5}), 10 * MS, out);
+
+        assertEquals(2, out.count);
+        assertEquals(5 * DetectionMerger.MAX_SOURCES,     out.trackIds[0]);
+        assertEquals(5 * DetectionMerger.MAX_SOURCES + 1, out.trackIds[1]);
+        assertEquals("chair", out.label(1));
+    }
+
+    @Test
+    public void sameObjectOnBothCamerasIsReportedOnceAtTheNearerDistance() {
+        DetectionMerger merger = new DetectionMerger(2, 16);
+        DetectionBatch out = new DetectionBatch(16);
+        merger.merge(0, batch(new float[]{0, 0.40f, 0.60f, 2.0f, 3}), 0, out);
+        merger.merge(1, batch(new float[]{0, 0.45f, 0.70f, 1.8f, 9}), 10 * MS, out);
+
+        assertEquals(1, out.count);
+        assertEquals(3 * DetectionMerger.MAX_SOURCES, out.trackIds[0]);   // the first camera's id
+        assertEquals(1.8f, out.distances[0], 0f);
+        assertEquals(1, merger.duplicates());
+    }
+
+    @Test
+    public void differentPlacesOrDistancesStaySeparate() {
+        DetectionMerger merger = new DetectionMerger(2, 16);
+        DetectionBatch out = new DetectionBatch(16);
+        merger.merge(0, batch(new float[]{0, 0.0f, 0.2f, 2f, 1}, new float[]{0, 0.4f, 0.6f, 2f, 2}), 0, out);
+        merger.merge(1, batch(new float[]{0, 0.7f, 0.9f, 2f, 1},     // other side of the view
+                              new float[]{0, 0.4f, 0.6f, 5f, 2}), 0, out);   // much further away
+        assertEquals(4, out.count);
+    }
+
+    @Test
+    public void staleSourceDropsOut() {
+        DetectionMerger merger = new DetectionMerger(2, 16);
+        DetectionBatch out = new DetectionBatch(16);
+        merger.merge(0, batch(new float[]{0, 0.1f, 0.3f, 2f, 1}), 0, out);
+        merger.merge(1, batch(new float[]{1, 0.6f, 0.8f, 2f, 1}), DetectionMerger.STALE_NANOS + MS, out);
+        assertEquals(1, out.count);
+        assertEquals(1, out.classIds[0]);
+
+        merger.forget(1);
+        merger.merge(0, batch(), DetectionMerger.STALE_NANOS + 2 * MS, out);
+        assertEquals(0, out.count);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.smartguiderepo;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Per-mode settings and the Finder label allow-list.
+ */
+public class DetectorConfigTest {
+
+    private static final List<String> LABELS = Arrays.asList("person", "bottle", "wine glass", "chair");
+
+    @Test
+    public void generalModeHasNoAllowList() {
+        DetectorConfig config = DetectorConfig.forMode("General", "bottle");
+        assertSame(DetectorConfig.GENERAL, config);
+        assertNull(config.allowList(LABELS));
+    }
+
+    @Test
+    public void finderRestrictsToMatchingLabels() {
+        DetectorConfig config = DetectorConfig.forMode("finder", " Glass ");
+        assertEquals(DetectorConfig.FINDER_MAX_RESULTS, config.maxResults);
+        assertEquals(Arrays.asList("wine glass"), config.allowList(LABELS));
+
+        LabelTable table = new LabelTable(LABELS.toArray(new String[0]));
+        assertArrayEquals(new int[]{2}, config.allowedClassIds(table, LABELS.size()));
+    }
+
+    @Test
+    public void unknownTargetFallsBackToNoRestriction() {
+        DetectorConfig config = DetectorConfig.forMode("Finder", "object");
+        assertNull(config.allowList(LABELS));
+        assertNull(config.allowedClassIds(new LabelTable(LABELS.toArray(new String[0])), LABELS.size()));
+    }
+
+    @Test
+    public void equalConfigsCompareEqual() {
+        assertEquals(DetectorConfig.forMode("Finder", "bottle"), DetectorConfig.forMode("Finder", "BOTTLE"));
+        assertNotEquals(DetectorConfig.forMode("Finder", "bottle"), DetectorConfig.forMode("Finder", "chair"));
+    }
+}
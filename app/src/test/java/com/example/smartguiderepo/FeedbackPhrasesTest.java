@@ -0,0 +1,33 @@
+package com.example.smartguiderepo;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Fixed warning phrases map onto the pre-synthesized clip set.
+ */
+public class FeedbackPhrasesTest {
+
+    @Test
+    public void criticalAndWarningPhrasesHaveClips() {
+        Set<String> keys = new HashSet<>();
+        for (FeedbackPhrases.Phrase p : FeedbackPhrases.presynthesized()) assertTrue(keys.add(p.key));
+
+        assertTrue(keys.contains(FeedbackPhrases.clipKey(FeedbackPolicy.ZONE_CRITICAL, "person", 0.4f, true)));
+        assertTrue(keys.contains(FeedbackPhrases.clipKey(FeedbackPolicy.ZONE_WARNING, "cell phone", 1.1f, false)));
+        assertTrue(keys.contains(FeedbackPhrases.clipKey(FeedbackPolicy.ZONE_WARNING, "door", 2.4f, true)));
+        assertEquals("Caution, door at 2.5 meters.",
+                FeedbackPhrases.text(FeedbackPolicy.ZONE_WARNING, "door", 2.4f, true));
+    }
+
+    @Test
+    public void farAndUnknownObjectsAreSpokenLive() {
+        assertNull(FeedbackPhrases.clipKey(FeedbackPolicy.ZONE_FAR, "person", 4f, true));
+        assertNull(FeedbackPhrases.clipKey(FeedbackPolicy.ZONE_CRITICAL, "umbrella", 0.5f, true));
+        assertEquals("person at 4.0 meters.", FeedbackPhrases.text(FeedbackPolicy.ZONE_FAR, "person", 4f, true));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.smartguiderepo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Preemption, queueing and staleness of spoken feedback.
+ */
+public class FeedbackSchedulerTest {
+
+    private final List<String> log = new ArrayList<>();
+    private long duration = 1000;
+
+    private final FeedbackScheduler<String> scheduler = new FeedbackScheduler<>(new FeedbackScheduler.Output<String>() {
+        @Override public long start(String item) { log.add("start " + item); return duration; }
+        @Override public long watchdog(String item) { return 100L * item.length(); }
+        @Override public void stop()             { log.add("stop"); }
+        @Override public void idle()             { log.add("idle"); }
+    });
+
+    @Test
+    public void criticalPreemptsInformational() {
+        scheduler.submit(FeedbackScheduler.INFO, "chair at 4 meters", 0);
+        scheduler.submit(FeedbackScheduler.CRITICAL, "stop", 100);
+        assertEquals(List.of("start chair at 4 meters", "stop", "start stop"), log);
+    }
+
+    @Test
+    public void lowerPriorityWaitsAndOnlyLatestIsKept() {
+        scheduler.submit(FeedbackScheduler.CRITICAL, "stop", 0);
+        scheduler.submit(FeedbackScheduler.INFO, "first", 100);
+        scheduler.submit(FeedbackScheduler.INFO, "second", 200);
+        scheduler.submit(FeedbackScheduler.WARNING, "caution", 300);
+        assertEquals(1000, scheduler.poll(500));
+
+        assertEquals(2000, scheduler.poll(1000));   // warning outranks the waiting info
+        assertEquals(3000, scheduler.poll(2000));
+        assertEquals(Long.MAX_VALUE, scheduler.poll(3000));
+        assertEquals(List.of("start stop", "start caution", "start second", "idle"), log);
+    }
+
+    @Test
+    public void staleMessagesAreDropped() {
+        duration = 5000;
+        scheduler.submit(FeedbackScheduler.CRITICAL, "stop", 0);
+        scheduler.submit(FeedbackScheduler.WARNING, "caution", 100);
+        scheduler.poll(5000);
+        assertEquals(List.of("start stop", "idle"), log);
+        assertFalse(scheduler.isPlaying());
+    }
+
+    @Test
+    public void openEndedPlaybackEndsWhenReported() {
+        duration = -1;
+        scheduler.submit(FeedbackScheduler.INFO, "detection started", 0);
+        assertEquals(1700, scheduler.poll(10));   // watchdog grows with the text
+        scheduler.submit(FeedbackScheduler.INFO, "searching", 20);
+        scheduler.finished(900);
+        assertEquals(List.of("start detection started", "start searching"), log);
+        scheduler.clear();
+        assertEquals("idle", log.get(log.size() - 1));
+    }
+
+    @Test
+    public void lostEndIsStoppedByWatchdog() {
+        duration = -1;
+        scheduler.submit(FeedbackScheduler.INFO, "a long onboarding text", 0);
+        scheduler.poll(2199);
+        assertTrue(scheduler.isPlaying());
+        scheduler.poll(2200);
+        assertEquals(List.of("start a long onboarding text", "stop", "idle"), log);
+    }
+}
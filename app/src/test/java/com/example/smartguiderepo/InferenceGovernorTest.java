@@ -0,0 +1,87 @@
+package com.example.smartguiderepo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Inference-rate policy driven with synthetic signals and a fake clock.
+ */
+public class InferenceGovernorTest {
+
+    private static final long MS = 1_000_000L;
+
+    private static class FakeSignals implements InferenceGovernor.Signals {
+        long  inferenceNanos;
+        float motion;
+        int   thermal;
+        long  lastCritical = Long.MIN_VALUE;
+
+        @Override public long  inferenceNanos()    { return inferenceNanos; }
+        @Override public float motionScore()       { return motion; }
+        @Override public int   thermalStatus()     { return thermal; }
+        @Override public long  lastCriticalNanos() { return lastCritical; }
+    }
+
+    private final FakeSignals signals = new FakeSignals();
+    private long now = 10_000 * MS;
+    private final InferenceGovernor governor = new InferenceGovernor(signals, () -> now);
+
+    @Test
+    public void staticSceneSamplesSlowly() {
+        signals.motion = 0f;
+        assertEquals(InferenceGovernor.STATIC_INTERVAL_MS * MS, governor.targetIntervalNanos());
+    }
+
+    @Test
+    public void motionSpeedsSamplingUp() {
+        signals.motion = 1f;
+        assertEquals(InferenceGovernor.MOVING_INTERVAL_MS * MS, governor.targetIntervalNanos());
+
+        signals.motion = 0.5f;
+        long half = governor.targetIntervalNanos();
+        assertTrue(half > InferenceGovernor.MOVING_INTERVAL_MS * MS);
+        assertTrue(half < InferenceGovernor.STATIC_INTERVAL_MS * MS);
+    }
+
+    @Test
+    public void thermalThrottlingSlowsDownButStaysCapped() {
+        signals.motion = 1f;
+        signals.thermal = InferenceGovernor.THERMAL_SEVERE;
+        assertEquals(2 * InferenceGovernor.MOVING_INTERVAL_MS * MS, governor.targetIntervalNanos());
+
+        signals.motion = 0f;
+        signals.thermal = InferenceGovernor.THERMAL_CRITICAL;
+        assertEquals(InferenceGovernor.MAX_INTERVAL_MS * MS, governor.targetIntervalNanos());
+    }
+
+    @Test
+    public void recentHazardForcesFastestRateEvenWhenHot() {
+        signals.motion = 0f;
+        signals.thermal = InferenceGovernor.THERMAL_CRITICAL;
+        signals.lastCritical = now - 1000 * MS;
+        assertEquals(InferenceGovernor.HAZARD_INTERVAL_MS * MS, governor.targetIntervalNanos());
+
+        now += InferenceGovernor.HAZARD_HOLD_MS * MS;
+        assertEquals(InferenceGovernor.MAX_INTERVAL_MS * MS, governor.targetIntervalNanos());
+    }
+
+    @Test
+    public void intervalNeverShorterThanInference() {
+        signals.motion = 1f;
+        signals.inferenceNanos = 180 * MS;
+        assertEquals(180 * MS, governor.targetIntervalNanos());
+    }
+
+    @Test
+    public void shouldRunAdmitsOneFramePerInterval() {
+        signals.motion = 1f;   // 100 ms
+        int admitted = 0;
+        for (int frame = 0; frame < 30; frame++) {   // 1 s of 30 fps frames
+            if (governor.shouldRun()) admitted++;
+            now += 33 * MS;
+        }
+        assertEquals(8, admitted);
+        assertEquals(100 * MS, governor.currentIntervalNanos());
+    }
+}
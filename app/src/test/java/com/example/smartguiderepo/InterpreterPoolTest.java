@@ -0,0 +1,59 @@
+package com.example.smartguiderepo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Leasing, reuse and the size limit of the interpreter pool.
+ */
+public class InterpreterPoolTest {
+
+    private int built;
+
+    private InterpreterPool<String> pool(int max) {
+        return new InterpreterPool<>(() -> "detector" + built++, max);
+    }
+
+    @Test
+    public void buildsOnDemandUpToTheLimit() {
+        InterpreterPool<String> pool = pool(2);
+        assertEquals("detector0", pool.acquire());
+        assertEquals("detector1", pool.acquire());
+        assertNull(pool.acquire());
+        assertEquals(2, pool.created());
+    }
+
+    @Test
+    public void releasedInstanceIsReusedWithoutRebuilding() {
+        InterpreterPool<String> pool = pool(1);
+        String first = pool.acquire();
+        pool.release(first);
+        assertSame(first, pool.acquire());
+        assertEquals(1, built);
+    }
+
+    @Test
+    public void failedBuildDoesNotCountTowardsTheLimit() {
+        InterpreterPool<String> pool = new InterpreterPool<>(() -> null, 1);
+        assertNull(pool.acquire());
+        assertEquals(0, pool.created());
+    }
+
+    @Test
+    public void closeIdleLeavesLeasedInstancesAlone() {
+        InterpreterPool<String> pool = pool(2);
+        String leased = pool.acquire();
+        pool.release(pool.acquire());
+
+        List<String> closed = new ArrayList<>();
+        pool.closeIdle(closed::add);
+        assertEquals(1, closed.size());
+        assertNotEquals(leased, closed.get(0));
+        assertEquals(1, pool.created());
+        assertEquals(0, pool.idle());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.smartguiderepo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Smoothing, thresholding and refractory handling of keyword classifier scores.
+ */
+public class KeywordDecoderTest {
+
+    private static final String[] LABELS = {"_silence_", "_unknown_", "stop", "ruko", "find", "talaash", "help"};
+
+    private final KeywordDecoder decoder = new KeywordDecoder(LABELS, 0.8f, 3, 1000);
+
+    @Test
+    public void mapsEnglishAndUrduLabelsToOneCommand() {
+        assertEquals(CommandMatcher.STOP, KeywordDecoder.command("ruko"));
+        assertEquals(CommandMatcher.STOP, KeywordDecoder.command(" Stop "));
+        assertEquals(CommandMatcher.FIND, KeywordDecoder.command("talaash"));
+        assertEquals(CommandMatcher.START, KeywordDecoder.command("shuru"));
+        assertEquals(CommandMatcher.HELP, KeywordDecoder.command("madad"));
+        assertEquals(CommandMatcher.NONE, KeywordDecoder.command("_silence_"));
+        assertEquals(CommandMatcher.NONE, KeywordDecoder.command(null));
+        assertEquals(5, decoder.commandCount());
+    }
+
+    @Test
+    public void firesOnceTheAverageClearsTheThreshold() {
+        assertEquals(CommandMatcher.NONE, decoder.update(scores(3, 0.9f), 0));    // history not full yet
+        assertEquals(CommandMatcher.NONE, decoder.update(scores(3, 0.9f), 100));
+        assertEquals(CommandMatcher.STOP, decoder.update(scores(3, 0.9f), 200));
+    }
+
+    @Test
+    public void singleSpikeIsAveragedAway() {
+        decoder.update(scores(0, 1f), 0);
+        decoder.update(scores(0, 1f), 100);
+        assertEquals(CommandMatcher.NONE, decoder.update(scores(4, 1f), 200));
+        assertEquals(CommandMatcher.NONE, decoder.update(scores(0, 1f), 300));
+    }
+
+    @Test
+    public void refractoryPeriodSuppressesRepeats() {
+        decoder.update(scores(2, 1f), 0);
+        decoder.update(scores(2, 1f), 50);
+        assertEquals(CommandMatcher.STOP, decoder.update(scores(2, 1f), 100));
+        assertEquals(CommandMatcher.NONE, decoder.update(scores(2, 1f), 500));
+        decoder.update(scores(6, 1f), 1000);
+        assertEquals(CommandMatcher.NONE, decoder.update(scores(6, 1f), 1050));
+        assertEquals(CommandMatcher.HELP, decoder.update(scores(6, 1f), 1100));
+    }
+
+    @Test
+    public void nonCommandLabelsNeverFire() {
+        for (int t = 0; t < 10; t++) assertEquals(CommandMatcher.NONE, decoder.update(scores(1, 1f), t * 100));
+    }
+
+    @Test
+    public void resetForgetsHistory() {
+        decoder.update(scores(0, 1f), 0);
+        decoder.update(scores(0, 1f), 100);
+        decoder.reset();
+        decoder.update(scores(5, 0.9f), 200);
+        decoder.update(scores(5, 0.9f), 300);
+        assertEquals(CommandMatcher.FIND, decoder.update(scores(5, 0.9f), 400));
+    }
+
+    private static float[] scores(int winner, float score) {
+        float[] s = new float[LABELS.length];
+        float rest = (1f - score) / (LABELS.length - 1);
+        for (int i = 0; i < s.length; i++) s[i] = i == winner ? score : rest;
+        return s;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.smartguiderepo;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Bucket layout, percentile accuracy and CSV output of the latency instrumentation.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsAreContiguousAndMonotonic() {
+        for (long us = 0; us < 100_000; us++) {
+            int b = LatencyHistogram.bucketOf(us);
+            assertTrue(LatencyHistogram.lowerBound(b) <= us);
+            assertTrue(us < LatencyHistogram.lowerBound(b + 1));
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE / 1000));
+    }
+
+    @Test
+    public void percentilesWithinBucketResolution() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int ms = 1; ms <= 100; ms++) h.record(ms * 1_000_000L);
+        assertEquals(100, h.count());
+        assertEquals(50_000, h.percentileMicros(50), 50_000 * 0.125);
+        assertEquals(95_000, h.percentileMicros(95), 95_000 * 0.125);
+        assertEquals(99_000, h.percentileMicros(99), 99_000 * 0.125);
+        assertEquals(100_000, h.maxMicros());
+        assertTrue(h.percentileMicros(100) <= 100_000);
+    }
+
+    @Test
+    public void emptyAndResetReportZero() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.percentileMicros(99));
+        h.record(5_000_000);
+        h.reset();
+        assertEquals(0, h.count());
+        assertEquals(0, h.percentileMicros(50));
+    }
+
+    @Test
+    public void csvListsEveryMetricAndCounter() throws IOException {
+        PipelineMetrics metrics = new PipelineMetrics(new PipelineMetrics.DropSource() {
+            @Override public int    dropCounterCount()     { return 1; }
+            @Override public String dropCounterName(int i) { return "pool_empty"; }
+            @Override public long   dropCounter(int i)     { return 7; }
+        });
+        metrics.record(PipelineMetrics.INFERENCE, 40_000_000);
+        StringBuilder csv = new StringBuilder();
+        metrics.writeCsv(csv);
+
+        String text = csv.toString();
+        for (int i = 0; i < PipelineMetrics.COUNT; i++)
+            assertTrue(text.contains("\n" + PipelineMetrics.name(i) + ","));
+        assertTrue(text.contains("inference,1,"));
+        assertTrue(text.contains("pool_empty,7\n"));
+
+        String hud = metrics.appendSummary(new StringBuilder()).toString();
+        assertTrue(hud.contains("inference"));
+        assertTrue(hud.contains("pool_empty=7"));
+    }
+}
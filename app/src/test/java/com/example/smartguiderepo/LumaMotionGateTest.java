@@ -0,0 +1,84 @@
+package com.example.smartguiderepo;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Skip / refresh decisions of the luma change gate on synthetic planes.
+ */
+public class LumaMotionGateTest {
+
+    private static final int  W  = 320;
+    private static final int  H  = 240;
+    private static final long MS = 1_000_000L;
+
+    private static ByteBuffer plane(int value) {
+        ByteBuffer b = ByteBuffer.allocate(W * H);
+        for (int i = 0; i < W * H; i++) b.put((byte) value);
+        b.rewind();
+        return b;
+    }
+
+    @Test
+    public void identicalFramesAreSkippedAfterTheFirst() {
+        LumaMotionGate gate = new LumaMotionGate();
+        ByteBuffer frame = plane(120);
+        assertTrue(gate.shouldInfer(frame, 0, W, H, W, 1, 0));
+        assertFalse(gate.shouldInfer(frame, 0, W, H, W, 1, 33 * MS));
+        assertFalse(gate.shouldInfer(frame, 0, W, H, W, 1, 66 * MS));
+        assertEquals(1, gate.inferred());
+        assertEquals(2, gate.skipped());
+        assertEquals(0, frame.position());
+    }
+
+    @Test
+    public void brightnessChangeTriggersInference() {
+        LumaMotionGate gate = new LumaMotionGate();
+        assertTrue(gate.shouldInfer(plane(100), 0, W, H, W, 1, 0));
+        assertTrue(gate.shouldInfer(plane(140), 0, W, H, W, 1, 33 * MS));
+        assertEquals(1f, gate.motion(), 0f);
+    }
+
+    @Test
+    public void localChangeInOneCornerIsNoticed() {
+        LumaMotionGate gate = new LumaMotionGate();
+        gate.setThreshold(1f);
+        ByteBuffer frame = plane(100);
+        assertTrue(gate.shouldInfer(frame, 0, W, H, W, 1, 0));
+
+        // An object entering the top-left quarter
+        for (int y = 0; y < H / 2; y++)
+            for (int x = 0; x < W / 2; x++) frame.put(y * W + x, (byte) 10);
+        assertTrue(gate.shouldInfer(frame, 0, W, H, W, 1, 33 * MS));
+    }
+
+    @Test
+    public void staleReferenceForcesRefresh() {
+        LumaMotionGate gate = new LumaMotionGate();
+        gate.setMaxStaleMs(500);
+        ByteBuffer frame = plane(80);
+        assertTrue(gate.shouldInfer(frame, 0, W, H, W, 1, 0));
+        assertFalse(gate.shouldInfer(frame, 0, W, H, W, 1, 400 * MS));
+        assertTrue(gate.shouldInfer(frame, 0, W, H, W, 1, 500 * MS));
+    }
+
+    @Test
+    public void readsGreenChannelOfRgbaWithPaddedRows() {
+        int rowStride = W * 4 + 64;
+        ByteBuffer rgba = ByteBuffer.allocate(rowStride * H);
+        LumaMotionGate gate = new LumaMotionGate();
+        assertTrue(gate.shouldInfer(rgba, 1, W, H, rowStride, 4, 0));
+
+        // Red changes only: the gate looks at G and ignores it
+        for (int y = 0; y < H; y++)
+            for (int x = 0; x < W; x++) rgba.put(y * rowStride + x * 4, (byte) 200);
+        assertFalse(gate.shouldInfer(rgba, 1, W, H, rowStride, 4, 33 * MS));
+
+        for (int y = 0; y < H; y++)
+            for (int x = 0; x < W; x++) rgba.put(y * rowStride + x * 4 + 1, (byte) 200);
+        assertTrue(gate.shouldInfer(rgba, 1, W, H, rowStride, 4, 66 * MS));
+    }
+}
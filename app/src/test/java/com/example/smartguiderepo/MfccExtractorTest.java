@@ -0,0 +1,86 @@
+package com.example.smartguiderepo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Scaling and invariance properties of the keyword spotter's MFCC front end.
+ */
+public class MfccExtractorTest {
+
+    private static final int COEFFICIENTS = 13;
+
+    private final MfccExtractor mfcc = new MfccExtractor(COEFFICIENTS);
+
+    @Test
+    public void constantSignalIsSilence() {
+        // The window mean is removed, so any DC offset reads as the log floor in every band
+        float[] out = compute(constant((short) 1200));
+        assertEquals(Math.sqrt(40) * Math.log(1e-6), out[0], 1e-2);
+        for (int k = 1; k < COEFFICIENTS; k++) assertEquals(0f, out[k], 1e-3f);
+    }
+
+    @Test
+    public void gainOnlyShiftsTheFirstCoefficient() {
+        float[] quiet = compute(noise(2000));
+        float[] loud  = compute(noise(8000));
+        // 4x amplitude is 16x power: every log band moves by ln 16, which only c0 sees
+        assertEquals(Math.sqrt(40) * Math.log(16), loud[0] - quiet[0], 1e-2);
+        for (int k = 1; k < COEFFICIENTS; k++) assertEquals(quiet[k], loud[k], 1e-2f);
+    }
+
+    @Test
+    public void differentPitchesGiveDifferentShapes() {
+        float[] low  = compute(tone(300, 8000));
+        float[] high = compute(tone(3000, 8000));
+        double distance = 0;
+        for (int k = 1; k < COEFFICIENTS; k++) distance += (low[k] - high[k]) * (low[k] - high[k]);
+        assertTrue(Math.sqrt(distance) > 10);
+    }
+
+    @Test
+    public void readsFromOffsetAndWritesAtOffset() {
+        short[] signal = tone(1000, 4000);
+        short[] padded = new short[signal.length + 7];
+        System.arraycopy(signal, 0, padded, 7, signal.length);
+        float[] out = new float[COEFFICIENTS + 3];
+        mfcc.compute(padded, 7, out, 3);
+        float[] expected = compute(signal);
+        for (int k = 0; k < COEFFICIENTS; k++) assertEquals(expected[k], out[3 + k], 0f);
+    }
+
+    @Test
+    public void melScaleRoundTrips() {
+        assertEquals(1000.0, MfccExtractor.fromMel(MfccExtractor.toMel(1000.0)), 1e-9);
+        assertEquals(0.0, MfccExtractor.toMel(0.0), 0.0);
+    }
+
+    private float[] compute(short[] pcm) {
+        float[] out = new float[COEFFICIENTS];
+        mfcc.compute(pcm, 0, out, 0);
+        return out;
+    }
+
+    private static short[] constant(short value) {
+        short[] pcm = new short[MfccExtractor.WINDOW];
+        java.util.Arrays.fill(pcm, value);
+        return pcm;
+    }
+
+    // Broadband, so every band stays far above the log floor
+    private static short[] noise(double amplitude) {
+        java.util.Random random = new java.util.Random(42);
+        short[] pcm = new short[MfccExtractor.WINDOW];
+        for (int i = 0; i < pcm.length; i++) pcm[i] = (short) Math.round(amplitude * random.nextGaussian() / 4);
+        return pcm;
+    }
+
+    // Whole periods only, so the window mean stays ~0 and no DC leaks into the result
+    private static short[] tone(double hz, double amplitude) {
+        short[] pcm = new short[MfccExtractor.WINDOW];
+        for (int i = 0; i < pcm.length; i++)
+            pcm[i] = (short) Math.round(amplitude * Math.sin(2 * Math.PI * hz * i / MfccExtractor.SAMPLE_RATE));
+        return pcm;
+    }
+}
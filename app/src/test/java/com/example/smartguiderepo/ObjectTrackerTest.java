@@ -0,0 +1,109 @@
+package com.example.smartguiderepo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Association, id stability and extrapolation of the between-inference tracker.
+ */
+public class ObjectTrackerTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final LabelTable labels = new LabelTable(new String[]{"person", "chair"});
+
+    private DetectionBatch batch(float[]... boxes) {
+        DetectionBatch b = new DetectionBatch(8);
+        b.labels = labels;
+        for (float[] box : boxes) b.add((int) box[0], 0.9f, box[1], box[2], box[3], box[4], 2f);
+        return b;
+    }
+
+    @Test
+    public void sameObjectKeepsItsTrackId() {
+        ObjectTracker tracker = new ObjectTracker(8);
+        DetectionBatch first = batch(new float[]{0, 0.20f, 0.2f, 0.40f, 0.8f},
+                                     new float[]{1, 0.60f, 0.5f, 0.80f, 0.9f});
+        tracker.update(first, 0);
+        assertNotEquals(first.trackIds[0], first.trackIds[1]);
+
+        // Same objects, listed in the other order and slightly moved
+        DetectionBatch second = batch(new float[]{1, 0.61f, 0.5f, 0.81f, 0.9f},
+                                      new float[]{0, 0.22f, 0.2f, 0.42f, 0.8f});
+        tracker.update(second, 200 * MS);
+        assertEquals(first.trackIds[1], second.trackIds[0]);
+        assertEquals(first.trackIds[0], second.trackIds[1]);
+        assertEquals(2, tracker.size());
+    }
+
+    @Test
+    public void differentClassStartsNewTrack() {
+        ObjectTracker tracker = new ObjectTracker(8);
+        DetectionBatch first = batch(new float[]{0, 0.2f, 0.2f, 0.4f, 0.8f});
+        tracker.update(first, 0);
+        DetectionBatch second = batch(new float[]{1, 0.2f, 0.2f, 0.4f, 0.8f});
+        tracker.update(second, 100 * MS);
+        assertNotEquals(first.trackIds[0], second.trackIds[0]);
+    }
+
+    @Test
+    public void predictionFollowsConstantVelocity() {
+        ObjectTracker tracker = new ObjectTracker(8);
+        // Moving right by 0.05 every 100 ms (0.5 per second)
+        for (int i = 0; i < 6; i++) {
+            float l = 0.1f + 0.05f * i;
+            tracker.update(batch(new float[]{0, l, 0.3f, l + 0.2f, 0.7f}), i * 100 * MS);
+        }
+        DetectionBatch out = new DetectionBatch(8);
+        tracker.predict(550 * MS, out);
+        assertEquals(1, out.count);
+        float centre = (out.left[0] + out.right[0]) / 2f;
+        // Last centre 0.45 at 500 ms; 50 ms later it should be near 0.475
+        assertEquals(0.475f, centre, 0.01f);
+        assertSame(labels, out.labels);
+    }
+
+    @Test
+    public void predictionIsCappedAndDoesNotChangeState() {
+        ObjectTracker tracker = new ObjectTracker(8);
+        for (int i = 0; i < 6; i++) {
+            float l = 0.1f + 0.05f * i;
+            tracker.update(batch(new float[]{0, l, 0.3f, l + 0.2f, 0.7f}), i * 100 * MS);
+        }
+        DetectionBatch far = new DetectionBatch(8);
+        tracker.predict(10_000 * MS, far);
+        DetectionBatch capped = new DetectionBatch(8);
+        tracker.predict((500 + ObjectTracker.MAX_PREDICT_MS) * MS, capped);
+        assertEquals(capped.left[0], far.left[0], 1e-6f);
+
+        DetectionBatch now = new DetectionBatch(8);
+        tracker.predict(500 * MS, now);
+        assertEquals(0.45f, (now.left[0] + now.right[0]) / 2f, 0.01f);
+    }
+
+    @Test
+    public void distanceScalesWithPredictedWidth() {
+        ObjectTracker tracker = new ObjectTracker(8);
+        // Growing box: approaching object
+        for (int i = 0; i < 6; i++) {
+            float half = 0.1f + 0.01f * i;
+            DetectionBatch b = batch(new float[]{0, 0.5f - half, 0.2f, 0.5f + half, 0.8f});
+            b.distances[0] = 2f * 0.1f / half;
+            tracker.update(b, i * 100 * MS);
+        }
+        DetectionBatch later = new DetectionBatch(8);
+        tracker.predict(800 * MS, later);
+        assertTrue(later.distances[0] < 2f * 0.1f / 0.15f);
+    }
+
+    @Test
+    public void unmatchedTracksExpireAfterCoasting() {
+        ObjectTracker tracker = new ObjectTracker(8);
+        tracker.update(batch(new float[]{0, 0.2f, 0.2f, 0.4f, 0.8f}), 0);
+        tracker.update(batch(), 500 * MS);
+        assertEquals(1, tracker.size());
+        tracker.update(batch(), ObjectTracker.MAX_COAST_MS * MS);
+        assertEquals(0, tracker.size());
+    }
+}
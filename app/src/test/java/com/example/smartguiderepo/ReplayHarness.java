@@ -0,0 +1,519 @@
+package com.example.smartguiderepo;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Offline replay of recorded camera frames through the same steps a live frame takes
+ * in {@link DetectionPipeline}: convert → detect → {@link DetectionFilter} +
+ * {@link ObjectTracker} → {@link FeedbackPolicy}, with TextToSpeech and the Vibrator
+ * replaced by a recording sink. Runs on a plain JVM, so throughput and output
+ * regressions can be caught before a build reaches a device.
+ *
+ * <p>Stages run back to back on one thread, so the reported FPS is the serial cost of
+ * a frame, a lower bound for the pipelined app. Frames are stamped with a synthetic
+ * clock at the recording's frame rate, which keeps tracking and feedback timing
+ * deterministic from run to run.</p>
+ *
+ * <p>The output of every frame (tracked boxes, vibrations, utterances) is rendered as
+ * CSV rows that can be written as a golden file and diffed on later runs.</p>
+ */
+public class ReplayHarness {
+
+    public static final String[] STAGES = {"convert", "inference", "postprocess", "feedback"};
+    private static final int CONVERT = 0, INFERENCE = 1, POSTPROCESS = 2, FEEDBACK = 3;
+
+    private static final int MAX_DETECTIONS = 16;   // as DetectionPipeline.MAX_DETECTIONS
+
+    // Golden comparison tolerances
+    private static final float BOX_TOLERANCE      = 0.02f;
+    private static final float SCORE_TOLERANCE    = 0.05f;
+    private static final float DISTANCE_TOLERANCE = 0.10f;   // relative
+    private static final int   MAX_REPORTED_DIFFS = 20;
+
+    /** A recorded sequence of camera frames. */
+    public interface FrameSource extends Closeable {
+        /** Reads the next encoded frame; false at end of stream. Not timed. */
+        boolean read() throws IOException;
+
+        /** Size of the frame last read. */
+        int width();
+        int height();
+
+        /** Decodes the frame last read into ARGB pixels; this is the timed convert stage. */
+        void convert(int[] argb) throws IOException;
+    }
+
+    /** The detector under test. */
+    public interface Engine extends Closeable {
+        LabelTable labels();
+
+        void configure(DetectorConfig config);
+
+        /**
+         * Fills {@code out} with boxes normalized to the upright frame, distances left
+         * at zero, for a frame that needs {@code rotationDegrees} of clockwise rotation.
+         */
+        void detect(int[] argb, int width, int height, int rotationDegrees, DetectionBatch out);
+    }
+
+    // ── Options ───────────────────────────────────────────────────────────
+    private int    rotationDegrees;
+    private double fps          = 30;
+    private String finderTarget;          // null for General mode
+    private int    warmupFrames = 5;      // excluded from latency and allocation figures
+
+    public ReplayHarness rotation(int degrees) { this.rotationDegrees = degrees; return this; }
+    public ReplayHarness fps(double fps)       { this.fps = fps; return this; }
+    public ReplayHarness finderTarget(String target) {
+        this.finderTarget = target == null ? null : target.toLowerCase(Locale.ROOT);
+        return this;
+    }
+    public ReplayHarness warmupFrames(int frames) { this.warmupFrames = frames; return this; }
+
+    /** Replays every frame of {@code source}; neither argument is closed. */
+    public Report run(FrameSource source, Engine engine) throws IOException {
+        DetectorConfig config = finderTarget == null ? DetectorConfig.GENERAL
+                : DetectorConfig.forMode("Finder", finderTarget);
+        engine.configure(config);
+
+        ObjectTracker  tracker  = new ObjectTracker(MAX_DETECTIONS);
+        FeedbackPolicy policy   = new FeedbackPolicy();
+        RecordingSink  sink     = new RecordingSink();
+        DetectionBatch batch    = new DetectionBatch(MAX_DETECTIONS);
+        AllocationMeter meter   = new AllocationMeter();
+        Report         report   = new Report();
+        boolean sideways = (rotationDegrees % 180) != 0;
+        long    frameNanos = Math.round(1e9 / fps);
+        int[]   argb = new int[0];
+        long    gcBefore = 0;
+
+        for (int frame = 0; source.read(); frame++) {
+            if (frame == warmupFrames) gcBefore = gcCount();
+            boolean measured = frame >= warmupFrames;
+            int w = source.width(), h = source.height();
+            if (argb.length < w * h) argb = new int[w * h];
+            long captureNanos = frame * frameNanos;
+
+            long t0 = System.nanoTime(), a0 = meter.bytes();
+            source.convert(argb);
+            long t1 = System.nanoTime(), a1 = meter.bytes();
+            batch.clear();
+            batch.labels = engine.labels();
+            engine.detect(argb, w, h, rotationDegrees, batch);
+            long t2 = System.nanoTime(), a2 = meter.bytes();
+            DetectionFilter.filterAndMeasure(batch, finderTarget, sideways ? h : w, Math.max(w, h));
+            tracker.update(batch, captureNanos);
+            tracker.predict(captureNanos, batch);
+            long t3 = System.nanoTime(), a3 = meter.bytes();
+            sink.clear();
+            policy.onDetections(batch, captureNanos / 1_000_000, sink);
+            long t4 = System.nanoTime(), a4 = meter.bytes();
+
+            report.frames++;
+            if (measured) {
+                report.record(CONVERT,     t1 - t0, a1 - a0);
+                report.record(INFERENCE,   t2 - t1, a2 - a1);
+                report.record(POSTPROCESS, t3 - t2, a3 - a2);
+                report.record(FEEDBACK,    t4 - t3, a4 - a3);
+                report.total.record(t4 - t0);
+                report.measuredFrames++;
+                report.measuredNanos += t4 - t0;
+            }
+            report.vibrations += sink.vibrateZone >= 0 ? 1 : 0;
+            report.utterances += sink.spokenLabel != null ? 1 : 0;
+            appendRows(report.rows, frame, batch, sink);
+        }
+        report.gcCount = gcCount() - gcBefore;
+        report.allocationTracked = meter.supported;
+        return report;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  Output rows and golden files
+    // ══════════════════════════════════════════════════════════════════════
+
+    public static final String GOLDEN_HEADER = "# frame,kind,label,score,left,top,right,bottom,distance";
+
+    private static void appendRows(List<String> rows, int frame, DetectionBatch batch, RecordingSink sink) {
+        for (int i = 0; i < batch.count; i++) {
+            rows.add(String.format(Locale.ROOT, "%d,det,%s,%.3f,%.4f,%.4f,%.4f,%.4f,%.2f",
+                    frame, batch.label(i), batch.scores[i], batch.left[i], batch.top[i],
+                    batch.right[i], batch.bottom[i], batch.distances[i]));
+        }
+        if (sink.vibrateZone >= 0) rows.add(frame + ",vibrate," + sink.vibrateZone);
+        if (sink.spokenLabel != null) {
+            rows.add(String.format(Locale.ROOT, "%d,speak,%s,%d,%.2f",
+                    frame, sink.spokenLabel, sink.spokenZone, sink.spokenDistance));
+        }
+    }
+
+    public static void writeGolden(Path path, List<String> rows) throws IOException {
+        List<String> lines = new ArrayList<>(rows.size() + 1);
+        lines.add(GOLDEN_HEADER);
+        lines.addAll(rows);
+        Files.write(path, lines, StandardCharsets.UTF_8);
+    }
+
+    public static List<String> readGolden(Path path) throws IOException {
+        List<String> rows = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) rows.add(line);
+        }
+        return rows;
+    }
+
+    /**
+     * Compares output rows frame by frame. Boxes, scores and distances may drift within
+     * small tolerances (engines differ in resampling and float rounding); anything else,
+     * including a different number of boxes or feedback events, is a difference.
+     * Returns one line per differing frame, at most {@value #MAX_REPORTED_DIFFS}.
+     */
+    public static List<String> diff(List<String> expected, List<String> actual) {
+        Map<Integer, List<String[]>> want = byFrame(expected);
+        Map<Integer, List<String[]>> got  = byFrame(actual);
+        TreeMap<Integer, Boolean> frames = new TreeMap<>();
+        for (Integer f : want.keySet()) frames.put(f, true);
+        for (Integer f : got.keySet())  frames.put(f, true);
+
+        List<String> diffs = new ArrayList<>();
+        for (Integer frame : frames.keySet()) {
+            List<String[]> w = want.getOrDefault(frame, new ArrayList<>());
+            List<String[]> g = got.getOrDefault(frame, new ArrayList<>());
+            if (rowsMatch(w, g)) continue;
+            if (diffs.size() == MAX_REPORTED_DIFFS) {
+                diffs.add("... more differences not shown");
+                break;
+            }
+            diffs.add("frame " + frame + ": expected " + render(w) + " got " + render(g));
+        }
+        return diffs;
+    }
+
+    private static Map<Integer, List<String[]>> byFrame(List<String> rows) {
+        Map<Integer, List<String[]>> frames = new TreeMap<>();
+        for (String row : rows) {
+            String[] cols = row.split(",");
+            frames.computeIfAbsent(Integer.parseInt(cols[0]), k -> new ArrayList<>()).add(cols);
+        }
+        return frames;
+    }
+
+    private static boolean rowsMatch(List<String[]> want, List<String[]> got) {
+        if (want.size() != got.size()) return false;
+        for (int i = 0; i < want.size(); i++) {
+            String[] w = want.get(i), g = got.get(i);
+            if (w.length != g.length || !w[1].equals(g[1])) return false;
+            switch (w[1]) {
+                case "det":
+                    if (!w[2].equals(g[2])) return false;
+                    if (!near(w[3], g[3], SCORE_TOLERANCE)) return false;
+                    for (int c = 4; c <= 7; c++) if (!near(w[c], g[c], BOX_TOLERANCE)) return false;
+                    if (!nearRelative(w[8], g[8], DISTANCE_TOLERANCE)) return false;
+                    break;
+                case "speak":
+                    if (!w[2].equals(g[2]) || !w[3].equals(g[3])) return false;
+                    if (!nearRelative(w[4], g[4], DISTANCE_TOLERANCE)) return false;
+                    break;
+                default:
+                    if (!Arrays.equals(w, g)) return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean near(String a, String b, float tolerance) {
+        return Math.abs(Float.parseFloat(a) - Float.parseFloat(b)) <= tolerance;
+    }
+
+    private static boolean nearRelative(String a, String b, float tolerance) {
+        float x = Float.parseFloat(a), y = Float.parseFloat(b);
+        return Math.abs(x - y) <= tolerance * Math.max(Math.abs(x), Math.abs(y)) + 1e-3f;
+    }
+
+    private static String render(List<String[]> rows) {
+        StringBuilder sb = new StringBuilder("[");
+        for (String[] cols : rows) {
+            if (sb.length() > 1) sb.append("; ");
+            sb.append(String.join(",", Arrays.copyOfRange(cols, 1, cols.length)));
+        }
+        return sb.append(']').toString();
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  Report
+    // ══════════════════════════════════════════════════════════════════════
+
+    public static class Report {
+        public final LatencyHistogram[] stages = new LatencyHistogram[STAGES.length];
+        public final long[]             allocatedBytes = new long[STAGES.length];
+        public final LatencyHistogram   total = new LatencyHistogram();
+        public final List<String>       rows  = new ArrayList<>();
+
+        public int     frames;
+        public int     measuredFrames;
+        public long    measuredNanos;
+        public int     vibrations;
+        public int     utterances;
+        public long    gcCount;
+        public boolean allocationTracked;
+
+        Report() {
+            for (int i = 0; i < stages.length; i++) stages[i] = new LatencyHistogram();
+        }
+
+        void record(int stage, long nanos, long bytes) {
+            stages[stage].record(nanos);
+            allocatedBytes[stage] += bytes;
+        }
+
+        /** Frames per second over the measured frames, stages run back to back. */
+        public double fps() {
+            return measuredNanos == 0 ? 0 : measuredFrames * 1e9 / measuredNanos;
+        }
+
+        /** Average bytes allocated per measured frame by one stage, or -1 if the JVM cannot tell. */
+        public long bytesPerFrame(int stage) {
+            if (!allocationTracked) return -1;
+            return measuredFrames == 0 ? 0 : allocatedBytes[stage] / measuredFrames;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.ROOT, "frames=%d measured=%d fps=%.1f gc=%d vibrations=%d utterances=%d%n",
+                    frames, measuredFrames, fps(), gcCount, vibrations, utterances));
+            sb.append(String.format(Locale.ROOT, "%-12s %9s %9s %9s %9s %12s%n",
+                    "stage", "p50_us", "p95_us", "p99_us", "max_us", "bytes/frame"));
+            for (int i = 0; i < STAGES.length; i++) {
+                appendStage(sb, STAGES[i], stages[i], bytesPerFrame(i));
+            }
+            long bytes = -1;
+            if (allocationTracked) {
+                bytes = 0;
+                for (int i = 0; i < STAGES.length; i++) bytes += bytesPerFrame(i);
+            }
+            appendStage(sb, "total", total, bytes);
+            return sb.toString();
+        }
+
+        private static void appendStage(StringBuilder sb, String name, LatencyHistogram h, long bytes) {
+            sb.append(String.format(Locale.ROOT, "%-12s %9d %9d %9d %9d %12s%n", name,
+                    h.percentileMicros(50), h.percentileMicros(95), h.percentileMicros(99),
+                    h.maxMicros(), bytes < 0 ? "n/a" : Long.toString(bytes)));
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  Stubbed feedback outputs
+    // ══════════════════════════════════════════════════════════════════════
+
+    /** Stands in for the Vibrator and TextToSpeech; remembers what one frame triggered. */
+    static final class RecordingSink implements FeedbackPolicy.Sink {
+        int    vibrateZone = -1;
+        String spokenLabel;
+        float  spokenDistance;
+        int    spokenZone;
+
+        void clear() {
+            vibrateZone = -1;
+            spokenLabel = null;
+        }
+
+        @Override public void vibrate(int zone) {
+            vibrateZone = zone;
+        }
+
+        @Override public void speak(String label, float distance, int zone) {
+            spokenLabel    = label;
+            spokenDistance = distance;
+            spokenZone     = zone;
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  Allocation and GC counters
+    // ══════════════════════════════════════════════════════════════════════
+
+    /** Bytes allocated by the current thread, where the JVM exposes it (HotSpot does). */
+    static final class AllocationMeter {
+        private final com.sun.management.ThreadMXBean bean;
+        private final long    threadId = Thread.currentThread().getId();
+        final boolean supported;
+
+        AllocationMeter() {
+            java.lang.management.ThreadMXBean b = ManagementFactory.getThreadMXBean();
+            com.sun.management.ThreadMXBean hotspot = b instanceof com.sun.management.ThreadMXBean
+                    ? (com.sun.management.ThreadMXBean) b : null;
+            if (hotspot != null && hotspot.isThreadAllocatedMemorySupported()) {
+                hotspot.setThreadAllocatedMemoryEnabled(true);
+                bean = hotspot;
+                supported = true;
+            } else {
+                bean = null;
+                supported = false;
+            }
+        }
+
+        long bytes() {
+            return bean == null ? 0 : bean.getThreadAllocatedBytes(threadId);
+        }
+    }
+
+    private static long gcCount() {
+        long n = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            n += Math.max(0, gc.getCollectionCount());
+        return n;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  Frame sources
+    // ══════════════════════════════════════════════════════════════════════
+
+    /** Raw NV21 frames of a fixed size, back to back, as dumped from the camera callback. */
+    public static final class Nv21Source implements FrameSource {
+        private final InputStream in;
+        private final int    width, height;
+        private final byte[] frame;
+
+        public Nv21Source(InputStream in, int width, int height) {
+            this.in     = in;
+            this.width  = width;
+            this.height = height;
+            this.frame  = new byte[width * height * 3 / 2];
+        }
+
+        @Override public boolean read() throws IOException {
+            int n = 0;
+            while (n < frame.length) {
+                int r = in.read(frame, n, frame.length - n);
+                if (r < 0) break;
+                n += r;
+            }
+            if (n == 0) return false;
+            if (n < frame.length) throw new EOFException("Truncated NV21 frame: " + n + " of " + frame.length + " bytes");
+            return true;
+        }
+
+        @Override public int width()  { return width; }
+        @Override public int height() { return height; }
+
+        @Override public void convert(int[] argb) {
+            YuvKernels.nv21ToArgb(frame, width, height, argb);
+        }
+
+        @Override public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Motion JPEG as a UVC camera streams it: complete JPEG images back to back. Frames
+     * are split by walking the marker segments (so EXIF thumbnails do not end a frame
+     * early) and decoded with ImageIO.
+     */
+    public static final class MjpegSource implements FrameSource {
+        private final InputStream in;
+        private byte[] frame = new byte[64 * 1024];
+        private int    length;
+        private int    width, height;
+
+        public MjpegSource(InputStream in) {
+            this.in = in;
+        }
+
+        @Override public boolean read() throws IOException {
+            length = 0;
+            int b = in.read();
+            if (b < 0) return false;
+            if (b != 0xFF || in.read() != 0xD8) throw new IOException("Frame does not start with a JPEG SOI marker");
+            put(0xFF);
+            put(0xD8);
+            while (true) {
+                int marker = nextMarker(false);
+                if (marker == 0xD9) return true;                     // EOI
+                if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) continue;   // no payload
+                int hi = readByte(), lo = readByte();
+                put(hi);
+                put(lo);
+                int segment = (hi << 8 | lo) - 2;
+                int start = length;
+                for (int i = 0; i < segment; i++) put(readByte());
+                if (marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC) {
+                    height = (frame[start + 1] & 0xff) << 8 | (frame[start + 2] & 0xff);
+                    width  = (frame[start + 3] & 0xff) << 8 | (frame[start + 4] & 0xff);
+                }
+                if (marker == 0xDA) {                                // SOS: entropy-coded data follows
+                    marker = nextMarker(true);
+                    if (marker == 0xD9) return true;
+                    throw new IOException("Unsupported JPEG layout (marker 0x"
+                            + Integer.toHexString(marker) + " after scan data)");
+                }
+            }
+        }
+
+        // Copies bytes up to and including the next marker; inside scan data, stuffed
+        // 0xFF00 bytes and restart markers are part of the stream
+        private int nextMarker(boolean inScan) throws IOException {
+            while (true) {
+                int b = readByte();
+                put(b);
+                if (b != 0xFF) {
+                    if (!inScan) throw new IOException("Expected a JPEG marker");
+                    continue;
+                }
+                int m = readByte();
+                while (m == 0xFF) {                                  // fill bytes
+                    put(m);
+                    m = readByte();
+                }
+                put(m);
+                if (inScan && (m == 0x00 || (m >= 0xD0 && m <= 0xD7))) continue;
+                return m;
+            }
+        }
+
+        private int readByte() throws IOException {
+            int b = in.read();
+            if (b < 0) throw new EOFException("Truncated JPEG frame");
+            return b;
+        }
+
+        private void put(int b) {
+            if (length == frame.length) frame = Arrays.copyOf(frame, frame.length * 2);
+            frame[length++] = (byte) b;
+        }
+
+        @Override public int width()  { return width; }
+        @Override public int height() { return height; }
+
+        @Override public void convert(int[] argb) throws IOException {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(frame, 0, length));
+            if (image == null) throw new IOException("Undecodable JPEG frame");
+            image.getRGB(0, 0, width, height, argb, 0, width);
+        }
+
+        @Override public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.smartguiderepo;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.*;
+
+/**
+ * Replay of synthetic recordings through the harness, plus an opt-in run over a real
+ * recording:
+ * <pre>
+ *   ./gradlew :app:testDebugUnitTest --tests '*ReplayHarnessTest' \
+ *       -Preplay.input=walk.nv21 -Preplay.size=640x480 -Preplay.rotation=90 \
+ *       -Preplay.model=yolo.tflite -Preplay.labels=yolo_labels.txt \
+ *       -Preplay.golden=walk.golden.csv [-Preplay.update=true] [-Preplay.jni=dir]
+ * </pre>
+ * Inputs ending in {@code .mjpeg} or {@code .mjpg} are read as Motion JPEG.
+ */
+public class ReplayHarnessTest {
+
+    private static final int W = 160, H = 120, FRAMES = 30;
+
+    // A bright square sliding right over a dark background
+    private static byte[] nv21Recording() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] frame = new byte[W * H * 3 / 2];
+        for (int f = 0; f < FRAMES; f++) {
+            Arrays.fill(frame, 0, W * H, (byte) 20);
+            Arrays.fill(frame, W * H, frame.length, (byte) 128);
+            int x0 = 10 + f * 2;
+            for (int y = 40; y < 80; y++)
+                for (int x = x0; x < x0 + 40; x++) frame[y * W + x] = (byte) 230;
+            out.write(frame, 0, frame.length);
+        }
+        return out.toByteArray();
+    }
+
+    /** Reports the bounding box of bright pixels as one "person". */
+    private static final class BrightBlobEngine implements ReplayHarness.Engine {
+        private final LabelTable labels = new LabelTable(new String[]{"person", "bottle"});
+
+        @Override public LabelTable labels() { return labels; }
+        @Override public void configure(DetectorConfig config) {}
+        @Override public void close() {}
+
+        @Override public void detect(int[] argb, int width, int height, int rotation, DetectionBatch out) {
+            int l = width, t = height, r = -1, b = -1;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if ((argb[y * width + x] & 0xff) < 128) continue;
+                    l = Math.min(l, x); r = Math.max(r, x);
+                    t = Math.min(t, y); b = Math.max(b, y);
+                }
+            }
+            if (r < 0) return;
+            out.add(0, 0.9f, l / (float) width, t / (float) height,
+                    (r + 1) / (float) width, (b + 1) / (float) height, 0f);
+        }
+    }
+
+    @Test
+    public void replaysNv21AndReportsEveryStage() throws IOException {
+        ReplayHarness.Report report = new ReplayHarness().warmupFrames(5).run(
+                new ReplayHarness.Nv21Source(new ByteArrayInputStream(nv21Recording()), W, H),
+                new BrightBlobEngine());
+
+        assertEquals(FRAMES, report.frames);
+        assertEquals(FRAMES - 5, report.measuredFrames);
+        for (LatencyHistogram h : report.stages) assertEquals(FRAMES - 5, h.count());
+        assertTrue(report.fps() > 0);
+        // 40 of 160 pixels wide; the 650 px focal length is for a 640 px long side, so 162.5 px
+        // here: 45 cm * 162.5 / 40 px = 1.83 m, warning zone
+        assertTrue(report.rows.get(0).startsWith("0,det,person,0.900,0.0625,0.3333,0.3125,0.6667,1.83"));
+        assertTrue(report.rows.contains("0,vibrate,1"));
+        assertEquals(1, report.utterances);
+        assertTrue(report.toString().contains("inference"));
+    }
+
+    @Test
+    public void finderTargetFiltersOtherClasses() throws IOException {
+        ReplayHarness.Report report = new ReplayHarness().finderTarget("bottle").run(
+                new ReplayHarness.Nv21Source(new ByteArrayInputStream(nv21Recording()), W, H),
+                new BrightBlobEngine());
+        assertEquals(0, report.vibrations);
+        for (String row : report.rows) assertFalse(row.contains(",det,"));
+    }
+
+    @Test
+    public void goldenRoundTripAndDiff() throws IOException {
+        ReplayHarness.Report report = new ReplayHarness().run(
+                new ReplayHarness.Nv21Source(new ByteArrayInputStream(nv21Recording()), W, H),
+                new BrightBlobEngine());
+        Path golden = Files.createTempFile("replay", ".golden.csv");
+        try {
+            ReplayHarness.writeGolden(golden, report.rows);
+            List<String> expected = ReplayHarness.readGolden(golden);
+            assertTrue(ReplayHarness.diff(expected, report.rows).isEmpty());
+
+            // Small drift is tolerated, a changed label or a missing frame is not
+            List<String> drifted = new ArrayList<>(expected);
+            drifted.set(0, drifted.get(0).replace(",0.900,", ",0.880,"));
+            assertTrue(ReplayHarness.diff(drifted, report.rows).isEmpty());
+
+            List<String> changed = new ArrayList<>(expected);
+            changed.set(0, changed.get(0).replace("person", "bottle"));
+            changed.remove(changed.size() - 1);
+            List<String> diffs = ReplayHarness.diff(changed, report.rows);
+            assertEquals(2, diffs.size());
+            assertTrue(diffs.get(0).startsWith("frame 0:"));
+        } finally {
+            Files.delete(golden);
+        }
+    }
+
+    @Test
+    public void splitsAndDecodesMjpeg() throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (int f = 0; f < 3; f++) {
+            BufferedImage image = new BufferedImage(W, H, BufferedImage.TYPE_INT_RGB);
+            for (int y = 40; y < 80; y++)
+                for (int x = 20 + f * 30; x < 60 + f * 30; x++) image.setRGB(x, y, 0xffffff);
+            assertTrue(ImageIO.write(image, "jpg", stream));
+        }
+
+        ReplayHarness.Report report = new ReplayHarness().warmupFrames(0).run(
+                new ReplayHarness.MjpegSource(new ByteArrayInputStream(stream.toByteArray())),
+                new BrightBlobEngine());
+        assertEquals(3, report.frames);
+        assertTrue(report.rows.get(0).startsWith("0,det,person"));
+    }
+
+    @Test
+    public void replaysRecordingFromProperties() throws IOException {
+        String input = System.getProperty("replay.input");
+        if (input == null) return;   // opt-in, see the class comment
+
+        ReplayHarness harness = new ReplayHarness()
+                .rotation(Integer.parseInt(System.getProperty("replay.rotation", "0")))
+                .fps(Double.parseDouble(System.getProperty("replay.fps", "30")))
+                .finderTarget(System.getProperty("replay.target"));
+        ReplayHarness.Report report;
+        try (ReplayHarness.FrameSource source = openSource(input);
+             ReplayHarness.Engine engine = new TfliteReplayEngine(
+                     new File(System.getProperty("replay.model")),
+                     new File(System.getProperty("replay.labels")),
+                     Integer.parseInt(System.getProperty("replay.threads", "4")))) {
+            report = harness.run(source, engine);
+        }
+        System.out.println(report);
+
+        String golden = System.getProperty("replay.golden");
+        if (golden == null) return;
+        Path path = new File(golden).toPath();
+        if (Boolean.parseBoolean(System.getProperty("replay.update")) || !Files.exists(path)) {
+            ReplayHarness.writeGolden(path, report.rows);
+            System.out.println("Wrote " + report.rows.size() + " rows to " + path);
+            return;
+        }
+        List<String> diffs = ReplayHarness.diff(ReplayHarness.readGolden(path), report.rows);
+        assertTrue("Output differs from " + path + ":\n" + String.join("\n", diffs), diffs.isEmpty());
+    }
+
+    private static ReplayHarness.FrameSource openSource(String path) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(path), 1 << 20);
+        String lower = path.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".mjpeg") || lower.endsWith(".mjpg")) return new ReplayHarness.MjpegSource(in);
+        String[] size = System.getProperty("replay.size", "640x480").split("x");
+        return new ReplayHarness.Nv21Source(in, Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.smartguiderepo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Region cadence and coordinate mapping of the Finder-mode ROI scheduler.
+ */
+public class RoiSchedulerTest {
+
+    private static final int W = 640;
+    private static final int H = 480;
+
+    private static DetectionBatch match(float l, float t, float r, float b) {
+        DetectionBatch batch = new DetectionBatch(4);
+        batch.add(5, 0.8f, l, t, r, b, 3f);
+        return batch;
+    }
+
+    @Test
+    public void fullFrameUntilTargetSeen() {
+        RoiScheduler scheduler = new RoiScheduler();
+        float[] roi = new float[4];
+        for (int i = 0; i < 5; i++) {
+            assertEquals(RoiScheduler.REGION_FULL, scheduler.next(W, H, roi));
+            scheduler.report(RoiScheduler.REGION_FULL, new DetectionBatch(4));
+        }
+        assertEquals(0f, roi[0], 0f);
+        assertEquals(1f, roi[3], 0f);
+    }
+
+    @Test
+    public void alternatesTargetAndCorridorWithPeriodicFullFrame() {
+        RoiScheduler scheduler = new RoiScheduler();
+        float[] roi = new float[4];
+        assertEquals(RoiScheduler.REGION_FULL, scheduler.next(W, H, roi));
+        scheduler.report(RoiScheduler.REGION_FULL, match(0.70f, 0.40f, 0.74f, 0.48f));
+
+        int[] expected = {RoiScheduler.REGION_TARGET, RoiScheduler.REGION_CORRIDOR,
+                          RoiScheduler.REGION_TARGET, RoiScheduler.REGION_FULL,
+                          RoiScheduler.REGION_CORRIDOR};
+        for (int region : expected) {
+            int got = scheduler.next(W, H, roi);
+            assertEquals(region, got);
+            if (got == RoiScheduler.REGION_TARGET) {
+                // Square in pixels, inside the frame, containing the target centre
+                assertEquals((roi[2] - roi[0]) * W, (roi[3] - roi[1]) * H, 0.5f);
+                assertTrue(roi[0] >= 0f && roi[2] <= 1f && roi[1] >= 0f && roi[3] <= 1f);
+                assertTrue(roi[0] < 0.72f && roi[2] > 0.72f);
+            }
+            if (got == RoiScheduler.REGION_CORRIDOR) {
+                assertEquals(0.5f, (roi[0] + roi[2]) / 2f, 1e-5f);
+                assertTrue(roi[1] > 0.3f);
+            }
+        }
+    }
+
+    @Test
+    public void largeTargetUsesFullFrame() {
+        RoiScheduler scheduler = new RoiScheduler();
+        float[] roi = new float[4];
+        scheduler.next(W, H, roi);
+        scheduler.report(RoiScheduler.REGION_FULL, match(0.3f, 0.2f, 0.7f, 0.8f));
+        assertEquals(RoiScheduler.REGION_FULL, scheduler.next(W, H, roi));
+    }
+
+    @Test
+    public void lostTargetFallsBackToFullFrame() {
+        RoiScheduler scheduler = new RoiScheduler();
+        float[] roi = new float[4];
+        scheduler.next(W, H, roi);
+        scheduler.report(RoiScheduler.REGION_FULL, match(0.5f, 0.5f, 0.55f, 0.56f));
+        DetectionBatch none = new DetectionBatch(4);
+
+        // Corridor misses do not count against the target
+        for (int i = 0; i < 10 && scheduler.hasTarget(); i++) {
+            int region = scheduler.next(W, H, roi);
+            scheduler.report(region, none);
+        }
+        assertFalse(scheduler.hasTarget());
+        assertEquals(RoiScheduler.REGION_FULL, scheduler.next(W, H, roi));
+    }
+
+    @Test
+    public void cropDetectionsMapBackToFrame() {
+        float[] roi = {0.25f, 0.5f, 0.75f, 1f};
+        DetectionBatch batch = match(0f, 0f, 0.5f, 0.5f);
+        RoiScheduler.mapToFrame(roi, batch);
+        assertEquals(0.25f, batch.left[0], 1e-6f);
+        assertEquals(0.5f,  batch.top[0], 1e-6f);
+        assertEquals(0.5f,  batch.right[0], 1e-6f);
+        assertEquals(0.75f, batch.bottom[0], 1e-6f);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.smartguiderepo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Budget and fairness of the shared inference scheduler with two cameras.
+ */
+public class SourceSchedulerTest {
+
+    private static final long MS = 1_000_000L;
+
+    // Both cameras deliver a frame every 33 ms; returns inferences started per source
+    private static long[] run(SourceScheduler scheduler, boolean second, long durationMs) {
+        long[] runs = new long[2];
+        for (long t = 0; t < durationMs * MS; t += 33 * MS) {
+            for (int s = 0; s < (second ? 2 : 1); s++) {
+                long now = t + s * MS;
+                if (scheduler.mayRun(s, now)) {
+                    scheduler.acquired(s, now);
+                    runs[s]++;
+                }
+            }
+        }
+        return runs;
+    }
+
+    @Test
+    public void totalStaysWithinTheBudget() {
+        long[] runs = run(new SourceScheduler(2, 10f), true, 10_000);
+        assertTrue(runs[0] + runs[1] <= 101);
+        assertTrue(runs[0] + runs[1] >= 80);
+    }
+
+    @Test
+    public void twoActiveSourcesShareEvenly() {
+        long[] runs = run(new SourceScheduler(2, 10f), true, 10_000);
+        assertTrue(Math.abs(runs[0] - runs[1]) <= 1);
+    }
+
+    @Test
+    public void loneSourceGetsTheWholeBudget() {
+        long[] runs = run(new SourceScheduler(2, 10f), false, 10_000);
+        assertTrue(runs[0] >= 80);
+    }
+
+    @Test
+    public void sourceThatStopsAskingNoLongerHoldsUpTheOther() {
+        SourceScheduler scheduler = new SourceScheduler(2, 1000f);
+        assertTrue(scheduler.mayRun(1, 0));
+        scheduler.acquired(1, 0);
+        assertTrue(scheduler.mayRun(0, 10 * MS));
+        scheduler.acquired(0, 10 * MS);
+
+        // Source 1 is still active and was served less recently: it goes first
+        assertFalse(scheduler.mayRun(0, 20 * MS));
+        assertEquals(1, scheduler.deferred(0));
+
+        // Once it has been quiet for the active window, source 0 runs alone
+        long later = 10 * MS + SourceScheduler.ACTIVE_NANOS;
+        assertTrue(scheduler.mayRun(0, later));
+        scheduler.remove(1);
+        scheduler.acquired(0, later);
+        assertTrue(scheduler.mayRun(0, later + 10 * MS));
+    }
+}
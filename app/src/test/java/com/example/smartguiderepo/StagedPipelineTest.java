@@ -0,0 +1,196 @@
+package com.example.smartguiderepo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Frames flow through every stage in order and always return to the pool.
+ */
+public class StagedPipelineTest {
+
+    private static final class Frame {
+        int value;
+        int stagesSeen;
+    }
+
+    @Test
+    public void latestSlotReturnsDisplacedItem() {
+        LatestSlot<String> slot = new LatestSlot<>();
+        assertNull(slot.offer("a"));
+        assertEquals("a", slot.offer("b"));
+        assertEquals(1, slot.dropped());
+        assertEquals("b", slot.poll());
+        assertEquals(0, slot.depth());
+    }
+
+    @Test
+    public void framesPassAllStagesAndReturnToPool() throws Exception {
+        List<Frame> frames = new ArrayList<>();
+        for (int i = 0; i < 4; i++) frames.add(new Frame());
+        ObjectPool<Frame> pool = new ObjectPool<>(frames);
+
+        int total = 200;
+        CountDownLatch done = new CountDownLatch(1);
+        long[] completed = new long[1];
+        long[] lastValue = new long[1];
+        long[] skipped   = new long[1];
+
+        StagedPipeline<Frame> pipeline = new StagedPipeline<>(pool,
+                new String[]{"a", "b", "c"},
+                Arrays.<StagedPipeline.Stage<Frame>>asList(
+                        f -> { f.stagesSeen++; return true; },
+                        f -> { f.stagesSeen++; return f.value % 10 != 0; },   // rejects some
+                        f -> {
+                            if (f.stagesSeen != 2) skipped[0]++;
+                            completed[0]++;
+                            lastValue[0] = f.value;
+                            if (f.value == total - 1) done.countDown();
+                            return true;
+                        }),
+                Executors.defaultThreadFactory());
+        pipeline.start();
+
+        for (int i = 0; i < total; i++) {
+            Frame f;
+            while ((f = pipeline.acquire()) == null) Thread.yield();
+            f.value = i;
+            f.stagesSeen = 0;
+            pipeline.submit(f);
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        pipeline.stop();
+
+        assertEquals(total - 1, lastValue[0]);
+        assertEquals(0, skipped[0]);
+        assertTrue(completed[0] > 0 && completed[0] <= total - total / 10);
+        assertEquals(4, pool.available());
+    }
+
+    @Test
+    public void recyclerSeesEveryFrameOnceWhereverItLeaves() throws Exception {
+        List<Frame> frames = new ArrayList<>();
+        for (int i = 0; i < 3; i++) frames.add(new Frame());
+        ObjectPool<Frame> pool = new ObjectPool<>(frames);
+
+        int total = 100;
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicInteger recycled = new AtomicInteger();
+        AtomicInteger twice    = new AtomicInteger();
+        StagedPipeline<Frame> pipeline = new StagedPipeline<>(pool,
+                new String[]{"slow", "picky"},
+                Arrays.<StagedPipeline.Stage<Frame>>asList(
+                        f -> { spin(1_000_000); return true; },        // overtaken in its slot
+                        f -> {
+                            if (f.value == total - 1) done.countDown();
+                            return f.value % 3 != 0;                    // rejects some
+                        }),
+                Executors.defaultThreadFactory(),
+                f -> {
+                    if (f.stagesSeen != 1) twice.incrementAndGet();
+                    f.stagesSeen = 0;
+                    recycled.incrementAndGet();
+                });
+        pipeline.start();
+
+        int submitted = 0;
+        for (int i = 0; i < total; i++) {
+            Frame f;
+            while ((f = pipeline.acquire()) == null) Thread.yield();
+            f.value = i;
+            f.stagesSeen = 1;   // "holds something" until the recycler clears it
+            if (i % 7 == 0 && i != total - 1) {
+                pipeline.recycle(f);   // the capture side gives up on it
+            } else {
+                pipeline.submit(f);
+            }
+            submitted++;
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        pipeline.stop();
+
+        assertEquals(submitted, recycled.get());
+        assertEquals(0, twice.get());
+        assertEquals(3, pool.available());
+    }
+
+    @Test
+    public void stopWaitsForAStageInTheMiddleOfAFrame() throws Exception {
+        List<Frame> frames = new ArrayList<>();
+        for (int i = 0; i < 2; i++) frames.add(new Frame());
+        ObjectPool<Frame> pool = new ObjectPool<>(frames);
+
+        CountDownLatch entered  = new CountDownLatch(1);
+        AtomicInteger  finished = new AtomicInteger();
+        StagedPipeline<Frame> pipeline = new StagedPipeline<>(pool,
+                new String[]{"slow"},
+                Arrays.<StagedPipeline.Stage<Frame>>asList(
+                        f -> {
+                            entered.countDown();
+                            spin(800_000_000L);   // longer than any bounded join would wait
+                            finished.incrementAndGet();
+                            return true;
+                        }),
+                Executors.defaultThreadFactory());
+        pipeline.start();
+
+        pipeline.submit(pipeline.acquire());
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        pipeline.stop();
+
+        assertEquals(1, finished.get());
+        assertEquals(2, pool.available());
+    }
+
+    @Test
+    public void stageExceptionsAreCountedAndReported() throws Exception {
+        List<Frame> frames = new ArrayList<>();
+        for (int i = 0; i < 2; i++) frames.add(new Frame());
+        ObjectPool<Frame> pool = new ObjectPool<>(frames);
+
+        int total = 10;
+        CountDownLatch done     = new CountDownLatch(total);
+        AtomicInteger  reported = new AtomicInteger();
+        StagedPipeline<Frame> pipeline = new StagedPipeline<>(pool,
+                new String[]{"broken"},
+                Arrays.<StagedPipeline.Stage<Frame>>asList(
+                        f -> {
+                            done.countDown();
+                            if (f.value % 2 == 0) throw new IllegalStateException("bug");
+                            return true;
+                        }),
+                Executors.defaultThreadFactory());
+        pipeline.setErrorListener((stage, error) -> {
+            if (stage == 0 && error instanceof IllegalStateException) reported.incrementAndGet();
+        });
+        pipeline.start();
+
+        for (int i = 0; i < total; i++) {
+            Frame f;
+            while ((f = pipeline.acquire()) == null) Thread.yield();
+            f.value = i;
+            pipeline.submit(f);
+            while (pipeline.processed(0) < i + 1) Thread.yield();   // no frame overtaken
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        pipeline.stop();
+
+        assertEquals(total / 2, pipeline.failures(0));
+        assertEquals(total / 2, reported.get());
+        assertEquals(total / 2, pipeline.rejected(0));
+        assertEquals(2, pool.available());
+    }
+
+    private static void spin(long nanos) {
+        long until = System.nanoTime() + nanos;
+        while (System.nanoTime() < until) Thread.onSpinWait();
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.smartguiderepo;
+
+import org.tensorflow.lite.DataType;
+import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * {@link ReplayHarness.Engine} that runs the YOLO .tflite model on the host's TFLite CPU
+ * runtime, with the same tensor handling and {@link YoloPostprocessor} settings as
+ * {@link YoloDetector}. Only the resampling differs: frames are rotated and scaled with
+ * nearest-neighbour sampling here instead of a filtered Canvas draw, so boxes may move by
+ * a pixel or two against a device run.
+ *
+ * <p>The TFLite Java classes come from the app's dependencies; the interpreter itself
+ * needs a host build of {@code libtensorflowlite_jni.so} on {@code java.library.path}.</p>
+ */
+public class TfliteReplayEngine implements ReplayHarness.Engine {
+
+    private static final int MAX_CANDIDATES = 300;
+    private static final int MAX_RESULTS    = 10;
+
+    private final Interpreter       interpreter;
+    private final LabelTable        labels;
+    private final YoloPostprocessor postprocessor;
+
+    private final int        inputSize;
+    private final boolean    floatInput;
+    private final byte[]     quantLut = new byte[256];
+    private final ByteBuffer input;
+
+    private final ByteBuffer  output;
+    private final FloatBuffer outputFloats;
+    private final boolean     floatOutput;
+    private final float       outScale;
+    private final int         outZeroPoint;
+    private final boolean     outSigned;
+
+    public TfliteReplayEngine(File model, File labelFile, int numThreads) throws IOException {
+        List<String> labelList = Files.readAllLines(labelFile.toPath(), StandardCharsets.UTF_8);
+        labelList.removeIf(line -> line.trim().isEmpty());
+        labels = new LabelTable(labelList.toArray(new String[0]));
+
+        Interpreter.Options options = new Interpreter.Options();
+        options.setNumThreads(numThreads);
+        options.setUseXNNPACK(true);
+        interpreter = new Interpreter(model, options);
+
+        Tensor in = interpreter.getInputTensor(0);
+        inputSize  = in.shape()[1];
+        floatInput = in.dataType() == DataType.FLOAT32;
+        if (!floatInput) {
+            Tensor.QuantizationParams q = in.quantizationParams();
+            boolean signed = in.dataType() == DataType.INT8;
+            for (int v = 0; v < 256; v++) {
+                float scale = q.getScale() != 0f ? q.getScale() : 1f / 255f;
+                int   qv    = Math.round(v / 255f / scale) + q.getZeroPoint();
+                qv = Math.max(signed ? -128 : 0, Math.min(signed ? 127 : 255, qv));
+                quantLut[v] = (byte) qv;
+            }
+        }
+        input = ByteBuffer.allocateDirect(in.numBytes()).order(ByteOrder.nativeOrder());
+
+        Tensor out   = interpreter.getOutputTensor(0);
+        int[]  shape = out.shape();
+        boolean channelsFirst = shape[1] < shape[2];
+        int anchors  = channelsFirst ? shape[2] : shape[1];
+        int channels = channelsFirst ? shape[1] : shape[2];
+        boolean objectness = channels - 5 == labelList.size();
+        postprocessor = new YoloPostprocessor(anchors, channels - (objectness ? 5 : 4),
+                channelsFirst, objectness, MAX_CANDIDATES, MAX_RESULTS);
+
+        floatOutput  = out.dataType() == DataType.FLOAT32;
+        outScale     = floatOutput ? 1f : out.quantizationParams().getScale();
+        outZeroPoint = floatOutput ? 0  : out.quantizationParams().getZeroPoint();
+        outSigned    = out.dataType() == DataType.INT8;
+        output       = ByteBuffer.allocateDirect(out.numBytes()).order(ByteOrder.nativeOrder());
+        outputFloats = output.asFloatBuffer();
+    }
+
+    @Override
+    public LabelTable labels() {
+        return labels;
+    }
+
+    @Override
+    public void configure(DetectorConfig config) {
+        postprocessor.setScoreThreshold(config.scoreThreshold);
+        postprocessor.setMaxResults(config.maxResults);
+        postprocessor.setAllowedClasses(config.allowedClassIds(labels, postprocessor.numClasses()));
+    }
+
+    @Override
+    public void detect(int[] argb, int width, int height, int rotationDegrees, DetectionBatch out) {
+        fillInput(argb, width, height, rotationDegrees);
+        input.rewind();
+        output.rewind();
+        interpreter.run(input, output);
+
+        int n = floatOutput ? postprocessor.process(outputFloats)
+                            : postprocessor.process(output, outScale, outZeroPoint, outSigned);
+        for (int i = 0; i < n; i++) {
+            int o = i * 4;
+            out.add(postprocessor.classIds[i], postprocessor.scores[i], postprocessor.boxes[o],
+                    postprocessor.boxes[o + 1], postprocessor.boxes[o + 2], postprocessor.boxes[o + 3], 0f);
+        }
+    }
+
+    @Override
+    public void close() {
+        interpreter.close();
+    }
+
+    // Samples the upright frame onto the square input: each input pixel maps to an
+    // upright coordinate, which is then rotated back into the sensor-oriented buffer
+    private void fillInput(int[] argb, int width, int height, int rotationDegrees) {
+        int   rotation = (rotationDegrees / 90) & 3;
+        boolean sideways = (rotation & 1) != 0;
+        float scaleX = (sideways ? height : width) / (float) inputSize;
+        float scaleY = (sideways ? width : height) / (float) inputSize;
+
+        input.rewind();
+        for (int y = 0; y < inputSize; y++) {
+            int uy = (int) ((y + 0.5f) * scaleY);
+            for (int x = 0; x < inputSize; x++) {
+                int ux = (int) ((x + 0.5f) * scaleX);
+                int sx, sy;
+                switch (rotation) {
+                    case 1:  sx = uy;             sy = height - 1 - ux; break;
+                    case 2:  sx = width - 1 - ux; sy = height - 1 - uy; break;
+                    case 3:  sx = width - 1 - uy; sy = ux;              break;
+                    default: sx = ux;             sy = uy;              break;
+                }
+                int p = argb[sy * width + sx];
+                if (floatInput) {
+                    input.putFloat(((p >> 16) & 0xff) / 255f);
+                    input.putFloat(((p >> 8) & 0xff) / 255f);
+                    input.putFloat((p & 0xff) / 255f);
+                } else {
+                    input.put(quantLut[(p >> 16) & 0xff]);
+                    input.put(quantLut[(p >> 8) & 0xff]);
+                    input.put(quantLut[p & 0xff]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.smartguiderepo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Mode ranking against the Logitech C270's descriptors, which offer the same sizes in
+ * MJPEG and YUYV.
+ */
+public class UvcModeSelectorTest {
+
+    private static final int[][] C270_SIZES = {
+            {640, 480}, {160, 120}, {176, 144}, {320, 176}, {320, 240}, {352, 288}, {432, 240},
+            {544, 288}, {640, 360}, {752, 416}, {800, 448}, {800, 600}, {864, 480}, {960, 544},
+            {960, 720}, {1024, 576}, {1184, 656}, {1280, 720}, {1280, 960},
+    };
+
+    @Test
+    public void squareModelGetsTheSmallestCoveringFourByThree() {
+        UvcModeSelector.Mode best = UvcModeSelector.rank(c270(), 320, 320, 30).get(0);
+        // Covers 320 on both axes, squeezes less than 16:9, and YUYV skips the JPEG decode
+        assertMode(UvcModeSelector.FORMAT_YUYV, 640, 480, best);
+    }
+
+    @Test
+    public void busLimitPushesLargeModesToMjpeg() {
+        UvcModeSelector.Mode best = UvcModeSelector.rank(c270(), 640, 640, 30).get(0);
+        assertMode(UvcModeSelector.FORMAT_MJPEG, 960, 720, best);
+
+        // At a low frame rate the bus carries raw frames again
+        best = UvcModeSelector.rank(c270(), 640, 640, 5).get(0);
+        assertMode(UvcModeSelector.FORMAT_YUYV, 960, 720, best);
+    }
+
+    @Test
+    public void wideModelGetsAWideMode() {
+        UvcModeSelector.Mode best = UvcModeSelector.rank(c270(), 384, 216, 30).get(0);
+        assertMode(UvcModeSelector.FORMAT_YUYV, 432, 240, best);
+    }
+
+    @Test
+    public void modelLargerThanTheCameraGetsTheLargestMode() {
+        List<UvcModeSelector.Mode> ranked = UvcModeSelector.rank(c270(), 2048, 2048, 30);
+        assertMode(UvcModeSelector.FORMAT_MJPEG, 1280, 960, ranked.get(0));
+        assertEquals(C270_SIZES.length * 2, ranked.size());
+    }
+
+    @Test
+    public void fallbacksFollowInCostOrder() {
+        List<UvcModeSelector.Mode> ranked = UvcModeSelector.rank(c270(), 320, 320, 30);
+        // If the camera refuses raw 640x480 at 30 fps, the same size in MJPEG comes next
+        assertMode(UvcModeSelector.FORMAT_MJPEG, 640, 480, ranked.get(1));
+        UvcModeSelector.Mode last = ranked.get(ranked.size() - 1);
+        assertEquals(UvcModeSelector.FORMAT_YUYV, last.format);
+        assertTrue(2.0 * last.width * last.height * 30 > UvcModeSelector.USB_BYTES_PER_SECOND);
+    }
+
+    private static List<UvcModeSelector.Mode> c270() {
+        List<UvcModeSelector.Mode> modes = new ArrayList<>();
+        for (int[] s : C270_SIZES) modes.add(new UvcModeSelector.Mode(UvcModeSelector.FORMAT_MJPEG, s[0], s[1]));
+        for (int[] s : C270_SIZES) modes.add(new UvcModeSelector.Mode(UvcModeSelector.FORMAT_YUYV, s[0], s[1]));
+        return modes;
+    }
+
+    private static void assertMode(int format, int width, int height, UvcModeSelector.Mode mode) {
+        assertEquals(mode.toString(), format, mode.format);
+        assertEquals(mode.toString(), width, mode.width);
+        assertEquals(mode.toString(), height, mode.height);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.smartguiderepo;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Decode + NMS on hand-built YOLO output tensors.
+ */
+public class YoloPostprocessorTest {
+
+    // v8 layout: [4 + classes][anchors]
+    private static FloatBuffer v8(int anchors, int classes, float[][] rows) {
+        float[] raw = new float[(4 + classes) * anchors];
+        for (int a = 0; a < rows.length; a++)
+            for (int ch = 0; ch < rows[a].length; ch++)
+                raw[ch * anchors + a] = rows[a][ch];
+        return FloatBuffer.wrap(raw);
+    }
+
+    @Test
+    public void suppressesOverlapsOfSameClassOnly() {
+        FloatBuffer raw = v8(4, 2, new float[][]{
+                {0.50f, 0.50f, 0.20f, 0.20f, 0.90f, 0.0f},   // class 0, best
+                {0.51f, 0.50f, 0.20f, 0.20f, 0.80f, 0.0f},   // class 0, overlaps -> dropped
+                {0.50f, 0.50f, 0.20f, 0.20f, 0.0f,  0.70f},  // class 1, same place -> kept
+                {0.10f, 0.10f, 0.05f, 0.05f, 0.30f, 0.0f},   // below threshold
+        });
+        YoloPostprocessor p = new YoloPostprocessor(4, 2, true, false, 16, 8);
+        assertEquals(2, p.process(raw));
+        assertEquals(0, p.classIds[0]);
+        assertEquals(0.90f, p.scores[0], 1e-6);
+        assertEquals(1, p.classIds[1]);
+        assertEquals(0.40f, p.boxes[0], 1e-6);
+        assertEquals(0.60f, p.boxes[2], 1e-6);
+    }
+
+    @Test
+    public void appliesObjectnessInV5Layout() {
+        // v5 layout: [anchors][5 + classes]
+        FloatBuffer raw = FloatBuffer.wrap(new float[]{
+                0.5f, 0.5f, 0.2f, 0.2f, 0.9f, 0.9f,   // 0.81 -> kept
+                0.2f, 0.2f, 0.1f, 0.1f, 0.5f, 0.9f,   // 0.45 -> kept
+                0.8f, 0.8f, 0.1f, 0.1f, 0.3f, 1.0f,   // objectness below threshold
+        });
+        YoloPostprocessor p = new YoloPostprocessor(3, 1, false, true, 16, 8);
+        assertEquals(2, p.process(raw));
+        assertEquals(0.81f, p.scores[0], 1e-6);
+        assertEquals(0.45f, p.scores[1], 1e-6);
+    }
+
+    @Test
+    public void dequantizesInPlace() {
+        // uint8 with scale 1/250, zero point 5: q = v * 250 + 5; the buffer is left untouched
+        ByteBuffer raw = ByteBuffer.allocateDirect(6 * 2);
+        float[][] rows = {
+                {0.50f, 0.50f, 0.20f, 0.20f, 0.90f, 0.0f},
+                {0.10f, 0.10f, 0.04f, 0.04f, 0.0f,  0.60f},
+        };
+        for (int a = 0; a < 2; a++)
+            for (int ch = 0; ch < 6; ch++) raw.put(ch * 2 + a, (byte) Math.round(rows[a][ch] * 250 + 5));
+        YoloPostprocessor p = new YoloPostprocessor(2, 2, true, false, 16, 8);
+        assertEquals(2, p.process(raw, 1f / 250, 5, false));
+        assertEquals(0.90f, p.scores[0], 1e-6);
+        assertEquals(1, p.classIds[1]);
+        assertEquals(0.08f, p.boxes[4], 1e-6);
+        assertEquals(0, raw.position());
+    }
+
+    @Test
+    public void keepsStrongestWhenCandidatesOverflow() {
+        float[][] rows = new float[6][];
+        for (int a = 0; a < 6; a++) rows[a] = new float[]{0.1f + a * 0.15f, 0.5f, 0.05f, 0.05f, 0.5f + a * 0.05f};
+        YoloPostprocessor p = new YoloPostprocessor(6, 1, true, false, 3, 3);
+        assertEquals(3, p.process(v8(6, 1, rows)));
+        assertEquals(0.75f, p.scores[0], 1e-6);
+        assertEquals(0.65f, p.scores[2], 1e-6);
+    }
+
+    @Test
+    public void allowListSkipsOtherClassesAndCapsResults() {
+        FloatBuffer raw = v8(3, 3, new float[][]{
+                {0.2f, 0.5f, 0.1f, 0.1f, 0.95f, 0.0f, 0.0f},  // person, strongest overall
+                {0.5f, 0.5f, 0.1f, 0.1f, 0.0f,  0.0f, 0.50f}, // bottle
+                {0.8f, 0.5f, 0.1f, 0.1f, 0.0f,  0.0f, 0.45f}, // another bottle
+        });
+        YoloPostprocessor p = new YoloPostprocessor(3, 3, true, false, 16, 8);
+        p.setAllowedClasses(new int[]{2});
+        assertEquals(2, p.process(raw));
+        assertEquals(2, p.classIds[0]);
+        assertEquals(2, p.classIds[1]);
+
+        p.setMaxResults(1);
+        assertEquals(1, p.process(raw));
+        assertEquals(0.50f, p.scores[0], 1e-6);
+
+        p.setAllowedClasses(null);
+        assertEquals(1, p.process(raw));
+        assertEquals(0, p.classIds[0]);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.smartguiderepo;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * The NV21 kernels on known colours, and the in-place buffer variant against the array one.
+ */
+public class YuvKernelsTest {
+
+    private static final int W = 64;
+    private static final int H = 48;
+
+    private static byte[] randomFrame() {
+        byte[] nv21 = new byte[W * H * 3 / 2];
+        new Random(7).nextBytes(nv21);
+        return nv21;
+    }
+
+    @Test
+    public void greyAndClampedColoursConvert() {
+        byte[] nv21 = new byte[W * H * 3 / 2];
+        Arrays.fill(nv21, 0, W * H, (byte) 16);       // video black
+        Arrays.fill(nv21, W * H, nv21.length, (byte) 128);
+        int[] argb = new int[W * H];
+        YuvKernels.nv21ToArgb(nv21, W, H, argb);
+        assertEquals(0xff000000, argb[0]);
+
+        Arrays.fill(nv21, 0, W * H, (byte) 255);      // above video white, clamped
+        YuvKernels.nv21ToArgb(nv21, W, H, argb);
+        assertEquals(0xffffffff, argb[W * H - 1]);
+    }
+
+    @Test
+    public void directBufferMatchesArray() {
+        byte[] nv21 = randomFrame();
+        int[] expected = new int[W * H];
+        YuvKernels.nv21ToArgb(nv21, W, H, expected);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(nv21.length);
+        direct.put(nv21).position(5);   // the kernel reads from index 0 whatever the position
+        int[] actual = new int[W * H];
+        YuvKernels.nv21ToArgb(direct, W, H, actual);
+        assertArrayEquals(expected, actual);
+        assertEquals(5, direct.position());
+    }
+}
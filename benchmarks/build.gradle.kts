@@ -0,0 +1,43 @@
+// JMH microbenchmarks for the app's plain-Java kernels, run on a desktop JVM:
+//   ./gradlew :benchmarks:jmh                                   (everything)
+//   ./gradlew :benchmarks:jmh -Pjmh.includes=YoloDecode          (one class)
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// The kernels are compiled straight from the app's sources; only files free of
+// android.* can be listed here
+sourceSets {
+    main {
+        java {
+            setSrcDirs(listOf("../app/src/main/java"))
+            include(
+                "com/example/smartguiderepo/YuvKernels.java",
+                "com/example/smartguiderepo/CaptionFormatter.java",
+                "com/example/smartguiderepo/YoloPostprocessor.java",
+                "com/example/smartguiderepo/DetectionFilter.java",
+                "com/example/smartguiderepo/DetectionBatch.java",
+                "com/example/smartguiderepo/LabelTable.java"
+            )
+        }
+    }
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmhCore)
+    profilers.add("gc")          // bytes allocated per operation next to every score
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    (project.findProperty("jmh.includes") as String?)?.let { includes.add(it) }
+}
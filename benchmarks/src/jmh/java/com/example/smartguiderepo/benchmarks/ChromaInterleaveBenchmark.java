@@ -0,0 +1,77 @@
+package com.example.smartguiderepo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * YUV_420_888 chroma planes → NV21 VU interleave, as done in
+ * {@code Camera2Strategy.mPreviewAvailableListener} (libausbc). The planes are laid out
+ * the way most Camera2 HALs deliver them: one semi-planar VU buffer, exposed as a V
+ * plane and a U plane one byte apart, both with a pixel stride of 2.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChromaInterleaveBenchmark {
+
+    @Param({"640x480", "1280x720", "1920x1080"})
+    public String size;
+
+    private int        ySize;
+    private ByteBuffer vPlane, uPlane;
+    private byte[]     nv21;
+
+    @Setup
+    public void setUp() {
+        String[] wh = size.split("x");
+        int width  = Integer.parseInt(wh[0]);
+        int height = Integer.parseInt(wh[1]);
+        ySize = width * height;
+
+        byte[] vu = new byte[ySize / 2];
+        new Random(42).nextBytes(vu);
+        ByteBuffer chroma = ByteBuffer.allocateDirect(vu.length);
+        chroma.put(vu).clear();
+        vPlane = chroma.duplicate();
+        vPlane.limit(vu.length - 1);
+        uPlane = chroma.duplicate();
+        uPlane.position(1);
+        uPlane = uPlane.slice();
+        nv21 = new byte[ySize * 3 / 2];
+    }
+
+    /** The library's loop: one absolute get per chroma sample, V pass then U pass. */
+    @Benchmark
+    public byte[] perSample() {
+        int vStride = 2, uStride = 2;
+        for (int index = 0, i = 0; i < vPlane.remaining(); i += vStride, index++)
+            nv21[ySize + 2 * index] = vPlane.get(i);
+        for (int index = 0, i = 0; i < uPlane.remaining(); i += uStride, index++)
+            nv21[ySize + 2 * index + 1] = uPlane.get(i);
+        return nv21;
+    }
+
+    /**
+     * When the V plane already is VU-interleaved (pixel stride 2, U one byte behind),
+     * it is NV21's chroma minus the last U sample: one bulk copy plus a single byte.
+     */
+    @Benchmark
+    public byte[] bulkOverlap() {
+        int chromaLen = nv21.length - ySize;
+        ByteBuffer v = vPlane.duplicate();
+        int n = Math.min(v.remaining(), chromaLen - 1);
+        v.get(nv21, ySize, n);
+        nv21[nv21.length - 1] = uPlane.get(uPlane.limit() - 1);
+        return nv21;
+    }
+}
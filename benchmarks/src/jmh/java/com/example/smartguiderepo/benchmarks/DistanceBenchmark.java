@@ -0,0 +1,80 @@
+package com.example.smartguiderepo.benchmarks;
+
+import com.example.smartguiderepo.DetectionBatch;
+import com.example.smartguiderepo.DetectionFilter;
+import com.example.smartguiderepo.LabelTable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pinhole distances for a full batch of detections: the per-class-id width table behind
+ * {@link DetectionFilter} against the original {@code OBJECT_WIDTHS} lookup by label
+ * string in a {@code HashMap<String, Float>}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DistanceBenchmark {
+
+    private static final String[] LABELS = {"person", "bicycle", "car", "chair", "bottle", "laptop", "door", "cell phone"};
+    private static final int DETECTIONS = 16;
+    private static final float FOCAL_LENGTH = 650f;
+
+    private static final Map<String, Float> OBJECT_WIDTHS = new HashMap<>();
+    static {
+        OBJECT_WIDTHS.put("person",     45f);
+        OBJECT_WIDTHS.put("door",       90f);
+        OBJECT_WIDTHS.put("chair",      50f);
+        OBJECT_WIDTHS.put("laptop",     35f);
+        OBJECT_WIDTHS.put("cell phone", 15f);
+        OBJECT_WIDTHS.put("bottle",      8f);
+    }
+
+    @Param({"640x480", "1280x720", "1920x1080"})
+    public String size;
+
+    private int            uprightWidth;
+    private DetectionBatch batch;
+    private float[]        distances = new float[DETECTIONS];
+
+    @Setup
+    public void setUp() {
+        uprightWidth = Integer.parseInt(size.split("x")[0]);
+        batch = new DetectionBatch(DETECTIONS);
+        batch.labels = new LabelTable(LABELS);
+        Random random = new Random(42);
+        for (int i = 0; i < DETECTIONS; i++) {
+            float l = random.nextFloat() * 0.7f, t = random.nextFloat() * 0.7f;
+            batch.add(i % LABELS.length, 0.5f, l, t, l + 0.05f + random.nextFloat() * 0.25f,
+                    t + 0.1f, 0f);
+        }
+    }
+
+    @Benchmark
+    public DetectionBatch classIdTable() {
+        DetectionFilter.filterAndMeasure(batch, null, uprightWidth);
+        return batch;
+    }
+
+    @Benchmark
+    public float[] labelHashMap() {
+        for (int i = 0; i < batch.count; i++) {
+            float knownWidth = OBJECT_WIDTHS.getOrDefault(batch.label(i), 40f);
+            float widthPx    = (batch.right[i] - batch.left[i]) * uprightWidth;
+            distances[i] = (knownWidth * FOCAL_LENGTH / widthPx) / 100f;
+        }
+        return distances;
+    }
+}
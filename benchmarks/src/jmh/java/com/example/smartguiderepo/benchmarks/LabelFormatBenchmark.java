@@ -0,0 +1,68 @@
+package com.example.smartguiderepo.benchmarks;
+
+import com.example.smartguiderepo.CaptionFormatter;
+import com.example.smartguiderepo.LabelTable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-box caption the overlay builds on every frame: the original String.format call
+ * against {@link CaptionFormatter}. Captions do not depend on the frame size, so the
+ * parameter is the number of boxes on screen.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LabelFormatBenchmark {
+
+    private static final String[] LABELS = {"person", "chair", "door", "bottle"};
+
+    @Param({"1", "4", "16"})
+    public int boxes;
+
+    private final LabelTable       labels    = new LabelTable(LABELS);
+    private final CaptionFormatter formatter = new CaptionFormatter();
+    private final char[]           captions  = new char[16 * CaptionFormatter.MAX_LENGTH];
+
+    private float[] scores, distances;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        scores    = new float[boxes];
+        distances = new float[boxes];
+        for (int i = 0; i < boxes; i++) {
+            scores[i]    = 0.3f + random.nextFloat() * 0.7f;
+            distances[i] = 0.3f + random.nextFloat() * 8f;
+        }
+    }
+
+    @Benchmark
+    public void stringFormat(Blackhole bh) {
+        for (int i = 0; i < boxes; i++) {
+            bh.consume(String.format("%s %.0f%% (%.1fm)",
+                    LABELS[i % LABELS.length], scores[i] * 100, distances[i]));
+        }
+    }
+
+    /** What OverlayView does now: cached label chars and digits written into a reused char[]. */
+    @Benchmark
+    public char[] charBuffer() {
+        for (int i = 0; i < boxes; i++) {
+            formatter.format(labels, i % LABELS.length, scores[i], distances[i],
+                    captions, i * CaptionFormatter.MAX_LENGTH);
+        }
+        return captions;
+    }
+}
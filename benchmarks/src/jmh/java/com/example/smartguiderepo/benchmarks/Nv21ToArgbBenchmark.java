@@ -0,0 +1,81 @@
+package com.example.smartguiderepo.benchmarks;
+
+import com.example.smartguiderepo.YuvKernels;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NV21 → ARGB_8888: the fixed-point kernel against a straightforward floating-point
+ * BT.601 conversion of the same frame, and the kernel reading a direct buffer in place,
+ * as the UVC path does with a leased frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class Nv21ToArgbBenchmark {
+
+    @Param({"640x480", "1280x720", "1920x1080"})
+    public String size;
+
+    private int    width, height;
+    private byte[]     nv21;
+    private ByteBuffer direct;
+    private int[]      argb;
+
+    @Setup
+    public void setUp() {
+        String[] wh = size.split("x");
+        width  = Integer.parseInt(wh[0]);
+        height = Integer.parseInt(wh[1]);
+        nv21   = new byte[width * height * 3 / 2];
+        new Random(42).nextBytes(nv21);
+        direct = ByteBuffer.allocateDirect(nv21.length);
+        direct.put(nv21).rewind();
+        argb   = new int[width * height];
+    }
+
+    @Benchmark
+    public int[] fixedPoint() {
+        YuvKernels.nv21ToArgb(nv21, width, height, argb);
+        return argb;
+    }
+
+    @Benchmark
+    public int[] fixedPointDirect() {
+        YuvKernels.nv21ToArgb(direct, width, height, argb);
+        return argb;
+    }
+
+    @Benchmark
+    public int[] floatReference() {
+        final int frameSize = width * height;
+        for (int j = 0; j < height; j++) {
+            int uvp = frameSize + (j >> 1) * width;
+            for (int i = 0; i < width; i++) {
+                float y = 1.164f * Math.max(0, (nv21[j * width + i] & 0xff) - 16);
+                float v = (nv21[uvp + (i & ~1)] & 0xff) - 128;
+                float u = (nv21[uvp + (i & ~1) + 1] & 0xff) - 128;
+                int r = clamp(y + 1.596f * v);
+                int g = clamp(y - 0.813f * v - 0.391f * u);
+                int b = clamp(y + 2.018f * u);
+                argb[j * width + i] = 0xff000000 | (r << 16) | (g << 8) | b;
+            }
+        }
+        return argb;
+    }
+
+    private static int clamp(float c) {
+        return c < 0 ? 0 : c > 255 ? 255 : (int) c;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.smartguiderepo.benchmarks;
+
+import com.example.smartguiderepo.YoloPostprocessor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * YOLOv8 output decode + class-wise NMS in {@link YoloPostprocessor}. The frame size sets
+ * the model input (its shorter side, rounded to the 32-pixel stride) and with it the
+ * anchor count; scores are mostly background with clusters of overlapping boxes. The
+ * tensor sits in a direct buffer, as the interpreter's output does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class YoloDecodeBenchmark {
+
+    private static final int CLASSES = 80;
+
+    @Param({"640x480", "1280x720", "1920x1080"})
+    public String size;
+
+    /** Restricts decoding to one class, as Finder mode does. */
+    @Param({"false", "true"})
+    public boolean finder;
+
+    private YoloPostprocessor postprocessor;
+    private FloatBuffer       output;
+
+    @Setup
+    public void setUp() {
+        int input   = Math.min(640, Integer.parseInt(size.split("x")[1]) / 32 * 32);
+        int anchors = 0;
+        for (int stride = 8; stride <= 32; stride *= 2) anchors += (input / stride) * (input / stride);
+
+        postprocessor = new YoloPostprocessor(anchors, CLASSES, true, false, 300, 10);
+        if (finder) postprocessor.setAllowedClasses(new int[]{39});
+        float[] raw = new float[postprocessor.outputSize()];
+
+        Random random = new Random(42);
+        for (int a = 0; a < anchors; a++) {
+            raw[a]               = random.nextFloat();
+            raw[anchors + a]     = random.nextFloat();
+            raw[2 * anchors + a] = 0.05f + random.nextFloat() * 0.2f;
+            raw[3 * anchors + a] = 0.05f + random.nextFloat() * 0.2f;
+            for (int c = 0; c < CLASSES; c++) raw[(4 + c) * anchors + a] = random.nextFloat() * 0.1f;
+        }
+        // A handful of objects, each seen by a cluster of neighbouring anchors
+        for (int obj = 0; obj < 8; obj++) {
+            int cls = obj % 2 == 0 ? 0 : 39;
+            float cx = random.nextFloat(), cy = random.nextFloat();
+            for (int k = 0; k < 20; k++) {
+                int a = random.nextInt(anchors);
+                raw[a]               = cx + random.nextFloat() * 0.01f;
+                raw[anchors + a]     = cy + random.nextFloat() * 0.01f;
+                raw[(4 + cls) * anchors + a] = 0.5f + random.nextFloat() * 0.5f;
+            }
+        }
+        output = ByteBuffer.allocateDirect(raw.length * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        output.put(raw).rewind();
+    }
+
+    @Benchmark
+    public int decodeAndNms() {
+        return postprocessor.process(output);
+    }
+}
@@ -23,7 +23,13 @@ dependencyResolutionManagement {
 rootProject.name = "SmartGuideRepo"
 include(":app")
 
+// Desktop-JVM microbenchmarks of the app's pure-Java kernels
+include(":benchmarks")
+
 // UVC camera library (cloned from github.com/jiangdongguo/AndroidUSBCamera)
 include(":libuvc")
 project(":libuvc").projectDir = File("usbcamera/libuvc")
- 
\ No newline at end of file
+ 
+// Small JNI helpers from the same project, built from source (thread affinity for inference)
+include(":libnative")
+project(":libnative").projectDir = File("usbcamera/libnative")
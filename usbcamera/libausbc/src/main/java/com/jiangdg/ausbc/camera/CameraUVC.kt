@@ -35,7 +35,7 @@ import com.jiangdg.ausbc.utils.CameraUtils
 import com.jiangdg.ausbc.utils.Logger
 import com.jiangdg.ausbc.utils.MediaUtils
 import com.jiangdg.ausbc.utils.Utils
-import com.jiangdg.uvc.IFrameCallback
+import com.jiangdg.uvc.IFrameLeaseCallback
 import com.jiangdg.uvc.UVCCamera
 import java.io.File
 import java.util.concurrent.TimeUnit
@@ -50,15 +50,15 @@ class CameraUVC(ctx: Context, device: UsbDevice) : MultiCameraClient.ICamera(ctx
         arrayListOf<PreviewSize>()
     }
 
-    private val frameCallBack = IFrameCallback { frame ->
-        frame?.apply {
-            frame.position(0)
-            val data = ByteArray(capacity())
-            get(data)
+    // The consumers below keep the data, so it is copied out of the lease once, then released
+    private val frameCallBack = IFrameLeaseCallback { lease ->
+        try {
             mCameraRequest?.apply {
-                if (data.size != previewWidth * previewHeight * 3 / 2) {
-                    return@IFrameCallback
+                if (lease.size != previewWidth * previewHeight * 3 / 2) {
+                    return@IFrameLeaseCallback
                 }
+                val data = ByteArray(lease.size)
+                lease.copyTo(data)
                 // for preview callback
                 mPreviewDataCbList.forEach { cb ->
                     cb?.onPreviewData(data, previewWidth, previewHeight, IPreviewDataCallBack.DataFormat.NV21)
@@ -72,6 +72,8 @@ class CameraUVC(ctx: Context, device: UsbDevice) : MultiCameraClient.ICamera(ctx
                 // avoid preview size changed
                 putVideoData(data)
             }
+        } finally {
+            lease.release()
         }
     }
 
@@ -194,7 +196,7 @@ class CameraUVC(ctx: Context, device: UsbDevice) : MultiCameraClient.ICamera(ctx
         // if not opengl render or opengl render with preview callback
         // there should opened
         if (! isNeedGLESRender || mCameraRequest!!.isRawPreviewData || mCameraRequest!!.isCaptureRawImage) {
-            mUvcCamera?.setFrameCallback(frameCallBack, UVCCamera.PIXEL_FORMAT_YUV420SP)
+            mUvcCamera?.setFrameLeaseCallback(frameCallBack, UVCCamera.PIXEL_FORMAT_YUV420SP)
         }
         // 3. start preview
         when(cameraView) {
@@ -0,0 +1,4 @@
+# Natives are registered by class and method name in JNI_OnLoad
+-keep class com.jiangdg.natives.CpuAffinity {
+    native <methods>;
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017-2022 Jiangdg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Entry of libcpuaffinity: registers only the CpuAffinity natives.
+ */
+#include <jni.h>
+#include "utils/logger.h"
+#include "proxy/proxy_affinity.h"
+
+#define NUM_METHODS(x) ((int)(sizeof(x)/ sizeof(x[0])))
+static const char * affinityClsPath = "com/jiangdg/natives/CpuAffinity";
+
+static JNINativeMethod g_affinity_methods[] = {
+        {"setThreadAffinity", "(IJ)I", (void *)setThreadAffinity},
+        {"getThreadAffinity", "(I)J", (void *)getThreadAffinity},
+};
+
+extern "C"
+JNIEXPORT jint JNICALL JNI_OnLoad(JavaVM* jvm, void* reserved) {
+    JNIEnv *env;
+    if(JNI_OK != jvm->GetEnv(reinterpret_cast<void **>(&env), JNI_VERSION_1_4)) {
+        LOGE("Get JNIEnv failed");
+        return JNI_ERR;
+    }
+    jclass cls = env->FindClass(affinityClsPath);
+    if (cls == nullptr) {
+        LOGE("CpuAffinity class not found");
+        return JNI_ERR;
+    }
+    int ret = env->RegisterNatives(cls, g_affinity_methods, NUM_METHODS(g_affinity_methods));
+    env->DeleteLocalRef(cls);
+    if (ret < 0) {
+        LOG_E("Register thread affinity natives failed, ret = %d", ret);
+        return JNI_ERR;
+    }
+    return JNI_VERSION_1_4;
+}
@@ -0,0 +1,29 @@
+/**
+ * Thread CPU affinity, by kernel thread id.
+ */
+#include "affinity.h"
+#include <errno.h>
+#include <sched.h>
+
+int setThreadAffinityInternal(pid_t tid, uint64_t mask) {
+    if (mask == 0) return -EINVAL;
+    cpu_set_t set;
+    CPU_ZERO(&set);
+    for (int cpu = 0; cpu < 64 && cpu < CPU_SETSIZE; cpu++) {
+        if (mask & (1ULL << cpu)) CPU_SET(cpu, &set);
+    }
+    // The kernel intersects the set with the thread's cpuset and fails with EINVAL
+    // if nothing is left, e.g. when a background cpuset excludes the big cores
+    return sched_setaffinity(tid, sizeof(set), &set) == 0 ? 0 : -errno;
+}
+
+int64_t getThreadAffinityInternal(pid_t tid) {
+    cpu_set_t set;
+    CPU_ZERO(&set);
+    if (sched_getaffinity(tid, sizeof(set), &set) != 0) return -errno;
+    uint64_t mask = 0;
+    for (int cpu = 0; cpu < 64 && cpu < CPU_SETSIZE; cpu++) {
+        if (CPU_ISSET(cpu, &set)) mask |= 1ULL << cpu;
+    }
+    return (int64_t) (mask & INT64_MAX);
+}
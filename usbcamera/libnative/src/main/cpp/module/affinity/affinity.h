@@ -0,0 +1,24 @@
+/**
+ * Thread CPU affinity, by kernel thread id.
+ *
+ * Masks are one bit per CPU, CPU n being bit n, so only the first 64 CPUs are covered.
+ */
+
+#ifndef ANDROIDUSBCAMERA_AFFINITY_H
+#define ANDROIDUSBCAMERA_AFFINITY_H
+
+#ifdef __cplusplus
+extern "C" {
+#endif
+#include <stdint.h>
+#include <sys/types.h>
+
+/** Restricts thread tid to the CPUs in mask. Returns 0, or -errno on failure. */
+int setThreadAffinityInternal(pid_t tid, uint64_t mask);
+/** The CPUs thread tid may run on, or -errno on failure. */
+int64_t getThreadAffinityInternal(pid_t tid);
+
+#ifdef __cplusplus
+};
+#endif
+#endif //ANDROIDUSBCAMERA_AFFINITY_H
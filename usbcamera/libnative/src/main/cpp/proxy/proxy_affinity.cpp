@@ -0,0 +1,30 @@
+/*
+ * Copyright 2017-2022 Jiangdg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Proxy of thread affinity.
+ */
+#include "proxy_affinity.h"
+
+jint setThreadAffinity(JNIEnv *env, jclass clazz, jint tid, jlong mask) {
+    int ret = setThreadAffinityInternal((pid_t) tid, (uint64_t) mask);
+    if (ret < 0) {
+        LOG_E("sched_setaffinity(%d, 0x%llx) failed, errno = %d", tid, (unsigned long long) mask, -ret);
+    }
+    return ret;
+}
+
+jlong getThreadAffinity(JNIEnv *env, jclass clazz, jint tid) {
+    return getThreadAffinityInternal((pid_t) tid);
+}
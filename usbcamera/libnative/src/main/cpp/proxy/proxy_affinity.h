@@ -0,0 +1,34 @@
+/*
+ * Copyright 2017-2022 Jiangdg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Proxy of thread affinity.
+ */
+#ifndef ANDROIDUSBCAMERA_PROXY_AFFINITY_H
+#define ANDROIDUSBCAMERA_PROXY_AFFINITY_H
+#ifdef __cplusplus
+extern "C" {
+#endif
+
+#include <jni.h>
+#include "../module/affinity/affinity.h"
+#include "../utils/logger.h"
+
+jint setThreadAffinity(JNIEnv *env, jclass clazz, jint tid, jlong mask);
+jlong getThreadAffinity(JNIEnv *env, jclass clazz, jint tid);
+
+#ifdef __cplusplus
+};
+#endif
+#endif //ANDROIDUSBCAMERA_PROXY_AFFINITY_H
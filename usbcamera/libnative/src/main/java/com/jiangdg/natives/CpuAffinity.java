@@ -0,0 +1,39 @@
+/*
+ * Copyright 2017-2022 Jiangdg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jiangdg.natives;
+
+/**
+ * Thread CPU affinity by kernel thread id ({@code android.os.Process.myTid()}), which
+ * the framework has no API for. Masks hold one bit per CPU, CPU n being bit n.
+ */
+public final class CpuAffinity {
+    static {
+        System.loadLibrary("cpuaffinity");
+    }
+
+    private CpuAffinity() {}
+
+    /**
+     * Restricts thread {@code tid} to the CPUs in {@code mask}.
+     *
+     * @return 0, or a negative errno: -EINVAL when the mask has no CPU the thread's
+     *         cpuset allows, -ESRCH when the thread has exited
+     */
+    public static native int setThreadAffinity(int tid, long mask);
+
+    /** @return the CPUs thread {@code tid} may run on, or a negative errno */
+    public static native long getThreadAffinity(int tid);
+}
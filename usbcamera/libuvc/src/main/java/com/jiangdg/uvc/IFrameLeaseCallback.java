@@ -0,0 +1,17 @@
+package com.jiangdg.uvc;
+
+/**
+ * Receives frames lent by {@link UVCCamera#setFrameLeaseCallback}. Unlike
+ * {@link IFrameCallback}, the frame stays valid after this method returns, even after
+ * the camera is closed: it is the native frame itself, and it is not reused until
+ * {@link UVCFrameLease#release()}.
+ * Frames that arrive while every lease is held are dropped, so hold a lease only as
+ * long as the data is needed.
+ */
+public interface IFrameLeaseCallback {
+	/**
+	 * Called on the camera's capture thread. The callee owns {@code lease} and must
+	 * release it exactly once, on any thread, including when it decides to skip the frame.
+	 */
+	void onFrame(UVCFrameLease lease);
+}
@@ -25,6 +25,7 @@ package com.jiangdg.uvc;
 
 import android.graphics.SurfaceTexture;
 import android.hardware.usb.UsbDevice;
+import android.os.SystemClock;
 import android.text.TextUtils;
 import android.view.Surface;
 import android.view.SurfaceHolder;
@@ -131,6 +132,10 @@ public class UVCCamera {
 	protected float mCurrentBandwidthFactor = DEFAULT_BANDWIDTH;
     protected String mSupportedSize;
     protected List<Size> mCurrentSizeList;
+    private UVCCapabilityCache mCapabilityCache;
+    private UVCCapabilities mCapabilities;	// null: fall back to the native JSON
+    private boolean mLimitsKnown;			// control ranges probed or loaded; they never change
+    private UVCFrameLeases mFrameLeases;
 	// these fields from here are accessed from native code and do not change name and remove
     protected long mNativePtr;
     protected int mScanningModeMin, mScanningModeMax, mScanningModeDef;
@@ -185,7 +190,21 @@ public class UVCCamera {
      * USB permission is necessary before this method is called
      * @param ctrlBlock
      */
+    /**
+     * Keeps this camera's formats and control ranges in {@code cache}, so the next open
+     * of the same camera skips reading them. Set before {@link #open}.
+     */
+    public void setCapabilityCache(final UVCCapabilityCache cache) {
+    	mCapabilityCache = cache;
+    }
+
+    /** Formats, frame intervals and control ranges of the open camera, or null if unknown. */
+    public UVCCapabilities getCapabilities() {
+    	return mCapabilities;
+    }
+
     public synchronized void open(final UsbControlBlock ctrlBlock) {
+    	final long openStart = SystemClock.elapsedRealtimeNanos();
     	int result = -2;
 		StringBuilder sb = new StringBuilder();
 		close();
@@ -217,7 +236,8 @@ public class UVCCamera {
 					+";usbfs="+(mCtrlBlock==null ? "": getUSBFSName(mCtrlBlock))+"\n"+"Exception："+sb.toString());
 		}
 		mCurrentFrameFormat = FRAME_FORMAT_MJPEG;
-    	if (mNativePtr != 0 && TextUtils.isEmpty(mSupportedSize)) {
+		final boolean cached = loadCapabilities();
+    	if (mCapabilities == null && mNativePtr != 0 && TextUtils.isEmpty(mSupportedSize)) {
     		mSupportedSize = nativeGetSupportedSize(mNativePtr);
     	}
     	if (USBMonitor.DEBUG) {
@@ -230,6 +250,94 @@ public class UVCCamera {
 		}
 		nativeSetPreviewSize(mNativePtr, mCurrentWidth, mCurrentHeight,
 			DEFAULT_PREVIEW_MIN_FPS, DEFAULT_PREVIEW_MAX_FPS, DEFAULT_PREVIEW_MODE, DEFAULT_BANDWIDTH);
+		final long openMs = (SystemClock.elapsedRealtimeNanos() - openStart) / 1000000;
+		if (cached) {
+			XLogWrapper.i(TAG, String.format("open %04x:%04x took %d ms; cached capabilities saved %.1f ms",
+				mCtrlBlock.getVenderId(), mCtrlBlock.getProductId(), openMs, mCapabilities.probeNanos / 1e6));
+		} else if (mCapabilities != null) {
+			XLogWrapper.i(TAG, String.format("open %04x:%04x took %d ms, %.1f ms of it reading capabilities",
+				mCtrlBlock.getVenderId(), mCtrlBlock.getProductId(), openMs, mCapabilities.probeNanos / 1e6));
+		}
+    }
+
+    /**
+     * Takes formats and control ranges from the cache when the camera is known there;
+     * otherwise reads the formats from the raw descriptors, probes the controls and
+     * stores both. Returns true on a cache hit.
+     */
+    private boolean loadCapabilities() {
+    	mCapabilities = null;
+    	mLimitsKnown = false;
+    	final byte[] raw;
+    	try {
+    		raw = mCtrlBlock.getRawDescriptors();
+    	} catch (final IllegalStateException e) {
+    		return false;
+    	}
+    	if (raw == null) return false;
+    	final long start = SystemClock.elapsedRealtimeNanos();
+    	final long crc = UVCCapabilities.checksum(raw);
+    	final int vendorId = mCtrlBlock.getVenderId();
+    	final int productId = mCtrlBlock.getProductId();
+    	final String serial = mCtrlBlock.getSerial();
+    	if (mCapabilityCache != null) {
+    		final UVCCapabilities cached = mCapabilityCache.load(vendorId, productId, serial, crc);
+    		if (cached != null) {
+    			mCapabilities = cached;
+    			if (cached.hasControls() && cached.limits.length == LIMIT_VALUES) {
+    				mControlSupports = cached.ctrlSupports;
+    				mProcSupports = cached.procSupports;
+    				setLimits(cached.limits);
+    				mLimitsKnown = true;
+    			}
+    			return true;
+    		}
+    	}
+    	final UVCCapabilities caps = UVCCapabilities.fromDescriptors(raw);
+    	if (caps == null) return false;
+    	mCapabilities = caps;
+    	if (mCapabilityCache == null) return false;
+    	updateCameraParams();	// probe now, so the ranges can be stored with the formats
+    	if (mLimitsKnown) {
+    		caps.ctrlSupports = mControlSupports;
+    		caps.procSupports = mProcSupports;
+    		caps.limits = getLimits();
+    	}
+    	caps.probeNanos = SystemClock.elapsedRealtimeNanos() - start;
+    	mCapabilityCache.save(vendorId, productId, serial, caps);
+    	return false;
+    }
+
+    // The ranges updateCameraParams() probes, in the order getLimits() lists them
+    private static final int LIMIT_VALUES = 30;
+
+    private int[] getLimits() {
+    	return new int[] {
+    		mBrightnessMin, mBrightnessMax, mBrightnessDef,
+    		mContrastMin, mContrastMax, mContrastDef,
+    		mSharpnessMin, mSharpnessMax, mSharpnessDef,
+    		mGainMin, mGainMax, mGainDef,
+    		mGammaMin, mGammaMax, mGammaDef,
+    		mSaturationMin, mSaturationMax, mSaturationDef,
+    		mHueMin, mHueMax, mHueDef,
+    		mZoomMin, mZoomMax, mZoomDef,
+    		mWhiteBlanceMin, mWhiteBlanceMax, mWhiteBlanceDef,
+    		mFocusMin, mFocusMax, mFocusDef,
+    	};
+    }
+
+    private void setLimits(final int[] v) {
+    	int i = 0;
+    	mBrightnessMin = v[i++]; mBrightnessMax = v[i++]; mBrightnessDef = v[i++];
+    	mContrastMin = v[i++]; mContrastMax = v[i++]; mContrastDef = v[i++];
+    	mSharpnessMin = v[i++]; mSharpnessMax = v[i++]; mSharpnessDef = v[i++];
+    	mGainMin = v[i++]; mGainMax = v[i++]; mGainDef = v[i++];
+    	mGammaMin = v[i++]; mGammaMax = v[i++]; mGammaDef = v[i++];
+    	mSaturationMin = v[i++]; mSaturationMax = v[i++]; mSaturationDef = v[i++];
+    	mHueMin = v[i++]; mHueMax = v[i++]; mHueDef = v[i++];
+    	mZoomMin = v[i++]; mZoomMax = v[i++]; mZoomDef = v[i++];
+    	mWhiteBlanceMin = v[i++]; mWhiteBlanceMax = v[i++]; mWhiteBlanceDef = v[i++];
+    	mFocusMin = v[i++]; mFocusMax = v[i++]; mFocusDef = v[i];
     }
 
 	/**
@@ -270,6 +378,8 @@ public class UVCCamera {
 		mCurrentBandwidthFactor = 0;
 		mSupportedSize = null;
 		mCurrentSizeList = null;
+		mCapabilities = null;
+		mLimitsKnown = false;
     	if (DEBUG) XLogWrapper.v(TAG, "close:finished");
     }
 
@@ -286,7 +396,9 @@ public class UVCCamera {
 	}
 
 	public synchronized String getSupportedSize() {
-    	return !TextUtils.isEmpty(mSupportedSize) ? mSupportedSize : (mSupportedSize = nativeGetSupportedSize(mNativePtr));
+		if (TextUtils.isEmpty(mSupportedSize))
+			mSupportedSize = mCapabilities != null ? mCapabilities.toJson() : nativeGetSupportedSize(mNativePtr);
+    	return mSupportedSize;
     }
 
 	public Size getPreviewSize() {
@@ -359,11 +471,13 @@ public class UVCCamera {
 		if (mCurrentFrameFormat < 0) {
 			mCurrentFrameFormat = FRAME_FORMAT_MJPEG;
 		}
-		return getSupportedSize((mCurrentFrameFormat > 0) ? 6 : 4, getSupportedSize());
+		return getSupportedSizeList(mCurrentFrameFormat);
 	}
 
 	public List<Size> getSupportedSizeList(int frameFormat) {
-		return getSupportedSize((frameFormat > 0) ? 6 : 4, getSupportedSize());
+		final int type = (frameFormat > 0) ? UVCCapabilities.FORMAT_MJPEG : UVCCapabilities.FORMAT_UNCOMPRESSED;
+		final UVCCapabilities caps = mCapabilities;
+		return caps != null ? caps.sizes(type) : getSupportedSize(type, getSupportedSize());
 	}
 
 	public List<Size> getSupportedSize(final int type, final String supportedSize) {
@@ -439,6 +553,26 @@ public class UVCCamera {
     	}
     }
 
+    /**
+     * Lend converted frames to {@code callback} instead of passing a transient buffer:
+     * each frame is converted straight into one of a few native buffers, each wrapped
+     * once in a direct ByteBuffer, and stays there until the callee releases its
+     * {@link UVCFrameLease}. Nothing is copied or allocated per frame, and a lease stays
+     * valid after the camera is closed. Replaces any {@link IFrameCallback}. Call after
+     * the preview size is set; stopPreview clears it like the frame callback.
+     * @param callback null to stop leasing
+     * @param pixelFormat one of PIXEL_FORMAT_*
+     */
+    public synchronized void setFrameLeaseCallback(final IFrameLeaseCallback callback, final int pixelFormat) {
+    	if (mNativePtr == 0) return;
+    	if (mFrameLeases != null) nativeSetFrameLeaseCallback(mNativePtr, null, 0);
+    	mFrameLeases = null;
+    	if (callback == null) return;
+    	nativeSetFrameCallback(mNativePtr, null, 0);
+    	mFrameLeases = new UVCFrameLeases(callback, pixelFormat);
+    	nativeSetFrameLeaseCallback(mNativePtr, mFrameLeases, pixelFormat);
+    }
+
     /**
      * start preview
      */
@@ -453,6 +587,7 @@ public class UVCCamera {
      */
     public synchronized void stopPreview() {
     	setFrameCallback(null, 0);
+    	setFrameLeaseCallback(null, 0);
     	if (mCtrlBlock != null) {
     		nativeStopPreview(mNativePtr);
     	}
@@ -512,7 +647,7 @@ public class UVCCamera {
 	public synchronized int getFocus(final int focus_abs) {
 	   int result = 0;
 	   if (mNativePtr != 0) {
-		   nativeUpdateFocusLimit(mNativePtr);
+		   if (!mLimitsKnown) nativeUpdateFocusLimit(mNativePtr);
 		   final float range = Math.abs(mFocusMax - mFocusMin);
 		   if (range > 0) {
 			   result = (int)((focus_abs - mFocusMin) * 100.f / range);
@@ -568,7 +703,7 @@ public class UVCCamera {
 	public synchronized int getWhiteBlance(final int whiteBlance_abs) {
 	   int result = 0;
 	   if (mNativePtr != 0) {
-		   nativeUpdateWhiteBlanceLimit(mNativePtr);
+		   if (!mLimitsKnown) nativeUpdateWhiteBlanceLimit(mNativePtr);
 		   final float range = Math.abs(mWhiteBlanceMax - mWhiteBlanceMin);
 		   if (range > 0) {
 			   result = (int)((whiteBlance_abs - mWhiteBlanceMin) * 100.f / range);
@@ -608,7 +743,7 @@ public class UVCCamera {
 	public synchronized int getBrightness(final int brightness_abs) {
 	   int result = 0;
 	   if (mNativePtr != 0) {
-		   nativeUpdateBrightnessLimit(mNativePtr);
+		   if (!mLimitsKnown) nativeUpdateBrightnessLimit(mNativePtr);
 		   final float range = Math.abs(mBrightnessMax - mBrightnessMin);
 		   if (range > 0) {
 			   result = (int)((brightness_abs - mBrightnessMin) * 100.f / range);
@@ -644,7 +779,7 @@ public class UVCCamera {
      */
 	public synchronized void setContrast(final int contrast) {
     	if (mNativePtr != 0) {
-    		nativeUpdateContrastLimit(mNativePtr);
+    		if (!mLimitsKnown) nativeUpdateContrastLimit(mNativePtr);
 	    	final float range = Math.abs(mContrastMax - mContrastMin);
 	    	if (range > 0)
 	    		nativeSetContrast(mNativePtr, (int)(contrast / 100.f * range) + mContrastMin);
@@ -698,7 +833,7 @@ public class UVCCamera {
 	public synchronized int getSharpness(final int sharpness_abs) {
 	   int result = 0;
 	   if (mNativePtr != 0) {
-		   nativeUpdateSharpnessLimit(mNativePtr);
+		   if (!mLimitsKnown) nativeUpdateSharpnessLimit(mNativePtr);
 		   final float range = Math.abs(mSharpnessMax - mSharpnessMin);
 		   if (range > 0) {
 			   result = (int)((sharpness_abs - mSharpnessMin) * 100.f / range);
@@ -738,7 +873,7 @@ public class UVCCamera {
 	public synchronized int getGain(final int gain_abs) {
 	   int result = 0;
 	   if (mNativePtr != 0) {
-		   nativeUpdateGainLimit(mNativePtr);
+		   if (!mLimitsKnown) nativeUpdateGainLimit(mNativePtr);
 		   final float range = Math.abs(mGainMax - mGainMin);
 		   if (range > 0) {
 			   result = (int)((gain_abs - mGainMin) * 100.f / range);
@@ -779,7 +914,7 @@ public class UVCCamera {
 	public synchronized int getGamma(final int gamma_abs) {
 	   int result = 0;
 	   if (mNativePtr != 0) {
-		   nativeUpdateGammaLimit(mNativePtr);
+		   if (!mLimitsKnown) nativeUpdateGammaLimit(mNativePtr);
 		   final float range = Math.abs(mGammaMax - mGammaMin);
 		   if (range > 0) {
 			   result = (int)((gamma_abs - mGammaMin) * 100.f / range);
@@ -820,7 +955,7 @@ public class UVCCamera {
 	public synchronized int getSaturation(final int saturation_abs) {
 	   int result = 0;
 	   if (mNativePtr != 0) {
-		   nativeUpdateSaturationLimit(mNativePtr);
+		   if (!mLimitsKnown) nativeUpdateSaturationLimit(mNativePtr);
 		   final float range = Math.abs(mSaturationMax - mSaturationMin);
 		   if (range > 0) {
 			   result = (int)((saturation_abs - mSaturationMin) * 100.f / range);
@@ -860,7 +995,7 @@ public class UVCCamera {
 	public synchronized int getHue(final int hue_abs) {
 	   int result = 0;
 	   if (mNativePtr != 0) {
-		   nativeUpdateHueLimit(mNativePtr);
+		   if (!mLimitsKnown) nativeUpdateHueLimit(mNativePtr);
 		   final float range = Math.abs(mHueMax - mHueMin);
 		   if (range > 0) {
 			   result = (int)((hue_abs - mHueMin) * 100.f / range);
@@ -915,7 +1050,7 @@ public class UVCCamera {
 	public synchronized int getZoom(final int zoom_abs) {
 	   int result = 0;
 	   if (mNativePtr != 0) {
-		   nativeUpdateZoomLimit(mNativePtr);
+		   if (!mLimitsKnown) nativeUpdateZoomLimit(mNativePtr);
 		   final float range = Math.abs(mZoomMax - mZoomMin);
 		   if (range > 0) {
 			   result = (int)((zoom_abs - mZoomMin) * 100.f / range);
@@ -962,6 +1097,7 @@ public class UVCCamera {
     				mProcSupports = nativeGetProcSupports(mNativePtr);
     	    	// 設定値を取得
     	    	if ((mControlSupports != 0) && (mProcSupports != 0)) {
+    	    		mLimitsKnown = true;
 	    	    	nativeUpdateBrightnessLimit(mNativePtr);
 	    	    	nativeUpdateContrastLimit(mNativePtr);
 	    	    	nativeUpdateSharpnessLimit(mNativePtr);
@@ -1094,6 +1230,8 @@ public class UVCCamera {
 	private static final native int nativeStopPreview(final long id_camera);
 	private static final native int nativeSetPreviewDisplay(final long id_camera, final Surface surface);
 	private static final native int nativeSetFrameCallback(final long mNativePtr, final IFrameCallback callback, final int pixelFormat);
+	private static final native int nativeSetFrameLeaseCallback(final long mNativePtr, final UVCFrameLeases leases, final int pixelFormat);
+	static final native void nativeReleaseFrame(final long id_lease);
 
 //**********************************************************************
 	/**
@@ -0,0 +1,261 @@
+package com.jiangdg.uvc;
+
+import com.jiangdg.utils.Size;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * What a UVC camera can do: its stream formats with their frame sizes and frame
+ * intervals, read straight from the raw USB descriptors, and the ranges of the
+ * controls {@link UVCCamera} probes. Built once per camera model and kept by
+ * {@link UVCCapabilityCache}, so reconnecting a known camera skips both the
+ * descriptor walk and the control probing.
+ */
+public final class UVCCapabilities {
+
+	// uvc_vs_desc_subtype, as in the "type" of UVCCamera#getSupportedSize()
+	public static final int FORMAT_UNCOMPRESSED = 0x04;
+	public static final int FORMAT_MJPEG = 0x06;
+
+	private static final int FRAME_UNCOMPRESSED = 0x05;
+	private static final int FRAME_MJPEG = 0x07;
+	private static final int DESC_INTERFACE = 0x04;
+	private static final int DESC_CS_INTERFACE = 0x24;
+	private static final int CLASS_VIDEO = 0x0e;
+	private static final int SUBCLASS_STREAMING = 0x02;
+
+	/** One frame descriptor. Intervals are in 100 ns units, as in the descriptor. */
+	public static final class Frame {
+		public final int width;
+		public final int height;
+		public final int defaultInterval;
+		/** True when {@link #intervals} holds min, max and step rather than a list. */
+		public final boolean continuous;
+		public final int[] intervals;
+
+		Frame(final int width, final int height, final int defaultInterval,
+			  final boolean continuous, final int[] intervals) {
+			this.width = width;
+			this.height = height;
+			this.defaultInterval = defaultInterval;
+			this.continuous = continuous;
+			this.intervals = intervals;
+		}
+	}
+
+	/** One MJPEG or uncompressed format descriptor with its frames, in descriptor order. */
+	public static final class Format {
+		public final int type;
+		public final int index;
+		public final int defaultFrame;
+		public final Frame[] frames;
+
+		Format(final int type, final int index, final int defaultFrame, final Frame[] frames) {
+			this.type = type;
+			this.index = index;
+			this.defaultFrame = defaultFrame;
+			this.frames = frames;
+		}
+	}
+
+	public final Format[] formats;
+	/** CRC-32 of the raw descriptors this was built from; a changed firmware changes it. */
+	public final long descriptorCrc;
+
+	// Control ranges, filled in by UVCCamera after probing; layout owned by UVCCamera
+	long ctrlSupports;
+	long procSupports;
+	int[] limits;
+	/** How long building this took when the camera was first seen. */
+	long probeNanos;
+
+	UVCCapabilities(final Format[] formats, final long descriptorCrc) {
+		this.formats = formats;
+		this.descriptorCrc = descriptorCrc;
+	}
+
+	public static long checksum(final byte[] rawDescriptors) {
+		final CRC32 crc = new CRC32();
+		if (rawDescriptors != null) crc.update(rawDescriptors);
+		return crc.getValue();
+	}
+
+	/**
+	 * Reads the video streaming formats from the device's raw descriptors, as returned by
+	 * UsbDeviceConnection#getRawDescriptors(). Formats other than MJPEG and uncompressed
+	 * are skipped, as the native side does. Returns null if there are none.
+	 */
+	public static UVCCapabilities fromDescriptors(final byte[] raw) {
+		final List<Format> formats = new ArrayList<>();
+		List<Frame> frames = null;
+		int type = 0, index = 0, defaultFrame = 0;
+		boolean streaming = false;
+		for (int pos = 0; pos + 2 < raw.length; ) {
+			final int len = raw[pos] & 0xff;
+			if (len < 3 || pos + len > raw.length) break;
+			final int descType = raw[pos + 1] & 0xff;
+			final int subtype = raw[pos + 2] & 0xff;
+			if (descType == DESC_INTERFACE && len >= 9) {
+				streaming = (raw[pos + 5] & 0xff) == CLASS_VIDEO && (raw[pos + 6] & 0xff) == SUBCLASS_STREAMING;
+			} else if (streaming && descType == DESC_CS_INTERFACE) {
+				if (subtype == FORMAT_UNCOMPRESSED || subtype == FORMAT_MJPEG) {
+					if (frames != null) formats.add(format(type, index, defaultFrame, frames));
+					type = subtype;
+					index = raw[pos + 3] & 0xff;
+					final int defaultAt = subtype == FORMAT_MJPEG ? 6 : 22;
+					defaultFrame = len > defaultAt ? raw[pos + defaultAt] & 0xff : 1;
+					frames = new ArrayList<>();
+				} else if (frames != null && subtype == frameSubtype(type) && len >= 26) {
+					// Frames of skipped formats (frame based, H.264...) have subtypes of their own
+					frames.add(frame(raw, pos, len));
+				}
+			}
+			pos += len;
+		}
+		if (frames != null) formats.add(format(type, index, defaultFrame, frames));
+		return formats.isEmpty() ? null : new UVCCapabilities(formats.toArray(new Format[0]), checksum(raw));
+	}
+
+	/**
+	 * The frame sizes of every format of {@code type}, with their frame rates, in the
+	 * form UVCCamera#getSupportedSizeList() has always returned.
+	 */
+	public List<Size> sizes(final int type) {
+		final List<Size> result = new ArrayList<>();
+		for (final Format format : formats) {
+			if (format.type != type) continue;
+			for (int i = 0; i < format.frames.length; i++) {
+				final Frame f = format.frames[i];
+				if (f.intervals.length == 0) {
+					result.add(new Size(format.type, 0, i, f.width, f.height));
+				} else if (f.continuous) {
+					result.add(new Size(format.type, 0, i, f.width, f.height,
+							f.intervals[0], f.intervals[1], f.intervals[2]));
+				} else {
+					result.add(new Size(format.type, 0, i, f.width, f.height, f.intervals));
+				}
+			}
+		}
+		return result;
+	}
+
+	/** The same JSON the native side builds, for callers of UVCCamera#getSupportedSize(). */
+	public String toJson() {
+		final StringBuilder sb = new StringBuilder("{\"formats\":[");
+		for (int i = 0; i < formats.length; i++) {
+			final Format format = formats[i];
+			if (i > 0) sb.append(',');
+			sb.append("{\"index\":").append(format.index)
+				.append(",\"type\":").append(format.type)
+				.append(",\"default\":").append(format.defaultFrame)
+				.append(",\"size\":[");
+			for (int j = 0; j < format.frames.length; j++) {
+				if (j > 0) sb.append(',');
+				sb.append('"').append(format.frames[j].width).append('x').append(format.frames[j].height).append('"');
+			}
+			sb.append("]}");
+		}
+		return sb.append("]}").toString();
+	}
+
+	public boolean hasControls() {
+		return limits != null;
+	}
+
+	public long getProbeNanos() {
+		return probeNanos;
+	}
+
+//================================================================================
+	void write(final DataOutputStream out) throws IOException {
+		out.writeLong(descriptorCrc);
+		out.writeLong(probeNanos);
+		out.writeByte(formats.length);
+		for (final Format format : formats) {
+			out.writeByte(format.type);
+			out.writeByte(format.index);
+			out.writeByte(format.defaultFrame);
+			out.writeByte(format.frames.length);
+			for (final Frame f : format.frames) {
+				out.writeShort(f.width);
+				out.writeShort(f.height);
+				out.writeInt(f.defaultInterval);
+				out.writeBoolean(f.continuous);
+				out.writeByte(f.intervals.length);
+				for (final int interval : f.intervals) out.writeInt(interval);
+			}
+		}
+		out.writeBoolean(limits != null);
+		if (limits != null) {
+			out.writeLong(ctrlSupports);
+			out.writeLong(procSupports);
+			out.writeShort(limits.length);
+			for (final int value : limits) out.writeInt(value);
+		}
+	}
+
+	static UVCCapabilities read(final DataInputStream in) throws IOException {
+		final long crc = in.readLong();
+		final long probeNanos = in.readLong();
+		final Format[] formats = new Format[in.readUnsignedByte()];
+		for (int i = 0; i < formats.length; i++) {
+			final int type = in.readUnsignedByte();
+			final int index = in.readUnsignedByte();
+			final int defaultFrame = in.readUnsignedByte();
+			final Frame[] frames = new Frame[in.readUnsignedByte()];
+			for (int j = 0; j < frames.length; j++) {
+				final int width = in.readUnsignedShort();
+				final int height = in.readUnsignedShort();
+				final int defaultInterval = in.readInt();
+				final boolean continuous = in.readBoolean();
+				final int[] intervals = new int[in.readUnsignedByte()];
+				for (int k = 0; k < intervals.length; k++) intervals[k] = in.readInt();
+				frames[j] = new Frame(width, height, defaultInterval, continuous, intervals);
+			}
+			formats[i] = new Format(type, index, defaultFrame, frames);
+		}
+		final UVCCapabilities caps = new UVCCapabilities(formats, crc);
+		caps.probeNanos = probeNanos;
+		if (in.readBoolean()) {
+			caps.ctrlSupports = in.readLong();
+			caps.procSupports = in.readLong();
+			caps.limits = new int[in.readUnsignedShort()];
+			for (int i = 0; i < caps.limits.length; i++) caps.limits[i] = in.readInt();
+		}
+		return caps;
+	}
+
+	private static int frameSubtype(final int formatType) {
+		return formatType == FORMAT_MJPEG ? FRAME_MJPEG : FRAME_UNCOMPRESSED;
+	}
+
+	private static Format format(final int type, final int index, final int defaultFrame, final List<Frame> frames) {
+		return new Format(type, index, defaultFrame, frames.toArray(new Frame[0]));
+	}
+
+	// VS_FRAME_UNCOMPRESSED and VS_FRAME_MJPEG share this layout
+	private static Frame frame(final byte[] raw, final int pos, final int len) {
+		final int width = u16(raw, pos + 5);
+		final int height = u16(raw, pos + 7);
+		final int defaultInterval = u32(raw, pos + 21);
+		final int intervalType = raw[pos + 25] & 0xff;
+		final boolean continuous = intervalType == 0;
+		final int n = Math.min(continuous ? 3 : intervalType, (len - 26) / 4);
+		final int[] intervals = new int[continuous && n < 3 ? 0 : n];
+		for (int i = 0; i < intervals.length; i++) intervals[i] = u32(raw, pos + 26 + 4 * i);
+		return new Frame(width, height, defaultInterval, continuous, intervals);
+	}
+
+	private static int u16(final byte[] b, final int at) {
+		return (b[at] & 0xff) | (b[at + 1] & 0xff) << 8;
+	}
+
+	private static int u32(final byte[] b, final int at) {
+		return (b[at] & 0xff) | (b[at + 1] & 0xff) << 8 | (b[at + 2] & 0xff) << 16 | (b[at + 3] & 0xff) << 24;
+	}
+}
@@ -0,0 +1,75 @@
+package com.jiangdg.uvc;
+
+import com.jiangdg.utils.XLogWrapper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Keeps {@link UVCCapabilities} on disk, one small binary file per camera, keyed by
+ * vendor id, product id and serial number. An entry is only used while the camera's
+ * raw descriptors still have the checksum it was built from, so a firmware update or
+ * a different camera behind the same ids is probed afresh.
+ *
+ * <p>Hand one instance to every {@link UVCCamera#setCapabilityCache}; it is thread-safe.</p>
+ */
+public class UVCCapabilityCache {
+	private static final String TAG = UVCCapabilityCache.class.getSimpleName();
+
+	private static final int MAGIC = 0x55564343;	// "UVCC"
+	private static final int VERSION = 1;
+	private static final String SUFFIX = ".uvccaps";
+
+	private final File mDir;
+
+	public UVCCapabilityCache(final File dir) {
+		mDir = dir;
+	}
+
+	/** The entry for this camera, or null if there is none or it no longer matches. */
+	public synchronized UVCCapabilities load(final int vendorId, final int productId,
+			final String serial, final long descriptorCrc) {
+		final File file = file(vendorId, productId, serial);
+		if (!file.isFile()) return null;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+			final UVCCapabilities caps = UVCCapabilities.read(in);
+			return caps.descriptorCrc == descriptorCrc ? caps : null;
+		} catch (final IOException | RuntimeException e) {
+			XLogWrapper.w(TAG, "dropping unreadable " + file.getName() + ": " + e.getMessage());
+			file.delete();
+			return null;
+		}
+	}
+
+	public synchronized void save(final int vendorId, final int productId,
+			final String serial, final UVCCapabilities caps) {
+		if (!mDir.isDirectory() && !mDir.mkdirs()) return;
+		final File file = file(vendorId, productId, serial);
+		final File tmp = new File(mDir, file.getName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			caps.write(out);
+		} catch (final IOException e) {
+			XLogWrapper.w(TAG, "could not save " + file.getName() + ": " + e.getMessage());
+			tmp.delete();
+			return;
+		}
+		if (!tmp.renameTo(file)) tmp.delete();
+	}
+
+	private File file(final int vendorId, final int productId, final String serial) {
+		// Serial numbers are free text; keep what is safe in a file name
+		final String id = serial != null ? serial.replaceAll("[^A-Za-z0-9_-]", "") : "";
+		return new File(mDir, String.format(Locale.US, "%04x_%04x_%s%s", vendorId, productId,
+				id.isEmpty() ? "noserial" : id, SUFFIX));
+	}
+}
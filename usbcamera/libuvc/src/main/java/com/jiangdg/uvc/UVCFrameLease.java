@@ -0,0 +1,88 @@
+package com.jiangdg.uvc;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One frame lent by {@link UVCCamera#setFrameLeaseCallback}: the converted frame in
+ * native memory, wrapped once in a long-lived direct buffer, with what is known about
+ * it. The data stays put until {@link #release()}, even if the camera is closed first;
+ * nothing is copied unless the holder asks for it with {@link #copyTo}.
+ *
+ * <p>Lease objects are reused for later frames, like {@code android.media.Image}, so
+ * nothing about a lease may be used after releasing it. The buffer is shared with the
+ * next holder of the lease; read it from one thread at a time.</p>
+ */
+public final class UVCFrameLease {
+
+	private final UVCFrameLeases mOwner;
+	final AtomicBoolean mHeld = new AtomicBoolean();
+	long mNativeLease;
+
+	private ByteBuffer mBuffer;
+	private int mWidth, mHeight, mSize, mPixelFormat;
+	private long mSequence, mTimestampNanos;
+
+	UVCFrameLease(final UVCFrameLeases owner) {
+		mOwner = owner;
+	}
+
+	void set(final long nativeLease, final ByteBuffer buffer, final int width, final int height, final int size,
+			 final int pixelFormat, final long sequence, final long timestampNanos) {
+		mNativeLease = nativeLease;
+		buffer.clear();
+		buffer.limit(Math.min(size, buffer.capacity()));
+		mBuffer = buffer;
+		mWidth = width;
+		mHeight = height;
+		mSize = buffer.limit();
+		mPixelFormat = pixelFormat;
+		mSequence = sequence;
+		mTimestampNanos = timestampNanos;
+	}
+
+	/** The frame data, position 0 and limit {@link #getSize()}: a direct buffer over native memory. */
+	public ByteBuffer getBuffer() {
+		return mBuffer;
+	}
+
+	public int getWidth() {
+		return mWidth;
+	}
+
+	public int getHeight() {
+		return mHeight;
+	}
+
+	/** Bytes of frame data in {@link #getBuffer()}. */
+	public int getSize() {
+		return mSize;
+	}
+
+	/** The UVCCamera.PIXEL_FORMAT_* the frame was converted to. */
+	public int getPixelFormat() {
+		return mPixelFormat;
+	}
+
+	/** Counts the frames the camera delivered, so gaps show frames dropped on the way. */
+	public long getSequence() {
+		return mSequence;
+	}
+
+	/** When the frame arrived from USB, on the SystemClock#elapsedRealtimeNanos clock. */
+	public long getTimestampNanos() {
+		return mTimestampNanos;
+	}
+
+	/** Copies the frame data into {@code dst}, which must hold {@link #getSize()} bytes. */
+	public void copyTo(final byte[] dst) {
+		mBuffer.position(0);
+		mBuffer.get(dst, 0, mSize);
+		mBuffer.position(0);
+	}
+
+	/** Hands the frame back to the camera. Calls after the first do nothing. */
+	public void release() {
+		mOwner.release(this);
+	}
+}
@@ -0,0 +1,49 @@
+package com.jiangdg.uvc;
+
+import com.jiangdg.utils.XLogWrapper;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The leases of one {@link UVCCamera#setFrameLeaseCallback} registration. The native
+ * side (UVCPreview) lends up to {@link #MAX_LEASES} frames and calls
+ * {@link #onFrame(int, long, ByteBuffer, int, int, int, long, long)} with the slot it chose.
+ * A lease still held when the registration or the camera goes away stays valid; the
+ * native side frees it when it is released.
+ */
+final class UVCFrameLeases {
+	private static final String TAG = UVCFrameLeases.class.getSimpleName();
+
+	static final int MAX_LEASES = 3;	// UVCPreview.h
+
+	private final IFrameLeaseCallback mCallback;
+	private final int mPixelFormat;
+	private final UVCFrameLease[] mLeases = new UVCFrameLease[MAX_LEASES];
+
+	UVCFrameLeases(final IFrameLeaseCallback callback, final int pixelFormat) {
+		mCallback = callback;
+		mPixelFormat = pixelFormat;
+		for (int i = 0; i < MAX_LEASES; i++) mLeases[i] = new UVCFrameLease(this);
+	}
+
+	/** Called from native code on the capture thread, with the native lease already taken. */
+	void onFrame(final int slot, final long nativeLease, final ByteBuffer buffer,
+				 final int width, final int height, final int size,
+				 final long sequence, final long timestampNanos) {
+		final UVCFrameLease lease = mLeases[slot];
+		lease.set(nativeLease, buffer, width, height, size, mPixelFormat, sequence, timestampNanos);
+		lease.mHeld.set(true);
+		try {
+			mCallback.onFrame(lease);
+		} catch (final RuntimeException e) {
+			XLogWrapper.w(TAG, "frame lease callback failed", e);
+			lease.release();
+		}
+	}
+
+	void release(final UVCFrameLease lease) {
+		// Java side first: the native side may lend the slot again as soon as it is free
+		if (!lease.mHeld.compareAndSet(true, false)) return;
+		UVCCamera.nativeReleaseFrame(lease.mNativeLease);
+	}
+}
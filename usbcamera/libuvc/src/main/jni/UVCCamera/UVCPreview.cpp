@@ -49,6 +49,10 @@
 struct timespec ts;
 struct timeval tv;
 
+// guards the leased/orphaned state of every frame lease; not a member, because
+// Java can release a lease after the UVCPreview that lent it has been deleted
+static pthread_mutex_t lease_mutex = PTHREAD_MUTEX_INITIALIZER;
+
 UVCPreview::UVCPreview(uvc_device_handle_t *devh)
 :	mPreviewWindow(NULL),
 	mCaptureWindow(NULL),
@@ -70,7 +74,9 @@ UVCPreview::UVCPreview(uvc_device_handle_t *devh)
 	captureQueu(NULL),
 	mFrameCallbackObj(NULL),
 	mFrameCallbackFunc(NULL),
-	callbackPixelBytes(2) {
+	callbackPixelBytes(2),
+	mLeaseCallbackObj(NULL),
+	mFrameSequence(0) {
 
 	ENTER();
 	pthread_cond_init(&preview_sync, NULL);
@@ -82,6 +88,9 @@ UVCPreview::UVCPreview(uvc_device_handle_t *devh)
 	pthread_mutex_init(&capture_mutex, NULL);
 
 	pthread_mutex_init(&pool_mutex, NULL);
+	for (int i = 0; i < MAX_LEASES; i++) {
+		mLeases[i] = NULL;
+	}
 	EXIT();
 }
 
@@ -96,6 +105,13 @@ UVCPreview::~UVCPreview() {
 	mCaptureWindow = NULL;
 	clearPreviewFrame();
 	clearCaptureFrame();
+	JNIEnv *env = NULL;
+	getVM()->GetEnv((void **)&env, JNI_VERSION_1_6);	// called from UVCCamera#close/destroy
+	if (mLeaseCallbackObj && env) {
+		env->DeleteGlobalRef(mLeaseCallbackObj);
+	}
+	mLeaseCallbackObj = NULL;
+	clear_leases(env);
 	clear_pool();
 	pthread_mutex_lock(&preview_mutex);
 	pthread_mutex_destroy(&preview_mutex);
@@ -222,7 +238,7 @@ int UVCPreview::setFrameCallback(JNIEnv *env, jobject frame_callback_obj, int pi
 	{
 		if (isRunning() && isCapturing()) {
 			mIsCapturing = false;
-			if (mFrameCallbackObj) {
+			if (mFrameCallbackObj || mLeaseCallbackObj) {
 				pthread_cond_signal(&capture_sync);
 				pthread_cond_wait(&capture_sync, &capture_mutex);	// wait finishing capturing
 			}
@@ -259,6 +275,138 @@ int UVCPreview::setFrameCallback(JNIEnv *env, jobject frame_callback_obj, int pi
 	RETURN(0, int);
 }
 
+/**
+ * lend callback frames to Java instead of passing a new ByteBuffer per frame
+ * each of the MAX_LEASES slots keeps its frame and a direct ByteBuffer over it,
+ * so the buffer is created once per slot (and again only when the size changes)
+ * Java returns a lease with releaseLease; frames arriving while every slot is out are dropped
+ */
+int UVCPreview::setFrameLeaseCallback(JNIEnv *env, jobject lease_callback_obj, int pixel_format) {
+
+	ENTER();
+	pthread_mutex_lock(&capture_mutex);
+	{
+		if (isRunning() && isCapturing()) {
+			mIsCapturing = false;
+			if (mFrameCallbackObj || mLeaseCallbackObj) {
+				pthread_cond_signal(&capture_sync);
+				pthread_cond_wait(&capture_sync, &capture_mutex);	// wait finishing capturing
+			}
+		}
+		if (!env->IsSameObject(mLeaseCallbackObj, lease_callback_obj))	{
+			ileasecallback_fields.onFrame = NULL;
+			if (mLeaseCallbackObj) {
+				env->DeleteGlobalRef(mLeaseCallbackObj);
+			}
+			clear_leases(env);
+			mLeaseCallbackObj = lease_callback_obj;
+			if (lease_callback_obj) {
+				jclass clazz = env->GetObjectClass(lease_callback_obj);
+				if (LIKELY(clazz)) {
+					ileasecallback_fields.onFrame = env->GetMethodID(clazz,
+						"onFrame",	"(IJLjava/nio/ByteBuffer;IIIJJ)V");
+				} else {
+					LOGW("failed to get object class");
+				}
+				env->ExceptionClear();
+				if (!ileasecallback_fields.onFrame) {
+					LOGE("Can't find UVCFrameLeases#onFrame");
+					env->DeleteGlobalRef(lease_callback_obj);
+					mLeaseCallbackObj = lease_callback_obj = NULL;
+				}
+			}
+		} else if (lease_callback_obj) {
+			env->DeleteGlobalRef(lease_callback_obj);	// already holding a reference to it
+			lease_callback_obj = mLeaseCallbackObj;
+		}
+		if (lease_callback_obj) {
+			mPixelFormat = pixel_format;
+			callbackPixelFormatChanged();
+		}
+	}
+	pthread_mutex_unlock(&capture_mutex);
+	RETURN(0, int);
+}
+
+/**
+ * give a lease back; it keeps its frame for the next one,
+ * unless it was orphaned while Java held it, then it is freed here
+ */
+// static
+void UVCPreview::releaseLease(JNIEnv *env, frame_lease_t *lease) {
+	bool orphaned;
+	pthread_mutex_lock(&lease_mutex);
+	{
+		lease->leased = false;
+		orphaned = lease->orphaned;
+	}
+	pthread_mutex_unlock(&lease_mutex);
+	if (UNLIKELY(orphaned)) {
+		if (lease->buffer) {
+			env->DeleteGlobalRef(lease->buffer);
+		}
+		if (lease->frame) {
+			uvc_free_frame(lease->frame);
+		}
+		delete lease;
+	}
+}
+
+/**
+ * find a free slot and mark its lease taken, creating the lease on the slot's first use
+ * @return slot index, or -1 if Java holds every slot
+ */
+int UVCPreview::acquire_lease() {
+	int slot = -1;
+	pthread_mutex_lock(&lease_mutex);
+	{
+		for (int i = 0; i < MAX_LEASES; i++) {
+			if (!mLeases[i]) {
+				mLeases[i] = new frame_lease_t();	// zeroed
+			}
+			if (!mLeases[i]->leased) {
+				mLeases[i]->leased = true;
+				slot = i;
+				break;
+			}
+		}
+	}
+	pthread_mutex_unlock(&lease_mutex);
+	return slot;
+}
+
+/**
+ * free the leases Java does not hold; the ones it holds are orphaned
+ * and freed by releaseLease, so their memory never goes away under Java
+ * the capture thread must not be in do_lease_callback
+ */
+void UVCPreview::clear_leases(JNIEnv *env) {
+	ENTER();
+
+	for (int i = 0; i < MAX_LEASES; i++) {
+		frame_lease_t *lease = mLeases[i];
+		if (!lease) continue;
+		mLeases[i] = NULL;
+		bool held;
+		pthread_mutex_lock(&lease_mutex);
+		{
+			held = lease->leased;
+			lease->orphaned = held;
+		}
+		pthread_mutex_unlock(&lease_mutex);
+		if (held) continue;
+		if (lease->buffer && env) {
+			env->DeleteGlobalRef(lease->buffer);
+		}
+		if (lease->frame) {
+			uvc_free_frame(lease->frame);
+		}
+		delete lease;
+	}
+
+	EXIT();
+}
+
 void UVCPreview::callbackPixelFormatChanged() {
 	mFrameCallbackFunc = NULL;
 	const size_t sz = requestWidth * requestHeight;
@@ -342,7 +490,8 @@ int UVCPreview::startPreview() {
 		mIsRunning = true;
 		pthread_mutex_lock(&preview_mutex);
 		{
-			if (LIKELY(mPreviewWindow)) {
+			// A frame callback alone is enough: headless capture never draws a preview
+			if (LIKELY(mPreviewWindow || mFrameCallbackObj || mLeaseCallbackObj)) {
 				result = pthread_create(&preview_thread, NULL, preview_thread_func, (void *)this);
 			}
 		}
@@ -430,6 +579,13 @@ void UVCPreview::uvc_preview_frame_callback(uvc_frame_t *frame, void *vptr_args)
 			preview->recycle_frame(copy);
 			return;
 		}
+		// libuvc leaves both unset; conversions carry them to the callback frame.
+		// CLOCK_BOOTTIME is the clock of SystemClock#elapsedRealtimeNanos
+		struct timespec now;
+		clock_gettime(CLOCK_BOOTTIME, &now);
+		copy->capture_time.tv_sec = now.tv_sec;
+		copy->capture_time.tv_usec = now.tv_nsec / 1000;
+		copy->sequence = preview->mFrameSequence++;
 		preview->addPreviewFrame(copy);
 	}
 }
@@ -888,6 +1044,10 @@ void UVCPreview::do_capture_surface(JNIEnv *env) {
 void UVCPreview::do_capture_callback(JNIEnv *env, uvc_frame_t *frame) {
 	ENTER();
 
+	if (mLeaseCallbackObj) {
+		do_lease_callback(env, frame);
+		EXIT();
+	}
 	if (LIKELY(frame)) {
 		uvc_frame_t *callback_frame = frame;
 		if (mFrameCallbackObj) {
@@ -918,3 +1078,57 @@ void UVCPreview::do_capture_callback(JNIEnv *env, uvc_frame_t *frame) {
 	}
 	EXIT();
 }
+
+/**
+ * call UVCFrameLeases#onFrame with a lease
+ * the frame is converted (or copied, for raw frames) straight into the lease's frame,
+ * which Java then reads in place; the callback frame goes back to mFramePool
+ */
+void UVCPreview::do_lease_callback(JNIEnv *env, uvc_frame_t *frame) {
+	ENTER();
+
+	if (UNLIKELY(!frame)) EXIT();
+	const int slot = acquire_lease();
+	if (UNLIKELY(slot < 0)) {
+		recycle_frame(frame);	// Java still holds every lease; skip this one
+		EXIT();
+	}
+	frame_lease_t *lease = mLeases[slot];
+	if (UNLIKELY(!lease->frame)) {
+		lease->frame = uvc_allocate_frame(callbackPixelBytes);
+	}
+	int b = lease->frame
+		? (mFrameCallbackFunc ? mFrameCallbackFunc(frame, lease->frame) : uvc_duplicate_frame(frame, lease->frame))
+		: UVC_ERROR_NO_MEM;
+	recycle_frame(frame);
+	if (UNLIKELY(b)) {
+		LOGW("failed to convert for leased frame");
+		releaseLease(env, lease);
+		EXIT();
+	}
+	uvc_frame_t *leased = lease->frame;
+	if (UNLIKELY(!lease->buffer || (lease->wrapped != leased->data) || (lease->wrappedBytes != leased->data_bytes))) {
+		// first use of this lease, or the conversion reallocated for a new stream size
+		if (lease->buffer) {
+			env->DeleteGlobalRef(lease->buffer);
+		}
+		jobject buf = env->NewDirectByteBuffer(leased->data, leased->data_bytes);
+		lease->buffer = buf ? env->NewGlobalRef(buf) : NULL;
+		env->DeleteLocalRef(buf);
+		lease->wrapped = leased->data;
+		lease->wrappedBytes = leased->data_bytes;
+		if (UNLIKELY(!lease->buffer)) {
+			env->ExceptionClear();
+			releaseLease(env, lease);
+			EXIT();
+		}
+	}
+	const jlong timestamp = leased->capture_time.tv_sec * 1000000000LL + leased->capture_time.tv_usec * 1000LL;
+	env->CallVoidMethod(mLeaseCallbackObj, ileasecallback_fields.onFrame,
+		slot, (jlong)lease, lease->buffer, (jint)leased->width, (jint)leased->height,
+		(jint)callbackPixelBytes, (jlong)leased->sequence, timestamp);
+	// UVCFrameLeases releases the lease itself if its callback throws
+	env->ExceptionClear();
+
+	EXIT();
+}
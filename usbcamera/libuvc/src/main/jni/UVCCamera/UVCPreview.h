@@ -53,6 +53,26 @@ typedef struct {
 	jmethodID onFrame;
 } Fields_iframecallback;
 
+// frames lent to Java at the same time; more are dropped until one comes back
+#define MAX_LEASES 3
+
+// for leasing frames to Java (UVCFrameLeases#onFrame)
+typedef struct {
+	jmethodID onFrame;
+} Fields_ileasecallback;
+
+// one frame Java may hold, with a direct ByteBuffer over it
+// allocated on its own, not from mFramePool: a lease still held when the preview
+// goes away is orphaned and freed by UVCPreview::releaseLease instead
+typedef struct {
+	uvc_frame_t *frame;
+	jobject buffer;		// global ref, direct ByteBuffer over frame->data
+	void *wrapped;		// frame->data when buffer was created
+	size_t wrappedBytes;
+	bool leased;
+	bool orphaned;
+} frame_lease_t;
+
 class UVCPreview {
 private:
 	uvc_device_handle_t *mDeviceHandle;
@@ -85,6 +105,14 @@ private:
 	Fields_iframecallback iframecallback_fields;
 	int mPixelFormat;
 	size_t callbackPixelBytes;
+// frames lent to Java without a copy
+	jobject mLeaseCallbackObj;
+	Fields_ileasecallback ileasecallback_fields;
+	frame_lease_t *mLeases[MAX_LEASES];
+	uint32_t mFrameSequence;
+	int acquire_lease();
+	void clear_leases(JNIEnv *env);
+	void do_lease_callback(JNIEnv *env, uvc_frame_t *frame);
 // improve performance by reducing memory allocation
 	pthread_mutex_t pool_mutex;
 	ObjectArray<uvc_frame_t *> mFramePool;
@@ -120,6 +148,8 @@ public:
 	int setPreviewSize(int width, int height, int min_fps, int max_fps, int mode, float bandwidth = 1.0f);
 	int setPreviewDisplay(ANativeWindow *preview_window);
 	int setFrameCallback(JNIEnv *env, jobject frame_callback_obj, int pixel_format);
+	int setFrameLeaseCallback(JNIEnv *env, jobject lease_callback_obj, int pixel_format);
+	static void releaseLease(JNIEnv *env, frame_lease_t *lease);
 	int startPreview();
 	int stopPreview();
 	inline const bool isCapturing() const;
@@ -276,6 +276,27 @@ static jint nativeSetFrameCallback(JNIEnv *env, jobject thiz,
 	RETURN(result, jint);
 }
 
+static jint nativeSetFrameLeaseCallback(JNIEnv *env, jobject thiz,
+	ID_TYPE id_camera, jobject jLeases, jint pixel_format) {
+
+	jint result = JNI_ERR;
+	ENTER();
+	UVCCamera *camera = reinterpret_cast<UVCCamera *>(id_camera);
+	if (LIKELY(camera)) {
+		jobject lease_callback_obj = env->NewGlobalRef(jLeases);
+		result = camera->setFrameLeaseCallback(env, lease_callback_obj, pixel_format);
+	}
+	RETURN(result, jint);
+}
+
+// takes the lease itself, not the camera: it may be released after the camera is gone
+static void nativeReleaseFrame(JNIEnv *env, jobject thiz, jlong id_lease) {
+	frame_lease_t *lease = reinterpret_cast<frame_lease_t *>(id_lease);
+	if (LIKELY(lease)) {
+		UVCPreview::releaseLease(env, lease);
+	}
+}
+
 static jint nativeSetCaptureDisplay(JNIEnv *env, jobject thiz,
 	ID_TYPE id_camera, jobject jSurface) {
 
@@ -2041,6 +2062,8 @@ static JNINativeMethod methods[] = {
 	{ "nativeStopPreview",				"(J)I", (void *) nativeStopPreview },
 	{ "nativeSetPreviewDisplay",		"(JLandroid/view/Surface;)I", (void *) nativeSetPreviewDisplay },
 	{ "nativeSetFrameCallback",			"(JLcom/jiangdg/uvc/IFrameCallback;I)I", (void *) nativeSetFrameCallback },
+	{ "nativeSetFrameLeaseCallback",	"(JLcom/jiangdg/uvc/UVCFrameLeases;I)I", (void *) nativeSetFrameLeaseCallback },
+	{ "nativeReleaseFrame",				"(J)V", (void *) nativeReleaseFrame },
 
 	{ "nativeSetCaptureDisplay",		"(JLandroid/view/Surface;)I", (void *) nativeSetCaptureDisplay },
 
@@ -0,0 +1,252 @@
+package com.jiangdg.uvc;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Descriptor parsing and the binary form of {@link UVCCapabilities}.
+ */
+public class UVCCapabilitiesTest {
+
+	private static final int FPS_30 = 333333, FPS_25 = 400000, FPS_20 = 500000, FPS_15 = 666666,
+			FPS_10 = 1000000, FPS_7_5 = 1333333, FPS_5 = 2000000;
+
+	/**
+	 * The descriptors of a Logitech C270 (046d:0825) laid out as it reports them, trimmed
+	 * to three frame sizes per format: video control, then the streaming interface with a
+	 * YUY2 format, an MJPEG format, still-image and color-matching descriptors, then
+	 * alternate settings and the microphone's audio interfaces.
+	 */
+	static byte[] c270() {
+		final Descriptors d = new Descriptors();
+		d.add(0x12, 0x01, 0x00, 0x02, 0xef, 0x02, 0x01, 0x40, 0x6d, 0x04, 0x25, 0x08,
+				0x12, 0x00, 0x00, 0x00, 0x02, 0x01);						// device
+		d.add(0x09, 0x02, 0x00, 0x00, 0x04, 0x01, 0x00, 0x80, 0xfa);		// configuration
+		d.add(0x08, 0x0b, 0x00, 0x02, 0x0e, 0x03, 0x00, 0x00);				// interface association
+		d.add(0x09, 0x04, 0x00, 0x00, 0x01, 0x0e, 0x01, 0x00, 0x00);		// video control
+		d.add(0x0d, 0x24, 0x01, 0x00, 0x01, 0xd8, 0x00, 0x80, 0xc3, 0xc9, 0x01, 0x01, 0x01);
+		d.add(0x12, 0x24, 0x02, 0x01, 0x01, 0x02, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
+				0x00, 0x00, 0x03, 0x0e, 0x00, 0x00);						// camera terminal
+		d.add(0x07, 0x05, 0x86, 0x03, 0x10, 0x00, 0x08);					// interrupt endpoint
+
+		d.add(0x09, 0x04, 0x01, 0x00, 0x00, 0x0e, 0x02, 0x00, 0x00);		// video streaming, alt 0
+		d.add(0x0f, 0x24, 0x01, 0x02, 0x00, 0x00, 0x81, 0x00, 0x03, 0x00, 0x00, 0x00,
+				0x01, 0x00, 0x00);										// input header
+		// Uncompressed YUY2, default frame 1
+		d.add(0x1b, 0x24, 0x04, 0x01, 0x03,
+				0x59, 0x55, 0x59, 0x32, 0x00, 0x00, 0x10, 0x00, 0x80, 0x00, 0x00, 0xaa, 0x00, 0x38, 0x9b, 0x71,
+				0x10, 0x01, 0x00, 0x00, 0x00, 0x00);
+		d.frame(0x05, 1, 640, 480, FPS_30, FPS_30, FPS_25, FPS_20, FPS_15, FPS_10, FPS_7_5, FPS_5);
+		d.frame(0x05, 2, 160, 120, FPS_30, FPS_30, FPS_15, FPS_5);
+		d.frame(0x05, 3, 1280, 960, FPS_7_5, FPS_7_5, FPS_5);
+		d.add(0x0f, 0x24, 0x03, 0x00, 0x03, 0x80, 0x02, 0xe0, 0x01, 0xa0, 0x00, 0x78, 0x00,
+				0x00, 0x00);											// still image frames
+		d.add(0x06, 0x24, 0x0d, 0x01, 0x01, 0x04);						// color matching
+		// MJPEG, default frame 1
+		d.add(0x0b, 0x24, 0x06, 0x02, 0x03, 0x01, 0x01, 0x00, 0x00, 0x00, 0x00);
+		d.frame(0x07, 1, 640, 480, FPS_30, FPS_30, FPS_15);
+		d.frame(0x07, 2, 1280, 720, FPS_30, FPS_30, FPS_20, FPS_10);
+		d.frame(0x07, 3, 1280, 960, FPS_30, FPS_30);
+		d.add(0x06, 0x24, 0x0d, 0x01, 0x01, 0x04);						// color matching
+		d.add(0x09, 0x04, 0x01, 0x01, 0x01, 0x0e, 0x02, 0x00, 0x00);		// alt 1
+		d.add(0x07, 0x05, 0x81, 0x05, 0xc0, 0x00, 0x01);					// isochronous endpoint
+		d.add(0x09, 0x04, 0x01, 0x02, 0x01, 0x0e, 0x02, 0x00, 0x00);		// alt 2
+		d.add(0x07, 0x05, 0x81, 0x05, 0x80, 0x01, 0x01);
+
+		d.add(0x09, 0x04, 0x02, 0x00, 0x00, 0x01, 0x01, 0x00, 0x00);		// audio control
+		d.add(0x09, 0x24, 0x01, 0x00, 0x01, 0x26, 0x00, 0x01, 0x03);
+		d.add(0x0c, 0x24, 0x02, 0x01, 0x01, 0x02, 0x00, 0x01, 0x00, 0x00, 0x00, 0x00);
+		// Feature unit: subtype 0x06, the same number as VS_FORMAT_MJPEG
+		d.add(0x09, 0x24, 0x06, 0x02, 0x01, 0x01, 0x03, 0x00, 0x00);
+		d.add(0x09, 0x24, 0x03, 0x03, 0x01, 0x01, 0x00, 0x02, 0x00);
+		d.add(0x09, 0x04, 0x03, 0x00, 0x00, 0x01, 0x02, 0x00, 0x00);		// audio streaming
+		d.add(0x09, 0x04, 0x03, 0x01, 0x01, 0x01, 0x02, 0x00, 0x00);
+		d.add(0x07, 0x24, 0x01, 0x03, 0x01, 0x01, 0x00);
+		d.add(0x0b, 0x24, 0x02, 0x01, 0x01, 0x02, 0x10, 0x01, 0x80, 0x3e, 0x00);
+		d.add(0x09, 0x05, 0x86, 0x05, 0x44, 0x00, 0x04, 0x00, 0x00);
+		return d.toByteArray();
+	}
+
+	@Test
+	public void readsC270FormatsSizesAndIntervals() {
+		final UVCCapabilities caps = UVCCapabilities.fromDescriptors(c270());
+		assertNotNull(caps);
+		assertEquals(2, caps.formats.length);
+
+		final UVCCapabilities.Format yuyv = caps.formats[0];
+		assertEquals(UVCCapabilities.FORMAT_UNCOMPRESSED, yuyv.type);
+		assertEquals(1, yuyv.index);
+		assertEquals(1, yuyv.defaultFrame);
+		assertEquals(3, yuyv.frames.length);
+		assertFrame(yuyv.frames[0], 640, 480, FPS_30, FPS_30, FPS_25, FPS_20, FPS_15, FPS_10, FPS_7_5, FPS_5);
+		assertFrame(yuyv.frames[1], 160, 120, FPS_30, FPS_30, FPS_15, FPS_5);
+		assertFrame(yuyv.frames[2], 1280, 960, FPS_7_5, FPS_7_5, FPS_5);
+
+		final UVCCapabilities.Format mjpeg = caps.formats[1];
+		assertEquals(UVCCapabilities.FORMAT_MJPEG, mjpeg.type);
+		assertEquals(2, mjpeg.index);
+		assertEquals(1, mjpeg.defaultFrame);
+		assertEquals(3, mjpeg.frames.length);
+		assertFrame(mjpeg.frames[0], 640, 480, FPS_30, FPS_30, FPS_15);
+		assertFrame(mjpeg.frames[1], 1280, 720, FPS_30, FPS_30, FPS_20, FPS_10);
+		assertFrame(mjpeg.frames[2], 1280, 960, FPS_30, FPS_30);
+
+		assertEquals(UVCCapabilities.checksum(c270()), caps.descriptorCrc);
+		assertEquals("{\"formats\":[{\"index\":1,\"type\":4,\"default\":1,\"size\":[\"640x480\",\"160x120\",\"1280x960\"]},"
+				+ "{\"index\":2,\"type\":6,\"default\":1,\"size\":[\"640x480\",\"1280x720\",\"1280x960\"]}]}",
+				caps.toJson());
+	}
+
+	@Test
+	public void readsContinuousIntervals() {
+		final Descriptors d = new Descriptors();
+		d.add(0x09, 0x04, 0x01, 0x00, 0x00, 0x0e, 0x02, 0x00, 0x00);
+		d.add(0x0b, 0x24, 0x06, 0x01, 0x01, 0x01, 0x01, 0x00, 0x00, 0x00, 0x00);
+		d.continuousFrame(1, 320, 240, FPS_30, FPS_30, FPS_5, 333334);
+		final UVCCapabilities.Frame f = UVCCapabilities.fromDescriptors(d.toByteArray()).formats[0].frames[0];
+		assertTrue(f.continuous);
+		assertArrayEquals(new int[]{FPS_30, FPS_5, 333334}, f.intervals);
+	}
+
+	@Test
+	public void noStreamingFormatsIsNull() {
+		final Descriptors d = new Descriptors();
+		d.add(0x09, 0x04, 0x00, 0x00, 0x01, 0x0e, 0x01, 0x00, 0x00);		// video control only
+		d.add(0x0d, 0x24, 0x01, 0x00, 0x01, 0xd8, 0x00, 0x80, 0xc3, 0xc9, 0x01, 0x01, 0x01);
+		assertNull(UVCCapabilities.fromDescriptors(d.toByteArray()));
+		assertNull(UVCCapabilities.fromDescriptors(new byte[0]));
+	}
+
+	@Test
+	public void stopsAtATruncatedDescriptor() {
+		final byte[] full = c270();
+		// Cut inside the second YUY2 frame: only the first one is whole
+		final int cut = 18 + 9 + 8 + 9 + 13 + 18 + 7 + 9 + 15 + 27 + (26 + 4 * 7) + 10;
+		final byte[] raw = new byte[cut];
+		System.arraycopy(full, 0, raw, 0, cut);
+		final UVCCapabilities caps = UVCCapabilities.fromDescriptors(raw);
+		assertEquals(1, caps.formats.length);
+		assertEquals(1, caps.formats[0].frames.length);
+		assertEquals(640, caps.formats[0].frames[0].width);
+	}
+
+	@Test
+	public void writeReadRoundTrip() throws IOException {
+		final UVCCapabilities caps = UVCCapabilities.fromDescriptors(c270());
+		caps.ctrlSupports = 0x20000aL;
+		caps.procSupports = 0x1f5fL;
+		caps.limits = new int[]{0, 255, 128, -64, 64, 0, 1, 2, 3};
+		caps.probeNanos = 123456789L;
+
+		final UVCCapabilities back = roundTrip(caps);
+		assertEquals(caps.descriptorCrc, back.descriptorCrc);
+		assertEquals(caps.probeNanos, back.getProbeNanos());
+		assertTrue(back.hasControls());
+		assertEquals(caps.ctrlSupports, back.ctrlSupports);
+		assertEquals(caps.procSupports, back.procSupports);
+		assertArrayEquals(caps.limits, back.limits);
+		assertEquals(caps.toJson(), back.toJson());
+		for (int i = 0; i < caps.formats.length; i++) {
+			final UVCCapabilities.Format format = caps.formats[i];
+			assertEquals(format.type, back.formats[i].type);
+			assertEquals(format.index, back.formats[i].index);
+			assertEquals(format.defaultFrame, back.formats[i].defaultFrame);
+			for (int j = 0; j < format.frames.length; j++) {
+				final UVCCapabilities.Frame f = format.frames[j];
+				final UVCCapabilities.Frame g = back.formats[i].frames[j];
+				assertEquals(f.continuous, g.continuous);
+				assertFrame(g, f.width, f.height, f.defaultInterval, f.intervals);
+			}
+		}
+	}
+
+	@Test
+	public void roundTripWithoutControls() throws IOException {
+		final UVCCapabilities back = roundTrip(UVCCapabilities.fromDescriptors(c270()));
+		assertFalse(back.hasControls());
+		assertEquals(2, back.formats.length);
+	}
+
+	private static UVCCapabilities roundTrip(final UVCCapabilities caps) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			caps.write(out);
+		}
+		final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		final UVCCapabilities back = UVCCapabilities.read(in);
+		assertEquals(-1, in.read());	// read consumes exactly what write produced
+		return back;
+	}
+
+	private static void assertFrame(final UVCCapabilities.Frame f, final int width, final int height,
+									final int defaultInterval, final int... intervals) {
+		assertEquals(width, f.width);
+		assertEquals(height, f.height);
+		assertEquals(defaultInterval, f.defaultInterval);
+		assertArrayEquals(intervals, f.intervals);
+	}
+
+	/** Builds a raw descriptor blob, little-endian as on the wire. */
+	static final class Descriptors {
+		private final ByteArrayOutputStream mOut = new ByteArrayOutputStream();
+
+		void add(final int... bytes) {
+			assertEquals("bLength", bytes.length, bytes[0]);
+			for (final int b : bytes) mOut.write(b);
+		}
+
+		// VS_FRAME_UNCOMPRESSED (0x05) or VS_FRAME_MJPEG (0x07) with discrete intervals
+		void frame(final int subtype, final int index, final int width, final int height,
+				   final int defaultInterval, final int... intervals) {
+			header(26 + 4 * intervals.length, subtype, index, width, height, defaultInterval);
+			mOut.write(intervals.length);
+			for (final int interval : intervals) u32(interval);
+		}
+
+		void continuousFrame(final int index, final int width, final int height,
+							 final int min, final int defaultInterval, final int max, final int step) {
+			header(38, 0x07, index, width, height, defaultInterval);
+			mOut.write(0);
+			u32(min);
+			u32(max);
+			u32(step);
+		}
+
+		private void header(final int length, final int subtype, final int index, final int width,
+							final int height, final int defaultInterval) {
+			mOut.write(length);
+			mOut.write(0x24);
+			mOut.write(subtype);
+			mOut.write(index);
+			mOut.write(0);					// bmCapabilities
+			u16(width);
+			u16(height);
+			final int frameBytes = width * height * 2;
+			u32(frameBytes * 8 * 5);		// dwMinBitRate
+			u32(frameBytes * 8 * 30);		// dwMaxBitRate
+			u32(frameBytes);				// dwMaxVideoFrameBufferSize
+			u32(defaultInterval);
+		}
+
+		private void u16(final int v) {
+			mOut.write(v);
+			mOut.write(v >> 8);
+		}
+
+		private void u32(final int v) {
+			u16(v);
+			u16(v >> 16);
+		}
+
+		byte[] toByteArray() {
+			return mOut.toByteArray();
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package com.jiangdg.uvc;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+/**
+ * Entries survive a save and load, and anything stale or damaged reads as a miss.
+ */
+public class UVCCapabilityCacheTest {
+
+	private static final int VENDOR = 0x046d, PRODUCT = 0x0825;
+	private static final String SERIAL = "9A4B2C10";
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private UVCCapabilities probed() {
+		final UVCCapabilities caps = UVCCapabilities.fromDescriptors(UVCCapabilitiesTest.c270());
+		caps.ctrlSupports = 0x20000aL;
+		caps.procSupports = 0x1f5fL;
+		caps.limits = new int[]{0, 255, 128, 0, 7, 4};
+		return caps;
+	}
+
+	@Test
+	public void savedEntryLoadsBack() throws IOException {
+		final UVCCapabilityCache cache = new UVCCapabilityCache(new File(folder.getRoot(), "caps"));
+		final UVCCapabilities caps = probed();
+		cache.save(VENDOR, PRODUCT, SERIAL, caps);
+
+		final UVCCapabilities back = new UVCCapabilityCache(new File(folder.getRoot(), "caps"))
+				.load(VENDOR, PRODUCT, SERIAL, caps.descriptorCrc);
+		assertNotNull(back);
+		assertEquals(caps.toJson(), back.toJson());
+		assertArrayEquals(caps.limits, back.limits);
+		assertEquals(caps.ctrlSupports, back.ctrlSupports);
+	}
+
+	@Test
+	public void missingEntryIsNull() {
+		final UVCCapabilityCache cache = new UVCCapabilityCache(folder.getRoot());
+		assertNull(cache.load(VENDOR, PRODUCT, SERIAL, 1L));
+	}
+
+	@Test
+	public void descriptorCrcMismatchIsNull() {
+		final UVCCapabilityCache cache = new UVCCapabilityCache(folder.getRoot());
+		final UVCCapabilities caps = probed();
+		cache.save(VENDOR, PRODUCT, SERIAL, caps);
+		// Same ids, different firmware
+		assertNull(cache.load(VENDOR, PRODUCT, SERIAL, caps.descriptorCrc ^ 1));
+		// and another camera of the model is a separate entry
+		assertNull(cache.load(VENDOR, PRODUCT, "0000", caps.descriptorCrc));
+		assertNotNull(cache.load(VENDOR, PRODUCT, SERIAL, caps.descriptorCrc));
+	}
+
+	@Test
+	public void truncatedFileIsNullAndDropped() throws IOException {
+		final UVCCapabilityCache cache = new UVCCapabilityCache(folder.getRoot());
+		final UVCCapabilities caps = probed();
+		cache.save(VENDOR, PRODUCT, SERIAL, caps);
+		final File file = onlyFile();
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(raf.length() - 5);
+		}
+		assertNull(cache.load(VENDOR, PRODUCT, SERIAL, caps.descriptorCrc));
+		assertFalse(file.exists());
+	}
+
+	@Test
+	public void foreignFileIsNull() throws IOException {
+		final UVCCapabilityCache cache = new UVCCapabilityCache(folder.getRoot());
+		final UVCCapabilities caps = probed();
+		cache.save(VENDOR, PRODUCT, SERIAL, caps);
+		try (RandomAccessFile raf = new RandomAccessFile(onlyFile(), "rw")) {
+			raf.writeInt(0x12345678);	// not the magic
+		}
+		assertNull(cache.load(VENDOR, PRODUCT, SERIAL, caps.descriptorCrc));
+	}
+
+	@Test
+	public void serialIsSanitizedIntoTheFileName() {
+		final UVCCapabilityCache cache = new UVCCapabilityCache(folder.getRoot());
+		final UVCCapabilities caps = probed();
+		cache.save(VENDOR, PRODUCT, "../x y", caps);
+		assertEquals("046d_0825_xy.uvccaps", onlyFile().getName());
+		assertNotNull(cache.load(VENDOR, PRODUCT, "../x y", caps.descriptorCrc));
+
+		cache.save(VENDOR, PRODUCT, null, caps);
+		assertNotNull(cache.load(VENDOR, PRODUCT, null, caps.descriptorCrc));
+		assertTrue(new File(folder.getRoot(), "046d_0825_noserial.uvccaps").isFile());
+	}
+
+	private File onlyFile() {
+		final File[] files = folder.getRoot().listFiles();
+		assertNotNull(files);
+		assertEquals(1, files.length);
+		return files[0];
+	}
+}